@@ -207,4 +207,26 @@ public interface OperationContext extends Serializable {
      * Returns the current max number of items per batch.
      */
     int getMaxItemsPerPage();
+
+    /**
+     * Sets the number of batches that are fetched in the background while
+     * iterating over a list.
+     * 
+     * By default, the next batch is fetched when the current batch has been
+     * consumed. With a positive value, up to this number of batches are
+     * requested in advance and held in memory until they are consumed. The
+     * batches are requested one at a time. Outstanding requests are cancelled
+     * when the end of the list is reached or the iterator is closed, and they
+     * stop when an abandoned iterator has been garbage collected.
+     * 
+     * @param prefetchPages
+     *            number of batches to fetch in advance ({@code 0} turns
+     *            prefetching off, must not be negative)
+     */
+    void setPrefetchPages(int prefetchPages);
+
+    /**
+     * Returns the number of batches that are fetched in the background.
+     */
+    int getPrefetchPages();
 }
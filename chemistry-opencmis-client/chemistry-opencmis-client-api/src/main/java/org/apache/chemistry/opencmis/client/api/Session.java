@@ -445,6 +445,51 @@ public interface Session extends Serializable {
      */
     CmisObject getObject(String objectId, OperationContext context);
 
+    /**
+     * Returns multiple CMIS objects. Objects that are in the session cache are
+     * taken from the cache. The other objects are loaded from the repository
+     * with as few calls as possible and put into the cache.
+     * <p>
+     * This method might return stale objects. See
+     * {@link #getObject(String, OperationContext)}.
+     * 
+     * @param objectIds
+     *            the object IDs
+     * 
+     * @return the found objects in the order of the given IDs, IDs of objects
+     *         that don't exist are not in the map
+     * 
+     * @see #getObjects(Collection, OperationContext)
+     * 
+     * @cmis 1.0
+     */
+    Map<String, CmisObject> getObjects(Collection<String> objectIds);
+
+    /**
+     * Returns multiple CMIS objects. Objects that are in the session cache are
+     * taken from the cache, unless the given {@link OperationContext} has
+     * caching turned off. The other objects are loaded from the repository with
+     * as few calls as possible and put into the cache.
+     * <p>
+     * If the repository supports queries, the objects are loaded with queries
+     * on {@code cmis:objectId}. Objects that cannot be loaded this way are
+     * loaded with parallel {@code getObject} calls.
+     * <p>
+     * This method might return stale objects. See
+     * {@link #getObject(String, OperationContext)}.
+     * 
+     * @param objectIds
+     *            the object IDs
+     * @param context
+     *            the {@link OperationContext} to use
+     * 
+     * @return the found objects in the order of the given IDs, IDs of objects
+     *         that don't exist are not in the map
+     * 
+     * @cmis 1.0
+     */
+    Map<String, CmisObject> getObjects(Collection<String> objectIds, OperationContext context);
+
     /**
      * Returns a CMIS object from the session cache. If the object is not in the
      * cache or the cache is turned off per default {@link OperationContext}, it
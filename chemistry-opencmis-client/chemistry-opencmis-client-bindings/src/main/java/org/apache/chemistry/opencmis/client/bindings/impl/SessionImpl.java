@@ -20,31 +20,40 @@ package org.apache.chemistry.opencmis.client.bindings.impl;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpInvokerSettings;
 
 /**
  * CMIS binding session implementation.
+ * <p>
+ * The session values are published as an immutable snapshot. Lookups read the
+ * current snapshot without locking, {@code put} and {@code remove} copy the
+ * snapshot and replace it. The read and write locks of this session only
+ * coordinate compound operations of the callers.
  */
 public class SessionImpl implements BindingSession {
 
     private static final long serialVersionUID = 1L;
 
     private final String id;
-    private final Map<String, Object> data;
+    private volatile Map<String, Object> data;
 
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
+    private transient volatile HttpInvokerSettingsHolder httpInvokerSettings;
+
     /**
      * Constructor.
      */
     public SessionImpl() {
         id = UUID.randomUUID().toString();
-        data = new HashMap<String, Object>();
+        data = Collections.emptyMap();
     }
 
     @Override
@@ -59,14 +68,7 @@ public class SessionImpl implements BindingSession {
 
     @Override
     public Object get(String key) {
-        Object value = null;
-
-        lock.readLock().lock();
-        try {
-            value = data.get(key);
-        } finally {
-            lock.readLock().unlock();
-        }
+        Object value = data.get(key);
 
         if (value instanceof TransientWrapper) {
             return ((TransientWrapper) value).getObject();
@@ -118,7 +120,9 @@ public class SessionImpl implements BindingSession {
     public void put(String key, Serializable obj) {
         lock.writeLock().lock();
         try {
-            data.put(key, obj);
+            Map<String, Object> newData = new HashMap<String, Object>(data);
+            newData.put(key, obj);
+            data = Collections.unmodifiableMap(newData);
         } finally {
             lock.writeLock().unlock();
         }
@@ -133,7 +137,9 @@ public class SessionImpl implements BindingSession {
 
         lock.writeLock().lock();
         try {
-            data.put(key, value);
+            Map<String, Object> newData = new HashMap<String, Object>(data);
+            newData.put(key, value);
+            data = Collections.unmodifiableMap(newData);
         } finally {
             lock.writeLock().unlock();
         }
@@ -143,12 +149,32 @@ public class SessionImpl implements BindingSession {
     public void remove(String key) {
         lock.writeLock().lock();
         try {
-            data.remove(key);
+            if (data.containsKey(key)) {
+                Map<String, Object> newData = new HashMap<String, Object>(data);
+                newData.remove(key);
+                data = Collections.unmodifiableMap(newData);
+            }
         } finally {
             lock.writeLock().unlock();
         }
     }
 
+    /**
+     * Returns the HTTP invoker settings derived from the current session
+     * values. The settings are resolved once and resolved again after a
+     * session value has changed.
+     */
+    public HttpInvokerSettings getHttpInvokerSettings() {
+        Map<String, Object> snapshot = data;
+        HttpInvokerSettingsHolder holder = httpInvokerSettings;
+        if (holder == null || holder.snapshot != snapshot) {
+            holder = new HttpInvokerSettingsHolder(snapshot, new HttpInvokerSettings(this));
+            httpInvokerSettings = holder;
+        }
+
+        return holder.settings;
+    }
+
     @Override
     public void readLock() {
         lock.readLock().lock();
@@ -169,6 +195,16 @@ public class SessionImpl implements BindingSession {
         lock.writeLock().unlock();
     }
 
+    private static class HttpInvokerSettingsHolder {
+        private final Map<String, Object> snapshot;
+        private final HttpInvokerSettings settings;
+
+        public HttpInvokerSettingsHolder(Map<String, Object> snapshot, HttpInvokerSettings settings) {
+            this.snapshot = snapshot;
+            this.settings = settings;
+        }
+    }
+
     @Override
     public String toString() {
         return "Session " + id + ": " + data.toString();
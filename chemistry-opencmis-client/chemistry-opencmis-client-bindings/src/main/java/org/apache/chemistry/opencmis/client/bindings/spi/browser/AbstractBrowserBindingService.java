@@ -18,6 +18,7 @@
  */
 package org.apache.chemistry.opencmis.client.bindings.spi.browser;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
@@ -36,6 +37,8 @@ import org.apache.chemistry.opencmis.client.bindings.spi.http.Response;
 import org.apache.chemistry.opencmis.commons.PropertyIds;
 import org.apache.chemistry.opencmis.commons.SessionParameter;
 import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderList;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
 import org.apache.chemistry.opencmis.commons.data.PropertyData;
 import org.apache.chemistry.opencmis.commons.data.PropertyString;
 import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
@@ -64,12 +67,15 @@ import org.apache.chemistry.opencmis.commons.impl.Constants;
 import org.apache.chemistry.opencmis.commons.impl.IOUtils;
 import org.apache.chemistry.opencmis.commons.impl.JSONConstants;
 import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
+import org.apache.chemistry.opencmis.commons.impl.JSONStreamConverter;
+import org.apache.chemistry.opencmis.commons.impl.TypeCache;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.RepositoryInfoBrowserBindingImpl;
 import org.apache.chemistry.opencmis.commons.impl.json.JSONObject;
 import org.apache.chemistry.opencmis.commons.impl.json.parser.ContainerFactory;
 import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONParseException;
 import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONParser;
+import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONReader;
 import org.apache.chemistry.opencmis.commons.spi.Holder;
 
 /**
@@ -92,6 +98,7 @@ public abstract class AbstractBrowserBindingService implements LinkAccess {
     private BindingSession session;
     private boolean succint;
     private DateTimeFormat dateTimeFormat;
+    private boolean streamingParser;
 
     /**
      * Sets the current session.
@@ -105,6 +112,10 @@ public abstract class AbstractBrowserBindingService implements LinkAccess {
         Object dateTimeFormatObj = session.get(SessionParameter.BROWSER_DATETIME_FORMAT);
         this.dateTimeFormat = dateTimeFormatObj == null ? DateTimeFormat.SIMPLE : DateTimeFormat
                 .fromValue(dateTimeFormatObj.toString().toLowerCase(Locale.ENGLISH));
+
+        Object streamingParserObj = session.get(SessionParameter.BROWSER_STREAMING_PARSER);
+        this.streamingParser = streamingParserObj == null ? false : Boolean.parseBoolean(streamingParserObj
+                .toString());
     }
 
     /**
@@ -397,6 +408,78 @@ public abstract class AbstractBrowserBindingService implements LinkAccess {
         return obj;
     }
 
+    /**
+     * Parses an object list from an input stream.
+     */
+    protected ObjectList parseObjectList(InputStream stream, String charset, final TypeCache typeCache,
+            final boolean isQueryResult) {
+        if (!streamingParser) {
+            return JSONConverter.convertObjectList(parseObject(stream, charset), typeCache, isQueryResult);
+        }
+
+        return parseStreaming(stream, charset, new StreamConverter<ObjectList>() {
+            @Override
+            public ObjectList convert(JSONReader reader) throws IOException, JSONParseException {
+                return JSONStreamConverter.convertObjectList(reader, typeCache, isQueryResult);
+            }
+        });
+    }
+
+    /**
+     * Parses an object in folder list from an input stream.
+     */
+    protected ObjectInFolderList parseObjectInFolderList(InputStream stream, String charset,
+            final TypeCache typeCache) {
+        if (!streamingParser) {
+            return JSONConverter.convertObjectInFolderList(parseObject(stream, charset), typeCache);
+        }
+
+        return parseStreaming(stream, charset, new StreamConverter<ObjectInFolderList>() {
+            @Override
+            public ObjectInFolderList convert(JSONReader reader) throws IOException, JSONParseException {
+                return JSONStreamConverter.convertObjectInFolderList(reader, typeCache);
+            }
+        });
+    }
+
+    /**
+     * Converts the JSON text of an input stream while it is parsed.
+     */
+    private <T> T parseStreaming(InputStream stream, String charset, StreamConverter<T> converter) {
+        InputStreamReader reader = null;
+
+        T result = null;
+        try {
+            reader = new InputStreamReader(stream, charset);
+            JSONReader jsonReader = new JSONReader(reader);
+            result = converter.convert(jsonReader);
+            if (jsonReader.peek() != JSONReader.END_DOCUMENT) {
+                throw new CmisConnectionException("Unexpected object!");
+            }
+        } catch (JSONParseException e) {
+            throw new CmisConnectionException("Parsing exception: " + e.getMessage(), e);
+        } catch (CmisBaseException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CmisConnectionException("Parsing exception!", e);
+        } finally {
+            IOUtils.consumeAndClose(reader);
+            if (reader == null) {
+                IOUtils.closeQuietly(stream);
+            }
+        }
+
+        if (result == null) {
+            throw new CmisConnectionException("Unexpected object!");
+        }
+
+        return result;
+    }
+
+    private interface StreamConverter<T> {
+        T convert(JSONReader reader) throws IOException, JSONParseException;
+    }
+
     /**
      * Performs a GET on an URL, checks the response code and returns the
      * result.
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.spi.browser;
+
+import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
+import org.apache.chemistry.opencmis.commons.spi.ObjectService;
+
+/**
+ * Browser Binding SPI whose object service is an
+ * {@link AsyncObjectServiceImpl}.
+ * <p>
+ * Set the session parameter {@code SessionParameter.BINDING_SPI_CLASS} to
+ * this class and {@code SessionParameter.HTTP_INVOKER_CLASS} to an
+ * asynchronous HTTP invoker such as {@code AsyncOkHttpHttpInvoker}. The
+ * object service of the binding can then be cast to
+ * {@link AsyncObjectServiceImpl}.
+ */
+public class AsyncCmisBrowserBindingSpi extends CmisBrowserBindingSpi {
+
+    private final ObjectService objectService;
+
+    /**
+     * Constructor.
+     */
+    public AsyncCmisBrowserBindingSpi(BindingSession session) {
+        super(session);
+        objectService = new AsyncObjectServiceImpl(session);
+    }
+
+    @Override
+    public ObjectService getObjectService() {
+        return objectService;
+    }
+}
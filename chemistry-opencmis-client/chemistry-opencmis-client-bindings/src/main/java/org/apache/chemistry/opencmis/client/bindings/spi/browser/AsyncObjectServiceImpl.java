@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.spi.browser;
+
+import java.math.BigInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.AsyncHttpInvoker;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpInvoker;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.Response;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.data.ExtensionsData;
+import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+
+/**
+ * Object Service Browser Binding client that can also fetch content streams
+ * asynchronously.
+ * <p>
+ * If the HTTP invoker of the session is an {@link AsyncHttpInvoker}, no
+ * thread is blocked while the content request is in flight. Otherwise the
+ * request runs in the common fork join pool.
+ */
+public class AsyncObjectServiceImpl extends ObjectServiceImpl {
+
+    /**
+     * Constructor.
+     */
+    public AsyncObjectServiceImpl(BindingSession session) {
+        super(session);
+    }
+
+    /**
+     * Gets the content stream or a rendition of an object asynchronously.
+     * <p>
+     * The returned future completes when the response headers have been
+     * received, the content is read from the stream of the returned content
+     * stream. Cancelling the future cancels the request. The repository URLs
+     * are looked up before the request is sent, that may block if they are
+     * not cached yet.
+     * 
+     * @see #getContentStream(String, String, String, BigInteger, BigInteger,
+     *      ExtensionsData)
+     */
+    public CompletableFuture<ContentStream> getContentStreamAsync(final String repositoryId, final String objectId,
+            final String streamId, final BigInteger offset, final BigInteger length, final ExtensionsData extension) {
+        HttpInvoker invoker = getHttpInvoker();
+        if (!(invoker instanceof AsyncHttpInvoker)) {
+            return CompletableFuture.supplyAsync(new Supplier<ContentStream>() {
+                @Override
+                public ContentStream get() {
+                    return getContentStream(repositoryId, objectId, streamId, offset, length, extension);
+                }
+            });
+        }
+
+        UrlBuilder url;
+        try {
+            url = getContentUrl(repositoryId, objectId, streamId);
+        } catch (RuntimeException e) {
+            CompletableFuture<ContentStream> result = new CompletableFuture<ContentStream>();
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        final CompletableFuture<Response> response = ((AsyncHttpInvoker) invoker).invokeGETAsync(url, getSession(),
+                offset, length);
+        final CompletableFuture<ContentStream> result = response.thenApply(new Function<Response, ContentStream>() {
+            @Override
+            public ContentStream apply(Response resp) {
+                return createContentStream(resp);
+            }
+        });
+
+        // pass a cancellation on to the request
+        result.whenComplete(new BiConsumer<ContentStream, Throwable>() {
+            @Override
+            public void accept(ContentStream cs, Throwable t) {
+                if (result.isCancelled()) {
+                    response.cancel(false);
+                }
+            }
+        });
+
+        return result;
+    }
+}
@@ -78,8 +78,7 @@ public class DiscoveryServiceImpl extends AbstractBrowserBindingService implemen
 
         TypeCache typeCache = new ClientTypeCacheImpl(repositoryId, this);
 
-        Map<String, Object> json = parseObject(resp.getStream(), resp.getCharset());
-        return JSONConverter.convertObjectList(json, typeCache, true);
+        return parseObjectList(resp.getStream(), resp.getCharset(), typeCache, true);
     }
 
     @Override
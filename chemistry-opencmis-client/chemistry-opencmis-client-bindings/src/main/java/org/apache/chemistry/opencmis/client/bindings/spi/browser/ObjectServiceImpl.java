@@ -361,12 +361,28 @@ public class ObjectServiceImpl extends AbstractBrowserBindingService implements
             BigInteger length, ExtensionsData extension) {
 
         // build URL
-        UrlBuilder url = getObjectUrl(repositoryId, objectId, Constants.SELECTOR_CONTENT);
-        url.addParameter(Constants.PARAM_STREAM_ID, streamId);
+        UrlBuilder url = getContentUrl(repositoryId, objectId, streamId);
 
         // get the content
         Response resp = getHttpInvoker().invokeGET(url, getSession(), offset, length);
 
+        return createContentStream(resp);
+    }
+
+    /**
+     * Builds the URL of the content stream or a rendition of an object.
+     */
+    protected UrlBuilder getContentUrl(String repositoryId, String objectId, String streamId) {
+        UrlBuilder url = getObjectUrl(repositoryId, objectId, Constants.SELECTOR_CONTENT);
+        url.addParameter(Constants.PARAM_STREAM_ID, streamId);
+
+        return url;
+    }
+
+    /**
+     * Creates the content stream object from a content response.
+     */
+    protected ContentStream createContentStream(Response resp) {
         // check response code
         if ((resp.getResponseCode() != 200) && (resp.getResponseCode() != 206)) {
             throw convertStatusCode(resp.getResponseCode(), resp.getResponseMessage(), resp.getErrorContent(), null);
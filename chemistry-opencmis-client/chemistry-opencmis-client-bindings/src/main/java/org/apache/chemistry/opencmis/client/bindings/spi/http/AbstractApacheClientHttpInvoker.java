@@ -20,7 +20,6 @@ package org.apache.chemistry.opencmis.client.bindings.spi.http;
 
 import static org.apache.chemistry.opencmis.commons.impl.CollectionsHelper.isNotEmpty;
 
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -38,12 +37,12 @@ import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLSocket;
 
 import org.apache.chemistry.opencmis.client.bindings.impl.ClientVersion;
-import org.apache.chemistry.opencmis.client.bindings.impl.CmisBindingsHelper;
 import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
 import org.apache.chemistry.opencmis.commons.SessionParameter;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.impl.IOUtils;
+import org.apache.chemistry.opencmis.commons.impl.PooledBufferedOutputStream;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
 import org.apache.chemistry.opencmis.commons.spi.AuthenticationProvider;
 import org.apache.http.Header;
@@ -153,8 +152,10 @@ public abstract class AbstractApacheClientHttpInvoker implements HttpInvoker {
                 }
             }
 
+            HttpInvokerSettings settings = HttpInvokerSettings.get(session);
+
             // authenticate
-            AuthenticationProvider authProvider = CmisBindingsHelper.getAuthenticationProvider(session);
+            AuthenticationProvider authProvider = settings.getAuthenticationProvider();
             if (authProvider != null) {
                 Map<String, List<String>> httpHeaders = authProvider.getHTTPHeaders(url.toString());
                 if (httpHeaders != null) {
@@ -194,21 +195,18 @@ public abstract class AbstractApacheClientHttpInvoker implements HttpInvoker {
             }
 
             // compression
-            Object compression = session.get(SessionParameter.COMPRESSION);
-            if ((compression != null) && Boolean.parseBoolean(compression.toString())) {
+            if (settings.isCompression()) {
                 request.setHeader("Accept-Encoding", "gzip,deflate");
             }
 
             // locale
-            if (session.get(CmisBindingsHelper.ACCEPT_LANGUAGE) instanceof String) {
-                request.setHeader("Accept-Language", session.get(CmisBindingsHelper.ACCEPT_LANGUAGE).toString());
+            if (settings.getAcceptLanguage() != null) {
+                request.setHeader("Accept-Language", settings.getAcceptLanguage());
             }
 
             // send data
             if (writer != null) {
-                Object clientCompression = session.get(SessionParameter.CLIENT_COMPRESSION);
-                final boolean clientCompressionFlag = (clientCompression != null)
-                        && Boolean.parseBoolean(clientCompression.toString());
+                final boolean clientCompressionFlag = settings.isClientCompression();
                 if (clientCompressionFlag) {
                     request.setHeader("Content-Encoding", "gzip");
                 }
@@ -249,15 +247,17 @@ public abstract class AbstractApacheClientHttpInvoker implements HttpInvoker {
                             connOut = outstream;
                         }
 
-                        OutputStream out = new BufferedOutputStream(connOut, BUFFER_SIZE);
+                        PooledBufferedOutputStream out = new PooledBufferedOutputStream(connOut, BUFFER_SIZE);
                         try {
                             writer.write(out);
+                            out.flush();
                         } catch (IOException ioe) {
                             throw ioe;
                         } catch (Exception e) {
                             throw new IOException(e);
+                        } finally {
+                            out.release();
                         }
-                        out.flush();
 
                         if (connOut instanceof GZIPOutputStream) {
                             ((GZIPOutputStream) connOut).finish();
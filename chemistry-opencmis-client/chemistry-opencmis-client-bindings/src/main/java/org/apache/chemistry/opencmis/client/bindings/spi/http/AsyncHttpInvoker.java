@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.spi.http;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
+import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+
+/**
+ * HTTP Invoker Interface with non-blocking entry points.
+ * <p>
+ * The returned futures complete when the response headers have been received.
+ * The response body is read by the thread that consumes the {@link Response}.
+ * Connection failures complete the future exceptionally with a
+ * {@link org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException}.
+ */
+public interface AsyncHttpInvoker extends HttpInvoker {
+
+    /**
+     * Executes a HTTP GET request asynchronously.
+     */
+    CompletableFuture<Response> invokeGETAsync(UrlBuilder url, BindingSession session);
+
+    /**
+     * Executes a HTTP GET request asynchronously.
+     */
+    CompletableFuture<Response> invokeGETAsync(UrlBuilder url, BindingSession session, BigInteger offset,
+            BigInteger length);
+
+    /**
+     * Executes a HTTP POST request asynchronously.
+     */
+    CompletableFuture<Response> invokePOSTAsync(UrlBuilder url, String contentType, Output writer,
+            BindingSession session);
+
+    /**
+     * Executes a HTTP PUT request asynchronously.
+     */
+    CompletableFuture<Response> invokePUTAsync(UrlBuilder url, String contentType, Map<String, String> headers,
+            Output writer, BindingSession session);
+
+    /**
+     * Executes a HTTP DELETE request asynchronously.
+     */
+    CompletableFuture<Response> invokeDELETEAsync(UrlBuilder url, BindingSession session);
+}
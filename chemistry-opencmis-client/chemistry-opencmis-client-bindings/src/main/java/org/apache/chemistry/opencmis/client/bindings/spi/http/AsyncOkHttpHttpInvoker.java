@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.spi.http;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+
+/**
+ * HTTP invoker based on OkHttp with the non-blocking entry points of
+ * {@link AsyncHttpInvoker}.
+ * <p>
+ * Asynchronous requests don't block a thread while they are in flight. They
+ * share the HTTP client, the dispatcher and the connection pool with the
+ * synchronous requests of the same session. Cancelling a returned future
+ * cancels the HTTP call.
+ */
+public class AsyncOkHttpHttpInvoker extends OkHttpHttpInvoker implements AsyncHttpInvoker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncOkHttpHttpInvoker.class);
+
+    public AsyncOkHttpHttpInvoker() {
+    }
+
+    @Override
+    public CompletableFuture<Response> invokeGETAsync(UrlBuilder url, BindingSession session) {
+        return invokeAsync(url, "GET", null, null, null, session, null, null);
+    }
+
+    @Override
+    public CompletableFuture<Response> invokeGETAsync(UrlBuilder url, BindingSession session, BigInteger offset,
+            BigInteger length) {
+        return invokeAsync(url, "GET", null, null, null, session, offset, length);
+    }
+
+    @Override
+    public CompletableFuture<Response> invokePOSTAsync(UrlBuilder url, String contentType, Output writer,
+            BindingSession session) {
+        return invokeAsync(url, "POST", contentType, null, writer, session, null, null);
+    }
+
+    @Override
+    public CompletableFuture<Response> invokePUTAsync(UrlBuilder url, String contentType,
+            Map<String, String> headers, Output writer, BindingSession session) {
+        return invokeAsync(url, "PUT", contentType, headers, writer, session, null, null);
+    }
+
+    @Override
+    public CompletableFuture<Response> invokeDELETEAsync(UrlBuilder url, BindingSession session) {
+        return invokeAsync(url, "DELETE", null, null, null, session, null, null);
+    }
+
+    private CompletableFuture<Response> invokeAsync(final UrlBuilder url, final String method,
+            final String contentType, Map<String, String> headers, final Output writer, final BindingSession session,
+            BigInteger offset, BigInteger length) {
+        final CompletableFuture<Response> result = new CompletableFuture<Response>();
+
+        try {
+            // log before connect
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Session {}: {} {} (async)", session.getSessionId(), method, url);
+            }
+
+            final HttpInvokerSettings settings = HttpInvokerSettings.get(session);
+            Request request = createRequest(url, method, contentType, headers, writer, settings, offset, length);
+
+            final Call call = getHttpClient(session).newCall(request);
+            result.whenComplete(new BiConsumer<Response, Throwable>() {
+                @Override
+                public void accept(Response response, Throwable t) {
+                    if (result.isCancelled()) {
+                        call.cancel();
+                    }
+                }
+            });
+
+            call.enqueue(new Callback() {
+                @Override
+                public void onResponse(Call call, okhttp3.Response okResponse) {
+                    try {
+                        if (!result.complete(createResponse(okResponse, url, method, session,
+                                settings.getAuthenticationProvider()))) {
+                            // the future has been cancelled, nobody reads
+                            // the response
+                            okResponse.close();
+                        }
+                    } catch (Exception e) {
+                        okResponse.close();
+                        result.completeExceptionally(new CmisConnectionException(url.toString(), okResponse.code(),
+                                e));
+                    }
+                }
+
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    result.completeExceptionally(new CmisConnectionException(url.toString(), -1, e));
+                }
+            });
+        } catch (Exception e) {
+            result.completeExceptionally(new CmisConnectionException(url.toString(), -1, e));
+        }
+
+        return result;
+    }
+}
@@ -20,7 +20,6 @@ package org.apache.chemistry.opencmis.client.bindings.spi.http;
 
 import static org.apache.chemistry.opencmis.commons.impl.CollectionsHelper.isNotEmpty;
 
-import java.io.BufferedOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigInteger;
@@ -34,11 +33,9 @@ import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLSocketFactory;
 
-import org.apache.chemistry.opencmis.client.bindings.impl.ClientVersion;
-import org.apache.chemistry.opencmis.client.bindings.impl.CmisBindingsHelper;
 import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
-import org.apache.chemistry.opencmis.commons.SessionParameter;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+import org.apache.chemistry.opencmis.commons.impl.PooledBufferedOutputStream;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
 import org.apache.chemistry.opencmis.commons.spi.AuthenticationProvider;
 import org.slf4j.Logger;
@@ -97,16 +94,17 @@ public class DefaultHttpInvoker implements HttpInvoker {
             conn.setAllowUserInteraction(false);
             conn.setUseCaches(false);
 
-            conn.setRequestProperty("User-Agent",
-                    (String) session.get(SessionParameter.USER_AGENT, ClientVersion.OPENCMIS_USER_AGENT));
+            HttpInvokerSettings settings = HttpInvokerSettings.get(session);
+
+            conn.setRequestProperty("User-Agent", settings.getUserAgent());
 
             // timeouts
-            int connectTimeout = session.get(SessionParameter.CONNECT_TIMEOUT, -1);
+            int connectTimeout = settings.getConnectTimeout();
             if (connectTimeout >= 0) {
                 conn.setConnectTimeout(connectTimeout);
             }
 
-            int readTimeout = session.get(SessionParameter.READ_TIMEOUT, -1);
+            int readTimeout = settings.getReadTimeout();
             if (readTimeout >= 0) {
                 conn.setReadTimeout(readTimeout);
             }
@@ -123,7 +121,7 @@ public class DefaultHttpInvoker implements HttpInvoker {
             }
 
             // authenticate
-            AuthenticationProvider authProvider = CmisBindingsHelper.getAuthenticationProvider(session);
+            AuthenticationProvider authProvider = settings.getAuthenticationProvider();
             if (authProvider != null) {
                 Map<String, List<String>> httpHeaders = authProvider.getHTTPHeaders(url.toString());
                 if (httpHeaders != null) {
@@ -175,14 +173,13 @@ public class DefaultHttpInvoker implements HttpInvoker {
             }
 
             // compression
-            Object compression = session.get(SessionParameter.COMPRESSION);
-            if (compression != null && Boolean.parseBoolean(compression.toString())) {
+            if (settings.isCompression()) {
                 conn.setRequestProperty("Accept-Encoding", "gzip,deflate");
             }
 
             // locale
-            if (session.get(CmisBindingsHelper.ACCEPT_LANGUAGE) instanceof String) {
-                conn.setRequestProperty("Accept-Language", session.get(CmisBindingsHelper.ACCEPT_LANGUAGE).toString());
+            if (settings.getAcceptLanguage() != null) {
+                conn.setRequestProperty("Accept-Language", settings.getAcceptLanguage());
             }
 
             // send data
@@ -191,15 +188,14 @@ public class DefaultHttpInvoker implements HttpInvoker {
 
                 OutputStream connOut = null;
 
-                Object clientCompression = session.get(SessionParameter.CLIENT_COMPRESSION);
-                if ((clientCompression != null) && Boolean.parseBoolean(clientCompression.toString())) {
+                if (settings.isClientCompression()) {
                     conn.setRequestProperty("Content-Encoding", "gzip");
                     connOut = new GZIPOutputStream(conn.getOutputStream(), 4096);
                 } else {
                     connOut = conn.getOutputStream();
                 }
 
-                OutputStream out = new BufferedOutputStream(connOut, BUFFER_SIZE);
+                OutputStream out = new PooledBufferedOutputStream(connOut, BUFFER_SIZE);
                 writer.write(out);
                 out.close();
             }
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.spi.http;
+
+import org.apache.chemistry.opencmis.client.bindings.impl.ClientVersion;
+import org.apache.chemistry.opencmis.client.bindings.impl.CmisBindingsHelper;
+import org.apache.chemistry.opencmis.client.bindings.impl.SessionImpl;
+import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.spi.AuthenticationProvider;
+
+/**
+ * Session values that HTTP invokers need for every request, resolved once.
+ */
+public class HttpInvokerSettings {
+
+    private final String userAgent;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final boolean compression;
+    private final boolean clientCompression;
+    private final String acceptLanguage;
+    private final AuthenticationProvider authenticationProvider;
+
+    /**
+     * Resolves the settings from the current session values.
+     */
+    public HttpInvokerSettings(BindingSession session) {
+        userAgent = (String) session.get(SessionParameter.USER_AGENT, ClientVersion.OPENCMIS_USER_AGENT);
+        connectTimeout = session.get(SessionParameter.CONNECT_TIMEOUT, -1);
+        readTimeout = session.get(SessionParameter.READ_TIMEOUT, -1);
+        compression = isTrue(session.get(SessionParameter.COMPRESSION));
+        clientCompression = isTrue(session.get(SessionParameter.CLIENT_COMPRESSION));
+        Object language = session.get(CmisBindingsHelper.ACCEPT_LANGUAGE);
+        acceptLanguage = language instanceof String ? (String) language : null;
+        authenticationProvider = CmisBindingsHelper.getAuthenticationProvider(session);
+    }
+
+    /**
+     * Returns the settings of a session. The settings of a
+     * {@link SessionImpl} are cached until a session value changes, the
+     * settings of other session implementations are resolved on each call.
+     */
+    public static HttpInvokerSettings get(BindingSession session) {
+        if (session instanceof SessionImpl) {
+            return ((SessionImpl) session).getHttpInvokerSettings();
+        }
+
+        return new HttpInvokerSettings(session);
+    }
+
+    private static boolean isTrue(Object value) {
+        return value != null && Boolean.parseBoolean(value.toString());
+    }
+
+    /**
+     * Returns the user agent.
+     */
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    /**
+     * Returns the connect timeout in milliseconds or -1 if not set.
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Returns the read timeout in milliseconds or -1 if not set.
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Returns whether the client should accept compressed responses.
+     */
+    public boolean isCompression() {
+        return compression;
+    }
+
+    /**
+     * Returns whether the client should compress request bodies.
+     */
+    public boolean isClientCompression() {
+        return clientCompression;
+    }
+
+    /**
+     * Returns the value of the Accept-Language header or {@code null} if not
+     * set.
+     */
+    public String getAcceptLanguage() {
+        return acceptLanguage;
+    }
+
+    /**
+     * Returns the authentication provider or {@code null} if not set.
+     */
+    public AuthenticationProvider getAuthenticationProvider() {
+        return authenticationProvider;
+    }
+}
@@ -32,7 +32,6 @@ import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.X509TrustManager;
 
-import org.apache.chemistry.opencmis.client.bindings.impl.ClientVersion;
 import org.apache.chemistry.opencmis.client.bindings.impl.CmisBindingsHelper;
 import org.apache.chemistry.opencmis.client.bindings.spi.AbstractAuthenticationProvider;
 import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
@@ -44,18 +43,36 @@ import org.apache.chemistry.opencmis.commons.spi.AuthenticationProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okio.BufferedSink;
 
+/**
+ * HTTP invoker based on OkHttp.
+ * <p>
+ * OkHttp negotiates HTTP/2 with servers that support it and multiplexes
+ * concurrent requests to the same host over one connection. The number of
+ * concurrent asynchronous requests per host and the connection pool can be
+ * configured with the session parameters
+ * {@link SessionParameter#HTTP_MAX_REQUESTS_PER_HOST},
+ * {@link SessionParameter#HTTP_MAX_IDLE_CONNECTIONS} and
+ * {@link SessionParameter#HTTP_KEEP_ALIVE}.
+ * 
+ * @see AsyncOkHttpHttpInvoker
+ */
 public class OkHttpHttpInvoker implements HttpInvoker {
 
     private static final Logger LOG = LoggerFactory.getLogger(OkHttpHttpInvoker.class);
 
     protected static final String HTTP_CLIENT = "org.apache.chemistry.opencmis.client.bindings.spi.http.OkHttpHttpInvoker.httpClient";
 
+    private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    private static final int DEFAULT_KEEP_ALIVE = 5 * 60 * 1000;
+
     public OkHttpHttpInvoker() {
     }
 
@@ -95,161 +112,186 @@ public class OkHttpHttpInvoker implements HttpInvoker {
                 LOG.debug("Session {}: {} {}", session.getSessionId(), method, url);
             }
 
-            // get HTTP client object from session
-            OkHttpClient httpclient = (OkHttpClient) session.get(HTTP_CLIENT);
-            if (httpclient == null) {
-                session.writeLock();
-                try {
-                    httpclient = (OkHttpClient) session.get(HTTP_CLIENT);
-                    if (httpclient == null) {
-                        httpclient = createClientBuilder(session).build();
-                        session.put(HTTP_CLIENT, httpclient, true);
-                    }
-                } finally {
-                    session.writeUnlock();
+            HttpInvokerSettings settings = HttpInvokerSettings.get(session);
+            Request request = createRequest(url, method, contentType, headers, writer, settings, offset, length);
+
+            okhttp3.Response okResponse = getHttpClient(session).newCall(request).execute();
+            respCode = okResponse.code();
+
+            return createResponse(okResponse, url, method, session, settings.getAuthenticationProvider());
+        } catch (Exception e) {
+            throw new CmisConnectionException(url.toString(), respCode, e);
+        }
+    }
+
+    /**
+     * Gets the HTTP client object from the session or creates it.
+     */
+    protected OkHttpClient getHttpClient(BindingSession session) {
+        OkHttpClient httpclient = (OkHttpClient) session.get(HTTP_CLIENT);
+        if (httpclient == null) {
+            session.writeLock();
+            try {
+                httpclient = (OkHttpClient) session.get(HTTP_CLIENT);
+                if (httpclient == null) {
+                    httpclient = createClientBuilder(session).build();
+                    session.put(HTTP_CLIENT, httpclient, true);
                 }
+            } finally {
+                session.writeUnlock();
             }
+        }
 
-            // set up the request
-            Request.Builder requestBuilder = new Request.Builder().url(url.toString());
-
-            // prepare the request body
-            RequestBody body = null;
-            if (writer != null) {
-                body = new RequestBody() {
-
-                    @Override
-                    public void writeTo(BufferedSink sink) throws IOException {
-                        try {
-                            OutputStream out = sink.outputStream();
-                            writer.write(out);
-                            out.flush();
-                        } catch (IOException ioe) {
-                            throw ioe;
-                        } catch (Exception e) {
-                            throw new IOException("Could not send stream to server: " + e.toString(), e);
-                        }
+        return httpclient;
+    }
+
+    /**
+     * Creates the OkHttp request.
+     */
+    protected Request createRequest(UrlBuilder url, String method, final String contentType,
+            Map<String, String> headers, final Output writer, HttpInvokerSettings settings, BigInteger offset,
+            BigInteger length) {
+        // set up the request
+        Request.Builder requestBuilder = new Request.Builder().url(url.toString());
+
+        // prepare the request body
+        RequestBody body = null;
+        if (writer != null) {
+            body = new RequestBody() {
+
+                @Override
+                public void writeTo(BufferedSink sink) throws IOException {
+                    try {
+                        OutputStream out = sink.outputStream();
+                        writer.write(out);
+                        out.flush();
+                    } catch (IOException ioe) {
+                        throw ioe;
+                    } catch (Exception e) {
+                        throw new IOException("Could not send stream to server: " + e.toString(), e);
                     }
+                }
 
-                    @Override
-                    public MediaType contentType() {
-                        if (contentType != null) {
-                            return MediaType.parse(contentType);
-                        } else {
-                            return MediaType.parse("application/octet-stream");
-                        }
+                @Override
+                public MediaType contentType() {
+                    if (contentType != null) {
+                        return MediaType.parse(contentType);
+                    } else {
+                        return MediaType.parse("application/octet-stream");
                     }
-                };
-            }
+                }
+            };
+        }
 
-            if ("GET".equals(method)) {
-                requestBuilder.get();
-            } else if ("POST".equals(method)) {
-                requestBuilder.post(body);
-            } else if ("PUT".equals(method)) {
-                requestBuilder.put(body);
-            } else if ("DELETE".equals(method)) {
-                requestBuilder.delete();
-            } else {
-                throw new CmisRuntimeException("Invalid HTTP method!");
-            }
+        if ("GET".equals(method)) {
+            requestBuilder.get();
+        } else if ("POST".equals(method)) {
+            requestBuilder.post(body);
+        } else if ("PUT".equals(method)) {
+            requestBuilder.put(body);
+        } else if ("DELETE".equals(method)) {
+            requestBuilder.delete();
+        } else {
+            throw new CmisRuntimeException("Invalid HTTP method!");
+        }
 
-            // set content type
-            if (contentType != null) {
-                requestBuilder.header("Content-Type", contentType);
-            }
-            // set other headers
-            if (headers != null) {
-                for (Map.Entry<String, String> header : headers.entrySet()) {
-                    requestBuilder.addHeader(header.getKey(), header.getValue());
-                }
+        // set content type
+        if (contentType != null) {
+            requestBuilder.header("Content-Type", contentType);
+        }
+        // set other headers
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                requestBuilder.addHeader(header.getKey(), header.getValue());
             }
+        }
 
-            requestBuilder.header("User-Agent",
-                    (String) session.get(SessionParameter.USER_AGENT, ClientVersion.OPENCMIS_USER_AGENT));
-
-            // authenticate
-            AuthenticationProvider authProvider = CmisBindingsHelper.getAuthenticationProvider(session);
-            if (authProvider != null) {
-                Map<String, List<String>> httpHeaders = authProvider.getHTTPHeaders(url.toString());
-                if (httpHeaders != null) {
-                    for (Map.Entry<String, List<String>> header : httpHeaders.entrySet()) {
-                        if (header.getKey() != null && isNotEmpty(header.getValue())) {
-                            String key = header.getKey();
-                            if (key.equalsIgnoreCase("user-agent")) {
-                                requestBuilder.header("User-Agent", header.getValue().get(0));
-                            } else {
-                                for (String value : header.getValue()) {
-                                    if (value != null) {
-                                        requestBuilder.addHeader(key, value);
-                                    }
+        requestBuilder.header("User-Agent", settings.getUserAgent());
+
+        // authenticate
+        AuthenticationProvider authProvider = settings.getAuthenticationProvider();
+        if (authProvider != null) {
+            Map<String, List<String>> httpHeaders = authProvider.getHTTPHeaders(url.toString());
+            if (httpHeaders != null) {
+                for (Map.Entry<String, List<String>> header : httpHeaders.entrySet()) {
+                    if (header.getKey() != null && isNotEmpty(header.getValue())) {
+                        String key = header.getKey();
+                        if (key.equalsIgnoreCase("user-agent")) {
+                            requestBuilder.header("User-Agent", header.getValue().get(0));
+                        } else {
+                            for (String value : header.getValue()) {
+                                if (value != null) {
+                                    requestBuilder.addHeader(key, value);
                                 }
                             }
                         }
                     }
                 }
             }
+        }
 
-            // range
-            if (offset != null || length != null) {
-                StringBuilder sb = new StringBuilder("bytes=");
-
-                if ((offset == null) || (offset.signum() == -1)) {
-                    offset = BigInteger.ZERO;
-                }
-
-                sb.append(offset.toString());
-                sb.append('-');
-
-                if (length != null && length.signum() == 1) {
-                    sb.append(offset.add(length.subtract(BigInteger.ONE)).toString());
-                }
+        // range
+        if (offset != null || length != null) {
+            StringBuilder sb = new StringBuilder("bytes=");
 
-                requestBuilder.header("Range", sb.toString());
+            if ((offset == null) || (offset.signum() == -1)) {
+                offset = BigInteger.ZERO;
             }
 
-            // compression
-            Object compression = session.get(SessionParameter.COMPRESSION);
-            if (compression != null && Boolean.parseBoolean(compression.toString())) {
-                requestBuilder.header("Accept-Encoding", "gzip,deflate");
-            }
+            sb.append(offset.toString());
+            sb.append('-');
 
-            // locale
-            if (session.get(CmisBindingsHelper.ACCEPT_LANGUAGE) instanceof String) {
-                requestBuilder.header("Accept-Language", session.get(CmisBindingsHelper.ACCEPT_LANGUAGE).toString());
+            if (length != null && length.signum() == 1) {
+                sb.append(offset.add(length.subtract(BigInteger.ONE)).toString());
             }
 
-            okhttp3.Response okResponse = httpclient.newCall(requestBuilder.build()).execute();
+            requestBuilder.header("Range", sb.toString());
+        }
 
-            // get stream, if present
-            respCode = okResponse.code();
-            InputStream inputStream = null;
-            InputStream errorStream = null;
+        // compression
+        if (settings.isCompression()) {
+            requestBuilder.header("Accept-Encoding", "gzip,deflate");
+        }
 
-            if (respCode == 200 || respCode == 201 || respCode == 203 || respCode == 206) {
-                inputStream = okResponse.body().byteStream();
-            } else {
-                errorStream = okResponse.body().byteStream();
-            }
+        // locale
+        if (settings.getAcceptLanguage() != null) {
+            requestBuilder.header("Accept-Language", settings.getAcceptLanguage());
+        }
 
-            Map<String, List<String>> responseHeaders = okResponse.headers().toMultimap();
+        return requestBuilder.build();
+    }
 
-            // log after connect
-            if (LOG.isTraceEnabled()) {
-                LOG.trace("Session {}: {} {} > Headers: {}", session.getSessionId(), method, url,
-                        responseHeaders.toString());
-            }
+    /**
+     * Creates the response object from the OkHttp response.
+     */
+    protected Response createResponse(okhttp3.Response okResponse, UrlBuilder url, String method,
+            BindingSession session, AuthenticationProvider authProvider) {
+        // get stream, if present
+        int respCode = okResponse.code();
+        InputStream inputStream = null;
+        InputStream errorStream = null;
+
+        if (respCode == 200 || respCode == 201 || respCode == 203 || respCode == 206) {
+            inputStream = okResponse.body().byteStream();
+        } else {
+            errorStream = okResponse.body().byteStream();
+        }
 
-            // forward response HTTP headers
-            if (authProvider != null) {
-                authProvider.putResponseHeaders(url.toString(), respCode, responseHeaders);
-            }
+        Map<String, List<String>> responseHeaders = okResponse.headers().toMultimap();
 
-            // get the response
-            return new Response(respCode, okResponse.message(), responseHeaders, inputStream, errorStream);
-        } catch (Exception e) {
-            throw new CmisConnectionException(url.toString(), respCode, e);
+        // log after connect
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Session {}: {} {} > Headers: {}", session.getSessionId(), method, url,
+                    responseHeaders.toString());
         }
+
+        // forward response HTTP headers
+        if (authProvider != null) {
+            authProvider.putResponseHeaders(url.toString(), respCode, responseHeaders);
+        }
+
+        // get the response
+        return new Response(respCode, okResponse.message(), responseHeaders, inputStream, errorStream);
     }
 
     /**
@@ -278,6 +320,23 @@ public class OkHttpHttpInvoker implements HttpInvoker {
             clientBuilder.readTimeout(readTimeout, TimeUnit.MILLISECONDS);
         }
 
+        // connection pool
+        int maxIdleConnections = session.get(SessionParameter.HTTP_MAX_IDLE_CONNECTIONS, -1);
+        int keepAlive = session.get(SessionParameter.HTTP_KEEP_ALIVE, -1);
+        if (maxIdleConnections >= 0 || keepAlive >= 0) {
+            clientBuilder.connectionPool(new ConnectionPool(maxIdleConnections >= 0 ? maxIdleConnections
+                    : DEFAULT_MAX_IDLE_CONNECTIONS, keepAlive >= 0 ? keepAlive : DEFAULT_KEEP_ALIVE,
+                    TimeUnit.MILLISECONDS));
+        }
+
+        int maxRequestsPerHost = session.get(SessionParameter.HTTP_MAX_REQUESTS_PER_HOST, -1);
+        if (maxRequestsPerHost > 0) {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+            dispatcher.setMaxRequests(Math.max(maxRequestsPerHost, dispatcher.getMaxRequests()));
+            clientBuilder.dispatcher(dispatcher);
+        }
+
         AuthenticationProvider authProvider = CmisBindingsHelper.getAuthenticationProvider(session);
         if (authProvider != null) {
             SSLSocketFactory sf = authProvider.getSSLSocketFactory();
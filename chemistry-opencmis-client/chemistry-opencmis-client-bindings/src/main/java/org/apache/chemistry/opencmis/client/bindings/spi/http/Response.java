@@ -20,7 +20,6 @@ package org.apache.chemistry.opencmis.client.bindings.spi.http;
 
 import static org.apache.chemistry.opencmis.commons.impl.CollectionsHelper.isNullOrEmpty;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -35,13 +34,16 @@ import java.util.zip.InflaterInputStream;
 
 import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
 import org.apache.chemistry.opencmis.commons.impl.Base64;
+import org.apache.chemistry.opencmis.commons.impl.BufferPool;
 import org.apache.chemistry.opencmis.commons.impl.IOUtils;
+import org.apache.chemistry.opencmis.commons.impl.PooledBufferedInputStream;
 
 /**
  * HTTP Response.
  */
 public class Response {
     private static final int MAX_ERROR_LENGTH = 128 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
 
     private final int responseCode;
     private final String responseMessage;
@@ -89,7 +91,7 @@ public class Response {
                 if (contentTypeLower.startsWith("text/") || contentTypeLower.endsWith("+xml")
                         || contentTypeLower.startsWith("application/xml")
                         || contentTypeLower.startsWith("application/json")) {
-                    errorStream = new BufferedInputStream(errorStream, 64 * 1024);
+                    errorStream = new PooledBufferedInputStream(errorStream, BUFFER_SIZE);
                     StringBuilder sb = new StringBuilder(4096);
 
                     try {
@@ -97,9 +99,9 @@ public class Response {
                         if (encoding != null) {
                             String encLower = encoding.trim().toLowerCase(Locale.ENGLISH);
                             if (encLower.equals("gzip") && !isGZIP) {
-                                errorStream = new GZIPInputStream(errorStream, 64 * 1024);
+                                errorStream = new PooledGZIPInputStream(errorStream);
                             } else if (encLower.equals("deflate")) {
-                                errorStream = new InflaterInputStream(errorStream, new Inflater(true), 64 * 1024);
+                                errorStream = new PooledInflaterInputStream(errorStream);
                             }
                         }
 
@@ -142,7 +144,7 @@ public class Response {
         if (stream == null || BigInteger.ZERO.equals(length) || responseCode == 204) {
             hasResponseStream = false;
         } else {
-            stream = new BufferedInputStream(stream, 64 * 1024);
+            stream = new PooledBufferedInputStream(stream, BUFFER_SIZE);
             try {
                 hasResponseStream = IOUtils.checkForBytes(stream);
             } catch (IOException ioe) {
@@ -157,7 +159,7 @@ public class Response {
                         // if the stream is gzip encoded, decode it
                         length = null;
                         try {
-                            stream = new GZIPInputStream(stream, 64 * 1024);
+                            stream = new PooledGZIPInputStream(stream);
                         } catch (IOException e) {
                             errorContent = e.getMessage();
                             stream = null;
@@ -166,7 +168,7 @@ public class Response {
                     } else if (encLower.equals("deflate")) {
                         // if the stream is deflate encoded, decode it
                         length = null;
-                        stream = new InflaterInputStream(stream, new Inflater(true), 64 * 1024);
+                        stream = new PooledInflaterInputStream(stream);
                     }
                 }
 
@@ -257,4 +259,55 @@ public class Response {
     public String getErrorContent() {
         return errorContent;
     }
-}
\ No newline at end of file
+
+    /**
+     * GZIP input stream that takes its buffer from the {@link BufferPool}.
+     */
+    private static class PooledGZIPInputStream extends GZIPInputStream {
+
+        private byte[] pooledBuffer;
+
+        public PooledGZIPInputStream(InputStream in) throws IOException {
+            super(in, 1);
+            pooledBuffer = BufferPool.acquire(BUFFER_SIZE);
+            buf = pooledBuffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                byte[] buffer = pooledBuffer;
+                pooledBuffer = null;
+                BufferPool.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * Deflate input stream that takes its buffer from the {@link BufferPool}.
+     */
+    private static class PooledInflaterInputStream extends InflaterInputStream {
+
+        private byte[] pooledBuffer;
+
+        public PooledInflaterInputStream(InputStream in) {
+            super(in, new Inflater(true), 1);
+            pooledBuffer = BufferPool.acquire(BUFFER_SIZE);
+            buf = pooledBuffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+                inf.end();
+            } finally {
+                byte[] buffer = pooledBuffer;
+                pooledBuffer = null;
+                BufferPool.release(buffer);
+            }
+        }
+    }
+}
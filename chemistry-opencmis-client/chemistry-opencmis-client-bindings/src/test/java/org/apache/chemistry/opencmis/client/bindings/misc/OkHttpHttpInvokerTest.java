@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.misc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.chemistry.opencmis.client.bindings.impl.SessionImpl;
+import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
+import org.apache.chemistry.opencmis.client.bindings.spi.browser.AsyncObjectServiceImpl;
+import org.apache.chemistry.opencmis.client.bindings.spi.browser.RepositoryUrlCache;
+import org.apache.chemistry.opencmis.client.bindings.spi.browser.SpiSessionParameter;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.AsyncOkHttpHttpInvoker;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.Response;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+import org.apache.chemistry.opencmis.commons.impl.IOUtils;
+import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class OkHttpHttpInvokerTest {
+
+    private HttpServer server;
+    private String url;
+    private CountDownLatch release;
+
+    @Before
+    public void setUp() throws IOException {
+        release = new CountDownLatch(1);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if (exchange.getRequestURI().getPath().startsWith("/slow")) {
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                byte[] body = exchange.getRequestURI().getPath().getBytes(IOUtils.UTF8);
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    public void testAsyncGet() throws Exception {
+        SessionImpl session = new SessionImpl();
+        session.put(SessionParameter.HTTP_MAX_REQUESTS_PER_HOST, "2");
+        session.put(SessionParameter.HTTP_MAX_IDLE_CONNECTIONS, "2");
+
+        AsyncOkHttpHttpInvoker invoker = new AsyncOkHttpHttpInvoker();
+
+        List<CompletableFuture<Response>> futures = new ArrayList<CompletableFuture<Response>>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(invoker.invokeGETAsync(new UrlBuilder(url + "/object" + i), session));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            Response response = futures.get(i).get(10, TimeUnit.SECONDS);
+            assertEquals(200, response.getResponseCode());
+            assertEquals("/object" + i, IOUtils.readAllLines(response.getStream()).trim());
+        }
+    }
+
+    @Test
+    public void testAsyncCancel() throws Exception {
+        SessionImpl session = new SessionImpl();
+        TestInvoker invoker = new TestInvoker();
+
+        CompletableFuture<Response> future = invoker.invokeGETAsync(new UrlBuilder(url + "/slow"), session);
+        for (int i = 0; i < 100 && invoker.getRunningCalls(session) == 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(1, invoker.getRunningCalls(session));
+
+        // cancelling the future must cancel the call
+        assertTrue(future.cancel(true));
+        for (int i = 0; i < 100 && invoker.getRunningCalls(session) > 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, invoker.getRunningCalls(session));
+    }
+
+    @Test
+    public void testAsyncContentStream() throws Exception {
+        RepositoryUrlCache repositoryUrls = new RepositoryUrlCache();
+        repositoryUrls.addRepository("repo", url + "/repo", url + "/root");
+
+        SessionImpl session = new SessionImpl();
+        session.put(SessionParameter.HTTP_INVOKER_CLASS, AsyncOkHttpHttpInvoker.class.getName());
+        session.put(SpiSessionParameter.REPOSITORY_URL_CACHE, repositoryUrls);
+
+        ContentStream content = new AsyncObjectServiceImpl(session).getContentStreamAsync("repo", "doc", null,
+                null, null, null).get(10, TimeUnit.SECONDS);
+        assertEquals("/root", IOUtils.readAllLines(content.getStream()).trim());
+    }
+
+    @Test
+    public void testAsyncConnectionFailure() throws Exception {
+        server.stop(0);
+
+        try {
+            new AsyncOkHttpHttpInvoker().invokeGETAsync(new UrlBuilder(url + "/object"), new SessionImpl())
+                    .get(10, TimeUnit.SECONDS);
+            fail("Connection must fail!");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CmisConnectionException);
+        }
+    }
+
+    private static class TestInvoker extends AsyncOkHttpHttpInvoker {
+        public int getRunningCalls(BindingSession session) {
+            return getHttpClient(session).dispatcher().runningCallsCount();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.misc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.chemistry.opencmis.client.bindings.impl.ClientVersion;
+import org.apache.chemistry.opencmis.client.bindings.impl.SessionImpl;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpInvokerSettings;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.junit.Test;
+
+public class SessionImplTest {
+
+    @Test
+    public void testPutAndRemove() {
+        SessionImpl session = new SessionImpl();
+
+        session.put("a", "1");
+        session.put("b", Integer.valueOf(2));
+        session.put("c", new Object(), true);
+
+        assertEquals("1", session.get("a"));
+        assertEquals(2, session.get("b", 0));
+        assertTrue(session.get("c") != null);
+        assertEquals(3, session.getKeys().size());
+
+        session.remove("a");
+        session.remove("x");
+        assertNull(session.get("a"));
+        assertEquals("default", session.get("a", "default"));
+        assertEquals(2, session.getKeys().size());
+    }
+
+    @Test
+    public void testHttpInvokerSettings() {
+        SessionImpl session = new SessionImpl();
+
+        HttpInvokerSettings settings = HttpInvokerSettings.get(session);
+        assertEquals(ClientVersion.OPENCMIS_USER_AGENT, settings.getUserAgent());
+        assertEquals(-1, settings.getReadTimeout());
+        assertFalse(settings.isCompression());
+        assertSame(settings, HttpInvokerSettings.get(session));
+
+        session.put(SessionParameter.READ_TIMEOUT, "5000");
+        session.put(SessionParameter.COMPRESSION, "true");
+
+        HttpInvokerSettings newSettings = HttpInvokerSettings.get(session);
+        assertNotSame(settings, newSettings);
+        assertEquals(5000, newSettings.getReadTimeout());
+        assertTrue(newSettings.isCompression());
+        assertSame(newSettings, HttpInvokerSettings.get(session));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        SessionImpl session = new SessionImpl();
+        session.put("a", "1");
+        session.put("b", new Object(), true);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(buffer);
+        out.writeObject(session);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        SessionImpl session2 = (SessionImpl) in.readObject();
+        in.close();
+
+        assertEquals(session.getSessionId(), session2.getSessionId());
+        assertEquals("1", session2.get("a"));
+        assertNull(session2.get("b"));
+        assertEquals(ClientVersion.OPENCMIS_USER_AGENT, HttpInvokerSettings.get(session2).getUserAgent());
+    }
+}
@@ -229,7 +229,8 @@ public class FolderImpl extends AbstractFilableCmisObject implements Folder {
         final ObjectFactory objectFactory = getSession().getObjectFactory();
         final OperationContext ctxt = new OperationContextImpl(context);
 
-        return new CollectionIterable<Document>(new AbstractPageFetcher<Document>(ctxt.getMaxItemsPerPage()) {
+        return new CollectionIterable<Document>(new AbstractPageFetcher<Document>(ctxt.getMaxItemsPerPage(),
+                ctxt.getPrefetchPages()) {
 
             @Override
             protected AbstractPageFetcher.Page<Document> fetchPage(long skipCount) {
@@ -274,7 +275,8 @@ public class FolderImpl extends AbstractFilableCmisObject implements Folder {
         final ObjectFactory objectFactory = getSession().getObjectFactory();
         final OperationContext ctxt = new OperationContextImpl(context);
 
-        return new CollectionIterable<CmisObject>(new AbstractPageFetcher<CmisObject>(ctxt.getMaxItemsPerPage()) {
+        return new CollectionIterable<CmisObject>(new AbstractPageFetcher<CmisObject>(ctxt.getMaxItemsPerPage(),
+                ctxt.getPrefetchPages()) {
 
             @Override
             protected AbstractPageFetcher.Page<CmisObject> fetchPage(long skipCount) {
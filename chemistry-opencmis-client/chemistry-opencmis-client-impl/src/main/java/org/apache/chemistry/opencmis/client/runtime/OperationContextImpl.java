@@ -49,6 +49,7 @@ public class OperationContextImpl implements OperationContext, Serializable {
     private boolean cacheEnabled;
     private String cacheKey;
     private int maxItemsPerPage;
+    private int prefetchPages;
 
     /**
      * Default constructor.
@@ -87,6 +88,7 @@ public class OperationContextImpl implements OperationContext, Serializable {
         generateCacheKey();
 
         setMaxItemsPerPage(source.getMaxItemsPerPage());
+        setPrefetchPages(source.getPrefetchPages());
     }
 
     /**
@@ -413,4 +415,18 @@ public class OperationContextImpl implements OperationContext, Serializable {
 
         this.maxItemsPerPage = maxItemsPerPage;
     }
+
+    @Override
+    public final int getPrefetchPages() {
+        return prefetchPages;
+    }
+
+    @Override
+    public final void setPrefetchPages(int prefetchPages) {
+        if (prefetchPages < 0) {
+            throw new IllegalArgumentException("prefetchPages must be >= 0!");
+        }
+
+        this.prefetchPages = prefetchPages;
+    }
 }
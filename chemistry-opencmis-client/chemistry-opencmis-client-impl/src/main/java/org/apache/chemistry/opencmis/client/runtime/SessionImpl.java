@@ -27,10 +27,20 @@ import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.chemistry.opencmis.client.api.ChangeEvent;
@@ -56,6 +66,7 @@ import org.apache.chemistry.opencmis.client.runtime.cache.Cache;
 import org.apache.chemistry.opencmis.client.runtime.cache.CacheImpl;
 import org.apache.chemistry.opencmis.client.runtime.repository.ObjectFactoryImpl;
 import org.apache.chemistry.opencmis.client.runtime.util.AbstractPageFetcher;
+import org.apache.chemistry.opencmis.client.runtime.util.CallCoalescer;
 import org.apache.chemistry.opencmis.client.runtime.util.CollectionIterable;
 import org.apache.chemistry.opencmis.client.runtime.util.TreeImpl;
 import org.apache.chemistry.opencmis.client.util.OperationContextUtils;
@@ -70,13 +81,17 @@ import org.apache.chemistry.opencmis.commons.data.FailedToDeleteData;
 import org.apache.chemistry.opencmis.commons.data.ObjectData;
 import org.apache.chemistry.opencmis.commons.data.ObjectList;
 import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.chemistry.opencmis.commons.data.RepositoryCapabilities;
 import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
+import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
 import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
 import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionContainer;
 import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionList;
 import org.apache.chemistry.opencmis.commons.enums.AclPropagation;
 import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
 import org.apache.chemistry.opencmis.commons.enums.BindingType;
+import org.apache.chemistry.opencmis.commons.enums.CapabilityQuery;
+import org.apache.chemistry.opencmis.commons.enums.Cardinality;
 import org.apache.chemistry.opencmis.commons.enums.CmisVersion;
 import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
 import org.apache.chemistry.opencmis.commons.enums.RelationshipDirection;
@@ -91,8 +106,10 @@ import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.impl.ClassLoaderUtil;
 import org.apache.chemistry.opencmis.commons.impl.Constants;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.BulkUpdateObjectIdAndChangeTokenImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectDataImpl;
 import org.apache.chemistry.opencmis.commons.spi.AclService;
 import org.apache.chemistry.opencmis.commons.spi.AuthenticationProvider;
+import org.apache.chemistry.opencmis.commons.spi.BindingsObjectFactory;
 import org.apache.chemistry.opencmis.commons.spi.CmisBinding;
 import org.apache.chemistry.opencmis.commons.spi.DiscoveryService;
 import org.apache.chemistry.opencmis.commons.spi.ExtendedAclService;
@@ -102,6 +119,8 @@ import org.apache.chemistry.opencmis.commons.spi.Holder;
 import org.apache.chemistry.opencmis.commons.spi.NavigationService;
 import org.apache.chemistry.opencmis.commons.spi.RelationshipService;
 import org.apache.chemistry.opencmis.commons.spi.RepositoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Persistent model session.
@@ -111,6 +130,9 @@ public class SessionImpl implements Session {
     private static final OperationContext DEFAULT_CONTEXT = new OperationContextImpl(null, false, true, false,
             IncludeRelationships.NONE, null, true, null, true, 100);
 
+    private static final int GET_OBJECTS_QUERY_SIZE = 100;
+    private static final int GET_OBJECTS_MAX_QUEUED = 1000;
+
     private static final Set<Updatability> CREATE_UPDATABILITY = EnumSet.noneOf(Updatability.class);
     private static final Set<Updatability> CREATE_AND_CHECKOUT_UPDATABILITY = EnumSet.noneOf(Updatability.class);
 
@@ -122,7 +144,8 @@ public class SessionImpl implements Session {
         CREATE_AND_CHECKOUT_UPDATABILITY.add(Updatability.WHENCHECKEDOUT);
     }
 
-    // private static Logger log = LoggerFactory.getLogger(SessionImpl.class);
+    private static final Logger LOG = LoggerFactory.getLogger(SessionImpl.class);
+
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     private transient LinkedHashMap<String, ObjectType> objectTypeCache;
 
@@ -162,6 +185,18 @@ public class SessionImpl implements Session {
     private Cache cache;
     private final boolean cachePathOmit;
 
+    /*
+     * Running getObject calls, shared by concurrent cache misses
+     * (serializable)
+     */
+    private final CallCoalescer<CmisObject> objectCalls = new CallCoalescer<CmisObject>();
+
+    /*
+     * Threads of getObjects(), created on first use (not serializable)
+     */
+    private final int getObjectsThreads;
+    private transient ThreadPoolExecutor getObjectsExecutor;
+
     /*
      * Type cache.
      */
@@ -195,6 +230,20 @@ public class SessionImpl implements Session {
         this.typeDefCache = typeDefCache;
 
         cachePathOmit = Boolean.parseBoolean(parameters.get(SessionParameter.CACHE_PATH_OMIT));
+        getObjectsThreads = determineGetObjectsThreads(parameters);
+    }
+
+    private int determineGetObjectsThreads(Map<String, String> parameters) {
+        String threads = parameters.get(SessionParameter.GET_OBJECTS_THREADS);
+        if (threads == null) {
+            return SessionParameterDefaults.GET_OBJECTS_THREADS;
+        }
+
+        try {
+            return Math.max(1, Integer.parseInt(threads.trim()));
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Invalid number of getObjects threads: " + threads, nfe);
+        }
     }
 
     private Locale determineLocale(Map<String, String> parameters) {
@@ -309,7 +358,8 @@ public class SessionImpl implements Session {
         final ObjectFactory of = getObjectFactory();
         final OperationContext ctxt = new OperationContextImpl(context);
 
-        return new CollectionIterable<Document>(new AbstractPageFetcher<Document>(ctxt.getMaxItemsPerPage()) {
+        return new CollectionIterable<Document>(new AbstractPageFetcher<Document>(ctxt.getMaxItemsPerPage(),
+                ctxt.getPrefetchPages()) {
 
             @Override
             protected AbstractPageFetcher.Page<Document> fetchPage(long skipCount) {
@@ -514,20 +564,35 @@ public class SessionImpl implements Session {
     }
 
     @Override
-    public CmisObject getObject(String objectId, OperationContext context) {
+    public CmisObject getObject(final String objectId, final OperationContext context) {
         checkObjectId(objectId);
         checkContext(context);
 
-        CmisObject result = null;
+        if (!context.isCacheEnabled()) {
+            return fetchObject(objectId, context);
+        }
 
         // ask the cache first
-        if (context.isCacheEnabled()) {
-            result = cache.getById(objectId, context.getCacheKey());
-            if (result != null) {
-                return result;
-            }
+        CmisObject result = cache.getById(objectId, context.getCacheKey());
+        if (result != null) {
+            return result;
         }
 
+        // concurrent cache misses share one call
+        return objectCalls.call("id\n" + context.getCacheKey() + "\n" + objectId, new Callable<CmisObject>() {
+            @Override
+            public CmisObject call() {
+                // the object may have been cached while this thread was
+                // waiting
+                CmisObject cached = cache.getById(objectId, context.getCacheKey());
+                return cached != null ? cached : fetchObject(objectId, context);
+            }
+        });
+    }
+
+    private CmisObject fetchObject(String objectId, OperationContext context) {
+        CmisObject result;
+
         // get the object
         ObjectData objectData = binding.getObjectService().getObject(getRepositoryId(), objectId,
                 context.getFilterString(), context.isIncludeAllowableActions(), context.getIncludeRelationships(),
@@ -543,26 +608,481 @@ public class SessionImpl implements Session {
         return result;
     }
 
+    @Override
+    public Map<String, CmisObject> getObjects(Collection<String> objectIds) {
+        return getObjects(objectIds, getDefaultContext());
+    }
+
+    @Override
+    public Map<String, CmisObject> getObjects(Collection<String> objectIds, OperationContext context) {
+        if (objectIds == null) {
+            throw new IllegalArgumentException("Object IDs must be set!");
+        }
+        checkContext(context);
+
+        // ask the cache first
+        Map<String, CmisObject> loaded = new HashMap<String, CmisObject>();
+        Set<String> missing = new LinkedHashSet<String>();
+        for (String objectId : objectIds) {
+            checkObjectId(objectId);
+
+            CmisObject cached = null;
+            if (context.isCacheEnabled()) {
+                cached = cache.getById(objectId, context.getCacheKey());
+            }
+
+            if (cached != null) {
+                loaded.put(objectId, cached);
+            } else {
+                missing.add(objectId);
+            }
+        }
+
+        // query the repository for the rest
+        if (!missing.isEmpty() && isQueryByIdSupported(context)) {
+            try {
+                queryObjects(missing, context, loaded);
+            } catch (CmisBaseException e) {
+                // the repository doesn't accept the query
+                // -> fall back to getObject
+                LOG.warn("Querying objects by id failed, loading them one by one: {}", e.getMessage());
+            }
+            missing.removeAll(loaded.keySet());
+        }
+
+        // load what the queries couldn't deliver
+        if (!missing.isEmpty()) {
+            fetchObjects(missing, context, loaded);
+        }
+
+        Map<String, CmisObject> result = new LinkedHashMap<String, CmisObject>();
+        for (String objectId : objectIds) {
+            CmisObject object = loaded.get(objectId);
+            if (object != null) {
+                result.put(objectId, object);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns whether objects can be loaded with a query for the given
+     * operation context. Queries cannot return ACLs and policies.
+     */
+    private boolean isQueryByIdSupported(OperationContext context) {
+        if (context.isIncludeAcls() || context.isIncludePolicies()) {
+            return false;
+        }
+
+        RepositoryCapabilities capabilities = getRepositoryInfo().getCapabilities();
+        if (capabilities == null) {
+            return false;
+        }
+
+        CapabilityQuery capabilityQuery = capabilities.getQueryCapability();
+        return capabilityQuery == CapabilityQuery.METADATAONLY || capabilityQuery == CapabilityQuery.BOTHSEPARATE
+                || capabilityQuery == CapabilityQuery.BOTHCOMBINED;
+    }
+
+    /**
+     * Loads objects with {@code cmis:objectId IN (...)} queries.
+     * <p>
+     * A query on a base type only returns the properties of the base type.
+     * Objects of a subtype are queried again on their type. Objects with
+     * secondary types and objects whose properties cannot be mapped to
+     * property definitions are left to {@code getObject}.
+     */
+    private void queryObjects(Set<String> objectIds, OperationContext context, Map<String, CmisObject> loaded) {
+        RepositoryCapabilities capabilities = getRepositoryInfo().getCapabilities();
+        boolean searchAllVersions = Boolean.TRUE.equals(capabilities.isAllVersionsSearchableSupported());
+
+        Set<String> remaining = new LinkedHashSet<String>(objectIds);
+        Map<String, List<String>> subtypeObjectIds = new LinkedHashMap<String, List<String>>();
+
+        for (BaseTypeId baseTypeId : BaseTypeId.values()) {
+            if (remaining.isEmpty()) {
+                break;
+            }
+            if (baseTypeId == BaseTypeId.CMIS_SECONDARY) {
+                continue;
+            }
+
+            ObjectType type = getQueryableType(baseTypeId.value());
+            if (type == null) {
+                continue;
+            }
+
+            for (ObjectData objectData : queryById(type, remaining, searchAllVersions, context)) {
+                String objectId = objectData.getId();
+                String typeId = getFirstValue(objectData, PropertyIds.OBJECT_TYPE_ID);
+                if (objectId == null || typeId == null || !remaining.remove(objectId)) {
+                    continue;
+                }
+
+                if (typeId.equals(baseTypeId.value())) {
+                    putLoadedObject(objectData, context, loaded);
+                } else {
+                    List<String> ids = subtypeObjectIds.get(typeId);
+                    if (ids == null) {
+                        ids = new ArrayList<String>();
+                        subtypeObjectIds.put(typeId, ids);
+                    }
+                    ids.add(objectId);
+                }
+            }
+        }
+
+        for (Map.Entry<String, List<String>> entry : subtypeObjectIds.entrySet()) {
+            ObjectType type = getQueryableType(entry.getKey());
+            if (type == null) {
+                continue;
+            }
+
+            for (ObjectData objectData : queryById(type, entry.getValue(), searchAllVersions, context)) {
+                if (objectData.getId() != null && entry.getValue().contains(objectData.getId())) {
+                    putLoadedObject(objectData, context, loaded);
+                }
+            }
+        }
+    }
+
+    private ObjectType getQueryableType(String typeId) {
+        try {
+            ObjectType type = getTypeDefinition(typeId);
+            return Boolean.TRUE.equals(type.isQueryable()) ? type : null;
+        } catch (CmisBaseException e) {
+            // this type doesn't exist in this repository
+            LOG.debug("Type {} cannot be queried: {}", typeId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Queries the objects of the given type. The SELECT list is built from
+     * the property filter of the operation context, and the properties of the
+     * query results are mapped from their query names back to their property
+     * IDs. Results with secondary types or with properties that cannot be
+     * mapped are dropped.
+     */
+    private List<ObjectData> queryById(ObjectType type, Collection<String> objectIds, boolean searchAllVersions,
+            OperationContext context) {
+        DiscoveryService discoveryService = getBinding().getDiscoveryService();
+        List<ObjectData> result = new ArrayList<ObjectData>();
+
+        Map<String, PropertyDefinition<?>> propertyDefinitions = getQueryPropertyDefinitions(type, context);
+        String selectList = getQuerySelectList(propertyDefinitions, type);
+
+        List<String> ids = new ArrayList<String>(objectIds);
+        for (int i = 0; i < ids.size(); i += GET_OBJECTS_QUERY_SIZE) {
+            List<String> chunk = ids.subList(i, Math.min(ids.size(), i + GET_OBJECTS_QUERY_SIZE));
+
+            QueryStatement statement = createQueryStatement("SELECT " + selectList + " FROM ? WHERE "
+                    + PropertyIds.OBJECT_ID + " IN (?)");
+            statement.setType(1, type);
+            statement.setString(2, chunk.toArray(new String[chunk.size()]));
+            String query = statement.toQueryString();
+
+            long skipCount = 0;
+            while (true) {
+                ObjectList list = discoveryService.query(getRepositoryId(), query, searchAllVersions,
+                        context.isIncludeAllowableActions(), context.getIncludeRelationships(),
+                        context.getRenditionFilterString(), BigInteger.valueOf(GET_OBJECTS_QUERY_SIZE),
+                        BigInteger.valueOf(skipCount), null);
+
+                if (list == null || isNullOrEmpty(list.getObjects())) {
+                    break;
+                }
+
+                for (ObjectData queryResult : list.getObjects()) {
+                    if (getFirstValue(queryResult, PropertyIds.SECONDARY_OBJECT_TYPE_IDS) != null) {
+                        continue;
+                    }
+
+                    ObjectData objectData = convertQueryResult(queryResult, type, propertyDefinitions);
+                    if (objectData != null) {
+                        result.add(objectData);
+                    }
+                }
+                skipCount += list.getObjects().size();
+
+                if (!Boolean.TRUE.equals(list.hasMoreItems())) {
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the definitions of the properties of the given type that are
+     * selected by the property filter of the operation context, or
+     * {@code null} if all properties are selected.
+     */
+    private static Map<String, PropertyDefinition<?>> getQueryPropertyDefinitions(ObjectType type,
+            OperationContext context) {
+        String filter = context.getFilterString();
+        if (filter == null || filter.equals(OperationContextImpl.PROPERTIES_STAR)) {
+            return null;
+        }
+
+        Map<String, PropertyDefinition<?>> result = new LinkedHashMap<String, PropertyDefinition<?>>();
+        for (String propertyId : filter.split(",")) {
+            PropertyDefinition<?> propertyDefinition = getPropertyDefinition(type, propertyId.trim());
+            if (propertyDefinition != null && propertyDefinition.getQueryName() != null) {
+                result.put(propertyDefinition.getQueryName(), propertyDefinition);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Builds the SELECT list. The object ID and the type IDs are always
+     * selected to sort the results by type.
+     */
+    private static String getQuerySelectList(Map<String, PropertyDefinition<?>> propertyDefinitions, ObjectType type) {
+        if (propertyDefinitions == null) {
+            return "*";
+        }
+
+        Set<String> queryNames = new LinkedHashSet<String>(propertyDefinitions.keySet());
+        for (String propertyId : new String[] { PropertyIds.OBJECT_ID, PropertyIds.BASE_TYPE_ID,
+                PropertyIds.OBJECT_TYPE_ID, PropertyIds.SECONDARY_OBJECT_TYPE_IDS }) {
+            PropertyDefinition<?> propertyDefinition = getPropertyDefinition(type, propertyId);
+            if (propertyDefinition != null && propertyDefinition.getQueryName() != null) {
+                queryNames.add(propertyDefinition.getQueryName());
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(128);
+        for (String queryName : queryNames) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(queryName);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Finds a property definition by property ID or query name.
+     */
+    private static PropertyDefinition<?> getPropertyDefinition(ObjectType type, String propertyId) {
+        Map<String, PropertyDefinition<?>> propertyDefinitions = type.getPropertyDefinitions();
+        if (propertyDefinitions == null) {
+            return null;
+        }
+
+        PropertyDefinition<?> result = propertyDefinitions.get(propertyId);
+        if (result != null) {
+            return result;
+        }
+
+        for (PropertyDefinition<?> propertyDefinition : propertyDefinitions.values()) {
+            if (propertyId.equals(propertyDefinition.getQueryName())) {
+                return propertyDefinition;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Converts a query result into an object with properties keyed by
+     * property ID. Only the selected properties are kept.
+     * 
+     * @return the object or {@code null} if a property cannot be mapped to a
+     *         property definition
+     */
+    private ObjectData convertQueryResult(ObjectData queryResult, ObjectType type,
+            Map<String, PropertyDefinition<?>> selectedPropertyDefinitions) {
+        if (queryResult.getProperties() == null || queryResult.getProperties().getPropertyList() == null) {
+            return null;
+        }
+
+        BindingsObjectFactory bof = getBinding().getObjectFactory();
+        List<PropertyData<?>> properties = new ArrayList<PropertyData<?>>();
+
+        for (PropertyData<?> property : queryResult.getProperties().getPropertyList()) {
+            PropertyDefinition<?> propertyDefinition = null;
+            if (property.getQueryName() != null) {
+                propertyDefinition = getPropertyDefinition(type, property.getQueryName());
+            }
+            if (propertyDefinition == null && property.getId() != null) {
+                propertyDefinition = getPropertyDefinition(type, property.getId());
+            }
+            if (propertyDefinition == null) {
+                return null;
+            }
+
+            if (selectedPropertyDefinitions != null
+                    && !selectedPropertyDefinitions.containsKey(propertyDefinition.getQueryName())) {
+                continue;
+            }
+
+            Object value = propertyDefinition.getCardinality() == Cardinality.SINGLE ? property.getFirstValue()
+                    : property.getValues();
+            try {
+                properties.add(bof.createPropertyData(propertyDefinition, value));
+            } catch (ClassCastException e) {
+                // the value doesn't match the property type
+                return null;
+            }
+        }
+
+        ObjectDataImpl result = new ObjectDataImpl();
+        result.setProperties(bof.createPropertiesData(properties));
+        result.setAllowableActions(queryResult.getAllowableActions());
+        result.setRelationships(queryResult.getRelationships());
+        result.setRenditions(queryResult.getRenditions());
+        result.setExtensions(queryResult.getExtensions());
+
+        return result;
+    }
+
+    private static String getFirstValue(ObjectData objectData, String propertyId) {
+        if (objectData.getProperties() == null || objectData.getProperties().getProperties() == null) {
+            return null;
+        }
+
+        PropertyData<?> property = objectData.getProperties().getProperties().get(propertyId);
+        if (property == null || !(property.getFirstValue() instanceof String)) {
+            return null;
+        }
+
+        return (String) property.getFirstValue();
+    }
+
+    private void putLoadedObject(ObjectData objectData, OperationContext context, Map<String, CmisObject> loaded) {
+        CmisObject object = getObjectFactory().convertObject(objectData, context);
+
+        // put into cache
+        if (context.isCacheEnabled()) {
+            cache.put(object, context.getCacheKey());
+        }
+
+        loaded.put(object.getId(), object);
+    }
+
+    /**
+     * Loads objects with parallel {@code getObject} calls on the bounded pool
+     * of daemon threads of this session. If the pool is saturated, the calling
+     * thread loads the objects itself. Objects that don't exist are left out.
+     */
+    private void fetchObjects(Set<String> objectIds, final OperationContext context, Map<String, CmisObject> loaded) {
+        Map<String, FutureTask<CmisObject>> futures = new LinkedHashMap<String, FutureTask<CmisObject>>();
+        try {
+            for (final String objectId : objectIds) {
+                FutureTask<CmisObject> task = new FutureTask<CmisObject>(new Callable<CmisObject>() {
+                    @Override
+                    public CmisObject call() {
+                        try {
+                            return getObject(objectId, context);
+                        } catch (CmisObjectNotFoundException e) {
+                            LOG.debug("Object {} not found: {}", objectId, e.getMessage());
+                            return null;
+                        }
+                    }
+                });
+                futures.put(objectId, task);
+
+                if (objectIds.size() == 1 || getObjectsThreads == 1) {
+                    task.run();
+                } else {
+                    try {
+                        getGetObjectsExecutor().execute(task);
+                    } catch (RejectedExecutionException e) {
+                        task.run();
+                    }
+                }
+            }
+
+            for (Map.Entry<String, FutureTask<CmisObject>> entry : futures.entrySet()) {
+                CmisObject object = entry.getValue().get();
+                if (object != null) {
+                    loaded.put(entry.getKey(), object);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CmisRuntimeException("Interrupted while loading objects!", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CmisRuntimeException(cause.getMessage(), cause);
+        } finally {
+            for (FutureTask<CmisObject> task : futures.values()) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Returns the executor of {@code getObjects}. Idle threads end after a
+     * minute, so the executor doesn't have to be shut down.
+     */
+    private synchronized ThreadPoolExecutor getGetObjectsExecutor() {
+        if (getObjectsExecutor == null) {
+            getObjectsExecutor = new ThreadPoolExecutor(getObjectsThreads, getObjectsThreads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(GET_OBJECTS_MAX_QUEUED), new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "OpenCMIS getObjects " + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            getObjectsExecutor.allowCoreThreadTimeOut(true);
+        }
+
+        return getObjectsExecutor;
+    }
+
     @Override
     public CmisObject getObjectByPath(String path) {
         return getObjectByPath(path, getDefaultContext());
     }
 
     @Override
-    public CmisObject getObjectByPath(String path, OperationContext context) {
+    public CmisObject getObjectByPath(final String path, final OperationContext context) {
         checkPath(path);
         checkContext(context);
 
-        CmisObject result = null;
+        if (!context.isCacheEnabled() || cachePathOmit) {
+            return fetchObjectByPath(path, context);
+        }
 
         // ask the cache first
-        if (context.isCacheEnabled() && !cachePathOmit) {
-            result = cache.getByPath(path, context.getCacheKey());
-            if (result != null) {
-                return result;
-            }
+        CmisObject result = cache.getByPath(path, context.getCacheKey());
+        if (result != null) {
+            return result;
         }
 
+        // concurrent cache misses share one call
+        return objectCalls.call("path\n" + context.getCacheKey() + "\n" + path, new Callable<CmisObject>() {
+            @Override
+            public CmisObject call() {
+                // the object may have been cached while this thread was
+                // waiting
+                CmisObject cached = cache.getByPath(path, context.getCacheKey());
+                return cached != null ? cached : fetchObjectByPath(path, context);
+            }
+        });
+    }
+
+    private CmisObject fetchObjectByPath(String path, OperationContext context) {
+        CmisObject result;
+
         // get the object
         ObjectData objectData = binding.getObjectService().getObjectByPath(getRepositoryId(), path,
                 context.getFilterString(), context.isIncludeAllowableActions(), context.getIncludeRelationships(),
@@ -588,6 +1108,23 @@ public class SessionImpl implements Session {
         return getObjectByPath(buildPath(parentPath, name), context);
     }
 
+    /**
+     * Returns the number of {@code getObject} and {@code getObjectByPath} cache
+     * misses that issued a call to the repository.
+     */
+    public long getObjectCallCount() {
+        return objectCalls.getCallCount();
+    }
+
+    /**
+     * Returns the number of {@code getObject} and {@code getObjectByPath} cache
+     * misses that were served by a concurrent call for the same object and
+     * operation context instead of issuing their own call.
+     */
+    public long getCoalescedObjectCallCount() {
+        return objectCalls.getCoalescedCallCount();
+    }
+
     @Override
     public Document getLatestDocumentVersion(ObjectId objectId) {
         return getLatestDocumentVersion(objectId, false, getDefaultContext());
@@ -991,7 +1528,8 @@ public class SessionImpl implements Session {
         final ObjectFactory of = getObjectFactory();
         final OperationContext ctxt = new OperationContextImpl(context);
 
-        return new CollectionIterable<QueryResult>(new AbstractPageFetcher<QueryResult>(ctxt.getMaxItemsPerPage()) {
+        return new CollectionIterable<QueryResult>(new AbstractPageFetcher<QueryResult>(ctxt.getMaxItemsPerPage(),
+                ctxt.getPrefetchPages()) {
 
             @Override
             protected AbstractPageFetcher.Page<QueryResult> fetchPage(long skipCount) {
@@ -1058,7 +1596,8 @@ public class SessionImpl implements Session {
             statement.append(orderBy);
         }
 
-        return new CollectionIterable<CmisObject>(new AbstractPageFetcher<CmisObject>(ctxt.getMaxItemsPerPage()) {
+        return new CollectionIterable<CmisObject>(new AbstractPageFetcher<CmisObject>(ctxt.getMaxItemsPerPage(),
+                ctxt.getPrefetchPages()) {
 
             @Override
             protected AbstractPageFetcher.Page<CmisObject> fetchPage(long skipCount) {
@@ -1449,7 +1988,8 @@ public class SessionImpl implements Session {
         final RelationshipService relationshipService = getBinding().getRelationshipService();
         final OperationContext ctxt = new OperationContextImpl(context);
 
-        return new CollectionIterable<Relationship>(new AbstractPageFetcher<Relationship>(ctxt.getMaxItemsPerPage()) {
+        return new CollectionIterable<Relationship>(new AbstractPageFetcher<Relationship>(ctxt.getMaxItemsPerPage(),
+                ctxt.getPrefetchPages()) {
 
             @Override
             protected AbstractPageFetcher.Page<Relationship> fetchPage(long skipCount) {
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.runtime.cache;
+
+import java.util.List;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Property;
+import org.apache.chemistry.opencmis.client.api.Rendition;
+import org.apache.chemistry.opencmis.commons.data.Ace;
+import org.apache.chemistry.opencmis.commons.data.Acl;
+import org.apache.chemistry.opencmis.commons.data.AllowableActions;
+
+/**
+ * Estimates the heap size retained by a {@link CmisObject}. The estimate
+ * covers the properties, the ACL, the renditions and the allowable actions.
+ * It is a rough approximation based on typical object header and reference
+ * sizes of a 64-bit JVM, good enough to compare objects with each other and
+ * to keep a cache within a memory budget.
+ */
+final class CmisObjectSizeEstimator {
+
+    private static final int OBJECT_SIZE = 256;
+    private static final int PROPERTY_SIZE = 96;
+    private static final int VALUE_SIZE = 24;
+    private static final int STRING_SIZE = 40;
+    private static final int ACE_SIZE = 64;
+    private static final int RENDITION_SIZE = 96;
+    private static final int ACTION_SIZE = 8;
+
+    private CmisObjectSizeEstimator() {
+    }
+
+    /**
+     * Returns the estimated size of an object in bytes.
+     */
+    static int estimate(CmisObject object) {
+        long size = OBJECT_SIZE;
+
+        List<Property<?>> properties = object.getProperties();
+        if (properties != null) {
+            for (Property<?> property : properties) {
+                size += PROPERTY_SIZE + estimate(property.getId());
+                List<?> values = property.getValues();
+                if (values != null) {
+                    for (Object value : values) {
+                        size += value instanceof String ? estimate((String) value) : VALUE_SIZE;
+                    }
+                }
+            }
+        }
+
+        Acl acl = object.getAcl();
+        if (acl != null && acl.getAces() != null) {
+            for (Ace ace : acl.getAces()) {
+                size += ACE_SIZE + estimate(ace.getPrincipalId());
+                if (ace.getPermissions() != null) {
+                    for (String permission : ace.getPermissions()) {
+                        size += estimate(permission);
+                    }
+                }
+            }
+        }
+
+        List<Rendition> renditions = object.getRenditions();
+        if (renditions != null) {
+            for (Rendition rendition : renditions) {
+                size += RENDITION_SIZE + estimate(rendition.getStreamId()) + estimate(rendition.getMimeType())
+                        + estimate(rendition.getKind()) + estimate(rendition.getTitle())
+                        + estimate(rendition.getRenditionDocumentId());
+            }
+        }
+
+        AllowableActions allowableActions = object.getAllowableActions();
+        if (allowableActions != null && allowableActions.getAllowableActions() != null) {
+            size += ACTION_SIZE * allowableActions.getAllowableActions().size();
+        }
+
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private static int estimate(String s) {
+        return s == null ? 0 : STRING_SIZE + 2 * s.length();
+    }
+}
@@ -0,0 +1,566 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.runtime.cache;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.SessionParameterDefaults;
+
+/**
+ * Lock-striped cache implementation. The entries are distributed over several
+ * segments, each segment is a LRU map with its own lock. Threads accessing
+ * objects in different segments don't block each other and there is no lock
+ * that is shared by all operations.
+ * <p>
+ * Each segment holds its share of the configured cache size. Large segments
+ * may grow slightly beyond their share and are then trimmed to their share in
+ * one pass. Expired entries are dropped when they are accessed or trimmed.
+ * Small caches use a single segment.
+ * <p>
+ * If {@link SessionParameter#CACHE_SIZE_BYTES_OBJECTS} is set, the cache also
+ * estimates the heap size of each object (see
+ * {@link CmisObjectSizeEstimator}) and evicts the least recently used objects
+ * when the total size exceeds this budget. In this mode the cache holds strong
+ * references to the objects, so the garbage collector doesn't decide which
+ * objects are dropped.
+ * <p>
+ * This cache can be selected with the session parameter
+ * {@link SessionParameter#CACHE_CLASS}.
+ */
+public class StripedCacheImpl implements Cache {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private int cacheSize;
+    private long cacheSizeBytes;
+    private int cacheTtl;
+    private int pathToIdSize;
+    private int pathToIdTtl;
+
+    private volatile Segment<Map<String, CmisObject>>[] objectSegments;
+    private volatile Segment<String>[] pathToIdSegments;
+
+    /**
+     * Default constructor.
+     */
+    public StripedCacheImpl() {
+    }
+
+    @Override
+    public void initialize(Session session, Map<String, String> parameters) {
+        assert parameters != null;
+
+        cacheSize = getIntParameter(parameters, SessionParameter.CACHE_SIZE_OBJECTS,
+                SessionParameterDefaults.CACHE_SIZE_OBJECTS, 0);
+        try {
+            cacheSizeBytes = Long.parseLong(parameters.get(SessionParameter.CACHE_SIZE_BYTES_OBJECTS));
+            if (cacheSizeBytes < 0) {
+                cacheSizeBytes = 0;
+            }
+        } catch (Exception e) {
+            cacheSizeBytes = 0;
+        }
+        cacheTtl = getIntParameter(parameters, SessionParameter.CACHE_TTL_OBJECTS,
+                SessionParameterDefaults.CACHE_TTL_OBJECTS, SessionParameterDefaults.CACHE_TTL_OBJECTS);
+        pathToIdSize = getIntParameter(parameters, SessionParameter.CACHE_SIZE_PATHTOID,
+                SessionParameterDefaults.CACHE_SIZE_PATHTOID, 0);
+        pathToIdTtl = getIntParameter(parameters, SessionParameter.CACHE_TTL_PATHTOID,
+                SessionParameterDefaults.CACHE_TTL_PATHTOID, SessionParameterDefaults.CACHE_TTL_PATHTOID);
+
+        initializeInternals();
+    }
+
+    private static int getIntParameter(Map<String, String> parameters, String name, int defaultValue,
+            int negativeValue) {
+        try {
+            int value = Integer.valueOf(parameters.get(name));
+            return value < 0 ? negativeValue : value;
+        } catch (Exception e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Sets up the internal objects.
+     */
+    private void initializeInternals() {
+        objectSegments = createSegments(cacheSize, cacheSizeBytes);
+        pathToIdSegments = createSegments(pathToIdSize, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Segment<T>[] createSegments(int size, long sizeBytes) {
+        int count = 1;
+        while (count < MAX_SEGMENTS && size / (count * 2) >= MIN_SEGMENT_SIZE) {
+            count *= 2;
+        }
+
+        Segment<T>[] segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            // distribute the remainder over the first segments
+            segments[i] = new Segment<T>(size / count + (i < size % count ? 1 : 0), sizeBytes / count);
+        }
+
+        return segments;
+    }
+
+    private static <T> Segment<T> segmentFor(Segment<T>[] segments, String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (segments.length - 1)];
+    }
+
+    @Override
+    public void clear() {
+        initializeInternals();
+    }
+
+    @Override
+    public boolean containsId(String objectId, String cacheKey) {
+        return segmentFor(objectSegments, objectId).get(objectId) != null;
+    }
+
+    @Override
+    public boolean containsPath(String path, String cacheKey) {
+        Segment<String> segment = segmentFor(pathToIdSegments, path);
+        String objectId = segment.get(path);
+        if (objectId == null) {
+            return false;
+        }
+
+        if (!containsId(objectId, cacheKey)) {
+            segment.remove(path);
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public CmisObject getById(String objectId, String cacheKey) {
+        Segment<Map<String, CmisObject>> segment = segmentFor(objectSegments, objectId);
+        segment.lock.lock();
+        try {
+            Map<String, CmisObject> item = segment.get(objectId);
+            return item == null ? null : item.get(cacheKey);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public CmisObject getByPath(String path, String cacheKey) {
+        String objectId = getObjectIdByPath(path);
+        if (objectId == null) {
+            return null;
+        }
+
+        CmisObject result = getById(objectId, cacheKey);
+        if (result == null && !containsId(objectId, cacheKey)) {
+            removePath(path);
+        }
+
+        return result;
+    }
+
+    @Override
+    public String getObjectIdByPath(String path) {
+        return segmentFor(pathToIdSegments, path).get(path);
+    }
+
+    @Override
+    public void put(CmisObject object, String cacheKey) {
+        // no object, no cache key - no cache
+        if ((object == null) || (cacheKey == null)) {
+            return;
+        }
+
+        // no id - no cache
+        String objectId = object.getId();
+        if (objectId == null) {
+            return;
+        }
+
+        // put into id cache
+        Segment<Map<String, CmisObject>> segment = segmentFor(objectSegments, objectId);
+        segment.lock.lock();
+        try {
+            Map<String, CmisObject> cacheKeyMap = segment.get(objectId);
+            if (cacheKeyMap == null) {
+                cacheKeyMap = new HashMap<String, CmisObject>();
+                segment.put(objectId, cacheKeyMap, cacheTtl);
+            }
+
+            CmisObject oldObject = cacheKeyMap.put(cacheKey, object);
+            if (segment.isWeighted()) {
+                int delta = CmisObjectSizeEstimator.estimate(object);
+                if (oldObject != null) {
+                    delta -= CmisObjectSizeEstimator.estimate(oldObject);
+                }
+                segment.addWeight(objectId, delta);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+
+        // folders may have a path, use it!
+        String path = object.getPropertyValue(PropertyIds.PATH);
+        if (path != null) {
+            segmentFor(pathToIdSegments, path).put(path, objectId, pathToIdTtl);
+        }
+    }
+
+    @Override
+    public void putPath(String path, CmisObject object, String cacheKey) {
+        if (path == null) {
+            return;
+        }
+
+        put(object, cacheKey);
+
+        if ((object != null) && (object.getId() != null) && (cacheKey != null)) {
+            segmentFor(pathToIdSegments, path).put(path, object.getId(), pathToIdTtl);
+        }
+    }
+
+    @Override
+    public void remove(String objectId) {
+        if (objectId == null) {
+            return;
+        }
+
+        segmentFor(objectSegments, objectId).remove(objectId);
+    }
+
+    @Override
+    public void removePath(String path) {
+        if (path == null) {
+            return;
+        }
+
+        segmentFor(pathToIdSegments, path).remove(path);
+    }
+
+    @Override
+    public int getCacheSize() {
+        return this.cacheSize;
+    }
+
+    /**
+     * Returns the number of object entries in this cache, including entries
+     * that have expired but haven't been removed yet.
+     */
+    public int getObjectEntryCount() {
+        int count = 0;
+        for (Segment<Map<String, CmisObject>> segment : objectSegments) {
+            count += segment.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the estimated heap size of the cached objects in bytes. Sizes are
+     * only estimated if a byte budget is configured, otherwise this method
+     * returns 0.
+     */
+    public long getObjectSizeBytes() {
+        long weight = 0;
+        for (Segment<Map<String, CmisObject>> segment : objectSegments) {
+            weight += segment.getWeight();
+        }
+        return weight;
+    }
+
+    /**
+     * Returns the number of objects that have been evicted because the cache
+     * exceeded its entry limit or its byte budget.
+     */
+    public long getSizeEvictionCount() {
+        long count = 0;
+        for (Segment<Map<String, CmisObject>> segment : objectSegments) {
+            count += segment.getSizeEvictions();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of objects that have been removed because their
+     * time-to-live expired.
+     */
+    public long getTtlEvictionCount() {
+        long count = 0;
+        for (Segment<Map<String, CmisObject>> segment : objectSegments) {
+            count += segment.getTtlEvictions();
+        }
+        return count;
+    }
+
+    // --- segment ---
+
+    /**
+     * A LRU map with its own lock.
+     */
+    private static class Segment<T> implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final float HASHTABLE_LOAD_FACTOR = 0.75f;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, CacheItem<T>> map;
+        private final int capacity;
+        private final int maxSize;
+        private final long maxWeight;
+        private long weight;
+        private long sizeEvictions;
+        private long ttlEvictions;
+
+        public Segment(int capacity, long maxWeight) {
+            this.capacity = capacity;
+            // let larger segments grow a bit and trim them in one pass
+            this.maxSize = capacity + (capacity >> 4);
+            this.maxWeight = maxWeight;
+            map = new LinkedHashMap<String, CacheItem<T>>((int) Math.ceil(maxSize / HASHTABLE_LOAD_FACTOR) + 1,
+                    HASHTABLE_LOAD_FACTOR, true);
+        }
+
+        public boolean isWeighted() {
+            return maxWeight > 0;
+        }
+
+        public T get(String key) {
+            lock.lock();
+            try {
+                CacheItem<T> item = map.get(key);
+                if (item == null) {
+                    return null;
+                }
+
+                T value = item.getItem();
+                if (value == null) {
+                    removeItem(key);
+                    if (item.isTimedOut()) {
+                        ttlEvictions++;
+                    }
+                }
+
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void put(String key, T value, int ttl) {
+            if (capacity == 0) {
+                return;
+            }
+
+            lock.lock();
+            try {
+                CacheItem<T> oldItem = map.put(key, new CacheItem<T>(value, ttl, !isWeighted()));
+                if (oldItem != null) {
+                    weight -= oldItem.weight;
+                }
+                if (map.size() > maxSize) {
+                    evict();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void addWeight(String key, int delta) {
+            lock.lock();
+            try {
+                CacheItem<T> item = map.get(key);
+                if (item == null) {
+                    return;
+                }
+
+                item.weight += delta;
+                weight += delta;
+                if (weight > maxWeight) {
+                    evict();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void remove(String key) {
+            lock.lock();
+            try {
+                removeItem(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int size() {
+            lock.lock();
+            try {
+                return map.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public long getWeight() {
+            lock.lock();
+            try {
+                return weight;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public long getSizeEvictions() {
+            lock.lock();
+            try {
+                return sizeEvictions;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public long getTtlEvictions() {
+            lock.lock();
+            try {
+                return ttlEvictions;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void removeItem(String key) {
+            CacheItem<T> item = map.remove(key);
+            if (item != null) {
+                weight -= item.weight;
+            }
+        }
+
+        private void evict() {
+            // remove the least recently used entries
+            Iterator<CacheItem<T>> iterator = map.values().iterator();
+            while ((map.size() > capacity || (isWeighted() && weight > maxWeight)) && iterator.hasNext()) {
+                CacheItem<T> item = iterator.next();
+                iterator.remove();
+                weight -= item.weight;
+                if (item.isTimedOut()) {
+                    ttlEvictions++;
+                } else {
+                    sizeEvictions++;
+                }
+            }
+        }
+    }
+
+    // --- cache item ---
+
+    private static class CacheItem<T> implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private SoftReference<T> item;
+        private T strongItem;
+        private long timestamp;
+        private int ttl;
+        private int weight;
+
+        public CacheItem(T item, int ttl, boolean soft) {
+            if (soft) {
+                this.item = new SoftReference<T>(item);
+            } else {
+                this.strongItem = item;
+            }
+            timestamp = System.currentTimeMillis();
+            this.ttl = ttl;
+        }
+
+        private T get() {
+            if (strongItem != null) {
+                return strongItem;
+            }
+            return item == null ? null : item.get();
+        }
+
+        public synchronized boolean isTimedOut() {
+            return timestamp + ttl < System.currentTimeMillis();
+        }
+
+        public synchronized boolean isExpired() {
+            if (get() == null) {
+                return true;
+            }
+
+            return isTimedOut();
+        }
+
+        public synchronized T getItem() {
+            if (isExpired()) {
+                item = null;
+                strongItem = null;
+                return null;
+            }
+
+            return get();
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            out.writeObject(isExpired() ? null : get());
+            out.writeBoolean(strongItem == null);
+            out.writeLong(timestamp);
+            out.writeInt(ttl);
+            out.writeInt(weight);
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            @SuppressWarnings("unchecked")
+            T object = (T) in.readObject();
+            boolean soft = in.readBoolean();
+            timestamp = in.readLong();
+            ttl = in.readInt();
+            weight = in.readInt();
+
+            if ((object != null) && (timestamp + ttl >= System.currentTimeMillis())) {
+                if (soft) {
+                    this.item = new SoftReference<T>(object);
+                } else {
+                    this.strongItem = object;
+                }
+            }
+        }
+    }
+}
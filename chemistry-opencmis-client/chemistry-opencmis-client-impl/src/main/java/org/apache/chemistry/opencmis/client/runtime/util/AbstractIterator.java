@@ -18,6 +18,7 @@
  */
 package org.apache.chemistry.opencmis.client.runtime.util;
 
+import java.io.Closeable;
 import java.util.Iterator;
 import java.util.List;
 
@@ -25,11 +26,14 @@ import org.apache.chemistry.opencmis.client.runtime.util.AbstractPageFetcher.Pag
 
 /**
  * Abstract {@code Iterator} implementation.
+ * <p>
+ * If the page fetcher asks for prefetching, the next pages are fetched in the
+ * background. Closing the iterator cancels these requests.
  *
  * @param <T>
  *            the type returned by the iterator
  */
-public abstract class AbstractIterator<T> implements Iterator<T> {
+public abstract class AbstractIterator<T> implements Iterator<T>, Closeable {
 
     private long skipCount;
     private int skipOffset;
@@ -38,6 +42,7 @@ public abstract class AbstractIterator<T> implements Iterator<T> {
     private Page<T> page;
     private Long totalNumItems;
     private Boolean hasMoreItems;
+    private PagePrefetcher<T> prefetcher;
 
     /**
      * Constructor.
@@ -94,6 +99,16 @@ public abstract class AbstractIterator<T> implements Iterator<T> {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Cancels all pages that have been requested in advance.
+     */
+    @Override
+    public void close() {
+        if (prefetcher != null) {
+            prefetcher.cancel();
+        }
+    }
+
     /**
      * Gets current skip count
      *
@@ -128,7 +143,7 @@ public abstract class AbstractIterator<T> implements Iterator<T> {
      */
     protected Page<T> getCurrentPage() {
         if (page == null) {
-            page = pageFetcher.fetchPage(skipCount);
+            page = fetchPage(skipCount);
         }
         return page;
     }
@@ -143,8 +158,27 @@ public abstract class AbstractIterator<T> implements Iterator<T> {
         skipOffset = 0;
         totalNumItems = null;
         hasMoreItems = null;
-        page = pageFetcher.fetchPage(skipCount);
+        page = fetchPage(skipCount);
         return page;
     }
 
+    /**
+     * Returns whether pages should be fetched in advance.
+     *
+     * @return {@code true} if the page fetcher asks for prefetching
+     */
+    protected boolean isPrefetchEnabled() {
+        return pageFetcher.getPrefetchPages() > 0;
+    }
+
+    private Page<T> fetchPage(long skipCount) {
+        if (prefetcher == null) {
+            if (!isPrefetchEnabled()) {
+                return pageFetcher.fetchPage(skipCount);
+            }
+            prefetcher = new PagePrefetcher<T>(pageFetcher, this);
+        }
+        return prefetcher.fetchPage(skipCount);
+    }
+
 }
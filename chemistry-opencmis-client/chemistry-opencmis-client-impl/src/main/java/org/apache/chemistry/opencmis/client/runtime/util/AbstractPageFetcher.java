@@ -29,9 +29,21 @@ import java.util.List;
 public abstract class AbstractPageFetcher<T> {
 
     protected long maxNumItems;
+    protected int prefetchPages;
 
     protected AbstractPageFetcher(long maxNumItems) {
+        this(maxNumItems, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxNumItems max number of items per page
+     * @param prefetchPages number of pages that iterators fetch in advance
+     */
+    protected AbstractPageFetcher(long maxNumItems, int prefetchPages) {
         this.maxNumItems = maxNumItems;
+        this.prefetchPages = prefetchPages;
     }
 
     /**
@@ -81,4 +93,17 @@ public abstract class AbstractPageFetcher<T> {
         this.maxNumItems = maxNumItems;
     }
 
+    /**
+     * Sets the number of pages that iterators fetch in advance. Pages are
+     * fetched on a background thread, so {@link #fetchPage(long)} must be
+     * thread-safe if this value is positive.
+     */
+    public void setPrefetchPages(int prefetchPages) {
+        this.prefetchPages = prefetchPages;
+    }
+
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+
 }
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.runtime.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+
+/**
+ * Coalesces concurrent calls with the same key. The first thread that asks for
+ * a key executes the call, all threads that ask for the same key while this
+ * call is running wait for it and get the same result or exception.
+ * <p>
+ * Results are not kept after the call has finished. Caching is up to the
+ * caller.
+ *
+ * @param <V>
+ *            the type of the call results
+ */
+public class CallCoalescer<V> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient ConcurrentMap<String, FutureTask<V>> inFlight;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong coalescedCalls = new AtomicLong();
+
+    public CallCoalescer() {
+        inFlight = new ConcurrentHashMap<String, FutureTask<V>>();
+    }
+
+    /**
+     * Executes the call or waits for a running call with the same key.
+     *
+     * @param key
+     *            the key identifying the call, must not be {@code null}
+     * @param call
+     *            the call
+     * @return the result of the call
+     */
+    public V call(String key, Callable<V> call) {
+        FutureTask<V> task = new FutureTask<V>(call);
+        FutureTask<V> running = inFlight.putIfAbsent(key, task);
+
+        if (running == null) {
+            calls.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+        } else {
+            coalescedCalls.incrementAndGet();
+            task = running;
+        }
+
+        return getResult(task);
+    }
+
+    /**
+     * Returns the number of calls that have been executed.
+     */
+    public long getCallCount() {
+        return calls.get();
+    }
+
+    /**
+     * Returns the number of calls that have been served by the result of a
+     * concurrent call with the same key.
+     */
+    public long getCoalescedCallCount() {
+        return coalescedCalls.get();
+    }
+
+    /**
+     * Returns the number of calls that are currently running.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private V getResult(FutureTask<V> task) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    // the result is needed anyway, wait for it
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CmisRuntimeException(cause == null ? e.getMessage() : cause.getMessage(), cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        inFlight = new ConcurrentHashMap<String, FutureTask<V>>();
+    }
+}
@@ -36,6 +36,12 @@ public class CollectionPageIterator<T> extends AbstractIterator<T> {
         super(skipCount, pageFetcher);
     }
 
+    @Override
+    protected boolean isPrefetchEnabled() {
+        // a single page is iterated, there is nothing to fetch ahead
+        return false;
+    }
+
     @Override
     public boolean hasNext() {
         Page<T> page = getCurrentPage();
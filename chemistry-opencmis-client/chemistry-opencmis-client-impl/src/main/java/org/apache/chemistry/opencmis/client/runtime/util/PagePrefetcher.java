@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.runtime.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.chemistry.opencmis.client.runtime.util.AbstractPageFetcher.Page;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+
+/**
+ * Fetches pages ahead of an iterator.
+ * <p>
+ * The page that follows the current page is requested at the exact offset.
+ * Further pages are requested assuming that each page holds
+ * {@code maxNumItems} items. A page that has been requested at an offset that
+ * the iterator doesn't ask for is cancelled and dropped, so no more than
+ * {@code prefetchPages} pages are held at any time.
+ * <p>
+ * The requested pages are fetched one after the other on a shared, bounded
+ * pool of daemon threads, so each iterator has at most one page request in
+ * flight. The background fetcher only holds a weak reference to the iterator
+ * and stops when the iterator has been garbage collected. An iterator that is
+ * abandoned without being closed therefore triggers at most
+ * {@code prefetchPages} further requests. If the pool is saturated, the
+ * iterator fetches the pages itself.
+ * <p>
+ * This class is not thread-safe. It is used by a single iterator.
+ */
+class PagePrefetcher<T> {
+
+    private static final int MAX_THREADS = 4;
+    private static final int MAX_QUEUED = 1000;
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(MAX_QUEUED), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "OpenCMIS page prefetcher " + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private final AbstractPageFetcher<T> pageFetcher;
+    private final WeakReference<Object> owner;
+    private final Map<Long, FutureTask<Page<T>>> pending = new LinkedHashMap<Long, FutureTask<Page<T>>>();
+    private final Queue<FutureTask<Page<T>>> queue = new ConcurrentLinkedQueue<FutureTask<Page<T>>>();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Constructor.
+     * 
+     * @param pageFetcher
+     *            the page fetcher
+     * @param owner
+     *            the iterator, only weakly referenced
+     */
+    PagePrefetcher(AbstractPageFetcher<T> pageFetcher, Object owner) {
+        this.pageFetcher = pageFetcher;
+        this.owner = new WeakReference<Object>(owner);
+    }
+
+    /**
+     * Returns the page at the given offset, either from a prefetched request
+     * or fetched synchronously, and requests the next pages.
+     */
+    Page<T> fetchPage(long skipCount) {
+        FutureTask<Page<T>> task = pending.remove(skipCount);
+
+        Page<T> page;
+        if (task == null) {
+            page = pageFetcher.fetchPage(skipCount);
+        } else {
+            // runs the request here if the background fetcher hasn't
+            // started it yet
+            queue.remove(task);
+            task.run();
+            page = getPage(task);
+        }
+
+        prefetch(skipCount, page);
+
+        return page;
+    }
+
+    /**
+     * Cancels all outstanding requests.
+     */
+    void cancel() {
+        queue.clear();
+        for (FutureTask<Page<T>> task : pending.values()) {
+            task.cancel(true);
+        }
+        pending.clear();
+    }
+
+    /**
+     * Returns the number of pages that have been requested and not consumed
+     * yet.
+     */
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    private void prefetch(long skipCount, Page<T> page) {
+        List<T> items = page == null ? null : page.getItems();
+        if (items == null || items.isEmpty() || !Boolean.TRUE.equals(page.getHasMoreItems())) {
+            cancel();
+            return;
+        }
+
+        long step = pageFetcher.maxNumItems;
+        if (step <= 0 || step >= Integer.MAX_VALUE) {
+            step = items.size();
+        }
+
+        long total = page.getTotalNumItems() == null ? -1 : page.getTotalNumItems().longValue();
+        long first = skipCount + items.size();
+        int pages = pageFetcher.getPrefetchPages();
+
+        // drop requests that the iterator won't ask for
+        for (Iterator<Map.Entry<Long, FutureTask<Page<T>>>> iter = pending.entrySet().iterator(); iter.hasNext();) {
+            Map.Entry<Long, FutureTask<Page<T>>> entry = iter.next();
+            long offset = entry.getKey().longValue();
+            if (offset < first || offset >= first + pages * step || (offset - first) % step != 0) {
+                queue.remove(entry.getValue());
+                entry.getValue().cancel(true);
+                iter.remove();
+            }
+        }
+
+        for (int i = 0; i < pages; i++) {
+            final long offset = first + i * step;
+            if (total >= 0 && offset >= total) {
+                break;
+            }
+
+            if (!pending.containsKey(offset)) {
+                FutureTask<Page<T>> task = new FutureTask<Page<T>>(new Callable<Page<T>>() {
+                    @Override
+                    public Page<T> call() {
+                        return pageFetcher.fetchPage(offset);
+                    }
+                });
+                pending.put(offset, task);
+                queue.add(task);
+            }
+        }
+
+        schedule();
+    }
+
+    /**
+     * Starts the background fetcher if it isn't running.
+     */
+    private void schedule() {
+        if (queue.isEmpty() || !running.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    runQueue();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the iterator runs the requests itself
+            running.set(false);
+        }
+    }
+
+    private void runQueue() {
+        try {
+            FutureTask<Page<T>> task;
+            while ((task = queue.poll()) != null) {
+                if (owner.get() == null) {
+                    // the iterator is gone
+                    task.cancel(false);
+                    queue.clear();
+                    return;
+                }
+                // clear the interrupt of a cancelled previous request
+                Thread.interrupted();
+                task.run();
+            }
+        } finally {
+            running.set(false);
+        }
+
+        // requests might have been added after the last poll
+        if (owner.get() != null) {
+            schedule();
+        }
+    }
+
+    private Page<T> getPage(FutureTask<Page<T>> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CmisRuntimeException("Interrupted while fetching page!", e);
+        } catch (CancellationException e) {
+            throw new CmisRuntimeException("Page request has been cancelled!", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CmisRuntimeException(cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.runtime.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import org.apache.chemistry.opencmis.client.api.ItemIterable;
+
+/**
+ * {@code Spliterator} that splits at page boundaries.
+ * <p>
+ * Each split hands over the rest of the current page, which is already in
+ * memory, so parallel streams work on whole pages while this spliterator moves
+ * on to the next page. The underlying iterator is closed when the end of the
+ * collection is reached.
+ * <p>
+ * Use {@link #of(ItemIterable)} to stream an {@link ItemIterable}:
+ * {@code StreamSupport.stream(PageSpliterator.of(children), true)}. (Not
+ * available in the Android client.)
+ *
+ * @param <T>
+ *            the type of the items
+ */
+public class PageSpliterator<T> implements Spliterator<T> {
+
+    private final AbstractIterator<T> iterator;
+
+    /**
+     * Constructor.
+     */
+    public PageSpliterator(AbstractIterator<T> iterator) {
+        this.iterator = iterator;
+    }
+
+    /**
+     * Returns a {@code Spliterator} that works on a new iterator of the given
+     * iterable. Iterables of this client split at page boundaries.
+     */
+    public static <T> Spliterator<T> of(ItemIterable<T> iterable) {
+        if (iterable instanceof AbstractIterable) {
+            return new PageSpliterator<T>(((AbstractIterable<T>) iterable).createIterator());
+        }
+
+        return Spliterators.spliteratorUnknownSize(iterable.iterator(), ORDERED);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+
+        if (!iterator.hasNext()) {
+            iterator.close();
+            return false;
+        }
+
+        action.accept(iterator.next());
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (!iterator.hasNext()) {
+            iterator.close();
+            return null;
+        }
+
+        // the first call may move the iterator to the next page
+        List<T> batch = new ArrayList<T>();
+        batch.add(iterator.next());
+
+        long remaining = iterator.getPageNumItems() - iterator.getSkipOffset();
+        while (remaining-- > 0 && iterator.hasNext()) {
+            batch.add(iterator.next());
+        }
+
+        return Spliterators.spliterator(batch, ORDERED);
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED;
+    }
+}
@@ -264,6 +264,16 @@ public final class OperationContextUtils {
                 return context.getMaxItemsPerPage();
             }
 
+            @Override
+            public void setPrefetchPages(int prefetchPages) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int getPrefetchPages() {
+                return context.getPrefetchPages();
+            }
+
             @Override
             public String toString() {
                 return context.toString();
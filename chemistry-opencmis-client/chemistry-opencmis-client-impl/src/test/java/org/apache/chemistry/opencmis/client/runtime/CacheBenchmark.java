@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.runtime;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.chemistry.opencmis.client.runtime.cache.Cache;
+import org.apache.chemistry.opencmis.client.runtime.cache.CacheImpl;
+import org.apache.chemistry.opencmis.client.runtime.cache.StripedCacheImpl;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+
+/**
+ * Simple benchmark comparing concurrent access to {@link CacheImpl} and
+ * {@link StripedCacheImpl}. This is not a unit test, run it manually with:
+ *
+ * <pre>
+ * java -cp ... org.apache.chemistry.opencmis.client.runtime.CacheBenchmark [objects] [threads] [seconds] [readPercent]
+ * </pre>
+ *
+ * Each thread reads random objects and puts the object into the cache on a
+ * miss. The number of distinct objects is twice the cache size by default.
+ */
+public class CacheBenchmark {
+
+    private static final String CACHE_KEY = "key";
+
+    public static void main(String[] args) throws Exception {
+        int objects = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int readPercent = args.length > 3 ? Integer.parseInt(args[3]) : 90;
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put(SessionParameter.CACHE_SIZE_OBJECTS, String.valueOf(objects / 2));
+        parameters.put(SessionParameter.CACHE_TTL_OBJECTS, String.valueOf(3600 * 1000));
+
+        Cache[] caches = new Cache[] { new CacheImpl(), new StripedCacheImpl() };
+        for (Cache cache : caches) {
+            cache.initialize(null, parameters);
+        }
+
+        // warm up, then measure
+        for (Cache cache : caches) {
+            run(cache, objects, threads, 1, readPercent);
+        }
+        for (Cache cache : caches) {
+            long ops = run(cache, objects, threads, seconds, readPercent);
+            System.out.println(cache.getClass().getSimpleName() + ", " + threads + " threads: " + ops
+                    + " operations in " + seconds + " s (" + (ops / seconds) + " ops/s)");
+        }
+    }
+
+    private static long run(final Cache cache, int objects, int threads, int seconds, final int readPercent)
+            throws InterruptedException {
+        final String[] ids = new String[objects];
+        final CmisObjectMock[] mocks = new CmisObjectMock[objects];
+        for (int i = 0; i < objects; i++) {
+            ids[i] = "id" + i;
+            mocks[i] = new CmisObjectMock(ids[i]);
+        }
+
+        final AtomicLong operations = new AtomicLong();
+        final long end = System.currentTimeMillis() + seconds * 1000L;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final Random random = new Random(t);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    long count = 0;
+                    while (System.currentTimeMillis() < end) {
+                        for (int i = 0; i < 1000; i++) {
+                            int n = random.nextInt(ids.length);
+                            if (random.nextInt(100) >= readPercent || cache.getById(ids[n], CACHE_KEY) == null) {
+                                cache.put(mocks[n], CACHE_KEY);
+                            }
+                        }
+                        count += 1000;
+                    }
+                    operations.addAndGet(count);
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        return operations.get();
+    }
+}
@@ -194,12 +194,19 @@ public class CacheTest {
      * @param id
      * @return a mocked object
      */
-    private static CmisObject createCmisObject(final String id) {
+    protected static CmisObject createCmisObject(final String id) {
         return new CmisObjectMock(id);
     }
 
-    private static Cache createCache(int cacheSize, int ttl) {
-        Cache cache = new CacheImpl();
+    /**
+     * Creates the cache implementation under test.
+     */
+    protected Cache createCacheInstance() {
+        return new CacheImpl();
+    }
+
+    protected Cache createCache(int cacheSize, int ttl) {
+        Cache cache = createCacheInstance();
 
         Map<String, String> parameters = new HashMap<String, String>();
         parameters.put(SessionParameter.CACHE_SIZE_OBJECTS, "" + cacheSize);
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.chemistry.opencmis.client.runtime.util.CallCoalescer;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
+import org.junit.Test;
+
+public class CallCoalescerTest {
+
+    @Test
+    public void testConcurrentCalls() throws Exception {
+        final CallCoalescer<Object> coalescer = new CallCoalescer<Object>();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger executions = new AtomicInteger();
+        final Object value = new Object();
+
+        final Callable<Object> call = new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                executions.incrementAndGet();
+                started.countDown();
+                release.await();
+                return value;
+            }
+        };
+
+        Callable<Object> caller = new Callable<Object>() {
+            @Override
+            public Object call() {
+                return coalescer.call("key", call);
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<Object> first = executor.submit(caller);
+            started.await();
+
+            Future<Object> second = executor.submit(caller);
+            Future<Object> third = executor.submit(caller);
+            while (coalescer.getCoalescedCallCount() < 2) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertSame(value, first.get(10, TimeUnit.SECONDS));
+            assertSame(value, second.get(10, TimeUnit.SECONDS));
+            assertSame(value, third.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, executions.get());
+        assertEquals(1, coalescer.getCallCount());
+        assertEquals(2, coalescer.getCoalescedCallCount());
+        assertEquals(0, coalescer.getInFlightCount());
+
+        // a finished call is not reused
+        coalescer.call("key", call);
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void testException() {
+        CallCoalescer<Object> coalescer = new CallCoalescer<Object>();
+
+        try {
+            coalescer.call("key", new Callable<Object>() {
+                @Override
+                public Object call() {
+                    throw new CmisObjectNotFoundException("not found");
+                }
+            });
+            fail("Exception expected!");
+        } catch (CmisObjectNotFoundException e) {
+            // expected
+        }
+
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+}
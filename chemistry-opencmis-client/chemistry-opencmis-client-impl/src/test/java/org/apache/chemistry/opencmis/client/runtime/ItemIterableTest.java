@@ -25,13 +25,20 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import org.apache.chemistry.opencmis.client.api.ItemIterable;
+import org.apache.chemistry.opencmis.client.runtime.util.AbstractIterator;
 import org.apache.chemistry.opencmis.client.runtime.util.AbstractPageFetcher;
 import org.apache.chemistry.opencmis.client.runtime.util.CollectionIterable;
+import org.apache.chemistry.opencmis.client.runtime.util.PageSpliterator;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,7 +61,11 @@ public class ItemIterableTest {
     private final String[] data0 = {};
 
     private ItemIterable<String> getIterable(final String[] data, long pageSize) {
-        return new CollectionIterable<String>(new AbstractPageFetcher<String>(pageSize) {
+        return getIterable(data, pageSize, 0);
+    }
+
+    private ItemIterable<String> getIterable(final String[] data, long pageSize, int prefetchPages) {
+        return new CollectionIterable<String>(new AbstractPageFetcher<String>(pageSize, prefetchPages) {
 
             @Override
             protected Page<String> fetchPage(long skipCount) {
@@ -261,11 +272,133 @@ public class ItemIterableTest {
         assertEquals(data.length - skipCount, count);
     }
 
+    @Test
+    public void loopAllPrefetch() {
+        for (int prefetchPages : new int[] { 1, 3 }) {
+            this.loopAll(this.data10, 100, prefetchPages);
+            this.loopAll(this.data10, 10, prefetchPages);
+            this.loopAll(this.data10, 3, prefetchPages);
+            this.loopAll(this.data10, 1, prefetchPages);
+            this.loopAll(this.data1, 1, prefetchPages);
+            this.loopAll(this.data0, 5, prefetchPages);
+        }
+    }
+
+    @Test
+    public void prefetchFetchesEachPageOnce() {
+        final int size = 100;
+        final List<Long> fetched = Collections.synchronizedList(new ArrayList<Long>());
+
+        ItemIterable<Integer> iterable = new CollectionIterable<Integer>(new AbstractPageFetcher<Integer>(7, 3) {
+            @Override
+            protected Page<Integer> fetchPage(long skipCount) {
+                fetched.add(skipCount);
+
+                List<Integer> page = new ArrayList<Integer>();
+                for (long i = skipCount; i < Math.min(size, skipCount + maxNumItems); i++) {
+                    page.add((int) i);
+                }
+
+                return new Page<Integer>(page, size, skipCount + page.size() < size);
+            }
+        });
+
+        int count = 0;
+        for (Integer i : iterable) {
+            assertEquals(count, i.intValue());
+            count++;
+        }
+        assertEquals(size, count);
+
+        List<Long> expected = new ArrayList<Long>();
+        for (long skipCount = 0; skipCount < size; skipCount += 7) {
+            expected.add(skipCount);
+        }
+        List<Long> actual = new ArrayList<Long>(fetched);
+        Collections.sort(actual);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void abandonedPrefetchingIterator() throws Exception {
+        final int size = 100;
+        final List<Long> fetched = Collections.synchronizedList(new ArrayList<Long>());
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        ItemIterable<Integer> iterable = new CollectionIterable<Integer>(new AbstractPageFetcher<Integer>(1, 3) {
+            @Override
+            protected Page<Integer> fetchPage(long skipCount) {
+                int current = inFlight.incrementAndGet();
+                try {
+                    synchronized (maxInFlight) {
+                        maxInFlight.set(Math.max(maxInFlight.get(), current));
+                    }
+                    fetched.add(skipCount);
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+
+                return new Page<Integer>(Collections.singletonList((int) skipCount), size, skipCount + 1 < size);
+            }
+        });
+
+        // leave the loop without closing the iterator
+        for (Integer i : iterable) {
+            assertEquals(0, i.intValue());
+            break;
+        }
+
+        long end = System.currentTimeMillis() + 5000;
+        while (fetched.size() < 4 && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+
+        // the first page and three prefetched pages, one at a time
+        assertEquals(4, fetched.size());
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test
+    public void closePrefetchingIterator() {
+        ItemIterable<String> p = this.getIterable(this.data10, 2, 3);
+        AbstractIterator<String> iter = (AbstractIterator<String>) p.iterator();
+        assertEquals("A0", iter.next());
+        iter.close();
+        iter.close();
+    }
+
+    @Test
+    public void spliterator() {
+        for (int prefetchPages : new int[] { 0, 2 }) {
+            for (int pageSize : new int[] { 1, 3, 10, 100 }) {
+                ItemIterable<String> p = this.getIterable(this.data10, pageSize, prefetchPages);
+                List<String> result = StreamSupport.stream(PageSpliterator.of(p), true).collect(Collectors.<String> toList());
+                assertEquals(Arrays.asList(this.data10), result);
+            }
+
+            ItemIterable<String> p = this.getIterable(this.data10, 3, prefetchPages).skipTo(4).getPage();
+            List<String> result = StreamSupport.stream(PageSpliterator.of(p), true).collect(Collectors.<String> toList());
+            assertEquals(Arrays.asList("A4", "A5", "A6"), result);
+
+            p = this.getIterable(this.data0, 3, prefetchPages);
+            assertEquals(0, StreamSupport.stream(PageSpliterator.of(p), true).count());
+        }
+    }
+
     private void loopAll(String[] data, int pageSize) {
-        ItemIterableTest.LOG.info("loopAll (" + pageSize + ")");
+        loopAll(data, pageSize, 0);
+    }
+
+    private void loopAll(String[] data, int pageSize, int prefetchPages) {
+        ItemIterableTest.LOG.info("loopAll (" + pageSize + ", " + prefetchPages + ")");
         String msg = "";
 
-        ItemIterable<String> p = this.getIterable(data, pageSize);
+        ItemIterable<String> p = this.getIterable(data, pageSize, prefetchPages);
         assertNotNull(p);
 
         int count = 0;
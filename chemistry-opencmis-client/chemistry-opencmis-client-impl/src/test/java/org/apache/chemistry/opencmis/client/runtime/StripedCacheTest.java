@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Property;
+import org.apache.chemistry.opencmis.client.runtime.cache.Cache;
+import org.apache.chemistry.opencmis.client.runtime.cache.StripedCacheImpl;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyStringDefinitionImpl;
+import org.junit.Test;
+
+/**
+ * Runs the cache tests against {@link StripedCacheImpl}.
+ */
+public class StripedCacheTest extends CacheTest {
+
+    @Override
+    protected Cache createCacheInstance() {
+        return new StripedCacheImpl();
+    }
+
+    @Test
+    public void segmentedSizeTest() {
+        int cacheSize = 1000;
+        StripedCacheImpl cache = (StripedCacheImpl) createCache(cacheSize, 3600 * 1000);
+
+        String cacheKey = "key";
+
+        for (int i = 0; i < cacheSize * 10; i++) {
+            cache.put(createCmisObject("id" + i), cacheKey);
+        }
+
+        // segments may grow a bit beyond their share before they are trimmed
+        assertTrue(cache.getObjectEntryCount() <= cacheSize + (cacheSize >> 4));
+        assertTrue(cache.getObjectEntryCount() >= cacheSize / 2);
+
+        // the most recent object is always there
+        assertNotNull(cache.getById("id" + (cacheSize * 10 - 1), cacheKey));
+    }
+
+    @Test
+    public void concurrentAccessTest() throws Exception {
+        final int cacheSize = 1000;
+        final Cache cache = createCache(cacheSize, 3600 * 1000);
+        final String cacheKey = "key";
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        int found = 0;
+                        for (int i = 0; i < 10000; i++) {
+                            String id = "id" + ((i * 7 + thread) % (cacheSize / 2));
+                            CmisObject obj = cache.getById(id, cacheKey);
+                            if (obj == null) {
+                                cache.put(createCmisObject(id), cacheKey);
+                            } else {
+                                assertEquals(id, obj.getId());
+                                found++;
+                            }
+                        }
+                        return found;
+                    }
+                }));
+            }
+
+            int found = 0;
+            for (Future<Integer> future : futures) {
+                found += future.get();
+            }
+            assertTrue(found > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void sizeBudgetTest() {
+        StripedCacheImpl cache = new StripedCacheImpl();
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put(SessionParameter.CACHE_SIZE_OBJECTS, "100");
+        parameters.put(SessionParameter.CACHE_TTL_OBJECTS, "" + 3600 * 1000);
+        parameters.put(SessionParameter.CACHE_SIZE_BYTES_OBJECTS, "100000");
+        cache.initialize(null, parameters);
+
+        String cacheKey = "key";
+
+        // each object has about 20 KB of property values
+        for (int i = 0; i < 50; i++) {
+            cache.put(createLargeCmisObject("id" + i, 10000), cacheKey);
+        }
+
+        assertTrue(cache.getObjectSizeBytes() > 0);
+        assertTrue(cache.getObjectSizeBytes() <= 100000);
+        assertTrue(cache.getObjectEntryCount() < 5);
+        assertEquals(50 - cache.getObjectEntryCount(), cache.getSizeEvictionCount());
+        assertEquals(0, cache.getTtlEvictionCount());
+
+        assertNotNull(cache.getById("id49", cacheKey));
+        assertNull(cache.getById("id0", cacheKey));
+
+        // small objects still fit
+        cache.put(createCmisObject("small"), cacheKey);
+        assertNotNull(cache.getById("small", cacheKey));
+
+        cache.remove("id49");
+        cache.remove("small");
+        assertEquals(cache.getObjectEntryCount() > 0, cache.getObjectSizeBytes() > 0);
+    }
+
+    @Test
+    public void ttlEvictionCountTest() throws InterruptedException {
+        StripedCacheImpl cache = (StripedCacheImpl) createCache(10, 100);
+
+        String cacheKey = "key";
+        cache.put(createCmisObject("id"), cacheKey);
+
+        Thread.sleep(200);
+
+        assertNull(cache.getById("id", cacheKey));
+        assertEquals(1, cache.getTtlEvictionCount());
+        assertEquals(0, cache.getSizeEvictionCount());
+    }
+
+    private static CmisObject createLargeCmisObject(String id, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append('x');
+        }
+
+        PropertyStringDefinitionImpl definition = new PropertyStringDefinitionImpl();
+        definition.setId("large");
+        final List<Property<?>> properties = new ArrayList<Property<?>>();
+        properties.add(new PropertyImpl<String>(definition, Collections.singletonList(sb.toString())));
+
+        return new CmisObjectMock(id) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public List<Property<?>> getProperties() {
+                return properties;
+            }
+        };
+    }
+}
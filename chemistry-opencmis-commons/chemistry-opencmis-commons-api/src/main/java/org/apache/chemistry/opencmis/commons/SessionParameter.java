@@ -87,6 +87,15 @@ package org.apache.chemistry.opencmis.commons;
  * </td>
  * </tr>
  * <tr>
+ * <td>{@link #GET_OBJECTS_THREADS}</td>
+ * <td>Threads used by Session.getObjects() for objects that cannot be
+ * queried</td>
+ * <td>all</td>
+ * <td>number of threads, 1 loads the objects on the calling thread</td>
+ * <td>no</td>
+ * <td>8</td>
+ * </tr>
+ * <tr>
  * <td colspan="6"><b>Authentication settings</b></td>
  * </tr>
  * <tr>
@@ -231,11 +240,39 @@ package org.apache.chemistry.opencmis.commons;
  * <td>JVM default</td>
  * </tr>
  * <tr>
+ * <td>{@link #HTTP_MAX_REQUESTS_PER_HOST}</td>
+ * <td>Maximum number of concurrent asynchronous requests per host (only
+ * supported by the OkHttp invoker)</td>
+ * <td>AtomPub, Browser</td>
+ * <td>number of requests</td>
+ * <td>no</td>
+ * <td>5</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #HTTP_MAX_IDLE_CONNECTIONS}</td>
+ * <td>Maximum number of idle connections kept in the connection pool (only
+ * supported by the OkHttp invoker)</td>
+ * <td>AtomPub, Browser</td>
+ * <td>number of connections</td>
+ * <td>no</td>
+ * <td>5</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #HTTP_KEEP_ALIVE}</td>
+ * <td>Time an idle connection is kept in the connection pool (only supported
+ * by the OkHttp invoker)</td>
+ * <td>AtomPub, Browser</td>
+ * <td>time in milliseconds</td>
+ * <td>no</td>
+ * <td>300000 (5 minutes)</td>
+ * </tr>
+ * <tr>
  * <td colspan="6"><b>Cache settings</b></td>
  * </tr>
  * <tr>
  * <td>{@link #CACHE_CLASS}</td>
- * <td>Cache implementation class</td>
+ * <td>Cache implementation class (for many concurrent threads:
+ * org.apache.chemistry.opencmis.client.runtime.cache.StripedCacheImpl)</td>
  * <td>all</td>
  * <td>class name</td>
  * <td>no</td>
@@ -267,6 +304,15 @@ package org.apache.chemistry.opencmis.commons;
  * <td>7200000 (2 hours)</td>
  * </tr>
  * <tr>
+ * <td>{@link #CACHE_SIZE_BYTES_OBJECTS}</td>
+ * <td>Object cache memory budget (only supported by
+ * org.apache.chemistry.opencmis.client.runtime.cache.StripedCacheImpl)</td>
+ * <td>all</td>
+ * <td>estimated heap size in bytes, 0 turns the budget off</td>
+ * <td>no</td>
+ * <td>0</td>
+ * </tr>
+ * <tr>
  * <td>{@link #CACHE_SIZE_PATHTOID}</td>
  * <td>Path-to-id cache size</td>
  * <td>all</td>
@@ -544,6 +590,15 @@ package org.apache.chemistry.opencmis.commons;
  * <td>"true"</td>
  * </tr>
  * <tr>
+ * <td>{@link #BROWSER_STREAMING_PARSER}</td>
+ * <td>Defines if object lists should be converted while the JSON response is
+ * parsed instead of parsing the complete response first</td>
+ * <td>Browser</td>
+ * <td>"true", "false"</td>
+ * <td>no</td>
+ * <td>"false"</td>
+ * </tr>
+ * <tr>
  * <td colspan="6"><b>Local Binding</b></td>
  * </tr>
  * <tr>
@@ -665,6 +720,7 @@ public final class SessionParameter {
     public static final String BROWSER_URL = "org.apache.chemistry.opencmis.binding.browser.url";
     public static final String BROWSER_SUCCINCT = "org.apache.chemistry.opencmis.binding.browser.succinct";
     public static final String BROWSER_DATETIME_FORMAT = "org.apache.chemistry.opencmis.binding.browser.datetimeformat";
+    public static final String BROWSER_STREAMING_PARSER = "org.apache.chemistry.opencmis.binding.browser.streamingparser";
 
     /** Factory class name for the local binding. */
     public static final String LOCAL_FACTORY = "org.apache.chemistry.opencmis.binding.local.classname";
@@ -725,6 +781,10 @@ public final class SessionParameter {
     public static final String CONNECT_TIMEOUT = "org.apache.chemistry.opencmis.binding.connecttimeout";
     public static final String READ_TIMEOUT = "org.apache.chemistry.opencmis.binding.readtimeout";
 
+    public static final String HTTP_MAX_REQUESTS_PER_HOST = "org.apache.chemistry.opencmis.binding.maxrequestsperhost";
+    public static final String HTTP_MAX_IDLE_CONNECTIONS = "org.apache.chemistry.opencmis.binding.maxidleconnections";
+    public static final String HTTP_KEEP_ALIVE = "org.apache.chemistry.opencmis.binding.keepalive";
+
     public static final String PROXY_USER = "org.apache.chemistry.opencmis.binding.proxyuser";
     public static final String PROXY_PASSWORD = "org.apache.chemistry.opencmis.binding.proxypassword";
 
@@ -736,6 +796,7 @@ public final class SessionParameter {
 
     public static final String CACHE_SIZE_OBJECTS = "org.apache.chemistry.opencmis.cache.objects.size";
     public static final String CACHE_TTL_OBJECTS = "org.apache.chemistry.opencmis.cache.objects.ttl";
+    public static final String CACHE_SIZE_BYTES_OBJECTS = "org.apache.chemistry.opencmis.cache.objects.bytes";
     public static final String CACHE_SIZE_PATHTOID = "org.apache.chemistry.opencmis.cache.pathtoid.size";
     public static final String CACHE_TTL_PATHTOID = "org.apache.chemistry.opencmis.cache.pathtoid.ttl";
     public static final String CACHE_PATH_OMIT = "org.apache.chemistry.opencmis.cache.path.omit";
@@ -756,6 +817,8 @@ public final class SessionParameter {
 
     public static final String REPOSITORY_ID = "org.apache.chemistry.opencmis.session.repository.id";
 
+    public static final String GET_OBJECTS_THREADS = "org.apache.chemistry.opencmis.session.getobjects.threads";
+
     // --- workarounds ---
 
     public static final String INCLUDE_OBJECTID_URL_PARAM_ON_CHECKOUT = "org.apache.chemistry.opencmis.workaround.includeObjectIdOnCheckout";
@@ -29,6 +29,8 @@ public final class SessionParameterDefaults {
     public static final int CACHE_SIZE_TYPES = 100;
     public static final int CACHE_SIZE_LINKS = 400;
 
+    public static final int GET_OBJECTS_THREADS = 8;
+
     // utility class
     private SessionParameterDefaults() {
     }
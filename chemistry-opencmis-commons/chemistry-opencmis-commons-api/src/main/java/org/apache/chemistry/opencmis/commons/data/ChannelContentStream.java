@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Content stream that can provide its content as a {@link FileChannel} range
+ * or as a {@link ByteBuffer}. (AtomPub binding and Browser binding server
+ * only.)
+ * <p>
+ * If the file channel or the byte buffer is available, the binding writes the
+ * content from there and doesn't call {@link #getStream()}. Implementations
+ * should therefore open the stream lazily. {@link #getStream()} must still
+ * return a stream for all other consumers.
+ * <p>
+ * If the server implementation applied an offset and/or a length, the file
+ * channel range or the byte buffer must only cover the requested part of the
+ * content.
+ */
+public interface ChannelContentStream extends ContentStream {
+
+    /**
+     * Returns a file channel that contains the content.
+     * <p>
+     * The caller closes the channel.
+     * 
+     * @return the file channel or {@code null} if the content is not available
+     *         as a file channel
+     */
+    FileChannel getFileChannel() throws IOException;
+
+    /**
+     * Returns the file the file channel reads from.
+     * <p>
+     * If the servlet container can send files itself, the binding passes the
+     * file range to the container instead of reading the channel.
+     * 
+     * @return the file or {@code null} if the channel doesn't belong to a file
+     *         that the container may open
+     */
+    File getFile();
+
+    /**
+     * Returns the position of the first content byte in the file channel.
+     * 
+     * @return the position in bytes
+     */
+    long getFileChannelPosition();
+
+    /**
+     * Returns the number of content bytes in the file channel.
+     * 
+     * @return the length in bytes or -1 if the content reaches to the end of
+     *         the channel
+     */
+    long getFileChannelLength();
+
+    /**
+     * Returns a byte buffer with the content between its position and its
+     * limit.
+     * 
+     * @return the byte buffer or {@code null} if the content is not available
+     *         as a byte buffer
+     */
+    ByteBuffer getByteBuffer();
+}
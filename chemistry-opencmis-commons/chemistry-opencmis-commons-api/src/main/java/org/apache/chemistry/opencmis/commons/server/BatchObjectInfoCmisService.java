@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.server;
+
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderList;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+
+/**
+ * CmisService classes that implement this interface can compile the
+ * {@link ObjectInfo} objects of a whole feed at once.
+ * 
+ * The AtomPub binding calls these methods after a service method returned a
+ * list of objects and before it writes the feed entries. The service can use
+ * the data in the list and share repository calls between the objects instead
+ * of compiling the object info of each entry separately. Object infos that
+ * have already been added should be kept.
+ * 
+ * Both methods must not throw exceptions. If an object info cannot be
+ * compiled, the binding falls back to
+ * {@link CmisService#getObjectInfo(String, String)}.
+ */
+public interface BatchObjectInfoCmisService extends CmisService {
+
+    /**
+     * Compiles the object infos of the children of a folder.
+     * 
+     * @param repositoryId
+     *            the identifier for the repository
+     * @param children
+     *            the children, all of them have the same parent folder
+     */
+    void compileObjectInfos(String repositoryId, ObjectInFolderList children);
+
+    /**
+     * Compiles the object infos of a list of objects.
+     * 
+     * @param repositoryId
+     *            the identifier for the repository
+     * @param objects
+     *            the objects
+     */
+    void compileObjectInfos(String repositoryId, ObjectList objects);
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.impl;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe pool of byte arrays for I/O buffers.
+ * <p>
+ * Only buffers with a size that is a power of two between 4 KB and 4 MB are
+ * pooled, other sizes are allocated and dropped as usual. The pool keeps up to
+ * {@link #MAX_BYTES} bytes per buffer size. Pooled buffers are not cleared, a
+ * caller must not read bytes it hasn't written.
+ * <p>
+ * The pool can be turned off with the system property
+ * {@value #ENABLED_SYSTEM_PROPERTY} or with {@link #setEnabled(boolean)}.
+ */
+public final class BufferPool {
+
+    public static final long MAX_BYTES;
+
+    public static final long MAX_BYTES_DEFAULT = 8 * 1024 * 1024;
+
+    public static final String ENABLED_SYSTEM_PROPERTY = "org.apache.chemistry.opencmis.BufferPool.enabled";
+    public static final String MAX_BYTES_SYSTEM_PROPERTY = "org.apache.chemistry.opencmis.BufferPool.maxBytes";
+
+    private static final int MIN_SHIFT = 12;
+    private static final int MAX_SHIFT = 22;
+
+    private static final ConcurrentLinkedQueue<byte[]>[] POOLS;
+    private static final AtomicInteger[] POOL_SIZES;
+    private static final AtomicLong REUSED = new AtomicLong();
+
+    private static volatile boolean enabled;
+
+    static {
+        enabled = !"false".equalsIgnoreCase(System.getProperty(ENABLED_SYSTEM_PROPERTY));
+
+        long maxBytes = MAX_BYTES_DEFAULT;
+        try {
+            String maxBytesStr = System.getProperty(MAX_BYTES_SYSTEM_PROPERTY);
+            if (maxBytesStr != null) {
+                maxBytes = Long.parseLong(maxBytesStr);
+
+                // check for sane values
+                if (maxBytes < 0) {
+                    maxBytes = MAX_BYTES_DEFAULT;
+                }
+            }
+        } catch (NumberFormatException e) {
+            // ignore
+        }
+        MAX_BYTES = maxBytes;
+
+        @SuppressWarnings("unchecked")
+        ConcurrentLinkedQueue<byte[]>[] pools = new ConcurrentLinkedQueue[MAX_SHIFT - MIN_SHIFT + 1];
+        POOLS = pools;
+        POOL_SIZES = new AtomicInteger[pools.length];
+        for (int i = 0; i < pools.length; i++) {
+            POOLS[i] = new ConcurrentLinkedQueue<byte[]>();
+            POOL_SIZES[i] = new AtomicInteger();
+        }
+    }
+
+    private BufferPool() {
+    }
+
+    /**
+     * Returns whether buffers are pooled.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns the pool on or off. Turning the pool off drops all pooled buffers.
+     */
+    public static void setEnabled(boolean enabled) {
+        BufferPool.enabled = enabled;
+        if (!enabled) {
+            for (int i = 0; i < POOLS.length; i++) {
+                while (POOLS[i].poll() != null) {
+                    POOL_SIZES[i].decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a buffer of the given size, either from the pool or newly
+     * allocated.
+     */
+    public static byte[] acquire(int size) {
+        int index = indexOf(size);
+        if (index >= 0 && enabled) {
+            byte[] buffer = POOLS[index].poll();
+            if (buffer != null) {
+                POOL_SIZES[index].decrementAndGet();
+                REUSED.incrementAndGet();
+                return buffer;
+            }
+        }
+
+        return new byte[size];
+    }
+
+    /**
+     * Returns a buffer to the pool. The caller must not use the buffer
+     * afterwards. {@code null} and buffers that cannot be pooled are ignored.
+     */
+    public static void release(byte[] buffer) {
+        if (buffer == null || !enabled) {
+            return;
+        }
+
+        int index = indexOf(buffer.length);
+        if (index < 0) {
+            return;
+        }
+
+        long maxCount = MAX_BYTES / buffer.length;
+        if (POOL_SIZES[index].incrementAndGet() > maxCount) {
+            POOL_SIZES[index].decrementAndGet();
+            return;
+        }
+
+        POOLS[index].offer(buffer);
+    }
+
+    /**
+     * Returns how many buffers have been taken from the pool instead of being
+     * allocated.
+     */
+    public static long getReuseCount() {
+        return REUSED.get();
+    }
+
+    private static int indexOf(int size) {
+        if (size <= 0 || (size & (size - 1)) != 0) {
+            return -1;
+        }
+
+        int shift = Integer.numberOfTrailingZeros(size);
+        if (shift < MIN_SHIFT || shift > MAX_SHIFT) {
+            return -1;
+        }
+
+        return shift - MIN_SHIFT;
+    }
+}
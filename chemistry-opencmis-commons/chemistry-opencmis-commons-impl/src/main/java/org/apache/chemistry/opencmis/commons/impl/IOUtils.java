@@ -155,7 +155,7 @@ public final class IOUtils {
         InputStream checkStream = stream;
 
         if (!stream.markSupported()) {
-            checkStream = new BufferedInputStream(stream, bufferSize);
+            checkStream = new PooledBufferedInputStream(stream, bufferSize);
         }
 
         if (checkForBytes(checkStream)) {
@@ -234,8 +234,8 @@ public final class IOUtils {
             return;
         }
 
+        final byte[] buffer = BufferPool.acquire(64 * 1024);
         try {
-            final byte[] buffer = new byte[64 * 1024];
             while (stream.read(buffer) > -1) {
                 // just consume
             }
@@ -243,6 +243,7 @@ public final class IOUtils {
             // ignore
         } finally {
             IOUtils.closeQuietly(stream);
+            BufferPool.release(buffer);
         }
     }
 
@@ -304,10 +305,14 @@ public final class IOUtils {
         assert bufferSize > 0;
 
         int b;
-        byte[] buffer = new byte[bufferSize];
+        byte[] buffer = BufferPool.acquire(bufferSize);
 
-        while ((b = in.read(buffer)) > -1) {
-            out.write(buffer, 0, b);
+        try {
+            while ((b = in.read(buffer)) > -1) {
+                out.write(buffer, 0, b);
+            }
+        } finally {
+            BufferPool.release(buffer);
         }
     }
 
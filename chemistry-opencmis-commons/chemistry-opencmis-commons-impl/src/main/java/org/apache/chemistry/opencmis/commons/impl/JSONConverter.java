@@ -22,6 +22,8 @@ import static org.apache.chemistry.opencmis.commons.impl.CollectionsHelper.isNot
 import static org.apache.chemistry.opencmis.commons.impl.CollectionsHelper.isNullOrEmpty;
 import static org.apache.chemistry.opencmis.commons.impl.JSONConstants.*;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -165,6 +167,8 @@ import org.apache.chemistry.opencmis.commons.impl.dataobjects.TypeDefinitionList
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.TypeMutabilityImpl;
 import org.apache.chemistry.opencmis.commons.impl.json.JSONArray;
 import org.apache.chemistry.opencmis.commons.impl.json.JSONObject;
+import org.apache.chemistry.opencmis.commons.impl.json.JSONStreamAware;
+import org.apache.chemistry.opencmis.commons.impl.json.JSONWriter;
 
 /**
  * OpenCMIS objects to JSON converter.
@@ -1202,47 +1206,73 @@ public final class JSONConverter {
             return null;
         }
 
-        // get the type
-        TypeDefinition type = null;
+        TypeDefinition type = getType(properties, typeCache);
+
+        JSONObject result = new JSONObject();
+
+        for (PropertyData<?> property : properties.getPropertyList()) {
+            assert property != null;
+            assert property.getId() != null;
+
+            PropertyDefinition<?> propDef = getPropertyDefinition(property, type, objectId, typeCache, propertyMode);
+            result.put(getPropertyId(property, propertyMode), convert(property, propDef, succinct, dateTimeFormat));
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the type definition of the type id property.
+     */
+    private static TypeDefinition getType(final Properties properties, final TypeCache typeCache) {
         if (typeCache != null) {
             PropertyData<?> typeProp = properties.getProperties().get(PropertyIds.OBJECT_TYPE_ID);
             if (typeProp instanceof PropertyId) {
                 String typeId = ((PropertyId) typeProp).getFirstValue();
                 if (typeId != null) {
-                    type = typeCache.getTypeDefinition(typeId);
+                    return typeCache.getTypeDefinition(typeId);
                 }
             }
         }
 
-        JSONObject result = new JSONObject();
+        return null;
+    }
 
-        for (PropertyData<?> property : properties.getPropertyList()) {
-            assert property != null;
-            assert property.getId() != null;
+    /**
+     * Gets the definition of a property from the property, the type cache,
+     * the object type or the types of the object.
+     */
+    private static PropertyDefinition<?> getPropertyDefinition(final PropertyData<?> property,
+            final TypeDefinition type, final String objectId, final TypeCache typeCache,
+            final PropertyMode propertyMode) {
+        PropertyDefinition<?> propDef = null;
+        if (property instanceof PropertyDataWithDefinition) {
+            propDef = ((PropertyDataWithDefinition<?>) property).getPropertyDefinition();
+        }
+        if (propDef == null && typeCache != null) {
+            propDef = typeCache.getPropertyDefinition(property.getId());
+        }
+        if (propDef == null && type != null) {
+            propDef = type.getPropertyDefinitions().get(property.getId());
+        }
+        if (propDef == null && typeCache != null && objectId != null && propertyMode != PropertyMode.CHANGE) {
+            typeCache.getTypeDefinitionForObject(objectId);
+            propDef = typeCache.getPropertyDefinition(property.getId());
+        }
 
-            PropertyDefinition<?> propDef = null;
-            if (property instanceof PropertyDataWithDefinition) {
-                propDef = ((PropertyDataWithDefinition<?>) property).getPropertyDefinition();
-            }
-            if (propDef == null && typeCache != null) {
-                propDef = typeCache.getPropertyDefinition(property.getId());
-            }
-            if (propDef == null && type != null) {
-                propDef = type.getPropertyDefinitions().get(property.getId());
-            }
-            if (propDef == null && typeCache != null && objectId != null && propertyMode != PropertyMode.CHANGE) {
-                typeCache.getTypeDefinitionForObject(objectId);
-                propDef = typeCache.getPropertyDefinition(property.getId());
-            }
+        return propDef;
+    }
 
-            String propId = (propertyMode == PropertyMode.QUERY ? property.getQueryName() : property.getId());
-            if (propId == null) {
-                throw new CmisRuntimeException("No query name or alias for property '" + property.getId() + "'!");
-            }
-            result.put(propId, convert(property, propDef, succinct, dateTimeFormat));
+    /**
+     * Gets the JSON member name of a property.
+     */
+    private static String getPropertyId(final PropertyData<?> property, final PropertyMode propertyMode) {
+        String propId = (propertyMode == PropertyMode.QUERY ? property.getQueryName() : property.getId());
+        if (propId == null) {
+            throw new CmisRuntimeException("No query name or alias for property '" + property.getId() + "'!");
         }
 
-        return result;
+        return propId;
     }
 
     /**
@@ -1502,6 +1532,140 @@ public final class JSONConverter {
         return result;
     }
 
+    /**
+     * Converts an object list while it is written. Only one object is
+     * converted at a time, so the JSON tree of the whole list is never built.
+     * The JSON text is the same as the text of
+     * {@link #convert(ObjectList, TypeCache, PropertyMode, boolean, DateTimeFormat)}.
+     * <p>
+     * The type and property definitions of all objects are looked up before
+     * this method returns. Errors are thrown here and not in the middle of
+     * the output, call this method before the response is committed.
+     */
+    public static JSONStreamAware convertStreaming(final ObjectList list, final TypeCache typeCache,
+            final PropertyMode propertyMode, final boolean succinct, final DateTimeFormat dateTimeFormat) {
+        if (list != null && list.getObjects() != null) {
+            for (ObjectData object : list.getObjects()) {
+                resolveDefinitions(object, typeCache, propertyMode);
+            }
+        }
+
+        return new JSONStreamAware() {
+            @Override
+            public void writeJSONString(Writer out) throws IOException {
+                if (list == null) {
+                    out.write("null");
+                    return;
+                }
+
+                JSONWriter writer = new JSONWriter(out);
+                writer.beginObject();
+
+                boolean query = propertyMode == PropertyMode.QUERY;
+                writer.name(query ? JSON_QUERYRESULTLIST_RESULTS : JSON_OBJECTLIST_OBJECTS);
+                writer.beginArray();
+                if (list.getObjects() != null) {
+                    for (ObjectData object : list.getObjects()) {
+                        writer.value(convert(object, typeCache, propertyMode, succinct, dateTimeFormat));
+                    }
+                }
+                writer.endArray();
+
+                writer.memberIfNotNull(query ? JSON_QUERYRESULTLIST_HAS_MORE_ITEMS : JSON_OBJECTLIST_HAS_MORE_ITEMS,
+                        list.hasMoreItems());
+                writer.memberIfNotNull(query ? JSON_QUERYRESULTLIST_NUM_ITEMS : JSON_OBJECTLIST_NUM_ITEMS,
+                        list.getNumItems());
+
+                writeExtension(list, writer);
+
+                writer.endObject();
+            }
+        };
+    }
+
+    /**
+     * Converts a folder list while it is written. Only one object is converted
+     * at a time, so the JSON tree of the whole list is never built. The JSON
+     * text is the same as the text of
+     * {@link #convert(ObjectInFolderList, TypeCache, boolean, DateTimeFormat)}.
+     * <p>
+     * The type and property definitions of all objects are looked up before
+     * this method returns. Errors are thrown here and not in the middle of
+     * the output, call this method before the response is committed.
+     */
+    public static JSONStreamAware convertStreaming(final ObjectInFolderList objectInFolderList,
+            final TypeCache typeCache, final boolean succinct, final DateTimeFormat dateTimeFormat) {
+        if (objectInFolderList != null && objectInFolderList.getObjects() != null) {
+            for (ObjectInFolderData object : objectInFolderList.getObjects()) {
+                if (object != null) {
+                    resolveDefinitions(object.getObject(), typeCache, PropertyMode.OBJECT);
+                }
+            }
+        }
+
+        return new JSONStreamAware() {
+            @Override
+            public void writeJSONString(Writer out) throws IOException {
+                if (objectInFolderList == null) {
+                    out.write("null");
+                    return;
+                }
+
+                JSONWriter writer = new JSONWriter(out);
+                writer.beginObject();
+
+                if (objectInFolderList.getObjects() != null) {
+                    writer.name(JSON_OBJECTINFOLDERLIST_OBJECTS);
+                    writer.beginArray();
+                    for (ObjectInFolderData object : objectInFolderList.getObjects()) {
+                        writer.value(convert(object, typeCache, succinct, dateTimeFormat));
+                    }
+                    writer.endArray();
+                }
+
+                writer.memberIfNotNull(JSON_OBJECTINFOLDERLIST_HAS_MORE_ITEMS, objectInFolderList.hasMoreItems());
+                writer.memberIfNotNull(JSON_OBJECTINFOLDERLIST_NUM_ITEMS, objectInFolderList.getNumItems());
+
+                writeExtension(objectInFolderList, writer);
+
+                writer.endObject();
+            }
+        };
+    }
+
+    /**
+     * Looks up the definitions that the conversion of an object and its
+     * relationships needs. The type cache keeps them for the conversion.
+     */
+    private static void resolveDefinitions(final ObjectData object, final TypeCache typeCache,
+            final PropertyMode propertyMode) {
+        if (object == null) {
+            return;
+        }
+
+        if (object.getProperties() != null) {
+            TypeDefinition type = getType(object.getProperties(), typeCache);
+            for (PropertyData<?> property : object.getProperties().getPropertyList()) {
+                getPropertyDefinition(property, type, object.getId(), typeCache, propertyMode);
+                getPropertyId(property, propertyMode);
+            }
+        }
+
+        if (isNotEmpty(object.getRelationships())) {
+            for (ObjectData relationship : object.getRelationships()) {
+                resolveDefinitions(relationship, typeCache, propertyMode);
+            }
+        }
+    }
+
+    private static void writeExtension(final ExtensionsData source, final JSONWriter writer) throws IOException {
+        JSONObject extensions = new JSONObject();
+        convertExtension(source, extensions);
+        for (Map.Entry<String, Object> entry : extensions.entrySet()) {
+            writer.member(entry.getKey(), entry.getValue());
+        }
+    }
+
     /**
      * Converts a folder container.
      */
@@ -2081,50 +2245,7 @@ public final class JSONConverter {
                     throw new CmisRuntimeException("Invalid property datatype: " + id, e);
                 }
 
-                Object value = jsonPropertyMap.get(JSON_PROPERTY_VALUE);
-                List<Object> values = null;
-                if (value instanceof List) {
-                    values = (List<Object>) value;
-                } else if (value != null) {
-                    values = Collections.singletonList(value);
-                }
-
-                switch (propertyType) {
-                case STRING:
-                    property = new PropertyStringImpl();
-                    ((PropertyStringImpl) property).setValues(copyStringValues(values));
-                    break;
-                case ID:
-                    property = new PropertyIdImpl();
-                    ((PropertyIdImpl) property).setValues(copyStringValues(values));
-                    break;
-                case BOOLEAN:
-                    property = new PropertyBooleanImpl();
-                    ((PropertyBooleanImpl) property).setValues(copyBooleanValues(values));
-                    break;
-                case INTEGER:
-                    property = new PropertyIntegerImpl();
-                    ((PropertyIntegerImpl) property).setValues(copyIntegerValues(values));
-                    break;
-                case DECIMAL:
-                    property = new PropertyDecimalImpl();
-                    ((PropertyDecimalImpl) property).setValues(copyDecimalValues(values));
-                    break;
-                case DATETIME:
-                    property = new PropertyDateTimeImpl();
-                    ((PropertyDateTimeImpl) property).setValues(copyDateTimeValues(values));
-                    break;
-                case HTML:
-                    property = new PropertyHtmlImpl();
-                    ((PropertyHtmlImpl) property).setValues(copyStringValues(values));
-                    break;
-                case URI:
-                    property = new PropertyUriImpl();
-                    ((PropertyUriImpl) property).setValues(copyStringValues(values));
-                    break;
-                default:
-                    throw new CmisRuntimeException("Unknown property data type!");
-                }
+                property = createProperty(propertyType, jsonPropertyMap.get(JSON_PROPERTY_VALUE));
 
                 property.setId(id);
                 property.setDisplayName(getString(jsonPropertyMap, JSON_PROPERTY_DISPLAYNAME));
@@ -2144,6 +2265,59 @@ public final class JSONConverter {
         return result;
     }
 
+    /**
+     * Creates a property of a data type and sets its values.
+     */
+    @SuppressWarnings("unchecked")
+    static AbstractPropertyData<?> createProperty(final PropertyType propertyType, final Object value) {
+        List<Object> values = null;
+        if (value instanceof List) {
+            values = (List<Object>) value;
+        } else if (value != null) {
+            values = Collections.singletonList(value);
+        }
+
+        AbstractPropertyData<?> property = null;
+        switch (propertyType) {
+        case STRING:
+            property = new PropertyStringImpl();
+            ((PropertyStringImpl) property).setValues(copyStringValues(values));
+            break;
+        case ID:
+            property = new PropertyIdImpl();
+            ((PropertyIdImpl) property).setValues(copyStringValues(values));
+            break;
+        case BOOLEAN:
+            property = new PropertyBooleanImpl();
+            ((PropertyBooleanImpl) property).setValues(copyBooleanValues(values));
+            break;
+        case INTEGER:
+            property = new PropertyIntegerImpl();
+            ((PropertyIntegerImpl) property).setValues(copyIntegerValues(values));
+            break;
+        case DECIMAL:
+            property = new PropertyDecimalImpl();
+            ((PropertyDecimalImpl) property).setValues(copyDecimalValues(values));
+            break;
+        case DATETIME:
+            property = new PropertyDateTimeImpl();
+            ((PropertyDateTimeImpl) property).setValues(copyDateTimeValues(values));
+            break;
+        case HTML:
+            property = new PropertyHtmlImpl();
+            ((PropertyHtmlImpl) property).setValues(copyStringValues(values));
+            break;
+        case URI:
+            property = new PropertyUriImpl();
+            ((PropertyUriImpl) property).setValues(copyStringValues(values));
+            break;
+        default:
+            throw new CmisRuntimeException("Unknown property data type!");
+        }
+
+        return property;
+    }
+
     /**
      * Converts properties.
      */
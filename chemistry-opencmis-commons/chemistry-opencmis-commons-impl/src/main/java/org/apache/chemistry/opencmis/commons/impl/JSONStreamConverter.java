@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.impl;
+
+import static org.apache.chemistry.opencmis.commons.impl.JSONConstants.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderData;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderList;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.enums.PropertyType;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.AbstractPropertyData;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectDataImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectInFolderDataImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectInFolderListImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectListImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertiesImpl;
+import org.apache.chemistry.opencmis.commons.impl.json.parser.ContainerFactory;
+import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONParseException;
+import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONReader;
+
+/**
+ * Converts object lists from a {@link JSONReader} without building the JSON
+ * tree of the whole list first.
+ * <p>
+ * Objects and their properties are created while the JSON text is read. Only
+ * the small parts of an object, such as allowable actions, ACLs or succinct
+ * properties, are read into a tree and converted by the {@link JSONConverter},
+ * one object at a time. The results are the same as the results of the
+ * corresponding {@link JSONConverter} methods.
+ */
+public final class JSONStreamConverter {
+
+    private static final ContainerFactory CONTAINER_FACTORY = new ContainerFactory() {
+        @Override
+        public Map<String, Object> createObjectContainer() {
+            return new LinkedHashMap<String, Object>();
+        }
+
+        @Override
+        public List<Object> creatArrayContainer() {
+            return new ArrayList<Object>();
+        }
+    };
+
+    private JSONStreamConverter() {
+    }
+
+    /**
+     * Converts an object list.
+     */
+    public static ObjectList convertObjectList(final JSONReader reader, final TypeCache typeCache,
+            final boolean isQueryResult) throws IOException, JSONParseException {
+        if (reader.peek() != JSONReader.START_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        ObjectListImpl result = new ObjectListImpl();
+        String objectsKey = isQueryResult ? JSON_QUERYRESULTLIST_RESULTS : JSON_OBJECTLIST_OBJECTS;
+        List<ObjectData> objects = new ArrayList<ObjectData>();
+        Map<String, Object> json = new LinkedHashMap<String, Object>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (objectsKey.equals(key) && reader.peek() == JSONReader.START_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    ObjectData object = convertObject(reader, typeCache);
+                    if (object != null) {
+                        objects.add(object);
+                    }
+                }
+                reader.endArray();
+            } else {
+                json.put(key, reader.readValue(CONTAINER_FACTORY));
+            }
+        }
+        reader.endObject();
+
+        result.setObjects(objects);
+
+        if (isQueryResult) {
+            result.setHasMoreItems(JSONConverter.getBoolean(json, JSON_QUERYRESULTLIST_HAS_MORE_ITEMS));
+            result.setNumItems(JSONConverter.getInteger(json, JSON_QUERYRESULTLIST_NUM_ITEMS));
+            JSONConverter.convertExtension(json, result, QUERYRESULTLIST_KEYS);
+        } else {
+            result.setHasMoreItems(JSONConverter.getBoolean(json, JSON_OBJECTLIST_HAS_MORE_ITEMS));
+            result.setNumItems(JSONConverter.getInteger(json, JSON_OBJECTLIST_NUM_ITEMS));
+            JSONConverter.convertExtension(json, result, OBJECTLIST_KEYS);
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts an object in folder list.
+     */
+    public static ObjectInFolderList convertObjectInFolderList(final JSONReader reader, final TypeCache typeCache)
+            throws IOException, JSONParseException {
+        if (reader.peek() != JSONReader.START_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        ObjectInFolderListImpl result = new ObjectInFolderListImpl();
+        List<ObjectInFolderData> objects = new ArrayList<ObjectInFolderData>();
+        Map<String, Object> json = new LinkedHashMap<String, Object>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (JSON_OBJECTINFOLDERLIST_OBJECTS.equals(key) && reader.peek() == JSONReader.START_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    ObjectInFolderData object = convertObjectInFolder(reader, typeCache);
+                    if (object != null) {
+                        objects.add(object);
+                    }
+                }
+                reader.endArray();
+            } else {
+                json.put(key, reader.readValue(CONTAINER_FACTORY));
+            }
+        }
+        reader.endObject();
+
+        result.setObjects(objects);
+        result.setHasMoreItems(JSONConverter.getBoolean(json, JSON_OBJECTINFOLDERLIST_HAS_MORE_ITEMS));
+        result.setNumItems(JSONConverter.getInteger(json, JSON_OBJECTINFOLDERLIST_NUM_ITEMS));
+
+        JSONConverter.convertExtension(json, result, OBJECTINFOLDERLIST_KEYS);
+
+        return result;
+    }
+
+    /**
+     * Converts an object in a folder.
+     */
+    public static ObjectInFolderData convertObjectInFolder(final JSONReader reader, final TypeCache typeCache)
+            throws IOException, JSONParseException {
+        if (reader.peek() != JSONReader.START_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        ObjectInFolderDataImpl result = new ObjectInFolderDataImpl();
+        Map<String, Object> json = new LinkedHashMap<String, Object>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (JSON_OBJECTINFOLDER_OBJECT.equals(key)) {
+                result.setObject(convertObject(reader, typeCache));
+            } else {
+                json.put(key, reader.readValue(CONTAINER_FACTORY));
+            }
+        }
+        reader.endObject();
+
+        result.setPathSegment(JSONConverter.getString(json, JSON_OBJECTINFOLDER_PATH_SEGMENT));
+
+        JSONConverter.convertExtension(json, result, OBJECTINFOLDER_KEYS);
+
+        return result;
+    }
+
+    /**
+     * Converts an object.
+     */
+    public static ObjectData convertObject(final JSONReader reader, final TypeCache typeCache)
+            throws IOException, JSONParseException {
+        if (reader.peek() != JSONReader.START_OBJECT) {
+            if (reader.peek() != JSONReader.VALUE || reader.nextValue() != null) {
+                throw new CmisRuntimeException("Expected a JSON object!");
+            }
+            return null;
+        }
+
+        PropertiesImpl properties = null;
+        List<ObjectData> relationships = null;
+        Map<String, Object> json = new LinkedHashMap<String, Object>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (JSON_OBJECT_PROPERTIES.equals(key) && reader.peek() == JSONReader.START_OBJECT) {
+                properties = convertProperties(reader);
+            } else if (JSON_OBJECT_RELATIONSHIPS.equals(key) && reader.peek() == JSONReader.START_ARRAY) {
+                relationships = new ArrayList<ObjectData>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    ObjectData relationship = convertObject(reader, typeCache);
+                    if (relationship != null) {
+                        relationships.add(relationship);
+                    }
+                }
+                reader.endArray();
+            } else {
+                json.put(key, reader.readValue(CONTAINER_FACTORY));
+            }
+        }
+        reader.endObject();
+
+        // everything else is small and converted as usual
+        ObjectDataImpl result = (ObjectDataImpl) JSONConverter.convertObject(json, typeCache);
+
+        if (properties != null) {
+            Map<String, Object> extJson = JSONConverter.getMap(json.get(JSON_OBJECT_PROPERTIES_EXTENSION));
+            if (extJson != null) {
+                JSONConverter.convertExtension(extJson, properties, Collections.<String> emptySet());
+            }
+            result.setProperties(properties);
+        }
+        if (relationships != null) {
+            result.setRelationships(relationships);
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts properties.
+     */
+    private static PropertiesImpl convertProperties(final JSONReader reader) throws IOException,
+            JSONParseException {
+        PropertiesImpl result = new PropertiesImpl();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            reader.nextName();
+            if (reader.peek() == JSONReader.START_OBJECT) {
+                result.addProperty(convertProperty(reader));
+            } else if (reader.peek() != JSONReader.VALUE || reader.nextValue() != null) {
+                throw new CmisRuntimeException("Expected a JSON object!");
+            }
+        }
+        reader.endObject();
+
+        return result;
+    }
+
+    /**
+     * Converts a property.
+     */
+    private static AbstractPropertyData<?> convertProperty(final JSONReader reader) throws IOException,
+            JSONParseException {
+        String id = null;
+        String queryName = null;
+        String displayName = null;
+        String localName = null;
+        String dataType = null;
+        Object value = null;
+        Map<String, Object> extJson = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (JSON_PROPERTY_VALUE.equals(key)) {
+                value = reader.readValue(CONTAINER_FACTORY);
+            } else if (PROPERTY_KEYS.contains(key)) {
+                Object obj = reader.readValue(CONTAINER_FACTORY);
+                String str = obj == null ? null : obj.toString();
+                if (JSON_PROPERTY_ID.equals(key)) {
+                    id = str;
+                } else if (JSON_PROPERTY_QUERYNAME.equals(key)) {
+                    queryName = str;
+                } else if (JSON_PROPERTY_DISPLAYNAME.equals(key)) {
+                    displayName = str;
+                } else if (JSON_PROPERTY_LOCALNAME.equals(key)) {
+                    localName = str;
+                } else if (JSON_PROPERTY_DATATYPE.equals(key)) {
+                    dataType = str;
+                }
+            } else {
+                if (extJson == null) {
+                    extJson = new LinkedHashMap<String, Object>();
+                }
+                extJson.put(key, reader.readValue(CONTAINER_FACTORY));
+            }
+        }
+        reader.endObject();
+
+        if (id == null && queryName == null) {
+            throw new CmisRuntimeException("Invalid property! Neither a property ID nor a query name is provided!");
+        }
+
+        PropertyType propertyType = null;
+        try {
+            propertyType = PropertyType.fromValue(dataType);
+        } catch (Exception e) {
+            throw new CmisRuntimeException("Invalid property datatype: " + id, e);
+        }
+
+        AbstractPropertyData<?> property = JSONConverter.createProperty(propertyType, value);
+
+        property.setId(id);
+        property.setDisplayName(displayName);
+        property.setQueryName(queryName);
+        property.setLocalName(localName);
+
+        if (extJson != null) {
+            JSONConverter.convertExtension(extJson, property, PROPERTY_KEYS);
+        }
+
+        return property;
+    }
+}
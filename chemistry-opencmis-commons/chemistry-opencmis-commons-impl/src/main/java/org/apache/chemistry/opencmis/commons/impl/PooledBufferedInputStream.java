@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.impl;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link BufferedInputStream} that takes its buffer from the
+ * {@link BufferPool} and returns it when the stream is closed.
+ */
+public class PooledBufferedInputStream extends BufferedInputStream {
+
+    private byte[] pooledBuffer;
+
+    public PooledBufferedInputStream(InputStream in, int size) {
+        super(in, 1);
+        pooledBuffer = BufferPool.acquire(size);
+        buf = pooledBuffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            byte[] buffer;
+            synchronized (this) {
+                buffer = pooledBuffer;
+                pooledBuffer = null;
+            }
+            BufferPool.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link BufferedOutputStream} that takes its buffer from the
+ * {@link BufferPool} and returns it when the stream is closed.
+ */
+public class PooledBufferedOutputStream extends BufferedOutputStream {
+
+    private static final byte[] CLOSED = new byte[0];
+
+    private byte[] pooledBuffer;
+
+    public PooledBufferedOutputStream(OutputStream out, int size) {
+        super(out, 1);
+        pooledBuffer = BufferPool.acquire(size);
+        buf = pooledBuffer;
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        ensureOpen();
+        super.write(b);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        super.write(b, off, len);
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        ensureOpen();
+        super.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        boolean released;
+        synchronized (this) {
+            released = pooledBuffer == null;
+        }
+
+        try {
+            if (released) {
+                out.close();
+            } else {
+                super.close();
+            }
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Returns the buffer to the pool without closing the underlying stream.
+     * Bytes that haven't been flushed are discarded. The stream cannot be
+     * written to afterwards.
+     */
+    public void release() {
+        byte[] buffer;
+        synchronized (this) {
+            buffer = pooledBuffer;
+            pooledBuffer = null;
+            buf = CLOSED;
+            count = 0;
+        }
+        BufferPool.release(buffer);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (pooledBuffer == null) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -76,7 +76,7 @@ public class JSONObject extends LinkedHashMap<String, Object> implements Map<Str
             if (entry.getKey() == null) {
                 out.write("null");
             } else {
-                out.write(escape(entry.getKey()));
+                JSONValue.escape(entry.getKey(), out);
             }
             out.write('\"');
             out.write(':');
@@ -37,6 +37,8 @@ import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONParser;
  */
 public final class JSONValue {
 
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
     private JSONValue() {
     }
 
@@ -113,7 +115,7 @@ public final class JSONValue {
 
         if (value instanceof String) {
             out.write('\"');
-            out.write(escape((String) value));
+            escape((String) value, out);
             out.write('\"');
             return;
         }
@@ -335,4 +337,73 @@ public final class JSONValue {
             }
         }// for
     }
+
+    /**
+     * Writes an escaped string without creating an intermediate copy. Runs of
+     * characters that don't need to be escaped are written in one call.
+     * 
+     * @param s
+     *            - Must not be null.
+     * @param out
+     */
+    static void escape(String s, Writer out) throws IOException {
+        final int n = s.length();
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+            char ch = s.charAt(i);
+            String replacement;
+            switch (ch) {
+            case '"':
+                replacement = "\\\"";
+                break;
+            case '\\':
+                replacement = "\\\\";
+                break;
+            case '\b':
+                replacement = "\\b";
+                break;
+            case '\f':
+                replacement = "\\f";
+                break;
+            case '\n':
+                replacement = "\\n";
+                break;
+            case '\r':
+                replacement = "\\r";
+                break;
+            case '\t':
+                replacement = "\\t";
+                break;
+            case '/':
+                replacement = "\\/";
+                break;
+            default:
+                if ((ch >= '\u0000' && ch <= '\u001F') || (ch >= '\u007F' && ch <= '\u009F')
+                        || (ch >= '\u2000' && ch <= '\u20FF')) {
+                    replacement = null;
+                } else {
+                    continue;
+                }
+            }
+
+            if (i > start) {
+                out.write(s, start, i - start);
+            }
+            start = i + 1;
+
+            if (replacement != null) {
+                out.write(replacement);
+            } else {
+                out.write('\\');
+                out.write('u');
+                for (int shift = 12; shift >= 0; shift -= 4) {
+                    out.write(HEX_DIGITS[(ch >> shift) & 0xF]);
+                }
+            }
+        }
+
+        if (n > start) {
+            out.write(s, start, n - start);
+        }
+    }
 }
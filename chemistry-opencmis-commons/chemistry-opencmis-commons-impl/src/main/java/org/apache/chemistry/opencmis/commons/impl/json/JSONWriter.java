@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.impl.json;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes JSON text incrementally. Objects and arrays are opened and closed
+ * explicitly, member values can be primitives or complete JSON trees. This
+ * allows writing large lists element by element without building a tree of
+ * the whole list first.
+ * <p>
+ * Please note that JSONWriter is NOT thread-safe.
+ */
+public class JSONWriter {
+
+    private final Writer out;
+    private boolean[] hasMembers = new boolean[16];
+    private int depth = 0;
+    private boolean afterName = false;
+
+    public JSONWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Starts an object.
+     */
+    public JSONWriter beginObject() throws IOException {
+        beforeValue();
+        out.write('{');
+        push();
+        return this;
+    }
+
+    /**
+     * Ends the current object.
+     */
+    public JSONWriter endObject() throws IOException {
+        pop();
+        out.write('}');
+        return this;
+    }
+
+    /**
+     * Starts an array.
+     */
+    public JSONWriter beginArray() throws IOException {
+        beforeValue();
+        out.write('[');
+        push();
+        return this;
+    }
+
+    /**
+     * Ends the current array.
+     */
+    public JSONWriter endArray() throws IOException {
+        pop();
+        out.write(']');
+        return this;
+    }
+
+    /**
+     * Writes the name of the next member of the current object.
+     */
+    public JSONWriter name(String name) throws IOException {
+        if (depth == 0 || afterName) {
+            throw new IllegalStateException("Name not allowed here!");
+        }
+        if (hasMembers[depth - 1]) {
+            out.write(',');
+        }
+        hasMembers[depth - 1] = true;
+        out.write('\"');
+        JSONValue.escape(name, out);
+        out.write('\"');
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Writes a value. The value can be a primitive, a {@link JSONStreamAware},
+     * a map or a list.
+     * 
+     * @see JSONValue#writeJSONString(Object, Writer)
+     */
+    public JSONWriter value(Object value) throws IOException {
+        beforeValue();
+        JSONValue.writeJSONString(value, out);
+        return this;
+    }
+
+    /**
+     * Writes a member of the current object.
+     */
+    public JSONWriter member(String name, Object value) throws IOException {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes a member of the current object if the value is not
+     * {@code null}.
+     */
+    public JSONWriter memberIfNotNull(String name, Object value) throws IOException {
+        if (value != null) {
+            name(name).value(value);
+        }
+        return this;
+    }
+
+    /**
+     * Flushes the underlying writer.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+        } else if (depth > 0) {
+            if (hasMembers[depth - 1]) {
+                out.write(',');
+            }
+            hasMembers[depth - 1] = true;
+        }
+    }
+
+    private void push() {
+        if (depth == hasMembers.length) {
+            boolean[] newHasMembers = new boolean[depth * 2];
+            System.arraycopy(hasMembers, 0, newHasMembers, 0, depth);
+            hasMembers = newHasMembers;
+        }
+        hasMembers[depth++] = false;
+    }
+
+    private void pop() {
+        if (depth == 0 || afterName) {
+            throw new IllegalStateException("Nothing to close!");
+        }
+        depth--;
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.impl.json.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.commons.impl.JSONConstraints;
+import org.apache.chemistry.opencmis.commons.impl.json.JSONArray;
+import org.apache.chemistry.opencmis.commons.impl.json.JSONObject;
+
+/**
+ * Pull parser for JSON text. In contrast to {@link JSONParser}, which builds
+ * the complete object tree, the caller walks through the JSON text event by
+ * event and decides for each value whether to convert it directly, to read it
+ * into a tree with {@link #readValue(ContainerFactory)} or to skip it.
+ * <p>
+ * Primitive values have the same Java types as in the trees produced by the
+ * {@link JSONParser}: {@code String}, {@code BigInteger}, {@code BigDecimal},
+ * {@code Boolean} and {@code null}. The same size and depth constraints apply.
+ * <p>
+ * Please note that JSONReader is NOT thread-safe.
+ */
+public class JSONReader implements Closeable {
+
+    public static final int START_OBJECT = 1;
+    public static final int END_OBJECT = 2;
+    public static final int START_ARRAY = 3;
+    public static final int END_ARRAY = 4;
+    public static final int NAME = 5;
+    public static final int VALUE = 6;
+    public static final int END_DOCUMENT = 7;
+
+    private static final int NONE = 0;
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int NONEMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final Reader in;
+    private final Yylex lexer;
+    private Yytoken token = null;
+    private int peeked = NONE;
+    private int[] stack = new int[32];
+    private int stackSize = 0;
+
+    public JSONReader(Reader in) {
+        this.in = in;
+        this.lexer = new Yylex(in);
+        stack[stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * @return The position of the beginning of the current token.
+     */
+    public int getPosition() {
+        return lexer.getPosition();
+    }
+
+    /**
+     * Returns the type of the next event without consuming it.
+     * 
+     * @return one of {@link #START_OBJECT}, {@link #END_OBJECT},
+     *         {@link #START_ARRAY}, {@link #END_ARRAY}, {@link #NAME},
+     *         {@link #VALUE} or {@link #END_DOCUMENT}
+     */
+    public int peek() throws IOException, JSONParseException {
+        if (peeked != NONE) {
+            return peeked;
+        }
+
+        Yytoken t;
+        switch (stack[stackSize - 1]) {
+        case EMPTY_DOCUMENT:
+            stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+            peeked = peekValue();
+            break;
+        case NONEMPTY_DOCUMENT:
+            if (peekToken().type != Yytoken.TYPE_EOF) {
+                throw unexpectedToken();
+            }
+            peeked = END_DOCUMENT;
+            break;
+        case EMPTY_OBJECT:
+        case NONEMPTY_OBJECT:
+            t = peekToken();
+            if (t.type == Yytoken.TYPE_RIGHT_BRACE) {
+                peeked = END_OBJECT;
+                break;
+            }
+            if (stack[stackSize - 1] == NONEMPTY_OBJECT) {
+                if (t.type != Yytoken.TYPE_COMMA) {
+                    throw unexpectedToken();
+                }
+                token = null;
+                t = peekToken();
+            }
+            if (t.type != Yytoken.TYPE_VALUE || !(t.value instanceof String)) {
+                throw unexpectedToken();
+            }
+            stack[stackSize - 1] = DANGLING_NAME;
+            peeked = NAME;
+            break;
+        case DANGLING_NAME:
+            if (peekToken().type != Yytoken.TYPE_COLON) {
+                throw unexpectedToken();
+            }
+            token = null;
+            stack[stackSize - 1] = NONEMPTY_OBJECT;
+            peeked = peekValue();
+            break;
+        case EMPTY_ARRAY:
+        case NONEMPTY_ARRAY:
+            t = peekToken();
+            if (t.type == Yytoken.TYPE_RIGHT_SQUARE) {
+                peeked = END_ARRAY;
+                break;
+            }
+            if (stack[stackSize - 1] == NONEMPTY_ARRAY) {
+                if (t.type != Yytoken.TYPE_COMMA) {
+                    throw unexpectedToken();
+                }
+                token = null;
+            }
+            stack[stackSize - 1] = NONEMPTY_ARRAY;
+            peeked = peekValue();
+            break;
+        default:
+            throw unexpectedToken();
+        }
+
+        return peeked;
+    }
+
+    /**
+     * Returns whether the current object or array has another member.
+     */
+    public boolean hasNext() throws IOException, JSONParseException {
+        int p = peek();
+        return p != END_OBJECT && p != END_ARRAY && p != END_DOCUMENT;
+    }
+
+    /**
+     * Consumes the start of an object.
+     */
+    public void beginObject() throws IOException, JSONParseException {
+        expect(START_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    /**
+     * Consumes the end of an object.
+     */
+    public void endObject() throws IOException, JSONParseException {
+        expect(END_OBJECT);
+        stackSize--;
+    }
+
+    /**
+     * Consumes the start of an array.
+     */
+    public void beginArray() throws IOException, JSONParseException {
+        expect(START_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    /**
+     * Consumes the end of an array.
+     */
+    public void endArray() throws IOException, JSONParseException {
+        expect(END_ARRAY);
+        stackSize--;
+    }
+
+    /**
+     * Consumes the name of the next object member.
+     */
+    public String nextName() throws IOException, JSONParseException {
+        return (String) expect(NAME).value;
+    }
+
+    /**
+     * Consumes a primitive value.
+     * 
+     * @return Instance of the following: java.lang.String,
+     *         java.math.BigInteger, java.math.BigDecimal, java.lang.Boolean,
+     *         null
+     */
+    public Object nextValue() throws IOException, JSONParseException {
+        return expect(VALUE).value;
+    }
+
+    /**
+     * Consumes the next value, which may be an object or an array, and
+     * returns it as a tree.
+     * 
+     * @param containerFactory
+     *            - Use this factory to create your own JSON object and JSON
+     *            array containers.
+     * @return Instance of the following: JSONObject, JSONArray,
+     *         java.lang.String, java.lang.Number, java.lang.Boolean, null
+     */
+    public Object readValue(ContainerFactory containerFactory) throws IOException, JSONParseException {
+        switch (peek()) {
+        case START_OBJECT:
+            Map<String, Object> object = createObjectContainer(containerFactory);
+            beginObject();
+            while (hasNext()) {
+                if (object.size() + 1 > JSONConstraints.MAX_OBJECT_SIZE) {
+                    throw new JSONParseException(JSONParseException.ERROR_JSON_TOO_BIG);
+                }
+                String key = nextName();
+                object.put(key, readValue(containerFactory));
+            }
+            endObject();
+            return object;
+        case START_ARRAY:
+            List<Object> array = createArrayContainer(containerFactory);
+            beginArray();
+            while (hasNext()) {
+                if (array.size() + 1 > JSONConstraints.MAX_ARRAY_SIZE) {
+                    throw new JSONParseException(JSONParseException.ERROR_JSON_TOO_BIG);
+                }
+                array.add(readValue(containerFactory));
+            }
+            endArray();
+            return array;
+        default:
+            return nextValue();
+        }
+    }
+
+    /**
+     * Consumes the next value, including all nested values.
+     */
+    public void skipValue() throws IOException, JSONParseException {
+        int depth = 0;
+        do {
+            switch (peek()) {
+            case START_OBJECT:
+                beginObject();
+                depth++;
+                break;
+            case END_OBJECT:
+                endObject();
+                depth--;
+                break;
+            case START_ARRAY:
+                beginArray();
+                depth++;
+                break;
+            case END_ARRAY:
+                endArray();
+                depth--;
+                break;
+            case NAME:
+                nextName();
+                break;
+            default:
+                nextValue();
+            }
+        } while (depth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Yytoken peekToken() throws IOException, JSONParseException {
+        if (token == null) {
+            token = lexer.yylex();
+            if (token == null) {
+                token = new Yytoken(Yytoken.TYPE_EOF, null);
+            }
+        }
+        return token;
+    }
+
+    private int peekValue() throws IOException, JSONParseException {
+        switch (peekToken().type) {
+        case Yytoken.TYPE_VALUE:
+            return VALUE;
+        case Yytoken.TYPE_LEFT_BRACE:
+            return START_OBJECT;
+        case Yytoken.TYPE_LEFT_SQUARE:
+            return START_ARRAY;
+        default:
+            throw unexpectedToken();
+        }
+    }
+
+    private Yytoken expect(int event) throws IOException, JSONParseException {
+        if (peek() != event) {
+            throw unexpectedToken();
+        }
+        Yytoken result = token;
+        token = null;
+        peeked = NONE;
+        return result;
+    }
+
+    private void push(int context) throws JSONParseException {
+        if (stackSize > JSONConstraints.MAX_DEPTH) {
+            throw new JSONParseException(JSONParseException.ERROR_JSON_TOO_BIG);
+        }
+        if (stackSize == stack.length) {
+            int[] newStack = new int[stackSize * 2];
+            System.arraycopy(stack, 0, newStack, 0, stackSize);
+            stack = newStack;
+        }
+        stack[stackSize++] = context;
+    }
+
+    private JSONParseException unexpectedToken() {
+        return new JSONParseException(getPosition(), JSONParseException.ERROR_UNEXPECTED_TOKEN, token);
+    }
+
+    private Map<String, Object> createObjectContainer(ContainerFactory containerFactory) {
+        if (containerFactory != null) {
+            Map<String, Object> m = containerFactory.createObjectContainer();
+            if (m != null) {
+                return m;
+            }
+        }
+
+        return new JSONObject();
+    }
+
+    private List<Object> createArrayContainer(ContainerFactory containerFactory) {
+        if (containerFactory != null) {
+            List<Object> l = containerFactory.creatArrayContainer();
+            if (l != null) {
+                return l;
+            }
+        }
+
+        return new JSONArray();
+    }
+}
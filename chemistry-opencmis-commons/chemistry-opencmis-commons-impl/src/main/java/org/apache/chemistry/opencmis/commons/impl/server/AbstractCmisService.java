@@ -19,13 +19,16 @@
 package org.apache.chemistry.opencmis.commons.impl.server;
 
 import static org.apache.chemistry.opencmis.commons.impl.CollectionsHelper.isNotEmpty;
+import static org.apache.chemistry.opencmis.commons.impl.CollectionsHelper.isNullOrEmpty;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.chemistry.opencmis.commons.PropertyIds;
 import org.apache.chemistry.opencmis.commons.data.Acl;
@@ -36,6 +39,7 @@ import org.apache.chemistry.opencmis.commons.data.ExtensionsData;
 import org.apache.chemistry.opencmis.commons.data.FailedToDeleteData;
 import org.apache.chemistry.opencmis.commons.data.ObjectData;
 import org.apache.chemistry.opencmis.commons.data.ObjectInFolderContainer;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderData;
 import org.apache.chemistry.opencmis.commons.data.ObjectInFolderList;
 import org.apache.chemistry.opencmis.commons.data.ObjectList;
 import org.apache.chemistry.opencmis.commons.data.ObjectParentData;
@@ -55,6 +59,7 @@ import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionList;
 import org.apache.chemistry.opencmis.commons.enums.AclPropagation;
 import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
 import org.apache.chemistry.opencmis.commons.enums.CapabilityAcl;
+import org.apache.chemistry.opencmis.commons.enums.CapabilityRenditions;
 import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
 import org.apache.chemistry.opencmis.commons.enums.RelationshipDirection;
 import org.apache.chemistry.opencmis.commons.enums.UnfileObject;
@@ -64,7 +69,7 @@ import org.apache.chemistry.opencmis.commons.exceptions.CmisNotSupportedExceptio
 import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.TypeDefinitionContainerImpl;
-import org.apache.chemistry.opencmis.commons.server.CmisService;
+import org.apache.chemistry.opencmis.commons.server.BatchObjectInfoCmisService;
 import org.apache.chemistry.opencmis.commons.server.ObjectInfo;
 import org.apache.chemistry.opencmis.commons.server.ObjectInfoHandler;
 import org.apache.chemistry.opencmis.commons.server.RenditionInfo;
@@ -72,12 +77,14 @@ import org.apache.chemistry.opencmis.commons.spi.Holder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public abstract class AbstractCmisService implements CmisService, ObjectInfoHandler {
+public abstract class AbstractCmisService implements BatchObjectInfoCmisService, ObjectInfoHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(AbstractCmisService.class);
 
     private Map<String, ObjectInfo> objectInfoMap;
     private boolean addObjectInfos = true;
+    private ObjectInfoBatch objectInfoBatch;
+    private long objectInfoCallCount;
 
     // --- repository service ---
 
@@ -1110,6 +1117,7 @@ public abstract class AbstractCmisService implements CmisService, ObjectInfoHand
                 addObjectInfos = false;
 
                 // get the object and its info
+                objectInfoCallCount++;
                 ObjectData object = getObject(repositoryId, objectId, null, Boolean.TRUE, IncludeRelationships.BOTH,
                         "*", Boolean.TRUE, Boolean.FALSE, null);
                 info = getObjectInfoIntern(repositoryId, object);
@@ -1152,12 +1160,17 @@ public abstract class AbstractCmisService implements CmisService, ObjectInfoHand
 
         // get the repository info
         RepositoryInfo repositoryInfo = null;
-        try {
-            repositoryInfo = getRepositoryInfo(repositoryId, null);
-        } catch (CmisRuntimeException e) {
-            LOG.error("getRepositoryInfo returned an error while compiling object info for object {}.", object.getId(),
-                    e);
-            throw e;
+        if (objectInfoBatch != null) {
+            repositoryInfo = objectInfoBatch.repositoryInfo;
+        } else {
+            try {
+                objectInfoCallCount++;
+                repositoryInfo = getRepositoryInfo(repositoryId, null);
+            } catch (CmisRuntimeException e) {
+                LOG.error("getRepositoryInfo returned an error while compiling object info for object {}.",
+                        object.getId(), e);
+                throw e;
+            }
         }
 
         // general properties
@@ -1185,17 +1198,13 @@ public abstract class AbstractCmisService implements CmisService, ObjectInfoHand
                 info.setWorkingCopyId(getIdProperty(object, PropertyIds.VERSION_SERIES_CHECKED_OUT_ID));
 
                 // get latest version
-                try {
-                    List<ObjectData> versions = getAllVersions(repositoryId, object.getId(), info.getVersionSeriesId(),
-                            null, Boolean.FALSE, null);
-                    if (isNotEmpty(versions)) {
-                        info.setWorkingCopyOriginalId(versions.get(0).getId());
-                    }
-                } catch (CmisNotSupportedException nse) {
-                    if (LOG.isWarnEnabled()) {
-                        LOG.warn("getAllVersions is not implemented! Object info for object {} might be incorrect.",
-                                info.getId(), nse);
-                    }
+                if (objectInfoBatch != null
+                        && objectInfoBatch.workingCopyOriginalIds.containsKey(info.getVersionSeriesId())) {
+                    info.setWorkingCopyOriginalId(objectInfoBatch.workingCopyOriginalIds.get(info
+                            .getVersionSeriesId()));
+                } else {
+                    info.setWorkingCopyOriginalId(getWorkingCopyOriginalId(repositoryId, object.getId(),
+                            info.getVersionSeriesId()));
                 }
             }
         }
@@ -1221,8 +1230,13 @@ public abstract class AbstractCmisService implements CmisService, ObjectInfoHand
             info.setHasParent(false);
         } else if (object.getBaseTypeId() == BaseTypeId.CMIS_FOLDER) {
             info.setHasParent(!object.getId().equals(repositoryInfo.getRootFolderId()));
+        } else if (objectInfoBatch != null && objectInfoBatch.hasParent) {
+            info.setHasParent(true);
+        } else if (objectInfoBatch != null && objectInfoBatch.objectIdsWithParent != null) {
+            info.setHasParent(objectInfoBatch.objectIdsWithParent.contains(object.getId()));
         } else {
             try {
+                objectInfoCallCount++;
                 List<ObjectParentData> parents = getObjectParents(repositoryId, object.getId(), null, Boolean.FALSE,
                         IncludeRelationships.NONE, "cmis:none", Boolean.FALSE, null);
                 info.setHasParent(isNotEmpty(parents));
@@ -1240,9 +1254,14 @@ public abstract class AbstractCmisService implements CmisService, ObjectInfoHand
         info.setSupportsRelationships(false);
         info.setSupportsPolicies(false);
 
-        try {
-            TypeDefinitionList baseTypesList = getTypeChildren(repositoryId, null, Boolean.FALSE,
-                    BigInteger.valueOf(6), BigInteger.ZERO, null);
+        TypeDefinitionList baseTypesList;
+        if (objectInfoBatch != null) {
+            baseTypesList = objectInfoBatch.baseTypes;
+        } else {
+            baseTypesList = getBaseTypes(repositoryId, info.getId());
+        }
+
+        if (baseTypesList != null && baseTypesList.getList() != null) {
             for (TypeDefinition type : baseTypesList.getList()) {
                 if (BaseTypeId.CMIS_RELATIONSHIP.value().equals(type.getId())) {
                     info.setSupportsRelationships(true);
@@ -1250,11 +1269,6 @@ public abstract class AbstractCmisService implements CmisService, ObjectInfoHand
                     info.setSupportsPolicies(true);
                 }
             }
-        } catch (CmisNotSupportedException nse) {
-            if (LOG.isWarnEnabled()) {
-                LOG.warn("getTypeChildren is not implemented! Object info for object {} might be incorrect.",
-                        info.getId(), nse);
-            }
         }
 
         // renditions
@@ -1317,6 +1331,282 @@ public abstract class AbstractCmisService implements CmisService, ObjectInfoHand
         return info;
     }
 
+    /**
+     * Returns the ID of the first version in the version history of a
+     * checked-out document.
+     */
+    private String getWorkingCopyOriginalId(String repositoryId, String objectId, String versionSeriesId) {
+        try {
+            objectInfoCallCount++;
+            List<ObjectData> versions = getAllVersions(repositoryId, objectId, versionSeriesId, null, Boolean.FALSE,
+                    null);
+            if (isNotEmpty(versions)) {
+                return versions.get(0).getId();
+            }
+        } catch (CmisNotSupportedException nse) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("getAllVersions is not implemented! Object info for object {} might be incorrect.",
+                        objectId, nse);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the base types or {@code null} if they cannot be retrieved.
+     */
+    private TypeDefinitionList getBaseTypes(String repositoryId, String objectId) {
+        try {
+            objectInfoCallCount++;
+            return getTypeChildren(repositoryId, null, Boolean.FALSE, BigInteger.valueOf(6), BigInteger.ZERO, null);
+        } catch (CmisNotSupportedException nse) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("getTypeChildren is not implemented! Object info for object {} might be incorrect.",
+                        objectId, nse);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>
+     * <b>Implementation Hints:</b>
+     * <ul>
+     * <li>Bindings: AtomPub</li>
+     * <li>See {@link #compileObjectInfos(String, List, boolean)}.</li>
+     * </ul>
+     */
+    @Override
+    public void compileObjectInfos(String repositoryId, ObjectInFolderList children) {
+        if (children == null || isNullOrEmpty(children.getObjects())) {
+            return;
+        }
+
+        List<ObjectData> objects = new ArrayList<ObjectData>(children.getObjects().size());
+        for (ObjectInFolderData child : children.getObjects()) {
+            if (child != null) {
+                objects.add(child.getObject());
+            }
+        }
+
+        compileObjectInfos(repositoryId, objects, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>
+     * <b>Implementation Hints:</b>
+     * <ul>
+     * <li>Bindings: AtomPub</li>
+     * <li>See {@link #compileObjectInfos(String, List, boolean)}.</li>
+     * </ul>
+     */
+    @Override
+    public void compileObjectInfos(String repositoryId, ObjectList objects) {
+        if (objects == null) {
+            return;
+        }
+
+        compileObjectInfos(repositoryId, objects.getObjects(), false);
+    }
+
+    /**
+     * Compiles the object infos of the given objects from the data of the
+     * objects.
+     * <p>
+     * The repository info and the base types are fetched once for all objects,
+     * the version history once per checked-out version series, and the parents
+     * with {@link #getObjectIdsWithParent(String, List)} if {@code haveParent}
+     * is {@code false}. Objects that already have an object info or don't have
+     * the properties an object info needs are skipped and left to
+     * {@link #getObjectInfo(String, String)}.
+     * <p>
+     * Renditions and relationships are taken from the objects. An empty list
+     * cannot be told apart from a list that has not been requested, so an
+     * object without renditions or relationships is fetched again with all
+     * renditions, relationships and policy ids, like
+     * {@link #getObjectInfo(String, String)} does. Renditions are not checked
+     * if the repository doesn't support them, relationships are not checked if
+     * the repository has no relationship base type.
+     * 
+     * @param repositoryId
+     *            the repository id
+     * @param objects
+     *            the objects
+     * @param haveParent
+     *            {@code true} if all objects are known to have a parent
+     */
+    protected void compileObjectInfos(String repositoryId, List<ObjectData> objects, boolean haveParent) {
+        if (isNullOrEmpty(objects)) {
+            return;
+        }
+
+        Map<String, ObjectInfo> oim = getObjectInfoMap();
+        List<ObjectData> missing = new ArrayList<ObjectData>();
+        for (ObjectData object : objects) {
+            if (object != null && object.getId() != null && !oim.containsKey(object.getId())
+                    && hasObjectInfoProperties(object)) {
+                missing.add(object);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        try {
+            // switch off object info collection to avoid side effects
+            addObjectInfos = false;
+
+            ObjectInfoBatch batch = new ObjectInfoBatch();
+            objectInfoCallCount++;
+            batch.repositoryInfo = getRepositoryInfo(repositoryId, null);
+            batch.baseTypes = getBaseTypes(repositoryId, null);
+            batch.hasParent = haveParent;
+            if (!haveParent) {
+                batch.objectIdsWithParent = getObjectIdsWithParent(repositoryId, missing);
+            }
+
+            RepositoryCapabilities capabilities = batch.repositoryInfo.getCapabilities();
+            batch.checkRenditions = capabilities == null
+                    || capabilities.getRenditionsCapability() != CapabilityRenditions.NONE;
+            batch.checkRelationships = true;
+            if (batch.baseTypes != null && batch.baseTypes.getList() != null) {
+                batch.checkRelationships = false;
+                for (TypeDefinition type : batch.baseTypes.getList()) {
+                    if (BaseTypeId.CMIS_RELATIONSHIP.value().equals(type.getId())) {
+                        batch.checkRelationships = true;
+                    }
+                }
+            }
+
+            for (ObjectData object : missing) {
+                String versionSeriesId = getIdProperty(object, PropertyIds.VERSION_SERIES_ID);
+                if (versionSeriesId != null
+                        && Boolean.TRUE.equals(getBooleanProperty(object, PropertyIds.IS_VERSION_SERIES_CHECKED_OUT))
+                        && !batch.workingCopyOriginalIds.containsKey(versionSeriesId)) {
+                    batch.workingCopyOriginalIds.put(versionSeriesId,
+                            getWorkingCopyOriginalId(repositoryId, object.getId(), versionSeriesId));
+                }
+            }
+
+            objectInfoBatch = batch;
+
+            List<ObjectInfo> infos = new ArrayList<ObjectInfo>(missing.size());
+            for (ObjectData object : missing) {
+                try {
+                    ObjectData infoObject = object;
+                    if ((batch.checkRenditions && isNullOrEmpty(object.getRenditions()))
+                            || (batch.checkRelationships && isNullOrEmpty(object.getRelationships()))) {
+                        objectInfoCallCount++;
+                        infoObject = getObject(repositoryId, object.getId(), null, Boolean.TRUE,
+                                IncludeRelationships.BOTH, "*", Boolean.TRUE, Boolean.FALSE, null);
+                    }
+                    infos.add(getObjectInfoIntern(repositoryId, infoObject));
+                } catch (Exception e) {
+                    LOG.warn("Compiling the object info for object {} in repository {} failed: {}", object.getId(),
+                            repositoryId, e.toString(), e);
+                }
+            }
+
+            // switch on object info collection
+            addObjectInfos = true;
+
+            for (ObjectInfo info : infos) {
+                addObjectInfo(info);
+            }
+        } catch (Exception e) {
+            LOG.warn("Compiling object infos in repository {} failed: {}", repositoryId, e.toString(), e);
+        } finally {
+            objectInfoBatch = null;
+            addObjectInfos = true;
+        }
+    }
+
+    /**
+     * Returns the IDs of the objects that have at least one parent. Used to
+     * compile the object infos of lists whose objects may be unfiled or
+     * filed in different folders.
+     * <p>
+     * CMIS has no call that returns the parents of several objects, so this
+     * implementation calls
+     * {@link #getObjectParents(String, String, String, Boolean, IncludeRelationships, String, Boolean, ExtensionsData)}
+     * for each object that is not a folder or relationship. Repositories that
+     * can look up the parents of all objects at once should override this
+     * method.
+     * 
+     * @param repositoryId
+     *            the repository id
+     * @param objects
+     *            the objects
+     * @return the IDs of the objects that have a parent, or {@code null} to
+     *         look up the parents per object while compiling the object infos
+     */
+    protected Set<String> getObjectIdsWithParent(String repositoryId, List<ObjectData> objects) {
+        Set<String> result = new HashSet<String>();
+        for (ObjectData object : objects) {
+            if (object.getBaseTypeId() == BaseTypeId.CMIS_FOLDER
+                    || object.getBaseTypeId() == BaseTypeId.CMIS_RELATIONSHIP) {
+                continue;
+            }
+
+            try {
+                objectInfoCallCount++;
+                List<ObjectParentData> parents = getObjectParents(repositoryId, object.getId(), null,
+                        Boolean.FALSE, IncludeRelationships.NONE, "cmis:none", Boolean.FALSE, null);
+                if (isNotEmpty(parents)) {
+                    result.add(object.getId());
+                }
+            } catch (CmisInvalidArgumentException e) {
+                // not fileable
+            } catch (CmisNotSupportedException nse) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("getObjectParents is not implemented! Object info for object {} might be incorrect.",
+                            object.getId(), nse);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Checks if the object has the properties that are required to compile an
+     * object info. The properties might be missing if a property filter has
+     * been applied.
+     */
+    private boolean hasObjectInfoProperties(ObjectData object) {
+        if (object.getProperties() == null || object.getProperties().getProperties() == null) {
+            return false;
+        }
+
+        Map<String, PropertyData<?>> properties = object.getProperties().getProperties();
+        if (!properties.containsKey(PropertyIds.BASE_TYPE_ID) || !properties.containsKey(PropertyIds.OBJECT_TYPE_ID)
+                || !properties.containsKey(PropertyIds.NAME)) {
+            return false;
+        }
+
+        if (object.getBaseTypeId() == BaseTypeId.CMIS_DOCUMENT) {
+            return properties.containsKey(PropertyIds.VERSION_SERIES_ID)
+                    && properties.containsKey(PropertyIds.IS_VERSION_SERIES_CHECKED_OUT);
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the number of repository calls that have been made to compile
+     * object infos since the object infos have been cleared.
+     */
+    public long getObjectInfoCallCount() {
+        return objectInfoCallCount;
+    }
+
     /**
      * Adds an object info.
      */
@@ -1336,6 +1626,7 @@ public abstract class AbstractCmisService implements CmisService, ObjectInfoHand
      */
     public void clearObjectInfos() {
         objectInfoMap = null;
+        objectInfoCallCount = 0;
     }
 
     @Override
@@ -1384,4 +1675,17 @@ public abstract class AbstractCmisService implements CmisService, ObjectInfoHand
         }
         return null;
     }
+
+    /**
+     * Data that is shared by the object infos of a batch.
+     */
+    private static class ObjectInfoBatch {
+        private RepositoryInfo repositoryInfo;
+        private TypeDefinitionList baseTypes;
+        private boolean hasParent;
+        private boolean checkRenditions;
+        private boolean checkRelationships;
+        private Set<String> objectIdsWithParent;
+        private final Map<String, String> workingCopyOriginalIds = new HashMap<String, String>();
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.impl.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.apache.chemistry.opencmis.commons.impl.JSONConstraints;
+import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONParseException;
+import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONParser;
+import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONReader;
+import org.junit.Test;
+
+public class JSONReaderTest {
+
+    private static final String JSON = "{\"a\": 1, \"b\": [true, null, 2.5, \"x\"], \"c\": {\"d\": {}, \"e\": []}, "
+            + "\"f\": \"text\"}";
+
+    @Test
+    public void testEvents() throws Exception {
+        JSONReader reader = new JSONReader(new StringReader(JSON));
+
+        reader.beginObject();
+        assertEquals("a", reader.nextName());
+        assertEquals(BigInteger.ONE, reader.nextValue());
+        assertEquals("b", reader.nextName());
+        assertEquals(JSONReader.START_ARRAY, reader.peek());
+        reader.beginArray();
+        assertEquals(Boolean.TRUE, reader.nextValue());
+        assertNull(reader.nextValue());
+        assertEquals(new BigDecimal("2.5"), reader.nextValue());
+        assertTrue(reader.hasNext());
+        assertEquals("x", reader.nextValue());
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        assertEquals("c", reader.nextName());
+        reader.skipValue();
+        assertEquals(JSONReader.NAME, reader.peek());
+        assertEquals("f", reader.nextName());
+        assertEquals("text", reader.nextValue());
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        assertEquals(JSONReader.END_DOCUMENT, reader.peek());
+        reader.close();
+    }
+
+    @Test
+    public void testReadValue() throws Exception {
+        JSONReader reader = new JSONReader(new StringReader(JSON));
+        Object value = reader.readValue(null);
+        assertEquals(JSONReader.END_DOCUMENT, reader.peek());
+
+        assertEquals(new JSONParser().parse(JSON), value);
+    }
+
+    @Test
+    public void testInvalidJson() throws Exception {
+        String[] invalid = new String[] { "{\"a\" 1}", "{\"a\": 1 \"b\": 2}", "[1 2]", "{1: 2}", "[1,]]", "{} {}",
+                "{\"a\": }" };
+
+        for (String json : invalid) {
+            JSONReader reader = new JSONReader(new StringReader(json));
+            try {
+                reader.readValue(null);
+                reader.peek();
+                fail("Invalid JSON accepted: " + json);
+            } catch (JSONParseException e) {
+                assertEquals(JSONParseException.ERROR_UNEXPECTED_TOKEN, e.getErrorType());
+            }
+        }
+    }
+
+    @Test
+    public void testDepth() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < JSONConstraints.MAX_DEPTH + 1; i++) {
+            sb.append('[');
+        }
+        for (int i = 0; i < JSONConstraints.MAX_DEPTH + 1; i++) {
+            sb.append(']');
+        }
+
+        JSONReader reader = new JSONReader(new StringReader(sb.toString()));
+        try {
+            reader.skipValue();
+            fail();
+        } catch (JSONParseException e) {
+            assertEquals(JSONParseException.ERROR_JSON_TOO_BIG, e.getErrorType());
+        }
+    }
+}
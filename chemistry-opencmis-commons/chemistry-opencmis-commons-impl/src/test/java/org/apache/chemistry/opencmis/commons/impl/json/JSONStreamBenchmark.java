@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.impl.json;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.enums.DateTimeFormat;
+import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
+import org.apache.chemistry.opencmis.commons.impl.JSONStreamConverter;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectDataImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectListImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertiesImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyDateTimeImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyIdImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyIntegerImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyStringImpl;
+import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONParser;
+import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONReader;
+
+/**
+ * Simple benchmark that compares the tree parser ({@link JSONParser} and
+ * {@link JSONConverter}) with the streaming decoder ({@link JSONReader} and
+ * {@link JSONStreamConverter}) for a large object list. This is not a unit
+ * test, run it manually with:
+ *
+ * <pre>
+ * java -cp ... org.apache.chemistry.opencmis.commons.impl.json.JSONStreamBenchmark [objects] [properties] [iterations]
+ * </pre>
+ *
+ * The defaults convert a list of 1000 objects with 40 properties each. Run it
+ * with <code>-verbose:gc</code> to compare the heap usage of both decoders.
+ */
+public class JSONStreamBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int objects = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int properties = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        StringWriter sw = new StringWriter();
+        JSONConverter.convert(createObjectList(objects, properties), null, JSONConverter.PropertyMode.OBJECT, false,
+                DateTimeFormat.SIMPLE).writeJSONString(sw);
+        String json = sw.toString();
+        System.out.println("Object list with " + objects + " objects and " + properties + " properties: "
+                + (json.length() / 1024) + " KB");
+
+        // warm up
+        for (int i = 0; i < iterations / 10 + 1; i++) {
+            parseTree(json);
+            parseStreaming(json);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            parseTree(json);
+        }
+        long tree = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            parseStreaming(json);
+        }
+        long streaming = System.nanoTime() - start;
+
+        System.out.println("Tree parser:      " + (tree / iterations / 1000) + " us per list");
+        System.out.println("Streaming parser: " + (streaming / iterations / 1000) + " us per list");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectList parseTree(String json) throws Exception {
+        Object tree = new JSONParser().parse(new StringReader(json));
+        return JSONConverter.convertObjectList((Map<String, Object>) tree, null, false);
+    }
+
+    private static ObjectList parseStreaming(String json) throws Exception {
+        return JSONStreamConverter.convertObjectList(new JSONReader(new StringReader(json)), null, false);
+    }
+
+    private static ObjectList createObjectList(int objects, int properties) {
+        List<ObjectData> list = new ArrayList<ObjectData>(objects);
+        GregorianCalendar now = new GregorianCalendar();
+
+        for (int i = 0; i < objects; i++) {
+            PropertiesImpl props = new PropertiesImpl();
+            props.addProperty(new PropertyIdImpl("cmis:objectId", "id-" + i));
+            props.addProperty(new PropertyIdImpl("cmis:objectTypeId", "cmis:document"));
+            props.addProperty(new PropertyStringImpl("cmis:name", "document-" + i + ".txt"));
+            props.addProperty(new PropertyDateTimeImpl("cmis:creationDate", now));
+
+            for (int j = 4; j < properties; j++) {
+                if (j % 2 == 0) {
+                    props.addProperty(new PropertyStringImpl("custom:string" + j, "value " + i + "/" + j));
+                } else {
+                    props.addProperty(new PropertyIntegerImpl("custom:integer" + j, BigInteger.valueOf(i * j)));
+                }
+            }
+
+            ObjectDataImpl object = new ObjectDataImpl();
+            object.setProperties(props);
+            list.add(object);
+        }
+
+        ObjectListImpl result = new ObjectListImpl();
+        result.setObjects(list);
+        result.setNumItems(BigInteger.valueOf(objects));
+        result.setHasMoreItems(Boolean.FALSE);
+
+        return result;
+    }
+}
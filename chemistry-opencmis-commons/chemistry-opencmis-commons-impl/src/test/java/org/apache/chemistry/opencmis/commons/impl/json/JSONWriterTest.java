@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.impl.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.StringWriter;
+import java.math.BigInteger;
+
+import org.junit.Test;
+
+public class JSONWriterTest {
+
+    @Test
+    public void testWriter() throws Exception {
+        JSONObject child = new JSONObject();
+        child.put("d", Boolean.TRUE);
+
+        JSONArray array = new JSONArray();
+        array.add(BigInteger.ONE);
+        array.add(null);
+        array.add(child);
+
+        JSONObject expected = new JSONObject();
+        expected.put("a", "text");
+        expected.put("b", array);
+        expected.put("c", new JSONObject());
+
+        StringWriter sw = new StringWriter();
+        JSONWriter writer = new JSONWriter(sw);
+        writer.beginObject();
+        writer.member("a", "text");
+        writer.name("b").beginArray();
+        writer.value(BigInteger.ONE).value(null).value(child);
+        writer.endArray();
+        writer.name("c").beginObject().endObject();
+        writer.memberIfNotNull("x", null);
+        writer.endObject();
+        writer.flush();
+
+        assertEquals(expected.toJSONString(), sw.toString());
+    }
+
+    @Test
+    public void testEscape() throws Exception {
+        String s = "a\"b\\c/d\b\f\n\r\t\u0001\u007F\u2028\u20ACe";
+
+        StringWriter sw = new StringWriter();
+        JSONValue.escape(s, sw);
+
+        assertEquals(JSONValue.escape(s), sw.toString());
+        assertEquals("a\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\\u0001\\u007F\\u2028\\u20ACe", sw.toString());
+    }
+
+    @Test
+    public void testInvalidState() throws Exception {
+        JSONWriter writer = new JSONWriter(new StringWriter());
+        try {
+            writer.name("a");
+            fail("Name outside of an object!");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        writer.beginObject().name("a");
+        try {
+            writer.endObject();
+            fail("Object closed after a name!");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.impl.misc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.chemistry.opencmis.commons.impl.BufferPool;
+import org.apache.chemistry.opencmis.commons.impl.IOUtils;
+import org.apache.chemistry.opencmis.commons.impl.PooledBufferedInputStream;
+import org.apache.chemistry.opencmis.commons.impl.PooledBufferedOutputStream;
+import org.junit.After;
+import org.junit.Test;
+
+public class BufferPoolTest {
+
+    @After
+    public void tearDown() {
+        BufferPool.setEnabled(true);
+    }
+
+    @Test
+    public void testReuse() {
+        byte[] buffer = BufferPool.acquire(8 * 1024);
+        assertEquals(8 * 1024, buffer.length);
+        BufferPool.release(buffer);
+
+        long reused = BufferPool.getReuseCount();
+        assertSame(buffer, BufferPool.acquire(8 * 1024));
+        assertEquals(reused + 1, BufferPool.getReuseCount());
+    }
+
+    @Test
+    public void testOddSizesAreNotPooled() {
+        byte[] buffer = BufferPool.acquire(5000);
+        assertEquals(5000, buffer.length);
+        BufferPool.release(buffer);
+        assertNotSame(buffer, BufferPool.acquire(5000));
+    }
+
+    @Test
+    public void testBounded() {
+        int size = 4 * 1024 * 1024;
+        int max = (int) (BufferPool.MAX_BYTES / size);
+
+        byte[][] buffers = new byte[max + 2][];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = BufferPool.acquire(size);
+        }
+        for (byte[] buffer : buffers) {
+            BufferPool.release(buffer);
+        }
+
+        long reused = BufferPool.getReuseCount();
+        for (int i = 0; i < buffers.length; i++) {
+            BufferPool.acquire(size);
+        }
+        assertEquals(reused + max, BufferPool.getReuseCount());
+    }
+
+    @Test
+    public void testDisabled() {
+        BufferPool.setEnabled(false);
+
+        byte[] buffer = BufferPool.acquire(16 * 1024);
+        BufferPool.release(buffer);
+        assertNotSame(buffer, BufferPool.acquire(16 * 1024));
+    }
+
+    @Test
+    public void testStreams() throws IOException {
+        byte[] data = new byte[100 * 1000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        for (int run = 0; run < 3; run++) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            PooledBufferedOutputStream out = new PooledBufferedOutputStream(bos, 32 * 1024);
+            PooledBufferedInputStream in = new PooledBufferedInputStream(new ByteArrayInputStream(data), 32 * 1024);
+            IOUtils.copy(in, out, 32 * 1024);
+            in.close();
+            in.close();
+            out.close();
+            out.close();
+
+            assertArrayEquals(data, bos.toByteArray());
+
+            try {
+                out.write(1);
+                fail("Stream should be closed!");
+            } catch (IOException e) {
+                // expected
+            }
+        }
+
+        assertTrue(BufferPool.getReuseCount() > 0);
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.impl.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ExtensionsData;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderData;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderList;
+import org.apache.chemistry.opencmis.commons.data.ObjectParentData;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.chemistry.opencmis.commons.data.RenditionData;
+import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionList;
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.enums.CapabilityRenditions;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.AbstractTypeDefinition;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.DocumentTypeDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.FolderTypeDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectDataImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectInFolderDataImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectInFolderListImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectListImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectParentDataImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PolicyTypeDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertiesImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyBooleanImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyIdImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyStringImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.RelationshipTypeDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.RenditionDataImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.RepositoryCapabilitiesImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.RepositoryInfoImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.TypeDefinitionListImpl;
+import org.apache.chemistry.opencmis.commons.server.ObjectInfo;
+import org.apache.chemistry.opencmis.commons.server.RenditionInfo;
+import org.junit.Test;
+
+/**
+ * Tests that the object infos compiled for a whole list match the object
+ * infos compiled per object.
+ */
+public class ObjectInfoBatchTest {
+
+    private static final String REPOSITORY_ID = "repo";
+    private static final String ROOT_ID = "root";
+    private static final String FOLDER_ID = "folder";
+
+    private static final String[] CHILDREN = new String[] { "doc1", "doc2", "subfolder" };
+
+    @Test
+    public void testPerObject() {
+        TestService service = new TestService();
+
+        for (String id : CHILDREN) {
+            assertNotNull(service.getObjectInfo(REPOSITORY_ID, id));
+        }
+
+        // per object: getObject, getRepositoryInfo and getTypeChildren, plus
+        // getObjectParents for the documents
+        assertEquals(11, service.getObjectInfoCallCount());
+    }
+
+    @Test
+    public void testBatchWithoutRenditionsAndRelationships() {
+        Map<String, ObjectInfo> expected = getPerObjectInfos();
+
+        TestService service = new TestService();
+        ObjectInFolderList children = service.getChildren(REPOSITORY_ID, FOLDER_ID, null, null, Boolean.FALSE,
+                IncludeRelationships.NONE, null, Boolean.FALSE, null, null, null);
+        service.compileObjectInfos(REPOSITORY_ID, children);
+
+        // getRepositoryInfo and getTypeChildren once, getObject per object to
+        // get the renditions and relationships
+        assertEquals(5, service.getObjectInfoCallCount());
+
+        assertObjectInfos(expected, service);
+        assertEquals(5, service.getObjectInfoCallCount());
+    }
+
+    @Test
+    public void testBatchWithRenditionsAndRelationships() {
+        Map<String, ObjectInfo> expected = getPerObjectInfos();
+
+        TestService service = new TestService();
+        ObjectInFolderList children = service.getChildren(REPOSITORY_ID, FOLDER_ID, null, null, Boolean.FALSE,
+                IncludeRelationships.BOTH, "*", Boolean.FALSE, null, null, null);
+        service.compileObjectInfos(REPOSITORY_ID, children);
+
+        // getRepositoryInfo and getTypeChildren once, getObject for the
+        // objects without renditions or relationships
+        assertEquals(4, service.getObjectInfoCallCount());
+
+        assertObjectInfos(expected, service);
+        assertEquals(4, service.getObjectInfoCallCount());
+    }
+
+    @Test
+    public void testBatchList() {
+        Map<String, ObjectInfo> expected = getPerObjectInfos();
+
+        TestService service = new TestService();
+        List<ObjectData> objects = new ArrayList<ObjectData>();
+        for (String id : CHILDREN) {
+            objects.add(service.createObject(id, IncludeRelationships.BOTH, "*"));
+        }
+        ObjectListImpl list = new ObjectListImpl();
+        list.setObjects(objects);
+        service.compileObjectInfos(REPOSITORY_ID, list);
+
+        // getRepositoryInfo and getTypeChildren once, getObjectParents for the
+        // documents, getObject for the objects without renditions or
+        // relationships
+        assertEquals(6, service.getObjectInfoCallCount());
+
+        assertObjectInfos(expected, service);
+        assertEquals(6, service.getObjectInfoCallCount());
+    }
+
+    @Test
+    public void testBatchWithoutRenditionAndRelationshipSupport() {
+        Map<String, ObjectInfo> expected = getPerObjectInfos(false);
+
+        TestService service = new TestService(false);
+        ObjectInFolderList children = service.getChildren(REPOSITORY_ID, FOLDER_ID, null, null, Boolean.FALSE,
+                IncludeRelationships.NONE, null, Boolean.FALSE, null, null, null);
+        service.compileObjectInfos(REPOSITORY_ID, children);
+
+        // getRepositoryInfo and getTypeChildren once
+        assertEquals(2, service.getObjectInfoCallCount());
+
+        assertObjectInfos(expected, service);
+        assertEquals(2, service.getObjectInfoCallCount());
+    }
+
+    private Map<String, ObjectInfo> getPerObjectInfos() {
+        Map<String, ObjectInfo> result = getPerObjectInfos(true);
+
+        assertNotNull(result.get("doc1").getRenditionInfos());
+        assertNotNull(result.get("doc1").getRelationshipSourceIds());
+        assertNotNull(result.get("doc2").getRelationshipTargetIds());
+        assertNull(result.get("subfolder").getRenditionInfos());
+
+        return result;
+    }
+
+    private Map<String, ObjectInfo> getPerObjectInfos(boolean supportsRenditionsAndRelationships) {
+        TestService service = new TestService(supportsRenditionsAndRelationships);
+
+        Map<String, ObjectInfo> result = new LinkedHashMap<String, ObjectInfo>();
+        for (String id : CHILDREN) {
+            result.put(id, service.getObjectInfo(REPOSITORY_ID, id));
+        }
+
+        return result;
+    }
+
+    private void assertObjectInfos(Map<String, ObjectInfo> expected, TestService service) {
+        for (Map.Entry<String, ObjectInfo> entry : expected.entrySet()) {
+            ObjectInfo expectedInfo = entry.getValue();
+            ObjectInfo info = service.getObjectInfo(REPOSITORY_ID, entry.getKey());
+
+            assertNotNull(info);
+            assertEquals(expectedInfo.getId(), info.getId());
+            assertEquals(expectedInfo.getName(), info.getName());
+            assertEquals(expectedInfo.getBaseType(), info.getBaseType());
+            assertEquals(expectedInfo.hasParent(), info.hasParent());
+            assertEquals(expectedInfo.hasContent(), info.hasContent());
+            assertEquals(expectedInfo.supportsRelationships(), info.supportsRelationships());
+            assertEquals(expectedInfo.supportsPolicies(), info.supportsPolicies());
+            assertEquals(expectedInfo.supportsDescendants(), info.supportsDescendants());
+            assertEquals(getRenditionIds(expectedInfo), getRenditionIds(info));
+            assertEquals(expectedInfo.getRelationshipSourceIds(), info.getRelationshipSourceIds());
+            assertEquals(expectedInfo.getRelationshipTargetIds(), info.getRelationshipTargetIds());
+        }
+    }
+
+    private List<String> getRenditionIds(ObjectInfo info) {
+        if (info.getRenditionInfos() == null) {
+            return null;
+        }
+
+        List<String> result = new ArrayList<String>();
+        for (RenditionInfo rendition : info.getRenditionInfos()) {
+            result.add(rendition.getId());
+        }
+
+        return result;
+    }
+
+    /**
+     * A folder with two related documents and a subfolder.
+     */
+    private static class TestService extends AbstractCmisService {
+
+        private final boolean supportsRenditionsAndRelationships;
+
+        public TestService() {
+            this(true);
+        }
+
+        public TestService(boolean supportsRenditionsAndRelationships) {
+            this.supportsRenditionsAndRelationships = supportsRenditionsAndRelationships;
+        }
+
+        @Override
+        public List<RepositoryInfo> getRepositoryInfos(ExtensionsData extension) {
+            RepositoryCapabilitiesImpl capabilities = new RepositoryCapabilitiesImpl();
+            capabilities.setCapabilityRendition(supportsRenditionsAndRelationships ? CapabilityRenditions.READ
+                    : CapabilityRenditions.NONE);
+
+            RepositoryInfoImpl repositoryInfo = new RepositoryInfoImpl();
+            repositoryInfo.setId(REPOSITORY_ID);
+            repositoryInfo.setRootFolder(ROOT_ID);
+            repositoryInfo.setCapabilities(capabilities);
+
+            return Collections.<RepositoryInfo> singletonList(repositoryInfo);
+        }
+
+        @Override
+        public TypeDefinitionList getTypeChildren(String repositoryId, String typeId,
+                Boolean includePropertyDefinitions, BigInteger maxItems, BigInteger skipCount,
+                ExtensionsData extension) {
+            List<TypeDefinition> types = new ArrayList<TypeDefinition>();
+            types.add(createType(new DocumentTypeDefinitionImpl(), BaseTypeId.CMIS_DOCUMENT));
+            types.add(createType(new FolderTypeDefinitionImpl(), BaseTypeId.CMIS_FOLDER));
+            if (supportsRenditionsAndRelationships) {
+                types.add(createType(new RelationshipTypeDefinitionImpl(), BaseTypeId.CMIS_RELATIONSHIP));
+            }
+            types.add(createType(new PolicyTypeDefinitionImpl(), BaseTypeId.CMIS_POLICY));
+
+            return new TypeDefinitionListImpl(types);
+        }
+
+        @Override
+        public TypeDefinition getTypeDefinition(String repositoryId, String typeId, ExtensionsData extension) {
+            return null;
+        }
+
+        @Override
+        public ObjectInFolderList getChildren(String repositoryId, String folderId, String filter, String orderBy,
+                Boolean includeAllowableActions, IncludeRelationships includeRelationships, String renditionFilter,
+                Boolean includePathSegment, BigInteger maxItems, BigInteger skipCount, ExtensionsData extension) {
+            List<ObjectInFolderData> objects = new ArrayList<ObjectInFolderData>();
+            for (String id : CHILDREN) {
+                ObjectInFolderDataImpl child = new ObjectInFolderDataImpl();
+                child.setObject(createObject(id, includeRelationships, renditionFilter));
+                objects.add(child);
+            }
+
+            ObjectInFolderListImpl result = new ObjectInFolderListImpl();
+            result.setObjects(objects);
+            result.setNumItems(BigInteger.valueOf(objects.size()));
+            result.setHasMoreItems(Boolean.FALSE);
+
+            return result;
+        }
+
+        @Override
+        public List<ObjectParentData> getObjectParents(String repositoryId, String objectId, String filter,
+                Boolean includeAllowableActions, IncludeRelationships includeRelationships, String renditionFilter,
+                Boolean includeRelativePathSegment, ExtensionsData extension) {
+            ObjectParentDataImpl parent = new ObjectParentDataImpl();
+            parent.setObject(createObject(FOLDER_ID, IncludeRelationships.NONE, null));
+
+            return Collections.<ObjectParentData> singletonList(parent);
+        }
+
+        @Override
+        public ObjectData getObject(String repositoryId, String objectId, String filter,
+                Boolean includeAllowableActions, IncludeRelationships includeRelationships, String renditionFilter,
+                Boolean includePolicyIds, Boolean includeAcl, ExtensionsData extension) {
+            return createObject(objectId, includeRelationships, renditionFilter);
+        }
+
+        private static TypeDefinition createType(AbstractTypeDefinition type, BaseTypeId baseTypeId) {
+            type.setId(baseTypeId.value());
+            type.setBaseTypeId(baseTypeId);
+            return type;
+        }
+
+        public ObjectData createObject(String id, IncludeRelationships includeRelationships,
+                String renditionFilter) {
+            boolean isFolder = !id.startsWith("doc");
+
+            List<PropertyData<?>> properties = new ArrayList<PropertyData<?>>();
+            properties.add(new PropertyIdImpl(PropertyIds.OBJECT_ID, id));
+            properties.add(new PropertyStringImpl(PropertyIds.NAME, id));
+            if (isFolder) {
+                properties.add(new PropertyIdImpl(PropertyIds.BASE_TYPE_ID, BaseTypeId.CMIS_FOLDER.value()));
+                properties.add(new PropertyIdImpl(PropertyIds.OBJECT_TYPE_ID, BaseTypeId.CMIS_FOLDER.value()));
+            } else {
+                properties.add(new PropertyIdImpl(PropertyIds.BASE_TYPE_ID, BaseTypeId.CMIS_DOCUMENT.value()));
+                properties.add(new PropertyIdImpl(PropertyIds.OBJECT_TYPE_ID, BaseTypeId.CMIS_DOCUMENT.value()));
+                properties.add(new PropertyIdImpl(PropertyIds.VERSION_SERIES_ID, id + "-series"));
+                properties.add(new PropertyBooleanImpl(PropertyIds.IS_LATEST_VERSION, Boolean.TRUE));
+                properties.add(new PropertyBooleanImpl(PropertyIds.IS_VERSION_SERIES_CHECKED_OUT, Boolean.FALSE));
+                properties.add(new PropertyStringImpl(PropertyIds.CONTENT_STREAM_MIME_TYPE, "text/plain"));
+                properties.add(new PropertyStringImpl(PropertyIds.CONTENT_STREAM_FILE_NAME, id + ".txt"));
+            }
+
+            ObjectDataImpl object = new ObjectDataImpl();
+            object.setProperties(new PropertiesImpl(properties));
+
+            if (!supportsRenditionsAndRelationships) {
+                return object;
+            }
+
+            if (renditionFilter != null && !"cmis:none".equals(renditionFilter)) {
+                List<RenditionData> renditions = new ArrayList<RenditionData>();
+                if ("doc1".equals(id)) {
+                    RenditionDataImpl rendition = new RenditionDataImpl();
+                    rendition.setStreamId("doc1-thumbnail");
+                    rendition.setKind("cmis:thumbnail");
+                    rendition.setMimeType("image/png");
+                    renditions.add(rendition);
+                }
+                object.setRenditions(renditions);
+            }
+
+            if (includeRelationships != null && includeRelationships != IncludeRelationships.NONE) {
+                List<ObjectData> relationships = new ArrayList<ObjectData>();
+                if ("doc1".equals(id) || "doc2".equals(id)) {
+                    relationships.add(createRelationship("rel1", "doc1", "doc2"));
+                }
+                object.setRelationships(relationships);
+            }
+
+            return object;
+        }
+
+        private static ObjectData createRelationship(String id, String sourceId, String targetId) {
+            List<PropertyData<?>> properties = new ArrayList<PropertyData<?>>();
+            properties.add(new PropertyIdImpl(PropertyIds.OBJECT_ID, id));
+            properties.add(new PropertyIdImpl(PropertyIds.BASE_TYPE_ID, BaseTypeId.CMIS_RELATIONSHIP.value()));
+            properties.add(new PropertyIdImpl(PropertyIds.SOURCE_ID, sourceId));
+            properties.add(new PropertyIdImpl(PropertyIds.TARGET_ID, targetId));
+
+            ObjectDataImpl relationship = new ObjectDataImpl();
+            relationship.setProperties(new PropertiesImpl(properties));
+
+            return relationship;
+        }
+    }
+}
@@ -21,8 +21,10 @@ package org.apache.chemistry.opencmis.commons.impl.xml;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -61,7 +63,9 @@ import org.apache.chemistry.opencmis.commons.enums.ChangeType;
 import org.apache.chemistry.opencmis.commons.enums.CmisVersion;
 import org.apache.chemistry.opencmis.commons.enums.DateTimeFormat;
 import org.apache.chemistry.opencmis.commons.enums.PropertyType;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
 import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
+import org.apache.chemistry.opencmis.commons.impl.JSONStreamConverter;
 import org.apache.chemistry.opencmis.commons.impl.TypeCache;
 import org.apache.chemistry.opencmis.commons.impl.WSConverter;
 import org.apache.chemistry.opencmis.commons.impl.XMLConverter;
@@ -94,6 +98,7 @@ import org.apache.chemistry.opencmis.commons.impl.jaxb.CmisObjectListType;
 import org.apache.chemistry.opencmis.commons.impl.jaxb.CmisObjectType;
 import org.apache.chemistry.opencmis.commons.impl.json.JSONObject;
 import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONParser;
+import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONReader;
 import org.junit.Test;
 
 public class ObjectConvertTest extends AbstractXMLConverterTest {
@@ -162,6 +167,38 @@ public class ObjectConvertTest extends AbstractXMLConverterTest {
         }
     }
 
+    @Test
+    public void testStreamingResolvesTypesFirst() throws Exception {
+        ObjectDataImpl data = createObjectData(true, CmisVersion.CMIS_1_1, false, false);
+        ObjectListImpl list = new ObjectListImpl();
+        list.setObjects(Collections.<ObjectData> singletonList(data));
+        ObjectInFolderListImpl folderList = new ObjectInFolderListImpl();
+        folderList.setObjects(Collections.<ObjectInFolderData> singletonList(new ObjectInFolderDataImpl(data)));
+
+        TypeCache typeCache = new TestTypeCache(data) {
+            @Override
+            public TypeDefinition getTypeDefinition(String typeId) {
+                throw new CmisObjectNotFoundException("Type not found!");
+            }
+        };
+
+        // the type lookup must fail before anything could have been written
+        try {
+            JSONConverter.convertStreaming(list, typeCache, JSONConverter.PropertyMode.OBJECT, false,
+                    DateTimeFormat.SIMPLE);
+            fail("Type lookup did not fail!");
+        } catch (CmisObjectNotFoundException e) {
+            // expected
+        }
+
+        try {
+            JSONConverter.convertStreaming(folderList, typeCache, false, DateTimeFormat.SIMPLE);
+            fail("Type lookup did not fail!");
+        } catch (CmisObjectNotFoundException e) {
+            // expected
+        }
+    }
+
     private ObjectInFolderContainer createObjectInFolderContainer(int level) {
         ObjectInFolderContainerImpl result = new ObjectInFolderContainerImpl();
 
@@ -398,6 +435,13 @@ public class ObjectConvertTest extends AbstractXMLConverterTest {
         assertNotNull(result);
         assertDataObjectsEquals("ObjectData", data, result, Collections.singleton("getExtensions"));
         assertExtensionsEquals(data.getExtensions(), result.getExtensions());
+
+        ObjectData streamResult = JSONStreamConverter.convertObject(new JSONReader(new StringReader(sw.toString())),
+                typeCache);
+
+        assertNotNull(streamResult);
+        assertDataObjectsEquals("ObjectData", data, streamResult, Collections.singleton("getExtensions"));
+        assertExtensionsEquals(data.getExtensions(), streamResult.getExtensions());
     }
 
     protected void assertJsonObjectData11Succinct(ObjectData data) throws Exception {
@@ -469,6 +513,18 @@ public class ObjectConvertTest extends AbstractXMLConverterTest {
 
         assertNotNull(result);
         assertDataObjectsEquals("ObjectList", children, result, null);
+
+        ObjectList streamResult = JSONStreamConverter.convertObjectList(
+                new JSONReader(new StringReader(sw.toString())), typeCache, false);
+
+        assertNotNull(streamResult);
+        assertDataObjectsEquals("ObjectList", children, streamResult, null);
+
+        // test convertStreaming()
+        StringWriter streamSw = new StringWriter();
+        JSONConverter.convertStreaming(children, typeCache, JSONConverter.PropertyMode.CHANGE, false,
+                DateTimeFormat.SIMPLE).writeJSONString(streamSw);
+        assertEquals(sw.toString(), streamSw.toString());
     }
 
     protected void assertWsObjectInFolderList(ObjectInFolderList children) throws Exception {
@@ -494,6 +550,17 @@ public class ObjectConvertTest extends AbstractXMLConverterTest {
 
         assertNotNull(result);
         assertDataObjectsEquals("ObjectInFolderList", children, result, null);
+
+        ObjectInFolderList streamResult = JSONStreamConverter.convertObjectInFolderList(
+                new JSONReader(new StringReader(sw.toString())), typeCache);
+
+        assertNotNull(streamResult);
+        assertDataObjectsEquals("ObjectInFolderList", children, streamResult, null);
+
+        // test convertStreaming()
+        StringWriter streamSw = new StringWriter();
+        JSONConverter.convertStreaming(children, typeCache, false, DateTimeFormat.SIMPLE).writeJSONString(streamSw);
+        assertEquals(sw.toString(), streamSw.toString());
     }
 
     protected void assertObjectContainer(ObjectInFolderContainer container) throws Exception {
@@ -34,6 +34,8 @@ import javax.xml.stream.XMLStreamException;
 
 import org.apache.chemistry.opencmis.commons.data.ObjectData;
 import org.apache.chemistry.opencmis.commons.data.ObjectInFolderContainer;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderList;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
 import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
 import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionContainer;
 import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
@@ -42,6 +44,7 @@ import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.impl.Constants;
 import org.apache.chemistry.opencmis.commons.impl.ReturnVersion;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+import org.apache.chemistry.opencmis.commons.server.BatchObjectInfoCmisService;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
 import org.apache.chemistry.opencmis.commons.server.LinkInfo;
 import org.apache.chemistry.opencmis.commons.server.NamespaceDefinitions;
@@ -81,6 +84,26 @@ public abstract class AbstractAtomPubServiceCall extends AbstractServiceCall {
 
     public static final String TYPE_AUTHOR = "unknown";
 
+    /**
+     * Lets the service compile the object infos of all children of a feed in
+     * one go, if the service supports it.
+     */
+    protected void compileObjectInfos(CmisService service, String repositoryId, ObjectInFolderList children) {
+        if (service instanceof BatchObjectInfoCmisService) {
+            ((BatchObjectInfoCmisService) service).compileObjectInfos(repositoryId, children);
+        }
+    }
+
+    /**
+     * Lets the service compile the object infos of all objects of a feed in
+     * one go, if the service supports it.
+     */
+    protected void compileObjectInfos(CmisService service, String repositoryId, ObjectList objects) {
+        if (service instanceof BatchObjectInfoCmisService) {
+            ((BatchObjectInfoCmisService) service).compileObjectInfos(repositoryId, objects);
+        }
+    }
+
     /**
      * Compiles the base URL for links, collections and templates.
      */
@@ -136,6 +136,8 @@ public class DiscoveryService {
                 throw new CmisRuntimeException("Results are null!");
             }
 
+            compileObjectInfos(service, repositoryId, results);
+
             // set headers
             UrlBuilder baseUrl = compileBaseUrl(request, repositoryId);
 
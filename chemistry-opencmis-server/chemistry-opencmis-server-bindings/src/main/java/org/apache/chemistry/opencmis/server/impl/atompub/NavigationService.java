@@ -88,6 +88,8 @@ public class NavigationService {
                 throw new CmisRuntimeException("Children are null!");
             }
 
+            compileObjectInfos(service, repositoryId, children);
+
             ObjectInfo folderInfo = service.getObjectInfo(repositoryId, folderId);
             if (folderInfo == null) {
                 throw new CmisRuntimeException("Folder Object Info is missing!");
@@ -575,6 +577,8 @@ public class NavigationService {
                 throw new CmisRuntimeException("Checked Out list is null!");
             }
 
+            compileObjectInfos(service, repositoryId, checkedOut);
+
             ObjectInfo folderInfo = null;
             if (folderId != null) {
                 folderInfo = service.getObjectInfo(repositoryId, folderId);
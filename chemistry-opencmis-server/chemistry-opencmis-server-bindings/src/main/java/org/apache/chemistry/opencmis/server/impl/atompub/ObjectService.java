@@ -20,8 +20,6 @@ package org.apache.chemistry.opencmis.server.impl.atompub;
 
 import static org.apache.chemistry.opencmis.commons.impl.CollectionsHelper.isNotEmpty;
 
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.math.BigInteger;
 import java.util.GregorianCalendar;
@@ -48,7 +46,6 @@ import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentExcep
 import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.impl.Constants;
 import org.apache.chemistry.opencmis.commons.impl.DateTimeHelper;
-import org.apache.chemistry.opencmis.commons.impl.IOUtils;
 import org.apache.chemistry.opencmis.commons.impl.MimeHelper;
 import org.apache.chemistry.opencmis.commons.impl.ReturnVersion;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
@@ -64,6 +61,7 @@ import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
 import org.apache.chemistry.opencmis.commons.server.ObjectInfo;
 import org.apache.chemistry.opencmis.commons.spi.Holder;
+import org.apache.chemistry.opencmis.server.shared.ContentBody;
 import org.apache.chemistry.opencmis.server.shared.TempStoreOutputStreamFactory;
 
 /**
@@ -627,49 +625,43 @@ public class ObjectService {
                 return;
             }
 
-            if (content == null || content.getStream() == null) {
-                throw new CmisRuntimeException("Content stream is null!");
-            }
-
-            // set HTTP headers, if requested by the server implementation
-            if (sendContentStreamHeaders(content, request, response)) {
-                return;
-            }
+            ContentBody body = openContent(content);
+            try {
+                // set HTTP headers, if requested by the server implementation
+                if (sendContentStreamHeaders(content, request, response)) {
+                    return;
+                }
 
-            String contentType = content.getMimeType();
-            if (contentType == null) {
-                contentType = Constants.MEDIATYPE_OCTETSTREAM;
-            }
+                String contentType = content.getMimeType();
+                if (contentType == null) {
+                    contentType = Constants.MEDIATYPE_OCTETSTREAM;
+                }
 
-            // set headers
-            if ((offset == null || offset.signum() == 0) && (length == null)) {
-                response.setStatus(HttpServletResponse.SC_OK);
-            } else {
-                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                // set headers
+                if ((offset == null || offset.signum() == 0) && (length == null)) {
+                    response.setStatus(HttpServletResponse.SC_OK);
+                } else {
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
 
-                if (content.getBigLength() != null && content.getBigLength().signum() == 1) {
-                    BigInteger firstBytePos = (offset == null ? BigInteger.ZERO : offset);
-                    BigInteger lastBytePos = firstBytePos.add(content.getBigLength().subtract(BigInteger.ONE));
+                    if (content.getBigLength() != null && content.getBigLength().signum() == 1) {
+                        BigInteger firstBytePos = (offset == null ? BigInteger.ZERO : offset);
+                        BigInteger lastBytePos = firstBytePos.add(content.getBigLength().subtract(BigInteger.ONE));
 
-                    response.setHeader("Content-Range",
-                            "bytes " + firstBytePos.toString() + "-" + lastBytePos.toString() + "/*");
+                        response.setHeader("Content-Range",
+                                "bytes " + firstBytePos.toString() + "-" + lastBytePos.toString() + "/*");
+                    }
                 }
-            }
-            response.setContentType(contentType);
+                response.setContentType(contentType);
 
-            if (content.getFileName() != null) {
-                response.setHeader(MimeHelper.CONTENT_DISPOSITION,
-                        MimeHelper.encodeContentDisposition(MimeHelper.DISPOSITION_ATTACHMENT, content.getFileName()));
-            }
+                if (content.getFileName() != null) {
+                    response.setHeader(MimeHelper.CONTENT_DISPOSITION,
+                            MimeHelper.encodeContentDisposition(MimeHelper.DISPOSITION_ATTACHMENT, content.getFileName()));
+                }
 
-            // send content
-            InputStream in = content.getStream();
-            OutputStream out = response.getOutputStream();
-            try {
-                IOUtils.copy(in, out, BUFFER_SIZE);
-                out.flush();
+                // send content
+                body.write(request, response, BUFFER_SIZE);
             } finally {
-                IOUtils.closeQuietly(in);
+                body.close();
             }
         }
     }
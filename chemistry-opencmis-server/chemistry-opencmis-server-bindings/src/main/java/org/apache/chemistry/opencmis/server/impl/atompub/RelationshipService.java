@@ -79,6 +79,8 @@ public class RelationshipService {
                 throw new CmisRuntimeException("Relationships are null!");
             }
 
+            compileObjectInfos(service, repositoryId, relationships);
+
             ObjectInfo objectInfo = service.getObjectInfo(repositoryId, objectId);
             if (objectInfo == null) {
                 throw new CmisRuntimeException("Object Info is missing!");
@@ -39,6 +39,7 @@ import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
 import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
 import org.apache.chemistry.opencmis.server.impl.CallContextImpl;
+import org.apache.chemistry.opencmis.server.shared.SharedTypeCache;
 import org.apache.chemistry.opencmis.server.shared.TempStoreOutputStreamFactory;
 
 /**
@@ -502,6 +503,7 @@ public class RepositoryService {
                 }
 
                 newType = service.createType(repositoryId, parser.getTypeDefinition(), null);
+                SharedTypeCache.invalidate(context, repositoryId);
 
                 if (stopAfterService(service)) {
                     return;
@@ -553,6 +555,7 @@ public class RepositoryService {
                 }
 
                 newType = service.updateType(repositoryId, parser.getTypeDefinition(), null);
+                SharedTypeCache.invalidate(context, repositoryId);
 
                 if (stopAfterService(service)) {
                     return;
@@ -599,6 +602,7 @@ public class RepositoryService {
             }
 
             service.deleteType(repositoryId, typeId, null);
+            SharedTypeCache.invalidate(context, repositoryId);
 
             if (stopAfterService(service)) {
                 return;
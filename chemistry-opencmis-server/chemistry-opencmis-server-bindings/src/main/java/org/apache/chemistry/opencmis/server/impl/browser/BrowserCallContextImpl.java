@@ -18,6 +18,8 @@
  */
 package org.apache.chemistry.opencmis.server.impl.browser;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import javax.servlet.ServletContext;
@@ -36,6 +38,8 @@ import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
 import org.apache.chemistry.opencmis.commons.server.CmisServiceFactory;
 import org.apache.chemistry.opencmis.server.impl.CallContextImpl;
+import org.apache.chemistry.opencmis.server.shared.SharedTypeCache;
+import org.apache.chemistry.opencmis.server.shared.SharedTypeCache.ObjectTypes;
 import org.apache.chemistry.opencmis.server.shared.TempStoreOutputStreamFactory;
 
 /**
@@ -45,6 +49,9 @@ import org.apache.chemistry.opencmis.server.shared.TempStoreOutputStreamFactory;
 public class BrowserCallContextImpl extends CallContextImpl {
 
     private static final long serialVersionUID = 1L;
+
+    private static final String LOAD_FILTER = "cmis:objectId,cmis:objectTypeId,cmis:baseTypeId,"
+            + "cmis:secondaryObjectTypeIds";
     
     private CmisService service;
     private String objectId;
@@ -120,13 +127,23 @@ public class BrowserCallContextImpl extends CallContextImpl {
     private void loadObject() {
         ObjectData object = null;
 
+        SharedTypeCache sharedCache = SharedTypeCache.get(this);
+
         if (objectId != null) {
-            object = service.getObject(getRepositoryId(), objectId, "cmis:objectId,cmis:objectTypeId,cmis:baseTypeId",
-                    false, IncludeRelationships.NONE, "cmis:none", false, false, null);
+            ObjectTypes objectTypes = sharedCache == null ? null : sharedCache.getObjectTypes(getRepositoryId(),
+                    getUsername(), objectId);
+            if (objectTypes != null) {
+                typeId = objectTypes.getTypeId();
+                baseTypeId = objectTypes.getBaseTypeId();
+                return;
+            }
+
+            object = service.getObject(getRepositoryId(), objectId, LOAD_FILTER, false, IncludeRelationships.NONE,
+                    "cmis:none", false, false, null);
         } else if (pathFragments != null) {
-            object = service.getObjectByPath(getRepositoryId(), getPath(),
-                    "cmis:objectId,cmis:objectTypeId,cmis:baseTypeId", false, IncludeRelationships.NONE, "cmis:none",
-                    false, false, null);
+            // paths are not cached because objects can be moved
+            object = service.getObjectByPath(getRepositoryId(), getPath(), LOAD_FILTER, false,
+                    IncludeRelationships.NONE, "cmis:none", false, false, null);
         } else {
             // this is a repository URL call without object id
             // -> there is nothing to load
@@ -136,6 +153,11 @@ public class BrowserCallContextImpl extends CallContextImpl {
         objectId = object.getId();
         typeId = getStringPropertyValue(object, PropertyIds.OBJECT_TYPE_ID);
         baseTypeId = BaseTypeId.fromValue(getStringPropertyValue(object, PropertyIds.BASE_TYPE_ID));
+
+        if (sharedCache != null && typeId != null) {
+            sharedCache.putObjectTypes(getRepositoryId(), getUsername(), objectId, new ObjectTypes(typeId,
+                    baseTypeId, getStringPropertyValues(object, PropertyIds.SECONDARY_OBJECT_TYPE_IDS)));
+        }
     }
 
     /**
@@ -192,4 +214,27 @@ public class BrowserCallContextImpl extends CallContextImpl {
 
         return (String) value;
     }
+
+    /**
+     * Extracts a multi-value property from an object.
+     */
+    protected List<String> getStringPropertyValues(ObjectData object, String name) {
+        if (object == null || object.getProperties() == null || object.getProperties().getProperties() == null) {
+            return null;
+        }
+
+        PropertyData<?> property = object.getProperties().getProperties().get(name);
+        if (property == null || property.getValues() == null) {
+            return null;
+        }
+
+        List<String> result = new ArrayList<String>();
+        for (Object value : property.getValues()) {
+            if (value instanceof String) {
+                result.add((String) value);
+            }
+        }
+
+        return result;
+    }
 }
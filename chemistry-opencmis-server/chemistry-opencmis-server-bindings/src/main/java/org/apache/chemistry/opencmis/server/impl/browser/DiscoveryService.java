@@ -38,6 +38,7 @@ import org.apache.chemistry.opencmis.commons.impl.JSONConstants;
 import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
 import org.apache.chemistry.opencmis.commons.impl.TypeCache;
 import org.apache.chemistry.opencmis.commons.impl.json.JSONObject;
+import org.apache.chemistry.opencmis.commons.impl.json.JSONStreamAware;
 import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
 import org.apache.chemistry.opencmis.commons.spi.Holder;
@@ -91,9 +92,9 @@ public class DiscoveryService {
                 throw new CmisRuntimeException("Results are null!");
             }
 
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
-            JSONObject jsonResults = JSONConverter.convert(results, typeCache, JSONConverter.PropertyMode.QUERY,
-                    succinct, dateTimeFormat);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
+            JSONStreamAware jsonResults = JSONConverter.convertStreaming(results, typeCache,
+                    JSONConverter.PropertyMode.QUERY, succinct, dateTimeFormat);
 
             response.setStatus(HttpServletResponse.SC_OK);
             writeJSON(jsonResults, request, response);
@@ -135,7 +136,7 @@ public class DiscoveryService {
                 return;
             }
 
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
             JSONObject jsonChanges = JSONConverter.convert(changes, typeCache, JSONConverter.PropertyMode.CHANGE,
                     succinct, dateTimeFormat);
             jsonChanges.put(JSONConstants.JSON_OBJECTLIST_CHANGE_LOG_TOKEN, changeLogTokenHolder.getValue());
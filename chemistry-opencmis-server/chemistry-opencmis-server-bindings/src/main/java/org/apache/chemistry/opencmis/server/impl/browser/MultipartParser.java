@@ -22,8 +22,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -32,6 +35,7 @@ import javax.servlet.http.HttpServletRequest;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisBaseException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+import org.apache.chemistry.opencmis.commons.impl.BufferPool;
 import org.apache.chemistry.opencmis.commons.impl.Constants;
 import org.apache.chemistry.opencmis.commons.impl.IOUtils;
 import org.apache.chemistry.opencmis.commons.impl.MimeHelper;
@@ -41,6 +45,10 @@ import org.apache.chemistry.opencmis.server.shared.TempStoreOutputStreamFactory;
 /**
  * Simple multi-part parser, following all necessary standards for the CMIS
  * browser binding.
+ * <p>
+ * The parser reads the request through one buffer that is taken from the
+ * {@link BufferPool} when {@link #parse()} starts and returned when it is
+ * done.
  */
 public class MultipartParser {
 
@@ -65,7 +73,7 @@ public class MultipartParser {
     private int[] goodSuffixes;
 
     private byte[] buffer;
-    private byte[] buffer2;
+    private int chunkSize;
     private int bufferPosition;
     private int bufferCount;
     private boolean eof;
@@ -81,7 +89,8 @@ public class MultipartParser {
     private InputStream contentStream;
 
     private Map<String, String[]> fields;
-    private Map<String, byte[][]> rawFields;
+    private Map<String, List<String>> decodedFields;
+    private Map<String, List<ByteSlice>> rawFields;
     private String charset = IOUtils.ISO_8859_1;
 
     public MultipartParser(HttpServletRequest request, TempStoreOutputStreamFactory streamFactory) throws IOException {
@@ -91,8 +100,6 @@ public class MultipartParser {
 
         extractBoundary();
 
-        buffer = new byte[BUFFER_SIZE + boundary.length];
-        buffer2 = new byte[buffer.length];
         bufferPosition = 0;
         bufferCount = 0;
         eof = false;
@@ -100,37 +107,46 @@ public class MultipartParser {
         hasContent = false;
         fieldBytes = 0;
 
-        fields = new HashMap<String, String[]>();
-        rawFields = new HashMap<String, byte[][]>();
-
-        skipPreamble();
+        decodedFields = new LinkedHashMap<String, List<String>>();
+        rawFields = new LinkedHashMap<String, List<ByteSlice>>();
     }
 
     private void addField(String name, String value) {
-        String[] values = fields.get(name);
+        List<String> values = decodedFields.get(name);
 
         if (values == null) {
-            fields.put(name, new String[] { value });
-        } else {
-            String[] newValues = new String[values.length + 1];
-            System.arraycopy(values, 0, newValues, 0, values.length);
-            newValues[newValues.length - 1] = value;
-            fields.put(name, newValues);
+            values = new ArrayList<String>(1);
+            decodedFields.put(name, values);
         }
+
+        values.add(value);
     }
 
-    private void addRawField(String name, byte[] value) {
-        byte[][] values = rawFields.get(name);
+    private void addRawField(String name, ByteSlice value) {
+        List<ByteSlice> values = rawFields.get(name);
 
         if (values == null) {
-            byte[][] newValue = new byte[][] { value };
-            rawFields.put(name, newValue);
-        } else {
-            byte[][] newValues = new byte[values.length + 1][];
-            System.arraycopy(values, 0, newValues, 0, values.length);
-            newValues[newValues.length - 1] = value;
-            rawFields.put(name, newValues);
+            values = new ArrayList<ByteSlice>(1);
+            rawFields.put(name, values);
         }
+
+        values.add(value);
+    }
+
+    private void acquireBuffer() {
+        // the last bytes of the buffer are reserved for a boundary that
+        // spans two chunks
+        buffer = BufferPool.acquire(BUFFER_SIZE);
+        chunkSize = buffer.length - boundary.length;
+    }
+
+    private void releaseBuffer() {
+        if (buffer == null) {
+            return;
+        }
+
+        BufferPool.release(buffer);
+        buffer = null;
     }
 
     private void extractBoundary() {
@@ -216,12 +232,12 @@ public class MultipartParser {
 
     private void readBuffer() throws IOException {
         if (bufferPosition < bufferCount) {
-            System.arraycopy(buffer, bufferPosition, buffer2, 0, bufferCount - bufferPosition);
+            // move the remaining bytes to the front of the buffer
+            // (System.arraycopy handles the overlap)
+            if (bufferPosition > 0) {
+                System.arraycopy(buffer, bufferPosition, buffer, 0, bufferCount - bufferPosition);
+            }
             bufferCount = bufferCount - bufferPosition;
-
-            byte[] tmpBuffer = buffer2;
-            buffer2 = buffer;
-            buffer = tmpBuffer;
         } else {
             bufferCount = 0;
         }
@@ -323,7 +339,12 @@ public class MultipartParser {
         }
     }
 
-    private byte[] readBodyBytes() throws IOException {
+    /**
+     * Reads the body of a field. If the body is completely in the buffer, the
+     * returned slice points into the buffer and is only valid until the buffer
+     * is read again.
+     */
+    private ByteSlice readBodyBytes() throws IOException {
         readBuffer();
 
         int boundaryPosition = findBoundary();
@@ -333,18 +354,17 @@ public class MultipartParser {
             int len = boundaryPosition - bufferPosition;
             addFieldBytes(len);
 
-            byte[] body = new byte[len];
-            System.arraycopy(buffer, bufferPosition, body, 0, len);
+            ByteSlice body = new ByteSlice(buffer, bufferPosition, len);
             bufferPosition = boundaryPosition + boundary.length;
             return body;
         }
 
         // the body bytes are not completely in the buffer
         // read all available bytes
-        int len = Math.min(BUFFER_SIZE, bufferCount) - bufferPosition;
+        int len = Math.min(chunkSize, bufferCount) - bufferPosition;
         addFieldBytes(len);
 
-        byte[] bodyBytes = new byte[len + BUFFER_SIZE];
+        byte[] bodyBytes = new byte[len + chunkSize];
         int bodyBytesPos = len;
 
         System.arraycopy(buffer, bufferPosition, bodyBytes, 0, len);
@@ -373,7 +393,7 @@ public class MultipartParser {
                 break;
             } else {
                 // not the last chunk
-                len = Math.min(BUFFER_SIZE, bufferCount) - bufferPosition;
+                len = Math.min(chunkSize, bufferCount) - bufferPosition;
                 addFieldBytes(len);
 
                 if (bodyBytesPos + len >= bodyBytes.length) {
@@ -382,7 +402,7 @@ public class MultipartParser {
                         newSize = MAX_FIELD_BYTES;
                     }
                     if (newSize < bodyBytesPos + len) {
-                        newSize = bodyBytesPos + BUFFER_SIZE;
+                        newSize = bodyBytesPos + chunkSize;
                     }
 
                     byte[] newBodyBytes = new byte[newSize];
@@ -396,14 +416,8 @@ public class MultipartParser {
             }
         }
 
-        if (bodyBytes.length == bodyBytesPos) {
-            return bodyBytes;
-        }
-
-        byte[] returnBytes = new byte[bodyBytesPos];
-        System.arraycopy(bodyBytes, 0, returnBytes, 0, returnBytes.length);
-
-        return returnBytes;
+        // no need to trim the array, the slice knows the length
+        return new ByteSlice(bodyBytes, 0, bodyBytesPos);
     }
 
     private void addFieldBytes(int len) {
@@ -429,7 +443,7 @@ public class MultipartParser {
                     bufferPosition = boundaryPosition + boundary.length;
                     break;
                 } else {
-                    int len = Math.min(BUFFER_SIZE, bufferCount) - bufferPosition;
+                    int len = Math.min(chunkSize, bufferCount) - bufferPosition;
                     stream.write(buffer, bufferPosition, len);
                     bufferPosition = bufferPosition + len;
                 }
@@ -490,10 +504,12 @@ public class MultipartParser {
             readBodyAsStream(contentType, filename);
         } else {
             String name = params.get(MimeHelper.DISPOSITION_NAME);
-            byte[] rawValue = readBodyBytes();
+            ByteSlice rawValue = readBodyBytes();
 
+            // values with a known charset are decoded right away,
+            // all others are kept until the request charset is known
             if (CHARSET_FIELD.equalsIgnoreCase(name)) {
-                charset = new String(rawValue, IOUtils.ISO_8859_1);
+                charset = rawValue.toString(IOUtils.ISO_8859_1);
                 return;
             }
 
@@ -501,12 +517,12 @@ public class MultipartParser {
             if (fieldContentType != null) {
                 String fieldCharset = MimeHelper.getCharsetFromContentType(fieldContentType);
                 if (fieldCharset != null) {
-                    addField(name, new String(rawValue, fieldCharset));
+                    addField(name, rawValue.toString(fieldCharset));
                     return;
                 }
             }
 
-            addRawField(name, rawValue);
+            addRawField(name, rawValue.detach(buffer));
         }
     }
 
@@ -538,7 +554,7 @@ public class MultipartParser {
                 break;
             }
 
-            bufferPosition = BUFFER_SIZE + 1;
+            bufferPosition = chunkSize + 1;
             readBuffer();
         }
     }
@@ -547,7 +563,7 @@ public class MultipartParser {
         try {
             // read to the end of stream, but max 1 MB
             int count = 0;
-            byte[] tmpBuf = new byte[4096];
+            byte[] tmpBuf = (buffer != null ? buffer : new byte[4096]);
             int b;
             while ((b = requestStream.read(tmpBuf)) > -1) {
                 count += b;
@@ -583,26 +599,35 @@ public class MultipartParser {
     }
 
     public void parse() throws IOException {
+        acquireBuffer();
+
         try {
+            skipPreamble();
 
             while (readNext()) {
                 // nothing to do here, just read
             }
 
+            fields = new HashMap<String, String[]>((decodedFields.size() + rawFields.size()) * 2);
+
+            for (Map.Entry<String, List<String>> e : decodedFields.entrySet()) {
+                fields.put(e.getKey(), e.getValue().toArray(new String[e.getValue().size()]));
+            }
+
             // apply charset
-            for (Map.Entry<String, byte[][]> e : rawFields.entrySet()) {
+            for (Map.Entry<String, List<ByteSlice>> e : rawFields.entrySet()) {
 
                 String[] otherValues = fields.get(e.getKey());
                 int index = (otherValues != null ? otherValues.length : 0);
 
-                String[] values = new String[e.getValue().length + index];
+                String[] values = new String[e.getValue().size() + index];
 
                 if (otherValues != null) {
                     System.arraycopy(otherValues, 0, values, 0, otherValues.length);
                 }
 
-                for (byte[] rawValue : e.getValue()) {
-                    values[index++] = new String(rawValue, charset);
+                for (ByteSlice rawValue : e.getValue()) {
+                    values[index++] = rawValue.toString(charset);
                 }
 
                 fields.put(e.getKey(), values);
@@ -626,7 +651,9 @@ public class MultipartParser {
                 throw new CmisRuntimeException(e.getMessage(), e);
             }
         } finally {
+            decodedFields = null;
             rawFields = null;
+            releaseBuffer();
         }
     }
 
@@ -666,4 +693,34 @@ public class MultipartParser {
 
         return false;
     }
+
+    /**
+     * A part of a byte array.
+     */
+    private static final class ByteSlice {
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        public ByteSlice(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * Returns a slice that doesn't point into the given buffer.
+         */
+        public ByteSlice detach(byte[] buffer) {
+            if (bytes != buffer) {
+                return this;
+            }
+
+            return new ByteSlice(Arrays.copyOfRange(bytes, offset, offset + length), 0, length);
+        }
+
+        public String toString(String charsetName) throws UnsupportedEncodingException {
+            return new String(bytes, offset, length, charsetName);
+        }
+    }
 }
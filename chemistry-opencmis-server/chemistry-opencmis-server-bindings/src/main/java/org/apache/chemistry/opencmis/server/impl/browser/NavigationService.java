@@ -48,6 +48,7 @@ import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
 import org.apache.chemistry.opencmis.commons.impl.TypeCache;
 import org.apache.chemistry.opencmis.commons.impl.json.JSONArray;
 import org.apache.chemistry.opencmis.commons.impl.json.JSONObject;
+import org.apache.chemistry.opencmis.commons.impl.json.JSONStreamAware;
 import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
 
@@ -100,8 +101,9 @@ public class NavigationService {
                 throw new CmisRuntimeException("Children are null!");
             }
 
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
-            JSONObject jsonChildren = JSONConverter.convert(children, typeCache, succinct, dateTimeFormat);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
+            JSONStreamAware jsonChildren = JSONConverter.convertStreaming(children, typeCache, succinct,
+                    dateTimeFormat);
 
             response.setStatus(HttpServletResponse.SC_OK);
             writeJSON(jsonChildren, request, response);
@@ -149,7 +151,7 @@ public class NavigationService {
                 throw new CmisRuntimeException("Descendants are null!");
             }
 
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
             JSONArray jsonDescendants = new JSONArray();
             for (ObjectInFolderContainer descendant : descendants) {
                 jsonDescendants.add(JSONConverter.convert(descendant, typeCache, succinct, dateTimeFormat));
@@ -201,7 +203,7 @@ public class NavigationService {
                 throw new CmisRuntimeException("Folder Tree are null!");
             }
 
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
             JSONArray jsonDescendants = new JSONArray();
             for (ObjectInFolderContainer descendant : folderTree) {
                 jsonDescendants.add(JSONConverter.convert(descendant, typeCache, succinct, dateTimeFormat));
@@ -246,7 +248,7 @@ public class NavigationService {
                 throw new CmisRuntimeException("Parent is null!");
             }
 
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
             JSONObject jsonObject = JSONConverter.convert(parent, typeCache, JSONConverter.PropertyMode.OBJECT,
                     succinct, dateTimeFormat);
 
@@ -295,7 +297,7 @@ public class NavigationService {
                 throw new CmisRuntimeException("Parents are null!");
             }
 
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
             JSONArray jsonParents = new JSONArray();
             for (ObjectParentData parent : parents) {
                 jsonParents.add(JSONConverter.convert(parent, typeCache, succinct, dateTimeFormat));
@@ -348,9 +350,9 @@ public class NavigationService {
                 throw new CmisRuntimeException("Checked out list is null!");
             }
 
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
-            JSONObject jsonCheckedOut = JSONConverter.convert(checkedout, typeCache, JSONConverter.PropertyMode.OBJECT,
-                    succinct, dateTimeFormat);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
+            JSONStreamAware jsonCheckedOut = JSONConverter.convertStreaming(checkedout, typeCache,
+                    JSONConverter.PropertyMode.OBJECT, succinct, dateTimeFormat);
 
             response.setStatus(HttpServletResponse.SC_OK);
             writeJSON(jsonCheckedOut, request, response);
@@ -36,8 +36,6 @@ import static org.apache.chemistry.opencmis.commons.impl.Constants.PARAM_TARGET_
 import static org.apache.chemistry.opencmis.commons.impl.Constants.PARAM_TOKEN;
 import static org.apache.chemistry.opencmis.commons.impl.Constants.PARAM_VERSIONIG_STATE;
 
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -63,7 +61,6 @@ import org.apache.chemistry.opencmis.commons.enums.VersioningState;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.impl.Constants;
-import org.apache.chemistry.opencmis.commons.impl.IOUtils;
 import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
 import org.apache.chemistry.opencmis.commons.impl.MimeHelper;
 import org.apache.chemistry.opencmis.commons.impl.ReturnVersion;
@@ -74,6 +71,7 @@ import org.apache.chemistry.opencmis.commons.impl.json.JSONObject;
 import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
 import org.apache.chemistry.opencmis.commons.spi.Holder;
+import org.apache.chemistry.opencmis.server.shared.ContentBody;
 
 /**
  * Object Service operations.
@@ -104,7 +102,7 @@ public class ObjectService {
 
             // execute
             ControlParser cp = new ControlParser(request);
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
 
             ContentStream contentStream = createContentStream(request);
 
@@ -159,7 +157,7 @@ public class ObjectService {
 
             // execute
             ControlParser cp = new ControlParser(request);
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
 
             ObjectData sourceDoc = getSimpleObject(service, repositoryId, sourceId);
             PropertyData<?> sourceTypeId = sourceDoc.getProperties().getProperties().get(PropertyIds.OBJECT_TYPE_ID);
@@ -220,7 +218,7 @@ public class ObjectService {
 
             // execute
             ControlParser cp = new ControlParser(request);
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
 
             if (stopBeforeService(service)) {
                 return;
@@ -271,7 +269,7 @@ public class ObjectService {
 
             // execute
             ControlParser cp = new ControlParser(request);
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
 
             if (stopBeforeService(service)) {
                 return;
@@ -322,7 +320,7 @@ public class ObjectService {
 
             // execute
             ControlParser cp = new ControlParser(request);
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
 
             if (stopBeforeService(service)) {
                 return;
@@ -372,7 +370,7 @@ public class ObjectService {
 
             // execute
             ControlParser cp = new ControlParser(request);
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
 
             if (stopBeforeService(service)) {
                 return;
@@ -425,7 +423,7 @@ public class ObjectService {
 
             // execute
             ControlParser cp = new ControlParser(request);
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
             Holder<String> objectIdHolder = new Holder<String>(objectId);
             Holder<String> changeTokenHolder = (changeToken == null ? null : new Holder<String>(changeToken));
 
@@ -503,7 +501,7 @@ public class ObjectService {
             List<String> removeSecondaryTypes = cp.getValues(Constants.CONTROL_REMOVE_SECONDARY_TYPE);
 
             // compile properties
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
 
             Properties properties = createUpdateProperties(cp, null, addSecondaryTypes, objectIds, typeCache);
 
@@ -577,7 +575,7 @@ public class ObjectService {
             }
 
             // return object
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
             JSONObject jsonObject = JSONConverter.convert(properties, objectId, typeCache,
                     JSONConverter.PropertyMode.OBJECT, succinct, dateTimeFormat);
 
@@ -637,7 +635,7 @@ public class ObjectService {
             }
 
             // return object
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
             JSONObject jsonObject = JSONConverter.convert(object, typeCache, JSONConverter.PropertyMode.OBJECT,
                     succinct, dateTimeFormat);
 
@@ -767,57 +765,51 @@ public class ObjectService {
                 return;
             }
 
-            if (content == null || content.getStream() == null) {
-                throw new CmisRuntimeException("Content stream is null!");
-            }
-
-            // set HTTP headers, if requested by the server implementation
-            if (sendContentStreamHeaders(content, request, response)) {
-                return;
-            }
+            ContentBody body = openContent(content);
+            try {
+                // set HTTP headers, if requested by the server implementation
+                if (sendContentStreamHeaders(content, request, response)) {
+                    return;
+                }
 
-            String contentType = content.getMimeType();
-            if (contentType == null) {
-                contentType = MEDIATYPE_OCTETSTREAM;
-            }
+                String contentType = content.getMimeType();
+                if (contentType == null) {
+                    contentType = MEDIATYPE_OCTETSTREAM;
+                }
 
-            // set headers
-            if ((offset == null || offset.signum() == 0) && length == null) {
-                response.setStatus(HttpServletResponse.SC_OK);
-            } else {
-                setStatus(request, response, HttpServletResponse.SC_PARTIAL_CONTENT);
+                // set headers
+                if ((offset == null || offset.signum() == 0) && length == null) {
+                    response.setStatus(HttpServletResponse.SC_OK);
+                } else {
+                    setStatus(request, response, HttpServletResponse.SC_PARTIAL_CONTENT);
 
-                if (content.getBigLength() != null && content.getBigLength().signum() == 1) {
-                    BigInteger firstBytePos = (offset == null ? BigInteger.ZERO : offset);
-                    BigInteger lastBytePos = firstBytePos.add(content.getBigLength().subtract(BigInteger.ONE));
+                    if (content.getBigLength() != null && content.getBigLength().signum() == 1) {
+                        BigInteger firstBytePos = (offset == null ? BigInteger.ZERO : offset);
+                        BigInteger lastBytePos = firstBytePos.add(content.getBigLength().subtract(BigInteger.ONE));
 
-                    response.setHeader("Content-Range",
-                            "bytes " + firstBytePos.toString() + "-" + lastBytePos.toString() + "/*");
+                        response.setHeader("Content-Range",
+                                "bytes " + firstBytePos.toString() + "-" + lastBytePos.toString() + "/*");
+                    }
                 }
-            }
-            response.setContentType(contentType);
+                response.setContentType(contentType);
 
-            String contentFilename = content.getFileName();
-            if (contentFilename == null) {
-                contentFilename = "content";
-            }
+                String contentFilename = content.getFileName();
+                if (contentFilename == null) {
+                    contentFilename = "content";
+                }
 
-            if (download) {
-                response.setHeader(MimeHelper.CONTENT_DISPOSITION,
-                        MimeHelper.encodeContentDisposition(MimeHelper.DISPOSITION_ATTACHMENT, contentFilename));
-            } else {
-                response.setHeader(MimeHelper.CONTENT_DISPOSITION,
-                        MimeHelper.encodeContentDisposition(MimeHelper.DISPOSITION_INLINE, contentFilename));
-            }
+                if (download) {
+                    response.setHeader(MimeHelper.CONTENT_DISPOSITION,
+                            MimeHelper.encodeContentDisposition(MimeHelper.DISPOSITION_ATTACHMENT, contentFilename));
+                } else {
+                    response.setHeader(MimeHelper.CONTENT_DISPOSITION,
+                            MimeHelper.encodeContentDisposition(MimeHelper.DISPOSITION_INLINE, contentFilename));
+                }
 
-            // send content
-            InputStream in = content.getStream();
-            OutputStream out = response.getOutputStream();
-            try {
-                IOUtils.copy(in, out, BUFFER_SIZE);
-                out.flush();
+                // send content
+                body.write(request, response, BUFFER_SIZE);
             } finally {
-                IOUtils.closeQuietly(in);
+                body.close();
             }
         }
     }
@@ -941,7 +933,7 @@ public class ObjectService {
             response.setStatus(HttpServletResponse.SC_OK);
 
             // return object
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
             JSONObject jsonObject = JSONConverter.convert(object, typeCache, JSONConverter.PropertyMode.OBJECT,
                     succinct, dateTimeFormat);
 
@@ -997,7 +989,7 @@ public class ObjectService {
             response.setHeader("Location", compileObjectLocationUrl(request, repositoryId, newObjectId));
 
             // return object
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
             JSONObject jsonObject = JSONConverter.convert(object, typeCache, JSONConverter.PropertyMode.OBJECT,
                     succinct, dateTimeFormat);
 
@@ -1053,7 +1045,7 @@ public class ObjectService {
             response.setHeader("Location", compileObjectLocationUrl(request, repositoryId, newObjectId));
 
             // return object
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
             JSONObject jsonObject = JSONConverter.convert(object, typeCache, JSONConverter.PropertyMode.OBJECT,
                     succinct, dateTimeFormat);
 
@@ -1106,7 +1098,7 @@ public class ObjectService {
             response.setHeader("Location", compileObjectLocationUrl(request, repositoryId, newObjectId));
 
             // return object
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
             JSONObject jsonObject = JSONConverter.convert(object, typeCache, JSONConverter.PropertyMode.OBJECT,
                     succinct, dateTimeFormat);
 
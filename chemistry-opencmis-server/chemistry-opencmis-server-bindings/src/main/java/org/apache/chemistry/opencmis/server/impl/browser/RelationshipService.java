@@ -38,7 +38,7 @@ import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.impl.Constants;
 import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
 import org.apache.chemistry.opencmis.commons.impl.TypeCache;
-import org.apache.chemistry.opencmis.commons.impl.json.JSONObject;
+import org.apache.chemistry.opencmis.commons.impl.json.JSONStreamAware;
 import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
 
@@ -87,8 +87,8 @@ public class RelationshipService {
                 throw new CmisRuntimeException("Relationships are null!");
             }
 
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
-            JSONObject jsonChildren = JSONConverter.convert(relationships, typeCache,
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
+            JSONStreamAware jsonChildren = JSONConverter.convertStreaming(relationships, typeCache,
                     JSONConverter.PropertyMode.OBJECT, succinct, dateTimeFormat);
 
             response.setStatus(HttpServletResponse.SC_OK);
@@ -50,6 +50,7 @@ import org.apache.chemistry.opencmis.commons.impl.json.JSONValue;
 import org.apache.chemistry.opencmis.commons.impl.json.parser.JSONParser;
 import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
+import org.apache.chemistry.opencmis.server.shared.SharedTypeCache;
 
 /**
  * Repository Service operations.
@@ -327,6 +328,7 @@ public class RepositoryService {
             }
 
             TypeDefinition typeOut = service.createType(repositoryId, typeIn, null);
+            SharedTypeCache.invalidate(context, repositoryId);
 
             if (stopAfterService(service)) {
                 return;
@@ -379,6 +381,7 @@ public class RepositoryService {
             }
 
             TypeDefinition typeOut = service.updateType(repositoryId, typeIn, null);
+            SharedTypeCache.invalidate(context, repositoryId);
 
             if (stopAfterService(service)) {
                 return;
@@ -413,6 +416,7 @@ public class RepositoryService {
             }
 
             service.deleteType(repositoryId, typeId, null);
+            SharedTypeCache.invalidate(context, repositoryId);
 
             if (stopAfterService(service)) {
                 return;
@@ -18,8 +18,12 @@
  */
 package org.apache.chemistry.opencmis.server.impl.browser;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.chemistry.opencmis.commons.PropertyIds;
 import org.apache.chemistry.opencmis.commons.data.ObjectData;
@@ -29,33 +33,55 @@ import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
 import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
 import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
 import org.apache.chemistry.opencmis.commons.impl.TypeCache;
+import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
+import org.apache.chemistry.opencmis.server.shared.SharedTypeCache;
+import org.apache.chemistry.opencmis.server.shared.SharedTypeCache.ObjectTypes;
 
 /**
  * Temporary type cache used for one call.
+ * <p>
+ * If a call context is provided, type definitions and object types are also
+ * looked up in and added to the {@link SharedTypeCache} of its servlet
+ * context.
  */
 public class ServerTypeCacheImpl implements TypeCache {
 
     private final String repositoryId;
     private final CmisService service;
+    private final SharedTypeCache sharedCache;
+    private final String user;
     private final Map<String, TypeDefinition> typeDefinitions;
     private final Map<String, TypeDefinition> objectToTypeDefinitions;
+    private final Set<String> sharedObjectIds;
 
     public ServerTypeCacheImpl(String repositoryId, CmisService service) {
+        this(repositoryId, service, null);
+    }
+
+    public ServerTypeCacheImpl(String repositoryId, CmisService service, CallContext context) {
         this.repositoryId = repositoryId;
         this.service = service;
+        sharedCache = SharedTypeCache.get(context);
+        user = context == null ? null : context.getUsername();
         typeDefinitions = new HashMap<String, TypeDefinition>();
         objectToTypeDefinitions = new HashMap<String, TypeDefinition>();
+        sharedObjectIds = new LinkedHashSet<String>();
     }
 
     @Override
     public TypeDefinition getTypeDefinition(String typeId) {
         TypeDefinition type = typeDefinitions.get(typeId);
         if (type == null) {
-            type = service.getTypeDefinition(repositoryId, typeId, null);
-            if (type != null) {
-                typeDefinitions.put(type.getId(), type);
+            if (sharedCache != null) {
+                type = sharedCache.getTypeDefinition(repositoryId, user, typeId);
+                if (type != null) {
+                    typeDefinitions.put(type.getId(), type);
+                    return type;
+                }
             }
+
+            type = reloadTypeDefinition(typeId);
         }
 
         return type;
@@ -66,6 +92,9 @@ public class ServerTypeCacheImpl implements TypeCache {
         TypeDefinition type = service.getTypeDefinition(repositoryId, typeId, null);
         if (type != null) {
             typeDefinitions.put(type.getId(), type);
+            if (sharedCache != null) {
+                sharedCache.putTypeDefinition(repositoryId, user, type);
+            }
         }
 
         return type;
@@ -73,33 +102,79 @@ public class ServerTypeCacheImpl implements TypeCache {
 
     @Override
     public TypeDefinition getTypeDefinitionForObject(String objectId) {
-        TypeDefinition type = objectToTypeDefinitions.get(objectId);
-        if (type == null) {
-            ObjectData obj = service.getObject(repositoryId, objectId,
-                    "cmis:objectId,cmis:objectTypeId,cmis:baseTypeId,cmis:secondaryObjectTypeIds", false,
-                    IncludeRelationships.NONE, "cmis:none", false, false, null);
-
-            if (obj != null && obj.getProperties() != null) {
-                PropertyData<?> typeProp = obj.getProperties().getProperties().get(PropertyIds.OBJECT_TYPE_ID);
-                if (typeProp instanceof PropertyId) {
-                    String typeId = ((PropertyId) typeProp).getFirstValue();
-                    if (typeId != null) {
-                        type = getTypeDefinition(typeId);
-                    }
-                }
+        if (objectToTypeDefinitions.containsKey(objectId)) {
+            return objectToTypeDefinitions.get(objectId);
+        }
+
+        ObjectTypes objectTypes = null;
+        if (sharedCache != null) {
+            objectTypes = sharedCache.getObjectTypes(repositoryId, user, objectId);
+        }
+
+        if (objectTypes != null) {
+            sharedObjectIds.add(objectId);
+        } else {
+            objectTypes = loadObjectTypes(objectId);
+        }
+
+        TypeDefinition type = loadTypes(objectTypes);
+        objectToTypeDefinitions.put(objectId, type);
+
+        return type;
+    }
+
+    /**
+     * Gets the type ids of an object from the repository.
+     */
+    private ObjectTypes loadObjectTypes(String objectId) {
+        ObjectData obj = service.getObject(repositoryId, objectId,
+                "cmis:objectId,cmis:objectTypeId,cmis:baseTypeId,cmis:secondaryObjectTypeIds", false,
+                IncludeRelationships.NONE, "cmis:none", false, false, null);
+
+        if (obj == null || obj.getProperties() == null) {
+            return null;
+        }
+
+        String typeId = null;
+        PropertyData<?> typeProp = obj.getProperties().getProperties().get(PropertyIds.OBJECT_TYPE_ID);
+        if (typeProp instanceof PropertyId) {
+            typeId = ((PropertyId) typeProp).getFirstValue();
+        }
 
-                PropertyData<?> secTypeProp = obj.getProperties().getProperties()
-                        .get(PropertyIds.SECONDARY_OBJECT_TYPE_IDS);
-                if ((secTypeProp instanceof PropertyId) && (secTypeProp.getValues() != null)) {
-                    for (String secTypeId : ((PropertyId) secTypeProp).getValues()) {
-                        if (secTypeId != null) {
-                            getTypeDefinition(secTypeId);
-                        }
-                    }
+        List<String> secondaryTypeIds = new ArrayList<String>();
+        PropertyData<?> secTypeProp = obj.getProperties().getProperties().get(PropertyIds.SECONDARY_OBJECT_TYPE_IDS);
+        if ((secTypeProp instanceof PropertyId) && (secTypeProp.getValues() != null)) {
+            for (String secTypeId : ((PropertyId) secTypeProp).getValues()) {
+                if (secTypeId != null) {
+                    secondaryTypeIds.add(secTypeId);
                 }
             }
+        }
+
+        ObjectTypes objectTypes = new ObjectTypes(typeId, obj.getBaseTypeId(), secondaryTypeIds);
+        if (sharedCache != null && typeId != null) {
+            sharedCache.putObjectTypes(repositoryId, user, objectId, objectTypes);
+        }
+
+        return objectTypes;
+    }
+
+    /**
+     * Loads the primary and secondary types of an object and returns the
+     * primary type.
+     */
+    private TypeDefinition loadTypes(ObjectTypes objectTypes) {
+        if (objectTypes == null) {
+            return null;
+        }
+
+        TypeDefinition type = null;
+        if (objectTypes.getTypeId() != null) {
+            type = getTypeDefinition(objectTypes.getTypeId());
+        }
 
-            objectToTypeDefinitions.put(objectId, type);
+        for (String secTypeId : objectTypes.getSecondaryTypeIds()) {
+            getTypeDefinition(secTypeId);
         }
 
         return type;
@@ -107,6 +182,24 @@ public class ServerTypeCacheImpl implements TypeCache {
 
     @Override
     public PropertyDefinition<?> getPropertyDefinition(String propId) {
+        PropertyDefinition<?> propDef = findPropertyDefinition(propId);
+
+        if (propDef == null && !sharedObjectIds.isEmpty()) {
+            // the secondary types of objects taken from the shared cache
+            // might have changed in the meantime -> reload them
+            List<String> objectIds = new ArrayList<String>(sharedObjectIds);
+            sharedObjectIds.clear();
+            for (String objectId : objectIds) {
+                objectToTypeDefinitions.put(objectId, loadTypes(loadObjectTypes(objectId)));
+            }
+
+            propDef = findPropertyDefinition(propId);
+        }
+
+        return propDef;
+    }
+
+    private PropertyDefinition<?> findPropertyDefinition(String propId) {
         for (TypeDefinition typeDef : typeDefinitions.values()) {
             PropertyDefinition<?> propDef = typeDef.getPropertyDefinitions().get(propId);
             if (propDef != null) {
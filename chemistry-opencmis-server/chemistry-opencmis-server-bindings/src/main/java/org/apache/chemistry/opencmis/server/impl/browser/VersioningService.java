@@ -85,7 +85,7 @@ public class VersioningService {
             }
 
             // return object
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
             JSONObject jsonObject = JSONConverter.convert(object, typeCache, JSONConverter.PropertyMode.OBJECT,
                     succinct, dateTimeFormat);
 
@@ -156,7 +156,7 @@ public class VersioningService {
 
             // execute
             ControlParser cp = new ControlParser(request);
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
             Holder<String> objectIdHolder = new Holder<String>(objectId);
             ContentStream contentStream = createContentStream(request);
 
@@ -230,7 +230,7 @@ public class VersioningService {
                 throw new CmisRuntimeException("Versions are null!");
             }
 
-            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service);
+            TypeCache typeCache = new ServerTypeCacheImpl(repositoryId, service, context);
             JSONArray jsonVersions = new JSONArray();
             for (ObjectData version : versions) {
                 jsonVersions.add(JSONConverter.convert(version, typeCache, JSONConverter.PropertyMode.OBJECT, succinct,
@@ -77,6 +77,13 @@ public abstract class AbstractService {
 
     public static final String CALL_CONTEXT_MAP = "org.apache.chemistry.opencmis.callcontext";
 
+    /**
+     * Returns the servlet context.
+     */
+    protected ServletContext getServletContext(WebServiceContext wsContext) {
+        return (ServletContext) wsContext.getMessageContext().get(MessageContext.SERVLET_CONTEXT);
+    }
+
     /**
      * Returns the services factory.
      */
@@ -48,6 +48,7 @@ import org.apache.chemistry.opencmis.commons.impl.jaxb.CmisTypeDefinitionListTyp
 import org.apache.chemistry.opencmis.commons.impl.jaxb.CmisTypeDefinitionType;
 import org.apache.chemistry.opencmis.commons.impl.jaxb.RepositoryServicePort;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
+import org.apache.chemistry.opencmis.server.shared.SharedTypeCache;
 
 /**
  * CMIS Repository Service.
@@ -215,6 +216,7 @@ public class RepositoryService extends AbstractService implements RepositoryServ
             }
 
             TypeDefinition serviceResult = service.createType(repositoryId, convert(type.value), convert(extension));
+            SharedTypeCache.invalidate(getServletContext(wsContext), repositoryId);
 
             if (stopAfterService(service)) {
                 return;
@@ -240,6 +242,7 @@ public class RepositoryService extends AbstractService implements RepositoryServ
             }
 
             TypeDefinition serviceResult = service.updateType(repositoryId, convert(type.value), convert(extension));
+            SharedTypeCache.invalidate(getServletContext(wsContext), repositoryId);
 
             if (stopAfterService(service)) {
                 return;
@@ -268,6 +271,7 @@ public class RepositoryService extends AbstractService implements RepositoryServ
             }
 
             service.deleteType(repositoryId, typeId, extData);
+            SharedTypeCache.invalidate(getServletContext(wsContext), repositoryId);
 
             if (stopAfterService(service)) {
                 return;
@@ -34,6 +34,7 @@ import org.apache.chemistry.opencmis.commons.data.LastModifiedContentStream;
 import org.apache.chemistry.opencmis.commons.data.RedirectingContentStream;
 import org.apache.chemistry.opencmis.commons.enums.DateTimeFormat;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.impl.CmisEnumHelper;
 import org.apache.chemistry.opencmis.commons.impl.Constants;
 import org.apache.chemistry.opencmis.commons.impl.DateTimeHelper;
@@ -228,6 +229,21 @@ public abstract class AbstractServiceCall implements ServiceCall {
         return false;
     }
 
+    /**
+     * Opens the body of the content stream before any header is sent.
+     * 
+     * @throws CmisRuntimeException
+     *             if the content stream has no body
+     */
+    public ContentBody openContent(ContentStream content) throws IOException {
+        ContentBody body = ContentBody.open(content);
+        if (body == null) {
+            throw new CmisRuntimeException("Content stream is null!");
+        }
+
+        return body;
+    }
+
     /**
      * Determines if the processing should be stopped before the service method
      * is called.
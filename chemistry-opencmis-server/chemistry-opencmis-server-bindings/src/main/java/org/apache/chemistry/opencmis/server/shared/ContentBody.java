@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.shared;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.chemistry.opencmis.commons.data.ChannelContentStream;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.impl.BufferPool;
+import org.apache.chemistry.opencmis.commons.impl.IOUtils;
+
+/**
+ * The body of a content stream response.
+ * <p>
+ * The body is opened before the response headers are sent, so that missing
+ * content can still be reported as an error. A {@link ChannelContentStream}
+ * is written from its byte buffer or read from its file channel through a
+ * pooled buffer. All other content streams are copied.
+ * <p>
+ * Servlet output streams are not channels, so the servlet cannot send a file
+ * without copying it. If the content is a file and the container announces
+ * Tomcat's sendfile support, the file is handed to the container instead, see
+ * {@link #write(HttpServletRequest, HttpServletResponse, int)}.
+ */
+public final class ContentBody implements Closeable {
+
+    /** Request attribute set by Tomcat if the connector supports sendfile. */
+    public static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    /** Request attribute with the absolute path of the file to send. */
+    public static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    /** Request attribute with the position of the first byte to send. */
+    public static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    /** Request attribute with the position after the last byte to send. */
+    public static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ByteBuffer buffer;
+    private final FileChannel channel;
+    private final File file;
+    private final long position;
+    private final long length;
+    private final InputStream stream;
+
+    private ContentBody(ByteBuffer buffer, FileChannel channel, File file, long position, long length,
+            InputStream stream) {
+        this.buffer = buffer;
+        this.channel = channel;
+        this.file = file;
+        this.position = position;
+        this.length = length;
+        this.stream = stream;
+    }
+
+    /**
+     * Opens the body of the given content stream.
+     * 
+     * @return the body or {@code null} if the content stream provides neither
+     *         a byte buffer, nor a file channel, nor a stream
+     * @throws IOException
+     *             if the file channel range lies outside the file
+     */
+    public static ContentBody open(ContentStream content) throws IOException {
+        if (content == null) {
+            return null;
+        }
+
+        if (content instanceof ChannelContentStream) {
+            ChannelContentStream ccs = (ChannelContentStream) content;
+
+            ByteBuffer buffer = ccs.getByteBuffer();
+            if (buffer != null) {
+                return new ContentBody(buffer.duplicate(), null, null, 0, 0, null);
+            }
+
+            FileChannel channel = ccs.getFileChannel();
+            if (channel != null) {
+                try {
+                    long size = channel.size();
+                    long position = Math.max(0, ccs.getFileChannelPosition());
+                    long length = ccs.getFileChannelLength();
+                    if (length < 0) {
+                        length = Math.max(0, size - position);
+                    }
+
+                    if (position + length > size) {
+                        throw new IOException("Content range " + position + "+" + length
+                                + " exceeds the file size " + size + "!");
+                    }
+
+                    return new ContentBody(null, channel, ccs.getFile(), position, length, null);
+                } catch (IOException e) {
+                    IOUtils.closeQuietly(channel);
+                    throw e;
+                }
+            }
+        }
+
+        InputStream stream = content.getStream();
+        if (stream == null) {
+            return null;
+        }
+
+        return new ContentBody(null, null, null, 0, 0, stream);
+    }
+
+    /**
+     * Writes the body to the given response.
+     * <p>
+     * If the body is a file range and the request has the
+     * {@value #SENDFILE_SUPPORT} attribute, the content length and the
+     * sendfile attributes are set and the container sends the file after the
+     * servlet has returned. Otherwise the body is written to the output stream
+     * of the response.
+     * 
+     * @param bufferSize
+     *            the size of the copy buffer if the body has to be copied
+     * @throws IOException
+     *             if the body couldn't be written completely
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, int bufferSize)
+            throws IOException {
+        if (file != null && !(response instanceof NoBodyHttpServletResponseWrapper)
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            response.setContentLengthLong(length);
+            request.setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+            request.setAttribute(SENDFILE_START, Long.valueOf(position));
+            request.setAttribute(SENDFILE_END, Long.valueOf(position + length));
+            return;
+        }
+
+        write(response.getOutputStream(), bufferSize);
+    }
+
+    /**
+     * Writes the body to the given stream.
+     * 
+     * @param bufferSize
+     *            the size of the copy buffer if the body has to be copied
+     * @throws IOException
+     *             if the body couldn't be written completely
+     */
+    public void write(OutputStream out, int bufferSize) throws IOException {
+        if (buffer != null) {
+            if (buffer.hasArray()) {
+                out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            } else {
+                byte[] bytes = BufferPool.acquire(bufferSize);
+                try {
+                    while (buffer.hasRemaining()) {
+                        int n = Math.min(bytes.length, buffer.remaining());
+                        buffer.get(bytes, 0, n);
+                        out.write(bytes, 0, n);
+                    }
+                } finally {
+                    BufferPool.release(bytes);
+                }
+            }
+        } else if (channel != null) {
+            copy(out, bufferSize);
+        } else {
+            IOUtils.copy(stream, out, bufferSize);
+        }
+
+        out.flush();
+    }
+
+    private void copy(OutputStream out, int bufferSize) throws IOException {
+        byte[] bytes = BufferPool.acquire(bufferSize);
+        try {
+            ByteBuffer bb = ByteBuffer.wrap(bytes);
+            long pos = position;
+            long end = position + length;
+            while (pos < end) {
+                bb.clear();
+                if (end - pos < bytes.length) {
+                    bb.limit((int) (end - pos));
+                }
+                int n = channel.read(bb, pos);
+                if (n <= 0) {
+                    throw new IOException("File ended after " + (pos - position) + " of " + length + " bytes!");
+                }
+                out.write(bytes, 0, n);
+                pos += n;
+            }
+        } finally {
+            BufferPool.release(bytes);
+        }
+    }
+
+    /**
+     * Closes the file channel or the stream.
+     */
+    @Override
+    public void close() {
+        if (channel != null) {
+            IOUtils.closeQuietly(channel);
+        }
+        if (stream != null) {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+}
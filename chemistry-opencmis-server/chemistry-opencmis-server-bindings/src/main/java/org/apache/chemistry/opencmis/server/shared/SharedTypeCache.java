@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.shared;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.ServletContext;
+
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.server.CallContext;
+
+/**
+ * Short-lived type cache that is shared across requests.
+ * <p>
+ * It holds type definitions and the type ids of objects. There is one cache
+ * per servlet context and therefore per {@code CmisServiceFactory}. The
+ * entries are scoped by repository and user, expire after a configurable
+ * time, and are dropped when a type of the repository is created, updated or
+ * deleted through the bindings. Server implementations that change types by
+ * other means can call {@link #invalidate(ServletContext, String)}. Otherwise
+ * these changes become visible when the entries expire.
+ * <p>
+ * The time-to-live values can be set with the system properties
+ * {@link #TYPE_TTL_SYSTEM_PROPERTY} and {@link #OBJECT_TTL_SYSTEM_PROPERTY}
+ * (in milliseconds). A value of 0 switches the cache off. If more than
+ * {@link #MAX_ENTRIES_SYSTEM_PROPERTY} type definitions or objects are cached,
+ * the least recently used entries are evicted.
+ */
+public final class SharedTypeCache {
+
+    public static final long TYPE_TTL_DEFAULT = 60 * 1000;
+    public static final long OBJECT_TTL_DEFAULT = 10 * 1000;
+    public static final int MAX_ENTRIES_DEFAULT = 10000;
+
+    public static final String TYPE_TTL_SYSTEM_PROPERTY = "org.apache.chemistry.opencmis.server.typeCache.typeTtl";
+    public static final String OBJECT_TTL_SYSTEM_PROPERTY = "org.apache.chemistry.opencmis.server.typeCache.objectTtl";
+    public static final String MAX_ENTRIES_SYSTEM_PROPERTY = "org.apache.chemistry.opencmis.server.typeCache.maxEntries";
+
+    public static final long TYPE_TTL;
+    public static final long OBJECT_TTL;
+    public static final int MAX_ENTRIES;
+
+    static {
+        TYPE_TTL = getLongProperty(TYPE_TTL_SYSTEM_PROPERTY, TYPE_TTL_DEFAULT);
+        OBJECT_TTL = getLongProperty(OBJECT_TTL_SYSTEM_PROPERTY, OBJECT_TTL_DEFAULT);
+        MAX_ENTRIES = (int) getLongProperty(MAX_ENTRIES_SYSTEM_PROPERTY, MAX_ENTRIES_DEFAULT);
+    }
+
+    /** Servlet context attribute that holds the cache. */
+    public static final String SERVLET_CONTEXT_ATTRIBUTE = SharedTypeCache.class.getName();
+
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<String, AtomicLong>();
+    private final Map<String, Entry<TypeDefinition>> types;
+    private final Map<String, Entry<ObjectTypes>> objects;
+
+    /**
+     * Creates a cache that isn't bound to a servlet context.
+     */
+    public SharedTypeCache() {
+        this(MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a cache that isn't bound to a servlet context.
+     * 
+     * @param maxEntries
+     *            the maximum number of type definitions and the maximum number
+     *            of objects
+     */
+    public SharedTypeCache(int maxEntries) {
+        types = createLruMap(maxEntries);
+        objects = createLruMap(maxEntries);
+    }
+
+    private static long getLongProperty(String name, long defValue) {
+        try {
+            String value = System.getProperty(name);
+            if (value != null) {
+                return Long.parseLong(value.trim());
+            }
+        } catch (Exception e) {
+            // ignore
+        }
+
+        return defValue;
+    }
+
+    private static <T> Map<String, Entry<T>> createLruMap(final int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<String, Entry<T>>(64, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<T>> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Returns the cache of the given servlet context and creates it if it
+     * doesn't exist yet.
+     * 
+     * @return the cache or {@code null} if no servlet context is provided
+     */
+    public static SharedTypeCache get(ServletContext servletContext) {
+        if (servletContext == null) {
+            return null;
+        }
+
+        SharedTypeCache cache = (SharedTypeCache) servletContext.getAttribute(SERVLET_CONTEXT_ATTRIBUTE);
+        if (cache == null) {
+            synchronized (SharedTypeCache.class) {
+                cache = (SharedTypeCache) servletContext.getAttribute(SERVLET_CONTEXT_ATTRIBUTE);
+                if (cache == null) {
+                    cache = new SharedTypeCache();
+                    servletContext.setAttribute(SERVLET_CONTEXT_ATTRIBUTE, cache);
+                }
+            }
+        }
+
+        return cache;
+    }
+
+    /**
+     * Returns the cache of the servlet context of the given call.
+     * 
+     * @return the cache or {@code null} if the call has no servlet context
+     */
+    public static SharedTypeCache get(CallContext context) {
+        if (context == null) {
+            return null;
+        }
+
+        return get((ServletContext) context.get(CallContext.SERVLET_CONTEXT));
+    }
+
+    /**
+     * Invalidates all entries of a repository in the cache of the given
+     * servlet context. This must be called when a type has been created,
+     * updated or deleted.
+     */
+    public static void invalidate(ServletContext servletContext, String repositoryId) {
+        if (servletContext == null) {
+            return;
+        }
+
+        SharedTypeCache cache = (SharedTypeCache) servletContext.getAttribute(SERVLET_CONTEXT_ATTRIBUTE);
+        if (cache != null) {
+            cache.invalidate(repositoryId);
+        }
+    }
+
+    /**
+     * Invalidates all entries of a repository in the cache of the servlet
+     * context of the given call.
+     */
+    public static void invalidate(CallContext context, String repositoryId) {
+        if (context == null) {
+            return;
+        }
+
+        invalidate((ServletContext) context.get(CallContext.SERVLET_CONTEXT), repositoryId);
+    }
+
+    /**
+     * Returns a cached type definition or {@code null} if the type is not
+     * cached.
+     */
+    public TypeDefinition getTypeDefinition(String repositoryId, String user, String typeId) {
+        if (TYPE_TTL <= 0 || typeId == null) {
+            return null;
+        }
+
+        return get(types, repositoryId, createKey(repositoryId, user, typeId));
+    }
+
+    /**
+     * Adds a type definition.
+     */
+    public void putTypeDefinition(String repositoryId, String user, TypeDefinition type) {
+        if (TYPE_TTL <= 0 || type == null || type.getId() == null) {
+            return;
+        }
+
+        put(types, repositoryId, createKey(repositoryId, user, type.getId()), type, TYPE_TTL);
+    }
+
+    /**
+     * Returns the cached types of an object or {@code null} if the object is
+     * not cached.
+     */
+    public ObjectTypes getObjectTypes(String repositoryId, String user, String objectId) {
+        if (OBJECT_TTL <= 0 || objectId == null) {
+            return null;
+        }
+
+        return get(objects, repositoryId, createKey(repositoryId, user, objectId));
+    }
+
+    /**
+     * Adds the types of an object.
+     */
+    public void putObjectTypes(String repositoryId, String user, String objectId, ObjectTypes objectTypes) {
+        if (OBJECT_TTL <= 0 || objectId == null || objectTypes == null) {
+            return;
+        }
+
+        put(objects, repositoryId, createKey(repositoryId, user, objectId), objectTypes, OBJECT_TTL);
+    }
+
+    /**
+     * Invalidates all entries of a repository. This must be called when a
+     * type has been created, updated or deleted.
+     */
+    public void invalidate(String repositoryId) {
+        String key = repositoryId == null ? "" : repositoryId;
+
+        // only repositories with type changes get a version entry
+        AtomicLong version = versions.get(key);
+        if (version == null) {
+            AtomicLong newVersion = new AtomicLong();
+            version = versions.putIfAbsent(key, newVersion);
+            if (version == null) {
+                version = newVersion;
+            }
+        }
+
+        version.incrementAndGet();
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        types.clear();
+        objects.clear();
+    }
+
+    /**
+     * Returns the number of cached type definitions and objects.
+     */
+    public int size() {
+        return types.size() + objects.size();
+    }
+
+    private long getVersion(String repositoryId) {
+        AtomicLong version = versions.get(repositoryId == null ? "" : repositoryId);
+        return version == null ? 0 : version.get();
+    }
+
+    private static String createKey(String repositoryId, String user, String id) {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append(repositoryId).append('\u0000');
+        sb.append(user == null ? "" : user).append('\u0000');
+        sb.append(id);
+
+        return sb.toString();
+    }
+
+    private <T> T get(Map<String, Entry<T>> map, String repositoryId, String key) {
+        Entry<T> entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.version != getVersion(repositoryId) || entry.expires < System.currentTimeMillis()) {
+            map.remove(key, entry);
+            return null;
+        }
+
+        return entry.value;
+    }
+
+    private <T> void put(Map<String, Entry<T>> map, String repositoryId, String key, T value, long ttl) {
+        map.put(key, new Entry<T>(value, getVersion(repositoryId), System.currentTimeMillis() + ttl));
+    }
+
+    private static class Entry<T> {
+        private final T value;
+        private final long version;
+        private final long expires;
+
+        public Entry(T value, long version, long expires) {
+            this.value = value;
+            this.version = version;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * The type ids of an object.
+     */
+    public static class ObjectTypes {
+        private final String typeId;
+        private final BaseTypeId baseTypeId;
+        private final List<String> secondaryTypeIds;
+
+        public ObjectTypes(String typeId, BaseTypeId baseTypeId, List<String> secondaryTypeIds) {
+            this.typeId = typeId;
+            this.baseTypeId = baseTypeId;
+            if (secondaryTypeIds == null) {
+                this.secondaryTypeIds = Collections.emptyList();
+            } else {
+                this.secondaryTypeIds = Collections.unmodifiableList(secondaryTypeIds);
+            }
+        }
+
+        public String getTypeId() {
+            return typeId;
+        }
+
+        public BaseTypeId getBaseTypeId() {
+            return baseTypeId;
+        }
+
+        public List<String> getSecondaryTypeIds() {
+            return secondaryTypeIds;
+        }
+    }
+}
@@ -19,7 +19,6 @@
 package org.apache.chemistry.opencmis.server.shared;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -27,6 +26,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.security.Key;
 
 import javax.crypto.Cipher;
@@ -36,6 +38,7 @@ import javax.crypto.KeyGenerator;
 import javax.crypto.spec.IvParameterSpec;
 
 import org.apache.chemistry.opencmis.commons.exceptions.CmisConstraintException;
+import org.apache.chemistry.opencmis.commons.impl.BufferPool;
 import org.apache.chemistry.opencmis.commons.server.TempStoreOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +48,11 @@ import org.slf4j.LoggerFactory;
  * threshold. If the threshold is passed the data is written to a temporary
  * file.
  * 
+ * The data in main memory is kept in chunks that are taken from the
+ * {@link BufferPool}, so the memory is not copied when it grows. Unencrypted
+ * temporary files are written with gather writes through a
+ * {@link FileChannel}.
+ * 
  * It it is important to close this OutputStream before
  * {@link #getInputStream()} is called or call {@link #destroy(Throwable)} if
  * the InputStream isn't required!
@@ -53,8 +61,10 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
 
     private static final Logger LOG = LoggerFactory.getLogger(ThresholdOutputStream.class);
 
-    private static final int MAX_GROW = 10 * 1024 * 1024; // 10 MiB
     private static final int DEFAULT_THRESHOLD = 4 * 1024 * 1024; // 4 MiB
+    private static final int MIN_CHUNK_SIZE = 4 * 1024; // 4 KiB
+    private static final int MAX_CHUNK_SIZE = 256 * 1024; // 256 KiB
+    private static final int MAX_SPILL_BUFFER = 1024 * 1024; // 1 MiB
 
     private static final String ALGORITHM = "AES";
     private static final String MODE = "CTR";
@@ -65,13 +75,18 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
     private final File tempDir;
     private final int memoryThreshold;
     private final int initSize;
+    private final int spillBufferSize;
     private final long maxContentSize;
     private final boolean encrypt;
 
-    private byte[] buf = null;
+    private byte[][] chunks = new byte[4][];
+    private int chunkCount = 0;
+    private int lastChunkSize = 0;
     private int bufSize = 0;
+    private boolean bytesExposed = false;
     private long length = 0;
     private File tempFile;
+    private FileChannel tmpChannel;
     private OutputStream tmpStream;
     private Key key;
     private byte[] iv;
@@ -110,7 +125,7 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
      * Constructor.
      * 
      * @param initSize
-     *            initial internal buffer size
+     *            size of the first internal buffer chunk
      * @param tempDir
      *            temp directory or {@code null} for the default temp directory
      * @param memoryThreshold
@@ -129,43 +144,147 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
         this.initSize = initSize;
         this.tempDir = tempDir;
         this.memoryThreshold = (memoryThreshold < 0 ? DEFAULT_THRESHOLD : memoryThreshold);
+        this.spillBufferSize = Math.max(MIN_CHUNK_SIZE, Math.min(this.memoryThreshold, MAX_SPILL_BUFFER));
         this.maxContentSize = maxContentSize;
         this.encrypt = encrypt;
+    }
+
+    /**
+     * Returns the smallest power of two that is greater or equal to the given
+     * size, within the chunk size limits.
+     */
+    private static int chunkSize(int size) {
+        if (size <= MIN_CHUNK_SIZE) {
+            return MIN_CHUNK_SIZE;
+        }
+        if (size >= MAX_CHUNK_SIZE) {
+            return MAX_CHUNK_SIZE;
+        }
+
+        return Integer.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * Adds a new chunk.
+     */
+    private void addChunk() {
+        int size;
+        if (chunkCount == 0) {
+            size = chunkSize(initSize);
+        } else {
+            size = chunkSize(chunks[chunkCount - 1].length << 1);
+        }
+
+        if (chunkCount == chunks.length) {
+            byte[][] newChunks = new byte[chunkCount << 1][];
+            System.arraycopy(chunks, 0, newChunks, 0, chunkCount);
+            chunks = newChunks;
+        }
+
+        chunks[chunkCount++] = BufferPool.acquire(size);
+        lastChunkSize = 0;
+    }
+
+    /**
+     * Appends bytes to the chunks.
+     */
+    private void append(byte[] buffer, int offset, int len) {
+        while (len > 0) {
+            if (chunkCount == 0 || lastChunkSize == chunks[chunkCount - 1].length) {
+                addChunk();
+            }
+
+            byte[] chunk = chunks[chunkCount - 1];
+            int n = Math.min(len, chunk.length - lastChunkSize);
+            System.arraycopy(buffer, offset, chunk, lastChunkSize, n);
 
-        buf = new byte[initSize];
+            lastChunkSize += n;
+            bufSize += n;
+            offset += n;
+            len -= n;
+        }
     }
 
-    private void expand(int nextBufferSize) throws IOException {
-        if (bufSize + nextBufferSize <= buf.length) {
+    /**
+     * Returns the number of bytes in the given chunk.
+     */
+    private int getChunkLength(int index) {
+        return index == chunkCount - 1 ? lastChunkSize : chunks[index].length;
+    }
+
+    /**
+     * Returns the chunks to the pool.
+     */
+    private void releaseChunks() {
+        if (chunks == null) {
             return;
         }
 
-        if (bufSize + nextBufferSize > memoryThreshold) {
-            if (tmpStream == null) {
-                openTempFile();
+        // the caller might still use the byte array
+        if (!bytesExposed) {
+            for (int i = 0; i < chunkCount; i++) {
+                BufferPool.release(chunks[i]);
             }
-            tmpStream.write(buf, 0, bufSize);
+        }
 
-            if (buf.length != memoryThreshold) {
-                if (memoryThreshold >= initSize) {
-                    buf = new byte[memoryThreshold];
-                } else if (buf.length != initSize) {
-                    buf = new byte[initSize];
+        chunks = null;
+        chunkCount = 0;
+        lastChunkSize = 0;
+        bufSize = 0;
+    }
+
+    private boolean isSpilled() {
+        return tmpChannel != null || tmpStream != null;
+    }
+
+    /**
+     * Writes the buffered bytes to the temp file and keeps the first chunk
+     * for the next bytes.
+     */
+    private void spill() throws IOException {
+        if (!isSpilled()) {
+            openTempFile();
+        }
+
+        if (bufSize > 0) {
+            if (tmpChannel != null) {
+                ByteBuffer[] buffers = new ByteBuffer[chunkCount];
+                for (int i = 0; i < chunkCount; i++) {
+                    buffers[i] = ByteBuffer.wrap(chunks[i], 0, getChunkLength(i));
+                }
+
+                long remaining = bufSize;
+                while (remaining > 0) {
+                    remaining -= tmpChannel.write(buffers);
+                }
+            } else {
+                for (int i = 0; i < chunkCount; i++) {
+                    tmpStream.write(chunks[i], 0, getChunkLength(i));
                 }
             }
-            if (buf.length < nextBufferSize) {
-                buf = new byte[nextBufferSize];
-            }
-            bufSize = 0;
+        }
 
-            return;
+        for (int i = 1; i < chunkCount; i++) {
+            BufferPool.release(chunks[i]);
+            chunks[i] = null;
         }
+        chunkCount = Math.min(chunkCount, 1);
+        lastChunkSize = 0;
+        bufSize = 0;
+    }
 
-        int newSize = ((bufSize + nextBufferSize) * 2 < MAX_GROW ? (bufSize + nextBufferSize) * 2
-                : buf.length + nextBufferSize + MAX_GROW);
-        byte[] newbuf = new byte[newSize];
-        System.arraycopy(buf, 0, newbuf, 0, bufSize);
-        buf = newbuf;
+    /**
+     * Writes bytes directly to the temp file.
+     */
+    private void writeToTempFile(byte[] buffer, int offset, int len) throws IOException {
+        if (tmpChannel != null) {
+            ByteBuffer bb = ByteBuffer.wrap(buffer, offset, len);
+            while (bb.hasRemaining()) {
+                tmpChannel.write(bb);
+            }
+        } else {
+            tmpStream.write(buffer, offset, len);
+        }
     }
 
     private void openTempFile() throws IOException {
@@ -192,9 +311,9 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
                     throw new IOException("Cannot initialize encryption cipher!", e);
                 }
 
-                tmpStream = new BufferedOutputStream(new CipherOutputStream(new FileOutputStream(tempFile), cipher));
+                tmpStream = new CipherOutputStream(new FileOutputStream(tempFile), cipher);
             } else {
-                tmpStream = new BufferedOutputStream(new FileOutputStream(tempFile));
+                tmpChannel = new FileOutputStream(tempFile).getChannel();
             }
         } catch (IOException ioe) {
             if (tempFile.exists()) {
@@ -253,9 +372,19 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
                 throw new CmisConstraintException("Content too big!");
             }
 
-            expand(len);
-            System.arraycopy(buffer, offset, buf, bufSize, len);
-            bufSize += len;
+            int limit = isSpilled() ? spillBufferSize : memoryThreshold;
+            if ((long) bufSize + len > limit) {
+                spill();
+
+                if (len > spillBufferSize) {
+                    // too big to be buffered
+                    writeToTempFile(buffer, offset, len);
+                    length += len;
+                    return;
+                }
+            }
+
+            append(buffer, offset, len);
             length += len;
         } catch (IOException ioe) {
             destroy(ioe);
@@ -274,46 +403,31 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
 
     @Override
     public void write(int oneByte) throws IOException {
-        try {
-            if (maxContentSize > -1 && length + 1 > maxContentSize) {
-                destroy(null);
-                throw new CmisConstraintException("Content too big!");
-            }
-
-            if (bufSize == buf.length) {
-                expand(1);
-            }
-
-            buf[bufSize++] = (byte) oneByte;
+        if (chunkCount > 0 && lastChunkSize < chunks[chunkCount - 1].length
+                && bufSize < (isSpilled() ? spillBufferSize : memoryThreshold)
+                && (maxContentSize < 0 || length < maxContentSize)) {
+            // fast path
+            chunks[chunkCount - 1][lastChunkSize++] = (byte) oneByte;
+            bufSize++;
             length++;
-        } catch (IOException ioe) {
-            destroy(ioe);
-
-            if (LOG.isErrorEnabled()) {
-                if (tempFile != null) {
-                    LOG.error("Writing to temp file {} failed: {}", tempFile.getAbsolutePath(), ioe.toString(), ioe);
-                } else {
-                    LOG.error("Writing to temp buffer failed: {}", ioe.toString(), ioe);
-                }
-            }
-
-            throw ioe;
+            return;
         }
+
+        write(new byte[] { (byte) oneByte }, 0, 1);
     }
 
     @Override
     public void flush() throws IOException {
-        if (tmpStream == null && memoryThreshold < bufSize) {
+        if (!isSpilled() && memoryThreshold < bufSize) {
             openTempFile();
         }
 
-        if (tmpStream != null) {
+        if (isSpilled()) {
             try {
-                if (bufSize > 0) {
-                    tmpStream.write(buf, 0, bufSize);
-                    bufSize = 0;
+                spill();
+                if (tmpStream != null) {
+                    tmpStream.flush();
                 }
-                tmpStream.flush();
             } catch (IOException ioe) {
                 destroy(ioe);
 
@@ -330,6 +444,9 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
     public void close() throws IOException {
         flush();
 
+        if (tmpChannel != null) {
+            tmpChannel.close();
+        }
         if (tmpStream != null) {
             tmpStream.close();
         }
@@ -344,6 +461,18 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
             LOG.debug("ThresholdOutputStream destroyed." + (cause == null ? "" : " Cause: " + cause.toString()), cause);
         }
 
+        if (tmpChannel != null) {
+            try {
+                tmpChannel.close();
+            } catch (Exception e) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Closing the temp file {} failed: {}", tempFile.getAbsolutePath(), e.toString(), e);
+                }
+            }
+
+            tmpChannel = null;
+        }
+
         if (tmpStream != null) {
             try {
                 tmpStream.flush();
@@ -376,7 +505,7 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
             }
         }
 
-        buf = null;
+        releaseChunks();
     }
 
     /**
@@ -384,9 +513,9 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
      */
     @Override
     public InputStream getInputStream() throws IOException {
-        if (tmpStream != null) {
+        if (isSpilled()) {
             close();
-            buf = null;
+            releaseChunks();
 
             return new InternalTempFileInputStream();
         } else {
@@ -461,6 +590,37 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
          * Rewinds the stream so that it can be read from the beginning.
          */
         public abstract void rewind() throws IOException;
+
+        /**
+         * Writes the remaining bytes of the stream to a channel.
+         * 
+         * Unencrypted temporary files are transferred with
+         * {@link FileChannel#transferTo(long, long, WritableByteChannel)},
+         * which lets the operating system copy the data if the channel supports
+         * it.
+         * 
+         * @param target
+         *            the target channel
+         * @return the number of bytes that have been written
+         */
+        public long transferTo(WritableByteChannel target) throws IOException {
+            byte[] buffer = BufferPool.acquire(64 * 1024);
+            try {
+                long total = 0;
+                int n;
+                while ((n = read(buffer)) > -1) {
+                    ByteBuffer bb = ByteBuffer.wrap(buffer, 0, n);
+                    while (bb.hasRemaining()) {
+                        target.write(bb);
+                    }
+                    total += n;
+                }
+
+                return total;
+            } finally {
+                BufferPool.release(buffer);
+            }
+        }
     }
 
     /**
@@ -469,8 +629,25 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
     private final class InternalBufferInputStream extends ThresholdInputStream {
 
         private int pos = 0;
+        private int chunkIndex = 0;
+        private int chunkPos = 0;
         private int mark = -1;
 
+        private boolean isClosed() {
+            return chunks == null;
+        }
+
+        /**
+         * Moves to the given absolute position.
+         */
+        private void seek(int newPos) {
+            pos = 0;
+            chunkIndex = 0;
+            chunkPos = 0;
+
+            skip(newPos);
+        }
+
         @Override
         public boolean isInMemory() {
             return true;
@@ -478,20 +655,44 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
 
         @Override
         public byte[] getBytes() {
-            if (buf == null) {
+            if (isClosed()) {
                 throw new IllegalStateException("Stream is already closed!");
             }
 
-            return buf;
+            bytesExposed = true;
+
+            if (chunkCount == 0) {
+                return new byte[0];
+            }
+
+            if (chunkCount > 1) {
+                // merge the chunks into one array
+                byte[] bytes = new byte[bufSize];
+                int offset = 0;
+                for (int i = 0; i < chunkCount; i++) {
+                    int len = getChunkLength(i);
+                    System.arraycopy(chunks[i], 0, bytes, offset, len);
+                    offset += len;
+                    BufferPool.release(chunks[i]);
+                }
+
+                chunks = new byte[][] { bytes };
+                chunkCount = 1;
+                lastChunkSize = bytes.length;
+
+                seek(pos);
+            }
+
+            return chunks[0];
         }
 
         @Override
         public void rewind() throws IOException {
-            if (buf == null) {
+            if (isClosed()) {
                 throw new IOException("Stream is already closed!");
             }
 
-            pos = 0;
+            seek(0);
             mark = -1;
         }
 
@@ -502,7 +703,7 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
 
         @Override
         public void mark(int readlimit) {
-            if (buf != null) {
+            if (!isClosed()) {
                 mark = pos;
             }
         }
@@ -513,12 +714,12 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
                 throw new IOException("Reset not possible.");
             }
 
-            pos = mark;
+            seek(mark);
         }
 
         @Override
         public int available() {
-            if (buf == null) {
+            if (isClosed()) {
                 return 0;
             }
 
@@ -527,7 +728,17 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
 
         @Override
         public int read() {
-            return (pos < bufSize) && (buf != null) ? (buf[pos++] & 0xff) : -1;
+            if (isClosed() || pos >= bufSize) {
+                return -1;
+            }
+
+            if (chunkPos == getChunkLength(chunkIndex)) {
+                chunkIndex++;
+                chunkPos = 0;
+            }
+
+            pos++;
+            return chunks[chunkIndex][chunkPos++] & 0xff;
         }
 
         @Override
@@ -537,7 +748,7 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
 
         @Override
         public int read(byte[] b, int off, int len) {
-            if (pos >= bufSize || buf == null) {
+            if (isClosed() || pos >= bufSize) {
                 return -1;
             }
 
@@ -549,7 +760,23 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
                 len = (bufSize - pos);
             }
 
-            System.arraycopy(buf, pos, b, off, len);
+            int remaining = len;
+            while (remaining > 0) {
+                int chunkLength = getChunkLength(chunkIndex);
+                if (chunkPos == chunkLength) {
+                    chunkIndex++;
+                    chunkPos = 0;
+                    continue;
+                }
+
+                int n = Math.min(remaining, chunkLength - chunkPos);
+                System.arraycopy(chunks[chunkIndex], chunkPos, b, off, n);
+
+                chunkPos += n;
+                off += n;
+                remaining -= n;
+            }
+
             pos += len;
 
             return len;
@@ -557,7 +784,7 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
 
         @Override
         public long skip(long n) {
-            if (buf == null) {
+            if (isClosed()) {
                 return -1;
             }
 
@@ -569,14 +796,58 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
                 n = bufSize - pos;
             }
 
+            long remaining = n;
+            while (remaining > 0) {
+                int chunkLength = getChunkLength(chunkIndex);
+                if (chunkPos == chunkLength) {
+                    chunkIndex++;
+                    chunkPos = 0;
+                    continue;
+                }
+
+                int s = (int) Math.min(remaining, chunkLength - chunkPos);
+                chunkPos += s;
+                remaining -= s;
+            }
+
             pos += n;
 
             return n;
         }
 
+        @Override
+        public long transferTo(WritableByteChannel target) throws IOException {
+            if (isClosed() || pos >= bufSize) {
+                return 0;
+            }
+
+            // write the chunks without copying them
+            long total = 0;
+            while (pos < bufSize) {
+                int chunkLength = getChunkLength(chunkIndex);
+                if (chunkPos == chunkLength) {
+                    chunkIndex++;
+                    chunkPos = 0;
+                    continue;
+                }
+
+                ByteBuffer bb = ByteBuffer.wrap(chunks[chunkIndex], chunkPos, chunkLength - chunkPos);
+                while (bb.hasRemaining()) {
+                    target.write(bb);
+                }
+
+                int n = chunkLength - chunkPos;
+                chunkPos = chunkLength;
+                pos += n;
+                total += n;
+            }
+
+            return total;
+        }
+
         @Override
         public void close() throws IOException {
-            buf = null;
+            releaseChunks();
             mark = -1;
         }
     }
@@ -590,6 +861,8 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
 
         private final Cipher cipher;
         private BufferedInputStream stream;
+        private long position = 0;
+        private long markPosition = -1;
         private boolean isDeleted = false;
         private boolean isClosed = false;
 
@@ -627,6 +900,9 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
             } else {
                 stream = new BufferedInputStream(new FileInputStream(tempFile), bufferSize);
             }
+
+            position = 0;
+            markPosition = -1;
         }
 
         @Override
@@ -673,6 +949,7 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
         public void mark(int readlimit) {
             if (!isClosed) {
                 stream.mark(readlimit);
+                markPosition = position;
             }
         }
 
@@ -683,6 +960,7 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
             }
 
             stream.reset();
+            position = markPosition;
         }
 
         @Override
@@ -691,7 +969,12 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
                 return -1;
             }
 
-            return stream.skip(n);
+            long s = stream.skip(n);
+            if (s > 0) {
+                position += s;
+            }
+
+            return s;
         }
 
         @Override
@@ -701,6 +984,9 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
             }
 
             int b = stream.read();
+            if (b > -1) {
+                position++;
+            }
 
             return b;
         }
@@ -716,11 +1002,54 @@ public class ThresholdOutputStream extends TempStoreOutputStream {
                 return -1;
             }
 
-            int n = super.read(b, off, len);
+            int n = stream.read(b, off, len);
+            if (n > 0) {
+                position += n;
+            }
 
             return n;
         }
 
+        @Override
+        public long transferTo(WritableByteChannel target) throws IOException {
+            if (isClosed) {
+                return 0;
+            }
+
+            if (encrypt) {
+                return super.transferTo(target);
+            }
+
+            long total = 0;
+            FileInputStream fileStream = new FileInputStream(tempFile);
+            try {
+                FileChannel channel = fileStream.getChannel();
+                long size = channel.size();
+                while (position < size) {
+                    long n = channel.transferTo(position, size - position, target);
+                    position += n;
+                    total += n;
+                }
+            } finally {
+                fileStream.close();
+            }
+
+            // move the stream to the end
+            stream.close();
+            stream = new BufferedInputStream(new FileInputStream(tempFile), 4 * 1024);
+            long toSkip = position;
+            while (toSkip > 0) {
+                long s = stream.skip(toSkip);
+                if (s <= 0) {
+                    break;
+                }
+                toSkip -= s;
+            }
+            markPosition = -1;
+
+            return total;
+        }
+
         @Override
         public void close() throws IOException {
             delete();
@@ -0,0 +1,350 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.chemistry.opencmis.commons.data.ChannelContentStream;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ContentStreamImpl;
+import org.apache.chemistry.opencmis.server.impl.HttpRequestHeadMethodTest.UrlServiceCall;
+import org.apache.chemistry.opencmis.server.shared.ContentBody;
+import org.apache.chemistry.opencmis.server.shared.NoBodyHttpServletResponseWrapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContentBodyTest {
+
+    private static final int SIZE = 100 * 1024;
+
+    private byte[] content;
+    private File file;
+    private ByteArrayOutputStream out;
+
+    @Before
+    public void setUp() throws IOException {
+        content = new byte[SIZE];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 251);
+        }
+
+        file = File.createTempFile("opencmis", "content");
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(content);
+        } finally {
+            fos.close();
+        }
+
+        out = new ByteArrayOutputStream();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testFileChannel() throws Exception {
+        TestChannelContentStream cs = new TestChannelContentStream();
+        cs.file = file;
+        cs.position = 0;
+        cs.length = -1;
+
+        write(cs);
+
+        assertArrayEquals(content, out.toByteArray());
+        assertFalse(cs.streamRequested);
+        assertFalse(cs.channel.isOpen());
+    }
+
+    @Test
+    public void testFileChannelRange() throws Exception {
+        TestChannelContentStream cs = new TestChannelContentStream();
+        cs.file = file;
+        cs.position = 1000;
+        cs.length = 50000;
+
+        write(cs);
+
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 51000), out.toByteArray());
+        assertFalse(cs.streamRequested);
+
+        // the range must lie within the file
+        cs.position = SIZE - 10;
+        cs.length = 1000;
+
+        try {
+            ContentBody.open(cs);
+            fail("IOException expected!");
+        } catch (IOException e) {
+            // expected
+        }
+        assertFalse(cs.channel.isOpen());
+    }
+
+    @Test
+    public void testSendfile() throws Exception {
+        TestChannelContentStream cs = new TestChannelContentStream();
+        cs.file = file;
+        cs.position = 1000;
+        cs.length = 50000;
+
+        // the container sends the file range itself
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getAttribute(ContentBody.SENDFILE_SUPPORT)).thenReturn(Boolean.TRUE);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+
+        ContentBody body = ContentBody.open(cs);
+        try {
+            body.write(request, response, 4096);
+        } finally {
+            body.close();
+        }
+
+        verify(response).setContentLengthLong(50000);
+        verify(request).setAttribute(ContentBody.SENDFILE_FILENAME, file.getAbsolutePath());
+        verify(request).setAttribute(ContentBody.SENDFILE_START, Long.valueOf(1000));
+        verify(request).setAttribute(ContentBody.SENDFILE_END, Long.valueOf(51000));
+        verify(response, never()).getOutputStream();
+        assertFalse(cs.streamRequested);
+    }
+
+    @Test
+    public void testNoSendfile() throws Exception {
+        TestChannelContentStream cs = new TestChannelContentStream();
+        cs.file = file;
+        cs.position = 0;
+        cs.length = -1;
+
+        // without sendfile support the file is copied to the response
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(new TestServletOutputStream());
+
+        write(cs, request, response);
+        assertArrayEquals(content, out.toByteArray());
+        verify(request, never()).setAttribute(ContentBody.SENDFILE_FILENAME, file.getAbsolutePath());
+
+        // HEAD responses have no body to send
+        out.reset();
+        when(request.getAttribute(ContentBody.SENDFILE_SUPPORT)).thenReturn(Boolean.TRUE);
+        write(cs, request, new NoBodyHttpServletResponseWrapper(response));
+        assertEquals(0, out.size());
+        verify(request, never()).setAttribute(ContentBody.SENDFILE_FILENAME, file.getAbsolutePath());
+
+        // content without a file is copied
+        out.reset();
+        cs.file = null;
+        cs.stream = new ByteArrayInputStream(content);
+        write(cs, request, response);
+        assertArrayEquals(content, out.toByteArray());
+        verify(request, never()).setAttribute(ContentBody.SENDFILE_FILENAME, file.getAbsolutePath());
+    }
+
+    @Test
+    public void testShortTransfer() throws Exception {
+        TestChannelContentStream cs = new TestChannelContentStream();
+        cs.file = file;
+        cs.position = 0;
+        cs.length = -1;
+
+        ContentBody body = ContentBody.open(cs);
+        try {
+            // the file shrinks after the headers have been sent
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(1000);
+            } finally {
+                raf.close();
+            }
+
+            body.write(out, 4096);
+            fail("IOException expected!");
+        } catch (IOException e) {
+            // expected
+        } finally {
+            body.close();
+        }
+    }
+
+    @Test
+    public void testByteBuffer() throws Exception {
+        TestChannelContentStream cs = new TestChannelContentStream();
+        cs.buffer = ByteBuffer.wrap(content, 10, 20000);
+
+        write(cs);
+        assertArrayEquals(Arrays.copyOfRange(content, 10, 20010), out.toByteArray());
+        assertFalse(cs.streamRequested);
+
+        // the buffer of the content stream is not consumed
+        assertEquals(20000, cs.buffer.remaining());
+
+        out.reset();
+        ByteBuffer direct = ByteBuffer.allocateDirect(SIZE);
+        direct.put(content);
+        direct.flip();
+        cs.buffer = direct;
+
+        write(cs);
+        assertArrayEquals(content, out.toByteArray());
+    }
+
+    @Test
+    public void testStreamFallback() throws Exception {
+        TestChannelContentStream cs = new TestChannelContentStream();
+        cs.stream = new ByteArrayInputStream(content);
+
+        write(cs);
+        assertArrayEquals(content, out.toByteArray());
+        assertTrue(cs.streamRequested);
+    }
+
+    @Test
+    public void testNoContent() throws Exception {
+        TestChannelContentStream cs = new TestChannelContentStream();
+
+        assertNull(ContentBody.open(null));
+        assertNull(ContentBody.open(cs));
+
+        try {
+            new UrlServiceCall().openContent(cs);
+            fail("CmisRuntimeException expected!");
+        } catch (CmisRuntimeException e) {
+            // expected
+        }
+    }
+
+    private void write(ChannelContentStream cs) throws IOException {
+        ContentBody body = ContentBody.open(cs);
+        try {
+            body.write(out, 4096);
+        } finally {
+            body.close();
+        }
+    }
+
+    private void write(ChannelContentStream cs, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        ContentBody body = ContentBody.open(cs);
+        try {
+            body.write(request, response, 4096);
+        } finally {
+            body.close();
+        }
+    }
+
+    private class TestServletOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    }
+
+    private static class TestChannelContentStream extends ContentStreamImpl implements ChannelContentStream {
+
+        private static final long serialVersionUID = 1L;
+
+        File file;
+        long position;
+        long length;
+        ByteBuffer buffer;
+        InputStream stream;
+        FileChannel channel;
+        boolean streamRequested;
+
+        @Override
+        public InputStream getStream() {
+            streamRequested = true;
+            return stream;
+        }
+
+        @Override
+        public FileChannel getFileChannel() throws IOException {
+            if (file == null) {
+                return null;
+            }
+
+            channel = new FileInputStream(file).getChannel();
+            return channel;
+        }
+
+        @Override
+        public File getFile() {
+            return file;
+        }
+
+        @Override
+        public long getFileChannelPosition() {
+            return position;
+        }
+
+        @Override
+        public long getFileChannelLength() {
+            return length;
+        }
+
+        @Override
+        public ByteBuffer getByteBuffer() {
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.chemistry.opencmis.commons.impl.BufferPool;
+import org.apache.chemistry.opencmis.commons.impl.IOUtils;
+import org.apache.chemistry.opencmis.server.impl.browser.MultipartParser;
+import org.apache.chemistry.opencmis.server.shared.TempStoreOutputStreamFactory;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Simple benchmark that compares multipart parsing with and without the
+ * {@link BufferPool}. This is not a unit test, run it manually with:
+ *
+ * <pre>
+ * java -cp ... org.apache.chemistry.opencmis.server.impl.MultipartParserBenchmark [fields] [threads] [seconds]
+ * </pre>
+ *
+ * The defaults parse a typical browser binding form with 20 fields and a small
+ * content part.
+ */
+public class MultipartParserBenchmark {
+
+    private static final String BOUNDARY = "---- benchmark ----";
+
+    public static void main(String[] args) throws Exception {
+        int fields = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        final byte[] formdata = createFormData(fields);
+        final TempStoreOutputStreamFactory streamFactory = TempStoreOutputStreamFactory.newInstance(null,
+                4 * 1024 * 1024, -1, false);
+
+        System.out.println("Form with " + fields + " fields: " + formdata.length + " bytes");
+
+        boolean enabled = BufferPool.isEnabled();
+        try {
+            // warm up
+            run(formdata, streamFactory, threads, 1);
+
+            BufferPool.setEnabled(false);
+            long unpooled = run(formdata, streamFactory, threads, seconds);
+
+            BufferPool.setEnabled(true);
+            long pooled = run(formdata, streamFactory, threads, seconds);
+
+            System.out.println(threads + " threads, unpooled: " + (unpooled / seconds) + " requests/s");
+            System.out.println(threads + " threads, pooled:   " + (pooled / seconds) + " requests/s");
+        } finally {
+            BufferPool.setEnabled(enabled);
+        }
+    }
+
+    private static long run(final byte[] formdata, final TempStoreOutputStreamFactory streamFactory, int threads,
+            int seconds) throws Exception {
+        final AtomicLong requests = new AtomicLong();
+        final long end = System.currentTimeMillis() + seconds * 1000L;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final HttpServletRequest request = createRequest(formdata);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        long count = 0;
+                        while (System.currentTimeMillis() < end) {
+                            for (int i = 0; i < 100; i++) {
+                                MultipartParser parser = new MultipartParser(request, streamFactory);
+                                parser.parse();
+                                if (parser.hasContent()) {
+                                    parser.getStream().close();
+                                }
+                            }
+                            count += 100;
+                        }
+                        requests.addAndGet(count);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        done.await();
+
+        return requests.get();
+    }
+
+    private static HttpServletRequest createRequest(final byte[] formdata) throws IOException {
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getContentType()).thenReturn("multipart/form-data; boundary=\"" + BOUNDARY + "\"");
+        Mockito.when(request.getInputStream()).thenAnswer(new Answer<ServletInputStream>() {
+            @Override
+            public ServletInputStream answer(InvocationOnMock invocation) {
+                return new ByteArrayServletInputStream(formdata);
+            }
+        });
+
+        return request;
+    }
+
+    private static byte[] createFormData(int fields) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        for (int i = 0; i < fields; i++) {
+            bos.write(("\r\n--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"propertyValue[" + i
+                    + "]\"\r\n\r\nvalue " + i).getBytes(IOUtils.UTF8));
+        }
+
+        bos.write(("\r\n--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"content\"; filename=\"a.txt\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n").getBytes(IOUtils.UTF8));
+        for (int i = 0; i < 100; i++) {
+            bos.write("This is content!\n".getBytes(IOUtils.UTF8));
+        }
+        bos.write(("\r\n--" + BOUNDARY + "--").getBytes(IOUtils.UTF8));
+
+        return bos.toByteArray();
+    }
+
+    private static class ByteArrayServletInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream stream;
+
+        public ByteArrayServletInputStream(byte[] content) {
+            stream = new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return stream.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return stream.read(b, off, len);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return stream.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+        }
+    }
+}
@@ -34,6 +34,7 @@ import java.util.Random;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.impl.BufferPool;
 import org.apache.chemistry.opencmis.commons.impl.IOUtils;
 import org.apache.chemistry.opencmis.server.impl.browser.MultipartParser;
 import org.apache.chemistry.opencmis.server.shared.TempStoreOutputStreamFactory;
@@ -405,6 +406,47 @@ public class MultipartParserTest {
         assertMultipartBasics(parser, 2, null, true, "file1", "application/something", content);
     }
 
+    @Test
+    public void testRepeatedFields() throws Exception {
+        String boundary = "-----";
+        String content = "--" + boundary + "\r\n" //
+                + "Content-Disposition: form-data; name=\"field\"\r\n\r\nraw1\r\n--" + boundary + "\r\n" //
+                + "Content-Disposition: form-data; name=\"field\"\r\n" //
+                + "Content-Type: text/plain; charset=UTF-8\r\n\r\n\u00e4\r\n--" + boundary + "\r\n" //
+                + "Content-Disposition: form-data; name=\"field\"\r\n\r\nraw2\r\n--" + boundary + "\r\n" //
+                + "Content-Disposition: form-data; name=\"_charset_\"\r\n\r\nUTF-8\r\n--" + boundary + "--";
+
+        MultipartParser parser = prepareParser(boundary, content.getBytes(IOUtils.UTF8));
+        parser.parse();
+
+        // values with an explicit charset come first
+        assertArrayEquals(new String[] { "\u00e4", "raw1", "raw2" }, parser.getFields().get("field"));
+        assertEquals(1, parser.getFields().size());
+    }
+
+    @Test
+    public void testBufferReuse() throws Exception {
+        String boundary = "-----";
+        String content = "--" + boundary + "\r\n" //
+                + "Content-Disposition: form-data; name=\"field\"\r\n\r\nvalue\r\n--" + boundary + "--";
+
+        boolean enabled = BufferPool.isEnabled();
+        BufferPool.setEnabled(true);
+        try {
+            prepareParser(boundary, content.getBytes(IOUtils.UTF8)).parse();
+
+            long reused = BufferPool.getReuseCount();
+
+            MultipartParser parser = prepareParser(boundary, content.getBytes(IOUtils.UTF8));
+            parser.parse();
+
+            assertEquals("value", parser.getFields().get("field")[0]);
+            assertTrue(BufferPool.getReuseCount() > reused);
+        } finally {
+            BufferPool.setEnabled(enabled);
+        }
+    }
+
     // ---- helpers ----
 
     private MultipartParser prepareParser(String boundary, byte[] content) throws Exception {
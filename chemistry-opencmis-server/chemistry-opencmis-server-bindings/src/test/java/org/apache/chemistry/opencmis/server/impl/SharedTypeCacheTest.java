@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletContext;
+
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.DocumentTypeDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectDataImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertiesImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyIdDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyIdImpl;
+import org.apache.chemistry.opencmis.commons.server.CallContext;
+import org.apache.chemistry.opencmis.commons.server.CmisService;
+import org.apache.chemistry.opencmis.server.impl.browser.ServerTypeCacheImpl;
+import org.apache.chemistry.opencmis.server.shared.SharedTypeCache;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class SharedTypeCacheTest {
+
+    private static final String REPOSITORY_ID = "repo";
+
+    private CmisService service;
+    private ServletContext servletContext;
+
+    @Before
+    public void setUp() {
+        servletContext = createServletContext();
+
+        service = mock(CmisService.class);
+        when(service.getTypeDefinition(eq(REPOSITORY_ID), eq("doc"), isNull())).thenReturn(createType("doc", "p1"));
+        when(service.getTypeDefinition(eq(REPOSITORY_ID), eq("sec"), isNull())).thenReturn(createType("sec", "p2"));
+    }
+
+    @Test
+    public void testTypeDefinitionsAreShared() {
+        CallContext context = createContext("alice");
+
+        assertNotNull(new ServerTypeCacheImpl(REPOSITORY_ID, service, context).getTypeDefinition("doc"));
+        assertNotNull(new ServerTypeCacheImpl(REPOSITORY_ID, service, context).getTypeDefinition("doc"));
+        verify(service, times(1)).getTypeDefinition(REPOSITORY_ID, "doc", null);
+
+        // other users and request-only caches don't share
+        assertNotNull(new ServerTypeCacheImpl(REPOSITORY_ID, service, createContext("bob")).getTypeDefinition("doc"));
+        assertNotNull(new ServerTypeCacheImpl(REPOSITORY_ID, service).getTypeDefinition("doc"));
+        verify(service, times(3)).getTypeDefinition(REPOSITORY_ID, "doc", null);
+    }
+
+    @Test
+    public void testInvalidate() {
+        CallContext context = createContext("alice");
+
+        new ServerTypeCacheImpl(REPOSITORY_ID, service, context).getTypeDefinition("doc");
+        SharedTypeCache.invalidate(servletContext, REPOSITORY_ID);
+        new ServerTypeCacheImpl(REPOSITORY_ID, service, context).getTypeDefinition("doc");
+        verify(service, times(2)).getTypeDefinition(REPOSITORY_ID, "doc", null);
+
+        // other repositories are not affected
+        SharedTypeCache.invalidate(servletContext, "other");
+        new ServerTypeCacheImpl(REPOSITORY_ID, service, context).getTypeDefinition("doc");
+        verify(service, times(2)).getTypeDefinition(REPOSITORY_ID, "doc", null);
+    }
+
+    @Test
+    public void testScopedByServletContext() {
+        new ServerTypeCacheImpl(REPOSITORY_ID, service, createContext("alice")).getTypeDefinition("doc");
+        new ServerTypeCacheImpl(REPOSITORY_ID, service, createContext("alice")).getTypeDefinition("doc");
+        verify(service, times(1)).getTypeDefinition(REPOSITORY_ID, "doc", null);
+
+        // another web application with the same repository id
+        CallContext otherContext = createContext(createServletContext(), "alice");
+        new ServerTypeCacheImpl(REPOSITORY_ID, service, otherContext).getTypeDefinition("doc");
+        verify(service, times(2)).getTypeDefinition(REPOSITORY_ID, "doc", null);
+
+        // invalidation only affects its own servlet context
+        SharedTypeCache.invalidate(otherContext, REPOSITORY_ID);
+        new ServerTypeCacheImpl(REPOSITORY_ID, service, createContext("alice")).getTypeDefinition("doc");
+        verify(service, times(2)).getTypeDefinition(REPOSITORY_ID, "doc", null);
+
+        // without servlet context, nothing is shared
+        assertNull(SharedTypeCache.get(createContext(null, "alice")));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        SharedTypeCache cache = new SharedTypeCache(2);
+        cache.putTypeDefinition(REPOSITORY_ID, "alice", createType("t1", "p1"));
+        cache.putTypeDefinition(REPOSITORY_ID, "alice", createType("t2", "p1"));
+        assertNotNull(cache.getTypeDefinition(REPOSITORY_ID, "alice", "t1"));
+
+        // t2 is the least recently used entry
+        cache.putTypeDefinition(REPOSITORY_ID, "alice", createType("t3", "p1"));
+        assertEquals(2, cache.size());
+        assertNotNull(cache.getTypeDefinition(REPOSITORY_ID, "alice", "t1"));
+        assertNull(cache.getTypeDefinition(REPOSITORY_ID, "alice", "t2"));
+        assertNotNull(cache.getTypeDefinition(REPOSITORY_ID, "alice", "t3"));
+    }
+
+    @Test
+    public void testObjectTypes() {
+        CallContext context = createContext("alice");
+        ObjectData object = createObject("obj1", "doc");
+        when(
+                service.getObject(eq(REPOSITORY_ID), eq("obj1"), anyString(), anyBoolean(),
+                        any(IncludeRelationships.class), anyString(), anyBoolean(), anyBoolean(), isNull()))
+                .thenReturn(object);
+
+        ServerTypeCacheImpl typeCache1 = new ServerTypeCacheImpl(REPOSITORY_ID, service, context);
+        assertEquals("doc", typeCache1.getTypeDefinitionForObject("obj1").getId());
+
+        ServerTypeCacheImpl typeCache2 = new ServerTypeCacheImpl(REPOSITORY_ID, service, context);
+        assertEquals("doc", typeCache2.getTypeDefinitionForObject("obj1").getId());
+        verify(service, times(1)).getObject(eq(REPOSITORY_ID), eq("obj1"), anyString(), anyBoolean(),
+                any(IncludeRelationships.class), anyString(), anyBoolean(), anyBoolean(), isNull());
+
+        // a secondary type added in the meantime is picked up when one of its
+        // properties is requested
+        PropertiesImpl properties = (PropertiesImpl) object.getProperties();
+        properties.replaceProperty(new PropertyIdImpl(PropertyIds.SECONDARY_OBJECT_TYPE_IDS, Collections
+                .singletonList("sec")));
+
+        PropertyDefinition<?> propDef = typeCache2.getPropertyDefinition("p2");
+        assertNotNull(propDef);
+        assertSame(propDef, typeCache2.getTypeDefinition("sec").getPropertyDefinitions().get("p2"));
+        verify(service, times(2)).getObject(eq(REPOSITORY_ID), eq("obj1"), anyString(), anyBoolean(),
+                any(IncludeRelationships.class), anyString(), anyBoolean(), anyBoolean(), isNull());
+    }
+
+    private CallContext createContext(String user) {
+        return createContext(servletContext, user);
+    }
+
+    private static CallContext createContext(ServletContext servletContext, String user) {
+        CallContext context = mock(CallContext.class);
+        when(context.getUsername()).thenReturn(user);
+        when(context.get(CallContext.SERVLET_CONTEXT)).thenReturn(servletContext);
+        return context;
+    }
+
+    private static ServletContext createServletContext() {
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+
+        ServletContext servletContext = mock(ServletContext.class);
+        when(servletContext.getAttribute(anyString())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return attributes.get(invocation.getArgument(0));
+            }
+        });
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                attributes.put((String) invocation.getArgument(0), invocation.getArgument(1));
+                return null;
+            }
+        }).when(servletContext).setAttribute(anyString(), any());
+
+        return servletContext;
+    }
+
+    private static DocumentTypeDefinitionImpl createType(String id, String propertyId) {
+        DocumentTypeDefinitionImpl type = new DocumentTypeDefinitionImpl();
+        type.setId(id);
+
+        PropertyIdDefinitionImpl propDef = new PropertyIdDefinitionImpl();
+        propDef.setId(propertyId);
+        type.addPropertyDefinition(propDef);
+
+        return type;
+    }
+
+    private static ObjectData createObject(String id, String typeId) {
+        PropertiesImpl properties = new PropertiesImpl();
+        properties.addProperty(new PropertyIdImpl(PropertyIds.OBJECT_ID, id));
+        properties.addProperty(new PropertyIdImpl(PropertyIds.OBJECT_TYPE_ID, typeId));
+
+        ObjectDataImpl object = new ObjectDataImpl();
+        object.setProperties(properties);
+
+        return object;
+    }
+}
@@ -26,9 +26,12 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.lang.reflect.Field;
+import java.nio.channels.Channels;
+import java.util.Random;
 
 import org.apache.chemistry.opencmis.commons.server.TempStoreOutputStream;
 import org.apache.chemistry.opencmis.server.shared.TempStoreOutputStreamFactory;
@@ -333,6 +336,126 @@ public class ThresholdOutputStreamTest {
         tis.close();
     }
 
+    @Test
+    public void testChunks() throws Exception {
+        byte[] content = createContent(1024 * 1024 + 17);
+
+        ThresholdOutputStream tos = new ThresholdOutputStream(null, 2 * 1024 * 1024, -1);
+        writeInPieces(tos, content);
+        tos.close();
+
+        ThresholdInputStream tis = (ThresholdInputStream) tos.getInputStream();
+        assertTrue(tis.isInMemory());
+        assertEquals(content.length, tis.getLength());
+        assertEquals(content.length, tis.available());
+
+        // read across chunk boundaries
+        byte[] buffer = new byte[content.length];
+        int pos = 0;
+        int len = 1;
+        while (pos < content.length) {
+            int n = tis.read(buffer, pos, Math.min(len, content.length - pos));
+            assertTrue(n > 0);
+            pos += n;
+            len = len * 3 + 1;
+        }
+        assertArrayEquals(content, buffer);
+        assertEquals(-1, tis.read());
+
+        // skip, mark and reset
+        tis.rewind();
+        assertEquals(300 * 1024, tis.skip(300 * 1024));
+        tis.mark(1024);
+        assertEquals(content[300 * 1024] & 0xff, tis.read());
+        tis.reset();
+        assertEquals(content[300 * 1024] & 0xff, tis.read());
+
+        // merged byte array
+        assertArrayEquals(content, getBytesFromArray(tis.getBytes(), content.length));
+        assertEquals(content[300 * 1024 + 1] & 0xff, tis.read());
+
+        tis.close();
+    }
+
+    @Test
+    public void testSpill() throws Exception {
+        byte[] content = createContent(3 * 1024 * 1024 + 5);
+
+        ThresholdOutputStream tos = new ThresholdOutputStream(null, 1024 * 1024, -1);
+        writeInPieces(tos, content);
+        tos.write(content, 0, 0);
+        tos.close();
+
+        ThresholdInputStream tis = (ThresholdInputStream) tos.getInputStream();
+        assertFalse(tis.isInMemory());
+        assertEquals(content.length, tis.getTemporaryFile().length());
+        assertArrayEquals(content, readAll(tis));
+
+        tis.close();
+    }
+
+    @Test
+    public void testTransferTo() throws Exception {
+        byte[] content = createContent(512 * 1024 + 3);
+
+        for (int threshold : new int[] { 1024 * 1024, 1024 }) {
+            ThresholdOutputStream tos = new ThresholdOutputStream(null, threshold, -1);
+            writeInPieces(tos, content);
+            tos.close();
+
+            ThresholdInputStream tis = (ThresholdInputStream) tos.getInputStream();
+            assertEquals(threshold > content.length, tis.isInMemory());
+
+            // read a few bytes first
+            byte[] start = new byte[10];
+            assertEquals(10, tis.read(start));
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            assertEquals(content.length - 10, tis.transferTo(Channels.newChannel(bos)));
+            assertEquals(-1, tis.read());
+
+            byte[] result = bos.toByteArray();
+            assertEquals(content.length - 10, result.length);
+            for (int i = 0; i < result.length; i++) {
+                assertEquals(content[i + 10], result[i]);
+            }
+
+            tis.close();
+        }
+    }
+
+    private byte[] createContent(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+
+    private void writeInPieces(ThresholdOutputStream tos, byte[] content) throws Exception {
+        int pos = 0;
+        int len = 1;
+        while (pos < content.length) {
+            if (len % 7 == 0) {
+                tos.write(content[pos]);
+                pos++;
+            } else {
+                int n = Math.min(len, content.length - pos);
+                tos.write(content, pos, n);
+                pos += n;
+            }
+            len = (len * 5 + 3) % (200 * 1024);
+        }
+    }
+
+    private byte[] readAll(ThresholdInputStream tis) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = tis.read(buffer)) > -1) {
+            bos.write(buffer, 0, n);
+        }
+        return bos.toByteArray();
+    }
+
     private byte[] getBytesFromArray(byte[] buffer, int len) {
         byte[] result = new byte[len];
 
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.fileshare;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.chemistry.opencmis.commons.data.ChannelContentStream;
+import org.apache.chemistry.opencmis.commons.data.PartialContentStream;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ContentStreamImpl;
+
+/**
+ * Content stream of a file. The AtomPub and Browser bindings read the content
+ * directly from the file channel or let the servlet container send the file.
+ * The stream is only opened if another consumer asks for it.
+ */
+public class FileShareContentStream extends ContentStreamImpl implements ChannelContentStream {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final transient File file;
+    private final BigInteger offset;
+    private final BigInteger length;
+    private boolean streamOpened;
+
+    public FileShareContentStream(File file, BigInteger offset, BigInteger length) {
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Creates a content stream for the given file and range.
+     */
+    public static FileShareContentStream create(File file, BigInteger offset, BigInteger length) {
+        if ((offset != null && offset.longValue() > 0) || length != null) {
+            return new Partial(file, offset, length);
+        }
+
+        return new FileShareContentStream(file, offset, length);
+    }
+
+    @Override
+    public InputStream getStream() {
+        if (!streamOpened && file != null) {
+            streamOpened = true;
+
+            try {
+                InputStream stream = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+                if (offset != null || length != null) {
+                    stream = new ContentRangeInputStream(stream, offset, length);
+                }
+                setStream(stream);
+            } catch (FileNotFoundException e) {
+                throw new CmisObjectNotFoundException(e.getMessage(), e);
+            }
+        }
+
+        return super.getStream();
+    }
+
+    @Override
+    public void setStream(InputStream stream) {
+        streamOpened = true;
+        super.setStream(stream);
+    }
+
+    @Override
+    public FileChannel getFileChannel() throws IOException {
+        if (streamOpened || file == null) {
+            return null;
+        }
+
+        try {
+            return new FileInputStream(file).getChannel();
+        } catch (FileNotFoundException e) {
+            throw new CmisObjectNotFoundException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public File getFile() {
+        return streamOpened ? null : file;
+    }
+
+    @Override
+    public long getFileChannelPosition() {
+        if (offset == null || offset.signum() < 0) {
+            return 0;
+        }
+
+        // like the stream, a range beyond the end of the file is empty
+        return Math.min(offset.longValue(), file.length());
+    }
+
+    @Override
+    public long getFileChannelLength() {
+        if (length == null || length.signum() < 0) {
+            return -1;
+        }
+
+        return Math.min(length.longValue(), file.length() - getFileChannelPosition());
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer() {
+        return null;
+    }
+
+    /**
+     * Content stream of a part of a file.
+     */
+    public static class Partial extends FileShareContentStream implements PartialContentStream {
+
+        private static final long serialVersionUID = 1L;
+
+        public Partial(File file, BigInteger offset, BigInteger length) {
+            super(file, offset, length);
+        }
+    }
+}
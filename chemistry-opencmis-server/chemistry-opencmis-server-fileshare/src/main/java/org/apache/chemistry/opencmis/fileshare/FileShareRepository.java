@@ -22,7 +22,6 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -106,7 +105,6 @@ import org.apache.chemistry.opencmis.commons.impl.dataobjects.AccessControlPrinc
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.AclCapabilitiesDataImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.AllowableActionsImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.BulkUpdateObjectIdAndChangeTokenImpl;
-import org.apache.chemistry.opencmis.commons.impl.dataobjects.ContentStreamImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.CreatablePropertyTypesImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.FailedToDeleteDataImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.NewTypeSettableAttributesImpl;
@@ -115,7 +113,6 @@ import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectInFolderCont
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectInFolderDataImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectInFolderListImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectParentDataImpl;
-import org.apache.chemistry.opencmis.commons.impl.dataobjects.PartialContentStreamImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.PermissionDefinitionDataImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.PermissionMappingDataImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertiesImpl;
@@ -134,6 +131,7 @@ import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.ObjectInfoHandler;
 import org.apache.chemistry.opencmis.commons.spi.Holder;
 import org.apache.chemistry.opencmis.server.impl.ServerVersion;
+import org.apache.chemistry.opencmis.server.shared.ThresholdOutputStream.ThresholdInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -630,10 +628,10 @@ public class FileShareRepository {
      * Writes the content to disc.
      */
     private void writeContent(File newFile, InputStream stream) {
-        OutputStream out = null;
+        FileOutputStream out = null;
         try {
             out = new FileOutputStream(newFile);
-            IOUtils.copy(stream, out, BUFFER_SIZE);
+            copyContent(stream, out);
         } catch (IOException e) {
             throw new CmisStorageException("Could not write content: " + e.getMessage(), e);
         } finally {
@@ -642,6 +640,19 @@ public class FileShareRepository {
         }
     }
 
+    /**
+     * Copies content to a file. Content buffered by the bindings is written
+     * to the file channel directly, a temporary file is copied by the
+     * operating system if possible.
+     */
+    private static void copyContent(InputStream in, FileOutputStream out) throws IOException {
+        if (in instanceof ThresholdInputStream) {
+            ((ThresholdInputStream) in).transferTo(out.getChannel());
+        } else {
+            IOUtils.copy(in, out, BUFFER_SIZE);
+        }
+    }
+
     /**
      * CMIS createFolder.
      */
@@ -763,7 +774,7 @@ public class FileShareRepository {
             throw new CmisContentAlreadyExistsException("Content already exists!");
         }
 
-        OutputStream out = null;
+        FileOutputStream out = null;
         InputStream in = null;
         try {
             out = new FileOutputStream(file, append);
@@ -774,7 +785,7 @@ public class FileShareRepository {
             } else {
                 // set content
                 in = contentStream.getStream();
-                IOUtils.copy(in, out, BUFFER_SIZE);
+                copyContent(in, out);
             }
         } catch (Exception e) {
             throw new CmisStorageException("Could not write content: " + e.getMessage(), e);
@@ -1128,28 +1139,11 @@ public class FileShareRepository {
             throw new CmisConstraintException("Document has no content!");
         }
 
-        InputStream stream = null;
-        try {
-            stream = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
-            if (offset != null || length != null) {
-                stream = new ContentRangeInputStream(stream, offset, length);
-            }
-        } catch (FileNotFoundException e) {
-            throw new CmisObjectNotFoundException(e.getMessage(), e);
-        }
-
         // compile data
-        ContentStreamImpl result;
-        if ((offset != null && offset.longValue() > 0) || length != null) {
-            result = new PartialContentStreamImpl();
-        } else {
-            result = new ContentStreamImpl();
-        }
-
+        FileShareContentStream result = FileShareContentStream.create(file, offset, length);
         result.setFileName(file.getName());
         result.setLength(BigInteger.valueOf(file.length()));
         result.setMimeType(MimeTypes.getMIMEType(file));
-        result.setStream(stream);
 
         return result;
     }
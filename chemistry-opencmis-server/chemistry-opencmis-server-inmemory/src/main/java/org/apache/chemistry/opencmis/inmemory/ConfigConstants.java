@@ -45,9 +45,17 @@ public final class ConfigConstants {
 
     // runtime configuration values
     public static final String MAX_CONTENT_SIZE_KB = "InMemoryServer.MaxContentSizeKB";
+    public static final String CONTENT_MEMORY_BUDGET_KB = "InMemoryServer.ContentMemoryBudgetKB";
     public static final String CLEAN_REPOSITORY_INTERVAL = "InMemoryServer.CleanIntervalMinutes";
     public static final String DEPLOYMENT_TIME = "InMemoryServer.DeploymentTime";
     public static final String PARSER_MODE = "InMemoryServer.ParserMode";
+    public static final String QUERY_INDEX_SORTED = "InMemoryServer.QueryIndex.Sorted";
+    public static final String QUERY_INDEX_HASH = "InMemoryServer.QueryIndex.Hash";
+    public static final String QUERY_CACHE_SIZE = "InMemoryServer.QueryCacheSize";
+    public static final String FULLTEXT_SEARCH_SUBSTRING = "InMemoryServer.FullTextSearch.Substring";
+    public static final String CHANGE_LOG_SIZE = "InMemoryServer.ChangeLogSize";
+    public static final String PERSISTENCE_DIR = "InMemoryServer.PersistenceDirectory";
+    public static final String SNAPSHOT_INTERVAL = "InMemoryServer.SnapshotIntervalSeconds";
 
     private ConfigConstants() {
     }
@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
 import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
@@ -50,6 +51,11 @@ public class TypeManagerImpl implements TypeManager {
      */
     private final Map<String, TypeDefinitionContainer> fTypesMap = new HashMap<String, TypeDefinitionContainer>();
 
+    /**
+     * Incremented on each change of the type system.
+     */
+    private final AtomicLong fVersion = new AtomicLong();
+
     @Override
     public TypeDefinitionContainer getTypeById(String typeId) {
         return fTypesMap.get(typeId);
@@ -132,6 +138,7 @@ public class TypeManagerImpl implements TypeManager {
         }
         // add type to type map
         fTypesMap.put(cmisType.getId(), typeContainer);
+        fVersion.incrementAndGet();
     }
 
     @Override
@@ -146,6 +153,7 @@ public class TypeManagerImpl implements TypeManager {
         TypeDefinitionContainer parentTypeContainer = fTypesMap.get(typeDef.getTypeDefinition().getParentTypeId());
         parentTypeContainer.getChildren().remove(typeDef);
         fTypesMap.remove(typeId);
+        fVersion.incrementAndGet();
     }
 
     /**
@@ -156,6 +164,18 @@ public class TypeManagerImpl implements TypeManager {
     public void clearTypeSystem() {
         fTypesMap.clear();
         createCmisDefaultTypes();
+        fVersion.incrementAndGet();
+    }
+
+    /**
+     * Get the version of the type system. The version changes whenever a type
+     * is added or deleted, so that cached data depending on the type
+     * definitions (like parsed queries) can be invalidated.
+     * 
+     * @return current version
+     */
+    public long getTypeSystemVersion() {
+        return fVersion.get();
     }
 
     @Override
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.query;
+
+import java.util.List;
+
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
+import org.apache.chemistry.opencmis.commons.enums.Cardinality;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Filing;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Folder;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ObjectStoreImpl;
+import org.apache.chemistry.opencmis.server.support.query.ColumnReference;
+import org.apache.chemistry.opencmis.server.support.query.CompiledPredicate;
+import org.apache.chemistry.opencmis.server.support.query.PredicateCompiler;
+import org.apache.chemistry.opencmis.server.support.query.PropertyAccessor;
+import org.apache.chemistry.opencmis.server.support.query.QueryObject;
+import org.apache.chemistry.opencmis.server.support.query.StringUtil;
+
+/**
+ * Compiles the WHERE clause of a query into a predicate on the stored objects
+ * of the In-Memory server. The predicate is compiled once per query and then
+ * evaluated for each candidate object.
+ */
+class InMemoryPredicateCompiler extends PredicateCompiler<StoredObject> {
+
+    private final ObjectStoreImpl objStore;
+    private final String user;
+    private final boolean cmis11;
+
+    InMemoryPredicateCompiler(QueryObject queryObj, ObjectStoreImpl objStore, String user, boolean cmis11) {
+        super(queryObj);
+        this.objStore = objStore;
+        this.user = user;
+        this.cmis11 = cmis11;
+    }
+
+    @Override
+    protected PropertyAccessor<StoredObject> getPropertyAccessor(ColumnReference colRef) {
+        final String propertyId = colRef.getPropertyId();
+        final PropertyDefinition<?> pd = colRef.getPropertyDefinition();
+        if (propertyId.startsWith("cmis:")) {
+            // system properties are not all kept in the property map
+            return new PropertyAccessor<StoredObject>() {
+                @Override
+                public Object getValue(StoredObject so) {
+                    return PropertyQueryUtil.getProperty(so, propertyId, pd, cmis11);
+                }
+            };
+        }
+        final boolean single = pd.getCardinality() == Cardinality.SINGLE;
+        return new PropertyAccessor<StoredObject>() {
+            @Override
+            public Object getValue(StoredObject so) {
+                PropertyData<?> pData = so.getProperties().get(propertyId);
+                if (null == pData) {
+                    return null;
+                }
+                return single ? pData.getFirstValue() : pData.getValues();
+            }
+        };
+    }
+
+    @Override
+    protected CompiledPredicate<StoredObject> compileInFolder(final String folderId) {
+        return new CompiledPredicate<StoredObject>() {
+            @Override
+            public boolean matches(StoredObject so) {
+                return so instanceof Filing && hasParent(so, folderId);
+            }
+        };
+    }
+
+    @Override
+    protected CompiledPredicate<StoredObject> compileInTree(final String folderId) {
+        return new CompiledPredicate<StoredObject>() {
+            @Override
+            public boolean matches(StoredObject so) {
+                return so instanceof Filing && hasAncestor(so, folderId);
+            }
+        };
+    }
+
+    @Override
+    protected CompiledPredicate<StoredObject> compileTextTerm(String term) {
+        final String pattern = StringUtil.unescape(term, "\\'-");
+        if (null == pattern) {
+            throw new CmisInvalidArgumentException("Illegal Escape sequence in text search expression " + term);
+        }
+        return new CompiledPredicate<StoredObject>() {
+            @Override
+            public boolean matches(StoredObject so) {
+                return objStore.containsText(so, pattern);
+            }
+        };
+    }
+
+    private boolean hasParent(StoredObject objInFolder, String folderId) {
+        List<String> parents = objStore.getParentIds(objInFolder, user);
+
+        for (String parentId : parents) {
+            if (folderId.equals(parentId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasAncestor(StoredObject objInFolder, String folderId) {
+        List<String> parents = objStore.getParentIds(objInFolder, user);
+
+        for (String parentId : parents) {
+            if (folderId.equals(parentId)) {
+                return true;
+            }
+        }
+        for (String parentId : parents) {
+            Folder parentFolder = (Folder) objStore.getObjectById(parentId);
+            if (hasAncestor(parentFolder, folderId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,413 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.antlr.runtime.tree.Tree;
+import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionContainer;
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.enums.Cardinality;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.DocumentVersion;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Folder;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.VersionedDocument;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ObjectStoreImpl;
+import org.apache.chemistry.opencmis.server.support.TypeManager;
+import org.apache.chemistry.opencmis.server.support.query.AbstractPredicateWalker;
+import org.apache.chemistry.opencmis.server.support.query.CmisQlStrictLexer;
+import org.apache.chemistry.opencmis.server.support.query.CmisSelector;
+import org.apache.chemistry.opencmis.server.support.query.ColumnReference;
+import org.apache.chemistry.opencmis.server.support.query.QueryObject;
+import org.apache.chemistry.opencmis.server.support.query.StringUtil;
+import org.apache.chemistry.opencmis.server.support.query.TextSearchLexer;
+
+/**
+ * Chooses the objects a query has to be evaluated on. Instead of checking all
+ * objects of the repository the planner uses the indexes of the object store:
+ * the type index for the type in the FROM clause and its sub types, the
+ * configured property indexes for {@code =}, {@code IN} and range comparisons
+ * the children of folders for {@code IN_FOLDER} and {@code IN_TREE} and the
+ * full text index for {@code CONTAINS}.
+ * <p>
+ * For each usable part of the WHERE clause the number of candidates is
+ * estimated and the cheapest one is used. The candidates are a superset of the
+ * result, every candidate still has to be checked against the complete query.
+ */
+class InMemoryQueryPlanner {
+
+    private static final int RANGE_SELECTIVITY = 3;
+
+    private final ObjectStoreImpl fObjStore;
+    private final QueryObject fQueryObj;
+    private final TypeManager fTypeManager;
+    private final AbstractPredicateWalker fLiteralWalker = new AbstractPredicateWalker() {
+    };
+
+    /**
+     * Part of a query that can be answered from an index.
+     */
+    private abstract static class Plan {
+        private int fEstimate = -1;
+
+        int getEstimate() {
+            if (fEstimate < 0) {
+                fEstimate = estimate();
+            }
+            return fEstimate;
+        }
+
+        abstract int estimate();
+
+        abstract Collection<String> getIds();
+    }
+
+    InMemoryQueryPlanner(ObjectStoreImpl objStore, QueryObject queryObj, TypeManager tm) {
+        fObjStore = objStore;
+        fQueryObj = queryObj;
+        fTypeManager = tm;
+    }
+
+    /**
+     * Get the ids of the objects a query must be evaluated on.
+     *
+     * @param td
+     *            type of the FROM clause
+     * @param whereTree
+     *            WHERE clause or {@code null}
+     * @return ids of candidates or {@code null} if all objects have to be
+     *         checked
+     */
+    Collection<String> getCandidateIds(TypeDefinition td, Tree whereTree) {
+        Plan plan = null == whereTree ? null : plan(whereTree);
+        Plan typePlan = planType(td);
+        if (null == plan || null != typePlan && typePlan.getEstimate() < plan.getEstimate()) {
+            plan = typePlan;
+        }
+        return null == plan ? null : plan.getIds();
+    }
+
+    private Plan plan(Tree node) {
+        switch (node.getType()) {
+        case CmisQlStrictLexer.AND:
+            return cheapest(plan(node.getChild(0)), plan(node.getChild(1)));
+        case CmisQlStrictLexer.OR:
+            Plan left = plan(node.getChild(0));
+            Plan right = null == left ? null : plan(node.getChild(1));
+            return null == right ? null : union(left, right);
+        case CmisQlStrictLexer.EQ:
+            return planValues(node.getChild(0), Collections.singletonList(getLiteral(node, 1)));
+        case CmisQlStrictLexer.IN:
+            Object list = fLiteralWalker.walkExpr(node.getChild(1));
+            return list instanceof List<?> ? planValues(node.getChild(0), (List<?>) list) : null;
+        case CmisQlStrictLexer.GT:
+        case CmisQlStrictLexer.GTEQ:
+            return planRange(node.getChild(0), getLiteral(node, 1), null);
+        case CmisQlStrictLexer.LT:
+        case CmisQlStrictLexer.LTEQ:
+            return planRange(node.getChild(0), null, getLiteral(node, 1));
+        case CmisQlStrictLexer.IN_FOLDER:
+            return planFolder(getLiteral(node, node.getChildCount() - 1), false);
+        case CmisQlStrictLexer.IN_TREE:
+            return planFolder(getLiteral(node, node.getChildCount() - 1), true);
+        case CmisQlStrictLexer.CONTAINS:
+            return planTextSearch(node.getChild(node.getChildCount() - 1));
+        default:
+            return null;
+        }
+    }
+
+    private Plan planTextSearch(Tree node) {
+        switch (node.getType()) {
+        case TextSearchLexer.TEXT_AND:
+            // excluded terms cannot be looked up, but the others can
+            Plan plan = null;
+            for (int i = 0; i < node.getChildCount(); i++) {
+                plan = cheapest(plan, planTextSearch(node.getChild(i)));
+            }
+            return plan;
+        case TextSearchLexer.TEXT_OR:
+            Plan union = planTextSearch(node.getChild(0));
+            for (int i = 1; i < node.getChildCount() && null != union; i++) {
+                Plan next = planTextSearch(node.getChild(i));
+                union = null == next ? null : union(union, next);
+            }
+            return union;
+        case TextSearchLexer.TEXT_SEARCH_WORD_LIT:
+            return planText(node.getText());
+        case TextSearchLexer.TEXT_SEARCH_PHRASE_STRING_LIT:
+            String phrase = node.getText();
+            return planText(phrase.substring(1, phrase.length() - 1));
+        default:
+            return null;
+        }
+    }
+
+    private Plan planText(String term) {
+        final String text = StringUtil.unescape(term, "\\'-");
+        if (null == text || fObjStore.getObjectCountContainingText(text) < 0) {
+            return null;
+        }
+        return new Plan() {
+            @Override
+            int estimate() {
+                return fObjStore.getObjectCountContainingText(text);
+            }
+
+            @Override
+            Collection<String> getIds() {
+                return fObjStore.getIdsContainingText(text);
+            }
+        };
+    }
+
+    private Object getLiteral(Tree node, int index) {
+        Tree child = node.getChild(index);
+        if (child.getType() == CmisQlStrictLexer.COL || child.getType() == CmisQlStrictLexer.ID) {
+            return null;
+        }
+        return fLiteralWalker.walkExpr(child);
+    }
+
+    /*
+     * Returns the definition of an indexed single value property or null if
+     * the column cannot be looked up in an index.
+     */
+    private PropertyDefinition<?> getIndexedProperty(Tree colNode, boolean sorted) {
+        if (colNode.getType() != CmisQlStrictLexer.COL) {
+            return null;
+        }
+        CmisSelector sel = fQueryObj.getColumnReference(colNode.getTokenStartIndex());
+        if (!(sel instanceof ColumnReference)) {
+            return null;
+        }
+        PropertyDefinition<?> pd = ((ColumnReference) sel).getPropertyDefinition();
+        if (null == pd || pd.getCardinality() != Cardinality.SINGLE
+                || !fObjStore.hasPropertyIndex(pd.getId(), sorted)) {
+            return null;
+        }
+        return pd;
+    }
+
+    /*
+     * Converts a literal to the value it is compared with, returns null if
+     * the comparison would fail anyway so that the query is evaluated as
+     * before. String literals are unescaped like in the PredicateCompiler.
+     */
+    private static Object toComparable(PropertyDefinition<?> pd, Object literal) {
+        switch (pd.getPropertyType()) {
+        case BOOLEAN:
+            return literal instanceof Boolean ? literal : null;
+        case INTEGER:
+            return literal instanceof Long ? literal : null;
+        case DECIMAL:
+            return literal instanceof Long || literal instanceof Double ? literal : null;
+        case DATETIME:
+            return literal instanceof GregorianCalendar ? literal : null;
+        case STRING:
+            if (literal instanceof String) {
+                return StringUtil.unescape((String) literal, null);
+            }
+            return null;
+        default:
+            return literal instanceof String ? literal : null;
+        }
+    }
+
+    private Plan planValues(Tree colNode, List<?> literals) {
+        final PropertyDefinition<?> pd = getIndexedProperty(colNode, false);
+        if (null == pd) {
+            return null;
+        }
+        final List<Object> values = new ArrayList<Object>(literals.size());
+        for (Object literal : literals) {
+            Object value = toComparable(pd, literal);
+            if (null == value) {
+                return null;
+            }
+            values.add(value);
+        }
+        return new Plan() {
+            @Override
+            int estimate() {
+                int count = 0;
+                for (Object value : values) {
+                    count += fObjStore.getObjectCountWithPropertyValue(pd.getId(), value);
+                }
+                return count;
+            }
+
+            @Override
+            Collection<String> getIds() {
+                if (values.size() == 1) {
+                    return fObjStore.getIdsWithPropertyValue(pd.getId(), values.get(0));
+                }
+                Set<String> ids = new LinkedHashSet<String>();
+                for (Object value : values) {
+                    ids.addAll(fObjStore.getIdsWithPropertyValue(pd.getId(), value));
+                }
+                return ids;
+            }
+        };
+    }
+
+    private Plan planRange(Tree colNode, Object lowerLiteral, Object upperLiteral) {
+        final PropertyDefinition<?> pd = getIndexedProperty(colNode, true);
+        if (null == pd) {
+            return null;
+        }
+        // bounds are inclusive, the query evaluation filters exclusive ones
+        final Object lower = null == lowerLiteral ? null : toComparable(pd, lowerLiteral);
+        final Object upper = null == upperLiteral ? null : toComparable(pd, upperLiteral);
+        if (null == lower && null == upper) {
+            return null;
+        }
+        return new Plan() {
+            @Override
+            int estimate() {
+                // without statistics assume that a third of the values match
+                return fObjStore.getObjectCountWithProperty(pd.getId()) / RANGE_SELECTIVITY;
+            }
+
+            @Override
+            Collection<String> getIds() {
+                return fObjStore.getIdsWithPropertyInRange(pd.getId(), lower, upper);
+            }
+        };
+    }
+
+    private Plan planFolder(final Object folderId, final boolean tree) {
+        if (!(folderId instanceof String)) {
+            return null;
+        }
+        return new Plan() {
+            private Set<String> fIds;
+
+            @Override
+            int estimate() {
+                // collecting the children is as expensive as counting them
+                return getIds().size();
+            }
+
+            @Override
+            Collection<String> getIds() {
+                if (null == fIds) {
+                    fIds = new LinkedHashSet<String>();
+                    addChildIds(fIds, (String) folderId, tree);
+                }
+                return fIds;
+            }
+        };
+    }
+
+    /*
+     * Documents are indexed with their version series, the query is evaluated
+     * on the versions.
+     */
+    private void addChildIds(Set<String> ids, String folderId, boolean tree) {
+        for (String id : fObjStore.getChildIds(folderId)) {
+            StoredObject so = fObjStore.getObjectById(id);
+            if (so instanceof VersionedDocument) {
+                for (DocumentVersion ver : ((VersionedDocument) so).getAllVersions()) {
+                    ids.add(ver.getId());
+                }
+            } else if (null != so && ids.add(id) && tree && so instanceof Folder) {
+                addChildIds(ids, id, true);
+            }
+        }
+    }
+
+    private Plan planType(TypeDefinition td) {
+        if (null == td || td.getBaseTypeId() == BaseTypeId.CMIS_SECONDARY) {
+            // secondary types are not stored in the type index
+            return null;
+        }
+        TypeDefinitionContainer tc = fTypeManager.getTypeById(td.getId());
+        if (null == tc) {
+            return null;
+        }
+        final List<String> typeIds = new ArrayList<String>();
+        addTypeIds(typeIds, tc);
+        return new Plan() {
+            @Override
+            int estimate() {
+                int count = 0;
+                for (String typeId : typeIds) {
+                    count += fObjStore.getObjectCountOfType(typeId);
+                }
+                return count;
+            }
+
+            @Override
+            Collection<String> getIds() {
+                if (typeIds.size() == 1) {
+                    return fObjStore.getIdsOfType(typeIds.get(0));
+                }
+                List<String> ids = new ArrayList<String>();
+                for (String typeId : typeIds) {
+                    ids.addAll(fObjStore.getIdsOfType(typeId));
+                }
+                return ids;
+            }
+        };
+    }
+
+    private static void addTypeIds(List<String> typeIds, TypeDefinitionContainer tc) {
+        typeIds.add(tc.getTypeDefinition().getId());
+        if (null != tc.getChildren()) {
+            for (TypeDefinitionContainer child : tc.getChildren()) {
+                addTypeIds(typeIds, child);
+            }
+        }
+    }
+
+    private static Plan cheapest(Plan plan1, Plan plan2) {
+        if (null == plan1) {
+            return plan2;
+        } else if (null == plan2) {
+            return plan1;
+        } else {
+            return plan1.getEstimate() <= plan2.getEstimate() ? plan1 : plan2;
+        }
+    }
+
+    private static Plan union(final Plan plan1, final Plan plan2) {
+        return new Plan() {
+            @Override
+            int estimate() {
+                return plan1.getEstimate() + plan2.getEstimate();
+            }
+
+            @Override
+            Collection<String> getIds() {
+                Set<String> ids = new LinkedHashSet<String>(plan1.getIds());
+                ids.addAll(plan2.getIds());
+                return ids;
+            }
+        };
+    }
+}
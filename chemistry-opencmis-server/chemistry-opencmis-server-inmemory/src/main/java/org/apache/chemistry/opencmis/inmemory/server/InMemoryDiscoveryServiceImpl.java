@@ -29,10 +29,10 @@ import org.apache.chemistry.opencmis.commons.data.ObjectData;
 import org.apache.chemistry.opencmis.commons.data.ObjectInFolderContainer;
 import org.apache.chemistry.opencmis.commons.data.ObjectList;
 import org.apache.chemistry.opencmis.commons.data.PolicyIdList;
-import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
 import org.apache.chemistry.opencmis.commons.enums.ChangeType;
 import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisNotSupportedException;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.ChangeEventInfoDataImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectDataImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectListImpl;
@@ -43,6 +43,8 @@ import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.ObjectInfoHandler;
 import org.apache.chemistry.opencmis.commons.spi.Holder;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoreManager;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ChangeEvent;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ObjectStoreImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,48 +59,38 @@ public class InMemoryDiscoveryServiceImpl extends InMemoryAbstractServiceImpl {
     public ObjectList getContentChanges(CallContext context, String repositoryId, Holder<String> changeLogToken,
             Boolean includeProperties, String filter, Boolean includePolicyIds, Boolean includeAcl,
             BigInteger maxItems, ExtensionsData extension, ObjectInfoHandler objectInfos) {
-        // dummy implementation using hard coded values
-        final int ITEMS_AVAILABLE = 25;
+        LOG.debug("start getContentChanges()");
+        validator.getContentChanges(context, repositoryId, extension);
 
-        int token = 0;
-        if (changeLogToken != null && changeLogToken.getValue() != null) {
-            if (!changeLogToken.getValue().startsWith("token-")) {
-                throw new CmisInvalidArgumentException("Unknown change log token!");
-            }
+        ObjectStoreImpl objStore = (ObjectStoreImpl) fStoreManager.getObjectStore(repositoryId);
+        if (!objStore.isChangeLogEnabled()) {
+            throw new CmisNotSupportedException("The change log is disabled in this repository.");
+        }
 
+        Long token = null;
+        if (changeLogToken != null && changeLogToken.getValue() != null) {
             try {
-                token = Integer.parseInt(changeLogToken.getValue().substring(6));
+                token = Long.parseLong(changeLogToken.getValue());
             } catch (NumberFormatException nfe) {
                 throw new CmisInvalidArgumentException("Unknown change log token!", nfe);
             }
-
-            if (token < 0 || token > ITEMS_AVAILABLE) {
-                throw new CmisInvalidArgumentException("Unknown change log token!");
-            }
         }
 
-        ObjectListImpl objList = new ObjectListImpl();
-        long timestamp = System.currentTimeMillis() - 60 * 1000;
-        // convert ObjectInFolderContainerList to objectList
-        List<ObjectData> lod = new ArrayList<ObjectData>();
-        if (null == maxItems) {
-            maxItems = BigInteger.valueOf(ITEMS_AVAILABLE);
-        }
-        int last = Math.min(ITEMS_AVAILABLE, token + maxItems.intValue());
+        int max = null == maxItems || maxItems.signum() < 0 ? Integer.MAX_VALUE : (int) Math.min(
+                Integer.MAX_VALUE, maxItems.longValue());
+        List<ChangeEvent> events = objStore.getContentChanges(token, max);
 
-        for (int i = token; i < last; i++) {
-            // add a dummy delete event
+        List<ObjectData> lod = new ArrayList<ObjectData>(events.size());
+        for (ChangeEvent event : events) {
             ObjectDataImpl odImpl = new ObjectDataImpl();
             PropertiesImpl props = new PropertiesImpl();
-            props.addProperty(new PropertyIdImpl(PropertyIds.OBJECT_ID, "cl-" + i));
-            props.addProperty(new PropertyIdImpl(PropertyIds.OBJECT_TYPE_ID, BaseTypeId.CMIS_DOCUMENT.value()));
-            props.addProperty(new PropertyIdImpl(PropertyIds.BASE_TYPE_ID, BaseTypeId.CMIS_DOCUMENT.value()));
+            props.addProperty(new PropertyIdImpl(PropertyIds.OBJECT_ID, event.getObjectId()));
+            props.addProperty(new PropertyIdImpl(PropertyIds.OBJECT_TYPE_ID, event.getTypeId()));
+            props.addProperty(new PropertyIdImpl(PropertyIds.BASE_TYPE_ID, event.getBaseTypeId().value()));
             odImpl.setProperties(props);
             ChangeEventInfoDataImpl changeEventInfo = new ChangeEventInfoDataImpl();
-            changeEventInfo.setChangeType(ChangeType.DELETED);
-            GregorianCalendar eventTimestamp = new GregorianCalendar();
-            eventTimestamp.setTimeInMillis(timestamp + i * 1000);
-            changeEventInfo.setChangeTime(eventTimestamp);
+            changeEventInfo.setChangeType(event.getChangeType());
+            changeEventInfo.setChangeTime(event.getChangeTime());
             odImpl.setChangeEventInfo(changeEventInfo);
             if (includePolicyIds != null && includePolicyIds) {
                 PolicyIdList policies = new PolicyIdListImpl();
@@ -107,20 +99,31 @@ public class InMemoryDiscoveryServiceImpl extends InMemoryAbstractServiceImpl {
             lod.add(odImpl);
         }
 
+        ObjectListImpl objList = new ObjectListImpl();
         objList.setObjects(lod);
-        objList.setNumItems(BigInteger.valueOf(ITEMS_AVAILABLE - token));
-        objList.setHasMoreItems(false);
+        // events are only appended, the latest token may have grown since
+        // the page was read
+        long latestToken = objStore.getLatestChangeLogToken();
+        long lastToken = latestToken;
+        if (events.isEmpty()) {
+            objList.setNumItems(BigInteger.ZERO);
+            objList.setHasMoreItems(false);
+        } else {
+            lastToken = events.get(events.size() - 1).getToken();
+            objList.setNumItems(BigInteger.valueOf(latestToken - events.get(0).getToken() + 1));
+            objList.setHasMoreItems(lastToken < latestToken);
+        }
 
-        String changeToken = "token-" + (token + lod.size() - 1);
-        if(changeLogToken != null) {
-            changeLogToken.setValue(changeToken);
+        if (changeLogToken != null) {
+            changeLogToken.setValue(lastToken < 0 ? null : Long.toString(lastToken));
         }
-        
+
         // To be able to provide all Atom links in the response we need
         // additional information:
         if (objectInfos != null) {
             fAtomLinkProvider.fillInformationForAtomLinks(context, repositoryId, null, objectInfos, objList);
         }
+        LOG.debug("stop getContentChanges()");
         return objList;
     }
 
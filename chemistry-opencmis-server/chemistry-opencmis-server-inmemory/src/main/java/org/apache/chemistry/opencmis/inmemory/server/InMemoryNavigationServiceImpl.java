@@ -21,7 +21,9 @@ package org.apache.chemistry.opencmis.inmemory.server;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.chemistry.opencmis.commons.PropertyIds;
 import org.apache.chemistry.opencmis.commons.data.AllowableActions;
@@ -263,6 +265,22 @@ public class InMemoryNavigationServiceImpl extends InMemoryAbstractServiceImpl {
         return result;
     }
 
+    /**
+     * Get the ids of the objects that have a parent visible to the user with
+     * one look up in the object store per object.
+     */
+    public Set<String> getObjectIdsWithParent(CallContext context, String repositoryId, List<String> objectIds) {
+        Set<String> result = new HashSet<String>();
+        ObjectStore objStore = fStoreManager.getObjectStore(repositoryId);
+        for (String objectId : objectIds) {
+            StoredObject so = objStore.getObjectById(objectId);
+            if (so instanceof Fileable && !objStore.getParentIds(so, context.getUsername()).isEmpty()) {
+                result.add(objectId);
+            }
+        }
+        return result;
+    }
+
     // private helpers
 
     private ObjectInFolderList getChildrenIntern(CallContext context, String repositoryId, String folderId, String filter, String orderBy,
@@ -19,7 +19,9 @@
 package org.apache.chemistry.opencmis.inmemory.server;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.chemistry.opencmis.commons.data.Acl;
 import org.apache.chemistry.opencmis.commons.data.AllowableActions;
@@ -182,6 +184,15 @@ public class InMemoryService extends AbstractCmisService {
                 includeRelationships, renditionFilter, includeRelativePathSegment, extension, this);
     }
 
+    @Override
+    protected Set<String> getObjectIdsWithParent(String repositoryId, List<ObjectData> objects) {
+        List<String> objectIds = new ArrayList<String>(objects.size());
+        for (ObjectData object : objects) {
+            objectIds.add(object.getId());
+        }
+        return fNavSvc.getObjectIdsWithParent(getCallContext(), repositoryId, objectIds);
+    }
+
     // --- object service ---
 
     @Override
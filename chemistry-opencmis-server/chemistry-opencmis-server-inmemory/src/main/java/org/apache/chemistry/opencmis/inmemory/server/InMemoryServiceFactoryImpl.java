@@ -23,11 +23,13 @@ import static org.apache.chemistry.opencmis.commons.impl.XMLUtils.next;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
@@ -79,6 +81,7 @@ public class InMemoryServiceFactoryImpl extends AbstractAsyncServiceFactory {
     private boolean fUseOverrideCtx = false;
     private StoreManager storeManager; // singleton root of everything
     private CleanManager cleanManager = null;
+    private SnapshotManager snapshotManager = null;
 
     private File tempDir;
     private int memoryThreshold;
@@ -128,10 +131,28 @@ public class InMemoryServiceFactoryImpl extends AbstractAsyncServiceFactory {
 
         boolean created = initStorageManager(parameters);
 
-        if (created) {
+        String persistenceDir = parameters.get(ConfigConstants.PERSISTENCE_DIR);
+        if (null != persistenceDir && storeManager instanceof StoreManagerImpl) {
+            snapshotManager = new SnapshotManager(new File(persistenceDir));
+        }
+
+        boolean restored = false;
+        if (created && null != snapshotManager) {
+            restored = snapshotManager.loadSnapshot(parameters.get(ConfigConstants.REPOSITORY_ID));
+        }
+
+        if (created && !restored) {
             fillRepositoryIfConfigured(parameters);
         }
 
+        if (null != snapshotManager) {
+            snapshotManager.openLog(parameters.get(ConfigConstants.REPOSITORY_ID));
+            snapshotManager.saveModifiedRepositories();
+            Long snapshotInterval = ConfigurationSettings
+                    .getConfigurationValueAsLong(ConfigConstants.SNAPSHOT_INTERVAL);
+            snapshotManager.start(null == snapshotInterval ? 0 : snapshotInterval);
+        }
+
         Long cleanInterval = ConfigurationSettings
                 .getConfigurationValueAsLong(ConfigConstants.CLEAN_REPOSITORY_INTERVAL);
         if (null != cleanInterval && cleanInterval > 0) {
@@ -190,6 +211,9 @@ public class InMemoryServiceFactoryImpl extends AbstractAsyncServiceFactory {
         if (null != cleanManager) {
             cleanManager.stopCleanRepositoryJob();
         }
+        if (null != snapshotManager) {
+            snapshotManager.stop();
+        }
 
         super.destroy();
     }
@@ -550,6 +574,138 @@ public class InMemoryServiceFactoryImpl extends AbstractAsyncServiceFactory {
         }
     }
 
+    /**
+     * Loads the repositories from snapshot files on startup and writes the
+     * snapshots of modified repositories periodically and on shutdown. The
+     * changes made after the last snapshot are written to a log, which is
+     * replayed after the snapshot has been loaded and shortened whenever a
+     * snapshot has been written. Type changes are not logged, they are saved
+     * with the next snapshot.
+     */
+    class SnapshotManager {
+
+        private static final String SNAPSHOT_SUFFIX = ".snapshot";
+        private static final String LOG_SUFFIX = ".log";
+
+        private final File directory;
+        private final Map<String, Long> savedModificationCounts = new HashMap<String, Long>();
+        private ScheduledExecutorService scheduler = null;
+
+        public SnapshotManager(File directory) {
+            this.directory = directory;
+        }
+
+        public boolean loadSnapshot(String repositoryId) {
+            File file = getSnapshotFile(repositoryId);
+            File logFile = getLogFile(repositoryId);
+            if (!file.isFile()) {
+                LOG.info("No snapshot found for repository " + repositoryId + " in " + directory);
+                if (logFile.isFile()) {
+                    LOG.warn("Ignoring log " + logFile + " without snapshot of repository " + repositoryId);
+                }
+                return false;
+            }
+
+            StoreManagerImpl sm = (StoreManagerImpl) storeManager;
+            try {
+                sm.loadSnapshot(repositoryId, file);
+                synchronized (this) {
+                    savedModificationCounts.put(repositoryId, sm.getModificationCount(repositoryId));
+                }
+                LOG.info("Repository " + repositoryId + " restored from snapshot " + file);
+                if (logFile.isFile()) {
+                    int count = sm.replayLog(repositoryId, logFile);
+                    LOG.info(count + " changes of repository " + repositoryId + " restored from log " + logFile);
+                }
+                return true;
+            } catch (IOException e) {
+                LOG.error("Could not restore repository " + repositoryId + " from snapshot " + file, e);
+                return false;
+            }
+        }
+
+        public void openLog(String repositoryId) {
+            File file = getLogFile(repositoryId);
+            try {
+                if (!directory.isDirectory() && !directory.mkdirs()) {
+                    throw new IOException("Cannot create directory " + directory);
+                }
+                ((StoreManagerImpl) storeManager).openLog(repositoryId, file);
+            } catch (IOException e) {
+                LOG.error("Could not open log " + file + ", changes of repository " + repositoryId
+                        + " after the last snapshot are lost if the server stops without a regular shutdown", e);
+            }
+        }
+
+        public synchronized void saveModifiedRepositories() {
+            StoreManagerImpl sm = (StoreManagerImpl) storeManager;
+            for (String repositoryId : sm.getAllRepositoryIds()) {
+                long count = sm.getModificationCount(repositoryId);
+                Long savedCount = savedModificationCounts.get(repositoryId);
+                if (null != savedCount && savedCount == count) {
+                    continue;
+                }
+                File file = getSnapshotFile(repositoryId);
+                try {
+                    if (!directory.isDirectory() && !directory.mkdirs()) {
+                        throw new IOException("Cannot create directory " + directory);
+                    }
+                    sm.saveSnapshot(repositoryId, file);
+                    savedModificationCounts.put(repositoryId, count);
+                    LOG.debug("Snapshot of repository " + repositoryId + " written to " + file);
+                } catch (Exception e) {
+                    LOG.error("Could not write snapshot of repository " + repositoryId + " to " + file, e);
+                }
+            }
+        }
+
+        public void start(long intervalInSeconds) {
+            if (intervalInSeconds <= 0) {
+                return;
+            }
+
+            final Runnable snapshotWriter = new Runnable() {
+                @Override
+                public void run() {
+                    saveModifiedRepositories();
+                }
+            };
+
+            LOG.info("Repository Snapshot Job starting, interval " + intervalInSeconds + " s");
+            scheduler = Executors.newScheduledThreadPool(1);
+            scheduler.scheduleWithFixedDelay(snapshotWriter, intervalInSeconds, intervalInSeconds, TimeUnit.SECONDS);
+        }
+
+        public void stop() {
+            if (null != scheduler) {
+                scheduler.shutdown();
+                try {
+                    scheduler.awaitTermination(1, TimeUnit.MINUTES);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            saveModifiedRepositories();
+
+            StoreManagerImpl sm = (StoreManagerImpl) storeManager;
+            for (String repositoryId : sm.getAllRepositoryIds()) {
+                try {
+                    sm.closeLog(repositoryId);
+                } catch (IOException e) {
+                    LOG.error("Could not close log of repository " + repositoryId, e);
+                }
+            }
+        }
+
+        private File getSnapshotFile(String repositoryId) {
+            return new File(directory, repositoryId + SNAPSHOT_SUFFIX);
+        }
+
+        private File getLogFile(String repositoryId) {
+            return new File(directory, repositoryId + LOG_SUFFIX);
+        }
+    }
+
     private void scheduleCleanRepositoryJob(long minutes) {
         cleanManager = new CleanManager();
         cleanManager.startCleanRepositoryJob(minutes);
@@ -131,6 +131,8 @@ public class InMemoryVersioningServiceImpl extends InMemoryAbstractServiceImpl {
             }
         }
         so.updateSystemBasePropertiesWhenModified(null, context.getUsername());
+        // store the committed version again to update the indexes
+        objStore.storeVersion(pwc);
         // To be able to provide all Atom links in the response we need
         // additional information:
         if (context.isObjectInfoRequired()) {
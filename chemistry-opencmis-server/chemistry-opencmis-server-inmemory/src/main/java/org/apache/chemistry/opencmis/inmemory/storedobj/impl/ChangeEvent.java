@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.util.GregorianCalendar;
+
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.enums.ChangeType;
+
+/**
+ * An entry of the change log of an {@link ObjectStoreImpl}. Events are
+ * immutable and identified by a token that increases with each recorded
+ * change.
+ */
+public final class ChangeEvent {
+
+    private final long fToken;
+    private final String fObjectId;
+    private final String fTypeId;
+    private final BaseTypeId fBaseTypeId;
+    private final ChangeType fChangeType;
+    private final long fChangeTime;
+
+    ChangeEvent(long token, String objectId, String typeId, BaseTypeId baseTypeId, ChangeType changeType,
+            long changeTime) {
+        fToken = token;
+        fObjectId = objectId;
+        fTypeId = typeId;
+        fBaseTypeId = baseTypeId;
+        fChangeType = changeType;
+        fChangeTime = changeTime;
+    }
+
+    public long getToken() {
+        return fToken;
+    }
+
+    public String getObjectId() {
+        return fObjectId;
+    }
+
+    public String getTypeId() {
+        return fTypeId;
+    }
+
+    public BaseTypeId getBaseTypeId() {
+        return fBaseTypeId;
+    }
+
+    public ChangeType getChangeType() {
+        return fChangeType;
+    }
+
+    public GregorianCalendar getChangeTime() {
+        GregorianCalendar time = new GregorianCalendar();
+        time.setTimeInMillis(fChangeTime);
+        return time;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.enums.ChangeType;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConstraintException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+
+/**
+ * Bounded, append-only log of the changes of an {@link ObjectStoreImpl}. The
+ * events are kept in a ring buffer, the token of an event is its sequence
+ * number so that the position of an event in the buffer is computed from the
+ * token. When the buffer is full the oldest event is overwritten and its
+ * token is no longer valid.
+ */
+class ChangeLog {
+
+    private final ChangeEvent[] fEvents;
+    private long fFirstToken = 0;
+    private long fNextToken = 0;
+
+    /**
+     * Create an empty change log.
+     *
+     * @param capacity
+     *            maximum number of retained events, 0 disables the log
+     */
+    ChangeLog(int capacity) {
+        fEvents = new ChangeEvent[capacity];
+    }
+
+    /**
+     * Check if changes are recorded.
+     *
+     * @return true if the log retains events
+     */
+    boolean isEnabled() {
+        return fEvents.length > 0;
+    }
+
+    /**
+     * Append an event to the log.
+     *
+     * @param objectId
+     *            id of changed object
+     * @param typeId
+     *            type id of changed object
+     * @param baseTypeId
+     *            base type id of changed object
+     * @param changeType
+     *            kind of change
+     */
+    synchronized void add(String objectId, String typeId, BaseTypeId baseTypeId, ChangeType changeType) {
+        if (!isEnabled()) {
+            return;
+        }
+        long token = fNextToken++;
+        fEvents[(int) (token % fEvents.length)] = new ChangeEvent(token, objectId, typeId, baseTypeId, changeType,
+                System.currentTimeMillis());
+        fFirstToken = Math.max(fFirstToken, fNextToken - fEvents.length);
+    }
+
+    /**
+     * Get the token of the oldest retained event.
+     *
+     * @return token of the oldest event, equal to the next token if the log
+     *         is empty
+     */
+    synchronized long getFirstToken() {
+        return fFirstToken;
+    }
+
+    /**
+     * Get the token of the latest event.
+     *
+     * @return token of the latest event or -1 if no event was ever recorded
+     */
+    synchronized long getLatestToken() {
+        return fNextToken - 1;
+    }
+
+    /**
+     * Get the events starting with an event.
+     *
+     * @param token
+     *            token of the first event to return or {@code null} to start
+     *            with the oldest retained event
+     * @param maxItems
+     *            maximum number of events to return
+     * @return list of events in the order they were recorded
+     */
+    synchronized List<ChangeEvent> getEvents(Long token, int maxItems) {
+        long first = null == token ? fFirstToken : token.longValue();
+        if (first < 0 || first > fNextToken) {
+            throw new CmisInvalidArgumentException("Unknown change log token: " + token);
+        } else if (first < fFirstToken) {
+            throw new CmisConstraintException("Change log token " + token + " is no longer available.");
+        }
+        long end = Math.min(fNextToken, first + Math.max(maxItems, 0));
+        if (end <= first) {
+            return Collections.emptyList();
+        }
+        List<ChangeEvent> result = new ArrayList<ChangeEvent>((int) (end - first));
+        for (long i = first; i < end; i++) {
+            result.add(fEvents[(int) (i % fEvents.length)]);
+        }
+        return result;
+    }
+
+    /**
+     * Remove all events. Tokens are not reused, the tokens of the removed
+     * events are no longer valid.
+     */
+    synchronized void clear() {
+        for (int i = 0; i < fEvents.length; i++) {
+            fEvents[i] = null;
+        }
+        fFirstToken = fNextToken;
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
+
+/**
+ * Index from a folder id to the ids of the objects filed in this folder. The
+ * index is maintained by the {@link ObjectStoreImpl} whenever the hierarchy
+ * changes so that children of a folder can be found without iterating over all
+ * objects of the repository.
+ * <p>
+ * Versioned documents are indexed with the id of the version series, the
+ * version to return is chosen when the children are read. In addition each
+ * folder keeps a lazily built list of its children ordered by name (one for
+ * the private working copy and one for the latest version view) that is
+ * dropped whenever a child is added, removed or renamed.
+ * <p>
+ * For path lookups and name conflict checks each folder maps the names of its
+ * children to their ids. A child may be registered with more than one name
+ * (the latest version and the private working copy of a versioned document
+ * can have different names), so callers must verify the name of the object
+ * they find.
+ */
+class ChildrenIndex {
+
+    private final ConcurrentMap<String, Entry> fEntries = new ConcurrentHashMap<String, Entry>();
+
+    /**
+     * Ordered snapshot of the children of a folder. {@code filed} contains the
+     * objects as stored in the index (version series for versioned documents)
+     * and {@code names} the name of the child each one was sorted with.
+     * {@code verifiedNameChanges} is the rename count of
+     * {@link StoredObjectImpl#getNameChangeCount()} up to which the names are
+     * known to be current.
+     */
+    static final class OrderedChildren {
+        private final StoredObject[] fFiled;
+        private final String[] fNames;
+        private volatile long fVerifiedNameChanges;
+
+        OrderedChildren(StoredObject[] filed, String[] names, long verifiedNameChanges) {
+            fFiled = filed;
+            fNames = names;
+            fVerifiedNameChanges = verifiedNameChanges;
+        }
+
+        long getVerifiedNameChanges() {
+            return fVerifiedNameChanges;
+        }
+
+        void setVerifiedNameChanges(long verifiedNameChanges) {
+            fVerifiedNameChanges = verifiedNameChanges;
+        }
+
+        int size() {
+            return fFiled.length;
+        }
+
+        StoredObject getFiled(int index) {
+            return fFiled[index];
+        }
+
+        String getName(int index) {
+            return fNames[index];
+        }
+    }
+
+    private static final class Entry {
+        private final Set<String> fChildIds = new LinkedHashSet<String>();
+        private final Map<String, String[]> fNamesById = new HashMap<String, String[]>();
+        private final Map<String, Object> fIdsByName = new ConcurrentHashMap<String, Object>();
+        private final OrderedChildren[] fOrdered = new OrderedChildren[2];
+        private int fModCount = 0;
+
+        synchronized void add(String childId, String[] names) {
+            fChildIds.add(childId);
+            setNames(childId, names);
+            invalidate();
+        }
+
+        synchronized void remove(String childId) {
+            if (fChildIds.remove(childId)) {
+                setNames(childId, null);
+                invalidate();
+            }
+        }
+
+        synchronized void rename(String childId, String[] names) {
+            if (fChildIds.contains(childId)) {
+                setNames(childId, names);
+                invalidate();
+            }
+        }
+
+        // not synchronized, path lookups must not block each other
+        List<String> getChildIds(String name) {
+            Object ids = fIdsByName.get(name);
+            if (null == ids) {
+                return Collections.emptyList();
+            } else if (ids instanceof String) {
+                return Collections.singletonList((String) ids);
+            } else {
+                return Arrays.asList((String[]) ids);
+            }
+        }
+
+        /*
+         * Names are almost always unique within a folder. To keep the index
+         * small a name maps to a single id and only switches to an array if a
+         * second child claims the same name. Arrays are never modified after
+         * they have been published.
+         */
+        private void setNames(String childId, String[] names) {
+            String[] oldNames = null == names ? fNamesById.remove(childId) : fNamesById.put(childId, names);
+            if (null != oldNames) {
+                for (String name : oldNames) {
+                    if (null != names && Arrays.asList(names).contains(name)) {
+                        continue; // keep it visible for concurrent readers
+                    }
+                    Object ids = fIdsByName.get(name);
+                    if (childId.equals(ids)) {
+                        fIdsByName.remove(name);
+                    } else if (ids instanceof String[]) {
+                        List<String> idList = new ArrayList<String>(Arrays.asList((String[]) ids));
+                        idList.remove(childId);
+                        if (idList.size() == 1) {
+                            fIdsByName.put(name, idList.get(0));
+                        } else {
+                            fIdsByName.put(name, idList.toArray(new String[idList.size()]));
+                        }
+                    }
+                }
+            }
+            if (null != names) {
+                for (String name : names) {
+                    Object ids = fIdsByName.get(name);
+                    if (null == ids) {
+                        fIdsByName.put(name, childId);
+                    } else if (ids instanceof String) {
+                        if (!childId.equals(ids)) {
+                            fIdsByName.put(name, new String[] { (String) ids, childId });
+                        }
+                    } else if (!Arrays.asList((String[]) ids).contains(childId)) {
+                        String[] idArray = Arrays.copyOf((String[]) ids, ((String[]) ids).length + 1);
+                        idArray[idArray.length - 1] = childId;
+                        fIdsByName.put(name, idArray);
+                    }
+                }
+            }
+        }
+
+        synchronized List<String> getChildIds() {
+            return new ArrayList<String>(fChildIds);
+        }
+
+        synchronized int getModCount() {
+            return fModCount;
+        }
+
+        synchronized OrderedChildren getOrdered(boolean usePwc) {
+            return fOrdered[usePwc ? 1 : 0];
+        }
+
+        synchronized void setOrdered(boolean usePwc, OrderedChildren ordered, int modCount) {
+            if (modCount == fModCount) {
+                fOrdered[usePwc ? 1 : 0] = ordered;
+            }
+        }
+
+        synchronized void invalidate() {
+            fModCount++;
+            fOrdered[0] = null;
+            fOrdered[1] = null;
+        }
+    }
+
+    /**
+     * Add an object to the children of a folder.
+     *
+     * @param folderId
+     *            id of parent folder
+     * @param childId
+     *            id of the filed object
+     * @param names
+     *            names the child can be found with
+     */
+    void addChild(String folderId, String childId, String[] names) {
+        Entry entry = fEntries.get(folderId);
+        if (null == entry) {
+            Entry newEntry = new Entry();
+            entry = fEntries.putIfAbsent(folderId, newEntry);
+            if (null == entry) {
+                entry = newEntry;
+            }
+        }
+        entry.add(childId, names);
+    }
+
+    /**
+     * Remove an object from the children of a folder.
+     *
+     * @param folderId
+     *            id of parent folder
+     * @param childId
+     *            id of the filed object
+     */
+    void removeChild(String folderId, String childId) {
+        Entry entry = fEntries.get(folderId);
+        if (null != entry) {
+            entry.remove(childId);
+        }
+    }
+
+    /**
+     * Remove all information about a folder that has been deleted.
+     *
+     * @param folderId
+     *            id of deleted folder
+     */
+    void removeFolder(String folderId) {
+        fEntries.remove(folderId);
+    }
+
+    /**
+     * Update the names of a child, for example after a rename or after a new
+     * version has been created. This also drops the ordered children of the
+     * folder.
+     *
+     * @param folderId
+     *            id of parent folder
+     * @param childId
+     *            id of the filed object
+     * @param names
+     *            names the child can be found with
+     */
+    void renameChild(String folderId, String childId, String[] names) {
+        Entry entry = fEntries.get(folderId);
+        if (null != entry) {
+            entry.rename(childId, names);
+        }
+    }
+
+    /**
+     * Drop the ordered children of a folder, for example because a child was
+     * renamed without the index being updated.
+     *
+     * @param folderId
+     *            id of parent folder
+     */
+    void invalidateOrder(String folderId) {
+        Entry entry = fEntries.get(folderId);
+        if (null != entry) {
+            entry.invalidate();
+        }
+    }
+
+    /**
+     * Get a copy of the ids of all objects filed in a folder.
+     *
+     * @param folderId
+     *            id of parent folder
+     * @return list of child ids in no particular order
+     */
+    List<String> getChildIds(String folderId) {
+        Entry entry = fEntries.get(folderId);
+        if (null == entry) {
+            return Collections.emptyList();
+        }
+        return entry.getChildIds();
+    }
+
+    /**
+     * Get the ids of the objects in a folder that have been registered with a
+     * name.
+     *
+     * @param folderId
+     *            id of parent folder
+     * @param name
+     *            name of child
+     * @return list of candidate child ids, usually zero or one
+     */
+    List<String> getChildIds(String folderId, String name) {
+        Entry entry = fEntries.get(folderId);
+        if (null == entry) {
+            return Collections.emptyList();
+        }
+        return entry.getChildIds(name);
+    }
+
+    /**
+     * Get the modification counter of a folder. Must be read before the
+     * children are ordered and be passed to
+     * {@link #setOrdered(String, boolean, OrderedChildren, int)}.
+     *
+     * @param folderId
+     *            id of parent folder
+     * @return modification counter
+     */
+    int getModCount(String folderId) {
+        Entry entry = fEntries.get(folderId);
+        return null == entry ? 0 : entry.getModCount();
+    }
+
+    /**
+     * Get the ordered children of a folder if they are available.
+     *
+     * @param folderId
+     *            id of parent folder
+     * @param usePwc
+     *            if true the order of private working copies is returned
+     *            otherwise the one of latest versions
+     * @return ordered children or {@code null} if they must be rebuilt
+     */
+    OrderedChildren getOrdered(String folderId, boolean usePwc) {
+        Entry entry = fEntries.get(folderId);
+        return null == entry ? null : entry.getOrdered(usePwc);
+    }
+
+    /**
+     * Remember the ordered children of a folder. The order is ignored if the
+     * folder has changed since {@code modCount} was read.
+     *
+     * @param folderId
+     *            id of parent folder
+     * @param usePwc
+     *            if true the order of private working copies is set
+     *            otherwise the one of latest versions
+     * @param ordered
+     *            ordered children
+     * @param modCount
+     *            modification counter the order was built from
+     */
+    void setOrdered(String folderId, boolean usePwc, OrderedChildren ordered, int modCount) {
+        Entry entry = fEntries.get(folderId);
+        if (null != entry) {
+            entry.setOrdered(usePwc, ordered, modCount);
+        }
+    }
+
+    /**
+     * Remove all entries.
+     */
+    void clear() {
+        fEntries.clear();
+    }
+}
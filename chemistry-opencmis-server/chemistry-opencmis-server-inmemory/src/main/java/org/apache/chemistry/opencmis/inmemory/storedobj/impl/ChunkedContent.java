@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only byte store for the content of a document. The bytes are kept in
+ * a list of chunks so that appending does not copy the existing content, and
+ * streams read directly from the chunks without copying them. Bytes are never
+ * changed after they were appended, so streams opened before an append keep
+ * returning the bytes that were stored when they were opened.
+ */
+class ChunkedContent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Maximum size of a chunk. Smaller chunks are allocated while the content
+     * is small so that small documents do not waste memory.
+     */
+    static final int MAX_CHUNK_SIZE = 0x10000;
+
+    private final List<byte[]> fChunks = new ArrayList<byte[]>();
+    private final List<Long> fChunkOffsets = new ArrayList<Long>();
+    private long fLength = 0;
+
+    /**
+     * Append bytes to the content.
+     *
+     * @param buffer
+     *            buffer containing the bytes
+     * @param offset
+     *            offset of the first byte in the buffer
+     * @param len
+     *            number of bytes to append
+     */
+    synchronized void append(byte[] buffer, int offset, int len) {
+        while (len > 0) {
+            int last = fChunks.size() - 1;
+            int used = last < 0 ? 0 : (int) (fLength - fChunkOffsets.get(last));
+            byte[] chunk = last < 0 ? null : fChunks.get(last);
+            if (null == chunk || used == chunk.length) {
+                // grow chunk sizes with the content up to the maximum size
+                chunk = new byte[(int) Math.min(MAX_CHUNK_SIZE, Math.max(len, fLength))];
+                fChunks.add(chunk);
+                fChunkOffsets.add(fLength);
+                used = 0;
+            }
+            int count = Math.min(len, chunk.length - used);
+            System.arraycopy(buffer, offset, chunk, used, count);
+            fLength += count;
+            offset += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Get the number of stored bytes.
+     *
+     * @return length of content
+     */
+    synchronized long getLength() {
+        return fLength;
+    }
+
+    /**
+     * Remove the bytes after a position. Only bytes that were never visible
+     * to readers may be removed, because the next append overwrites them.
+     *
+     * @param length
+     *            new length of content
+     */
+    synchronized void truncate(long length) {
+        if (length >= fLength) {
+            return;
+        }
+        while (fChunkOffsets.size() > 1 && fChunkOffsets.get(fChunkOffsets.size() - 1) >= length) {
+            fChunks.remove(fChunks.size() - 1);
+            fChunkOffsets.remove(fChunkOffsets.size() - 1);
+        }
+        fLength = Math.max(0, length);
+    }
+
+    /**
+     * Open a stream on a range of the content.
+     *
+     * @param offset
+     *            offset of the first byte to read
+     * @param length
+     *            number of bytes to read, limited to the stored bytes
+     * @return stream reading from the chunks
+     */
+    InputStream getStream(long offset, long length) {
+        long start = Math.max(0, offset);
+        long end = Math.min(getLength(), start + Math.max(0, length));
+        return new ChunkInputStream(start, Math.max(start, end));
+    }
+
+    /**
+     * Copy the beginning of the content into a single array.
+     *
+     * @param length
+     *            number of bytes to copy, limited to the stored bytes
+     * @return copy of content
+     */
+    synchronized byte[] toByteArray(long length) {
+        int size = (int) Math.max(0, Math.min(length, fLength));
+        byte[] result = new byte[size];
+        for (int i = 0; i < fChunks.size() && fChunkOffsets.get(i) < size; i++) {
+            int offset = fChunkOffsets.get(i).intValue();
+            System.arraycopy(fChunks.get(i), 0, result, offset, Math.min(fChunks.get(i).length, size - offset));
+        }
+        return result;
+    }
+
+    /**
+     * Get the index of the chunk containing a byte.
+     */
+    private synchronized int getChunkIndex(long position) {
+        int low = 0;
+        int high = fChunkOffsets.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (fChunkOffsets.get(mid) <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private synchronized byte[] getChunk(int index) {
+        return fChunks.get(index);
+    }
+
+    private synchronized long getChunkOffset(int index) {
+        return fChunkOffsets.get(index);
+    }
+
+    /**
+     * Stream reading a range of the chunks.
+     */
+    private class ChunkInputStream extends InputStream {
+
+        private final long fEnd;
+        private long fPosition;
+        private long fMark;
+        private int fChunkIndex = -1;
+        private byte[] fChunk;
+        private long fChunkStart;
+
+        ChunkInputStream(long start, long end) {
+            fPosition = start;
+            fMark = start;
+            fEnd = end;
+        }
+
+        @Override
+        public int read() {
+            if (fPosition >= fEnd) {
+                return -1;
+            }
+            int pos = seek();
+            fPosition++;
+            return fChunk[pos] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (fPosition >= fEnd) {
+                return -1;
+            }
+            int pos = seek();
+            int count = (int) Math.min(len, Math.min(fChunk.length - pos, fEnd - fPosition));
+            System.arraycopy(fChunk, pos, b, off, count);
+            fPosition += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            long count = Math.max(0, Math.min(n, fEnd - fPosition));
+            fPosition += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, fEnd - fPosition);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            fMark = fPosition;
+        }
+
+        @Override
+        public synchronized void reset() {
+            fPosition = fMark;
+        }
+
+        /**
+         * Select the chunk containing the current position.
+         *
+         * @return position in the current chunk
+         */
+        private int seek() {
+            if (null == fChunk || fPosition < fChunkStart || fPosition >= fChunkStart + fChunk.length) {
+                if (null != fChunk && fPosition == fChunkStart + fChunk.length) {
+                    fChunkIndex++; // sequential read
+                } else {
+                    fChunkIndex = getChunkIndex(fPosition);
+                }
+                fChunk = getChunk(fChunkIndex);
+                fChunkStart = getChunkOffset(fChunkIndex);
+            }
+            return (int) (fPosition - fChunkStart);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import org.apache.chemistry.opencmis.commons.exceptions.CmisStorageException;
+
+/**
+ * Memory budget for the content of the documents of a repository. Content
+ * reserves memory while it is read and releases it when it is replaced or
+ * the document is deleted.
+ */
+class ContentBudget {
+
+    private static final int SIZE_KB = 1024;
+
+    private final long fLimit;
+    private long fUsed = 0;
+
+    /**
+     * Create a budget.
+     *
+     * @param limitKB
+     *            maximum size of all content in KB, 0 or less for no limit
+     */
+    ContentBudget(long limitKB) {
+        fLimit = limitKB > 0 ? limitKB * SIZE_KB : 0;
+    }
+
+    /**
+     * Reserve memory for content.
+     *
+     * @param bytes
+     *            number of bytes
+     */
+    synchronized void reserve(long bytes) {
+        if (fLimit > 0 && fUsed + bytes > fLimit) {
+            throw new CmisStorageException("Content exceeds the memory budget of " + (fLimit / SIZE_KB)
+                    + "KB of the repository.");
+        }
+        fUsed += bytes;
+    }
+
+    /**
+     * Release memory reserved before.
+     *
+     * @param bytes
+     *            number of bytes
+     */
+    synchronized void release(long bytes) {
+        fUsed = Math.max(0, fUsed - bytes);
+    }
+
+    /**
+     * Get the reserved memory.
+     *
+     * @return number of reserved bytes
+     */
+    synchronized long getUsed() {
+        return fUsed;
+    }
+
+    /**
+     * Release all memory, used when the repository is cleared.
+     */
+    synchronized void clear() {
+        fUsed = 0;
+    }
+}
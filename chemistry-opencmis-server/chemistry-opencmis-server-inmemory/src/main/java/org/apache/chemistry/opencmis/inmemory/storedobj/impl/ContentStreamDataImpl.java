@@ -21,10 +21,10 @@ package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
  *
  */
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
 import java.util.GregorianCalendar;
 import java.util.List;
@@ -33,10 +33,13 @@ import org.apache.chemistry.opencmis.commons.data.CmisExtensionElement;
 import org.apache.chemistry.opencmis.commons.data.ContentStream;
 import org.apache.chemistry.opencmis.commons.data.LastModifiedContentStream;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class ContentStreamDataImpl implements LastModifiedContentStream {
+public class ContentStreamDataImpl implements LastModifiedContentStream, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static final int SIZE_KB = 1024;
 
@@ -53,10 +56,17 @@ public class ContentStreamDataImpl implements LastModifiedContentStream {
 
     private String fFileName;
 
-    private byte[] fContent;
+    private ChunkedContent fContent;
 
     private GregorianCalendar fLastModified;
 
+    /**
+     * Incremented when the content is replaced or the MIME type changes,
+     * tells the full text index when the terms must be read again. Appended
+     * content does not change it, the index reads only the new bytes.
+     */
+    private transient long fTextVersion;
+
     private long fStreamLimitOffset;
 
     private long fStreamLimitLength;
@@ -65,6 +75,14 @@ public class ContentStreamDataImpl implements LastModifiedContentStream {
     
     private final boolean doNotStoreContent;
 
+    /**
+     * Memory budget of the repository, {@code null} if the content is not
+     * charged to a repository.
+     */
+    private transient ContentBudget fBudget;
+
+    private transient long fReserved;
+
     private static synchronized long getTotalLength() {
         return totalLength;
     }
@@ -86,44 +104,32 @@ public class ContentStreamDataImpl implements LastModifiedContentStream {
     }
 
     public ContentStreamDataImpl(long maxAllowedContentSizeKB) {
-        sizeLimitKB = maxAllowedContentSizeKB;
-        fLength = 0;
-        doNotStoreContent = false;
+        this(maxAllowedContentSizeKB, false);
     }
 
     public ContentStreamDataImpl(long maxAllowedContentSizeKB, boolean doNotStore) {
+        this(maxAllowedContentSizeKB, doNotStore, null);
+    }
+
+    ContentStreamDataImpl(long maxAllowedContentSizeKB, boolean doNotStore, ContentBudget budget) {
         sizeLimitKB = maxAllowedContentSizeKB;
         fLength = 0;
         doNotStoreContent = doNotStore;
+        fBudget = doNotStore ? null : budget;
     }
 
     public void setContent(InputStream in) throws IOException {
         fStreamLimitOffset = -1;
         fStreamLimitLength = -1;
-        if (null == in) {
-            fContent = null; // delete content
-            fLength = 0;
-        } else {
-            byte[] buffer = new byte[BUFFER_SIZE];
-            ByteArrayOutputStream contentStream = new ByteArrayOutputStream();
-            int len = in.read(buffer);
-            while (len != -1) {
-                if (!doNotStoreContent) {
-                    contentStream.write(buffer, 0, len);
-                }
-                fLength += len;
-                if (sizeLimitKB > 0 && fLength > sizeLimitKB * SIZE_KB) {
-                    throw new CmisInvalidArgumentException("Content size exceeds max. allowed size of " + sizeLimitKB
-                            + "KB.");
-                }
-                len = in.read(buffer);
-            }
+        fTextVersion++;
+        releaseBudget();
+        fContent = null;
+        fLength = 0;
+        if (null != in) {
             if (!doNotStoreContent) {
-                fContent = contentStream.toByteArray();
-                fLength = contentStream.size();
+                fContent = new ChunkedContent();
             }
-            contentStream.close();
-            in.close();
+            readContent(in);
         }
         increaseTotalLength(fLength);
         increaseTotalCalls();
@@ -135,38 +141,88 @@ public class ContentStreamDataImpl implements LastModifiedContentStream {
 
         if (null == is) {
             return; // nothing to do
-        } else {
-            byte[] buffer = new byte[BUFFER_SIZE];
-            ByteArrayOutputStream contentStream = new ByteArrayOutputStream();
-
-            // first read existing stream
-            if (!doNotStoreContent) {
-                contentStream.write(fContent);
-            }
-            decreaseTotalLength(fLength);
+        }
+        if (!doNotStoreContent && null == fContent) {
+            fContent = new ChunkedContent();
+        }
+        long oldLength = fLength;
+        readContent(is);
+        increaseTotalLength(fLength - oldLength);
+        increaseTotalCalls();
+        LOG.debug("setting content stream, total no calls " + getTotalCalls() + ".");
+        LOG.debug("setting content stream, new size total " + (getTotalLength() / (SIZE_KB * SIZE_KB)) + "MB.");
+    }
 
-            // then append new content
-            int len = is.read(buffer);
+    /**
+     * Append a stream to the chunks of the content. The new bytes become
+     * visible when the stream was read completely, if the stream exceeds the
+     * size limit or the memory budget they are removed again.
+     */
+    private void readContent(InputStream in) throws IOException {
+        long length = fLength;
+        long reserved = 0;
+        boolean done = false;
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int len = in.read(buffer);
             while (len != -1) {
-                contentStream.write(buffer, 0, len);
-                fLength += len;
-                if (sizeLimitKB > 0 && fLength > sizeLimitKB * SIZE_KB) {
+                length += len;
+                if (sizeLimitKB > 0 && length > sizeLimitKB * SIZE_KB) {
                     throw new CmisInvalidArgumentException("Content size exceeds max. allowed size of " + sizeLimitKB
                             + "KB.");
                 }
-                len = is.read(buffer);
+                if (null != fBudget) {
+                    fBudget.reserve(len);
+                    reserved += len;
+                }
+                if (null != fContent) {
+                    fContent.append(buffer, 0, len);
+                }
+                len = in.read(buffer);
             }
-            if (!doNotStoreContent) {
-                fContent = contentStream.toByteArray();
+            done = true;
+        } finally {
+            if (done) {
+                fLength = length;
+                fReserved += reserved;
+            } else {
+                if (null != fContent) {
+                    fContent.truncate(fLength);
+                }
+                if (null != fBudget) {
+                    fBudget.release(reserved);
+                }
             }
-            fLength = contentStream.size();
-            contentStream.close();
-            is.close();
+            in.close();
         }
-        increaseTotalLength(fLength);
-        increaseTotalCalls();
-        LOG.debug("setting content stream, total no calls " + getTotalCalls() + ".");
-        LOG.debug("setting content stream, new size total " + (getTotalLength() / (SIZE_KB * SIZE_KB)) + "MB.");
+    }
+
+    /**
+     * Charge the content to the budget of a repository, used for content
+     * restored from a snapshot.
+     * 
+     * @param budget
+     *            memory budget of the repository
+     */
+    void attachBudget(ContentBudget budget) {
+        releaseBudget();
+        fBudget = doNotStoreContent ? null : budget;
+        if (null != fBudget && null != fContent) {
+            fBudget.reserve(fLength);
+            fReserved = fLength;
+        }
+    }
+
+    /**
+     * Release the memory of the content from the budget of the repository.
+     * Called when the content is no longer used by a document, calling it
+     * again has no effect.
+     */
+    void releaseBudget() {
+        if (null != fBudget) {
+            fBudget.release(fReserved);
+        }
+        fReserved = 0;
     }
 
     @Override
@@ -186,6 +242,7 @@ public class ContentStreamDataImpl implements LastModifiedContentStream {
 
     public void setMimeType(String mimeType) {
         this.fMimeType = mimeType;
+        fTextVersion++;
     }
 
     @Override
@@ -210,10 +267,10 @@ public class ContentStreamDataImpl implements LastModifiedContentStream {
         if (null == fContent) {
             return null;
         } else if (fStreamLimitOffset <= 0 && fStreamLimitLength < 0) {
-                return new ByteArrayInputStream(fContent);
-        } else {            
-            return new ByteArrayInputStream(fContent, (int) (fStreamLimitOffset < 0 ? 0 : fStreamLimitOffset),
-                    (int) (fStreamLimitLength < 0 ? fLength : fStreamLimitLength));
+            return fContent.getStream(0, fLength);
+        } else {
+            return fContent.getStream(fStreamLimitOffset < 0 ? 0 : fStreamLimitOffset,
+                    fStreamLimitLength < 0 ? fLength : fStreamLimitLength);
         }
     }
 
@@ -238,8 +295,62 @@ public class ContentStreamDataImpl implements LastModifiedContentStream {
         return clone;
     }
 
+    /**
+     * Get a copy of the content.
+     * 
+     * @return content as one array or {@code null} if there is no content
+     */
     public final byte[] getBytes() {
-        return fContent;
+        return null == fContent ? null : fContent.toByteArray(fLength);
+    }
+
+    private boolean isText() {
+        return null != fMimeType && fMimeType.startsWith("text/");
+    }
+
+    /**
+     * Get the version of the content for the full text index. The version
+     * changes whenever the terms read before may have changed, it does not
+     * change when content is appended.
+     * 
+     * @return version of the content
+     */
+    long getTextVersion() {
+        return fTextVersion;
+    }
+
+    /**
+     * Get the text content for the full text index.
+     * 
+     * @param offset
+     *            number of bytes to skip, the length indexed before
+     * @return stream of the content after the offset or {@code null} if the
+     *         content is not text
+     */
+    InputStream getTextStream(long offset) {
+        if (!isText() || null == fContent) {
+            return null;
+        }
+        return fContent.getStream(offset, fLength - offset);
+    }
+
+    /**
+     * Check if text content contains a string. Case sensitive, the string
+     * may start or end in the middle of a word.
+     * 
+     * @param text
+     *            string to search
+     * @return true if found, always false if the content is not text
+     */
+    boolean containsSubstring(String text) {
+        if (!isText() || null == fContent) {
+            return false;
+        }
+        try {
+            return new String(getBytes(), "UTF-8").indexOf(text) >= 0;
+        } catch (UnsupportedEncodingException e) {
+            throw new CmisRuntimeException("Internal error: Unsupported encoding UTF-8", e);
+        }
     }
 
     @Override
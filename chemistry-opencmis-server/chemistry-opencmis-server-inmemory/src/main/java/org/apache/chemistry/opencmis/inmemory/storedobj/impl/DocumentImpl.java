@@ -36,6 +36,8 @@ import org.slf4j.LoggerFactory;
  */
 
 public class DocumentImpl extends FilingImpl implements Document {
+
+    private static final long serialVersionUID = 1L;
     private ContentStream fContent;
 
     private static final Logger LOG = LoggerFactory.getLogger(DocumentImpl.class.getName());
@@ -40,6 +40,8 @@ import org.apache.chemistry.opencmis.inmemory.storedobj.api.VersionedDocument;
  */
 public class DocumentVersionImpl extends StoredObjectImpl implements DocumentVersion, MultiFiling {
 
+    private static final long serialVersionUID = 1L;
+
     private static final Long MAX_CONTENT_SIZE_KB = ConfigurationSettings
             .getConfigurationValueAsLong(ConfigConstants.MAX_CONTENT_SIZE_KB);
 
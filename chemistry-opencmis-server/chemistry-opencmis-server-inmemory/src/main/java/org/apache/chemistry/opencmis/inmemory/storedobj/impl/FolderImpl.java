@@ -36,6 +36,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class FolderImpl extends StoredObjectImpl implements Folder {
+
+    private static final long serialVersionUID = 1L;
     private static final Logger LOG = LoggerFactory.getLogger(FilingImpl.class.getName());
     private String parentId;
 
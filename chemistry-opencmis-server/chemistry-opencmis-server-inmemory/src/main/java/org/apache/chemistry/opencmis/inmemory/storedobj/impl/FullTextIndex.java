@@ -0,0 +1,377 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from the terms of the text content of documents to the ids
+ * of the documents containing them. Used by the {@link ObjectStoreImpl} to
+ * answer CONTAINS() queries without reading the content of the documents.
+ * The positions of the terms in a document are kept so that phrases are
+ * checked from the index too.
+ * <p>
+ * Content that is appended to a document is split into terms without
+ * reading the content indexed before, the term at the end of the content is
+ * kept open until the next part shows whether it continues, see
+ * {@link TextTokenizer}.
+ */
+class FullTextIndex {
+
+    private final Map<String, Set<String>> fIdsByTerm = new HashMap<String, Set<String>>();
+    private final Map<String, Entry> fEntriesById = new HashMap<String, Entry>();
+
+    /**
+     * Get the length of a content that is already indexed.
+     *
+     * @param id
+     *            id of document
+     * @param content
+     *            content of the document
+     * @param version
+     *            version of the content, changes when the content is
+     *            replaced
+     * @return number of bytes indexed or -1 if the content in this version
+     *         was not indexed for the document
+     */
+    synchronized long getIndexedLength(String id, Object content, long version) {
+        Entry entry = fEntriesById.get(id);
+        if (null == entry || entry.fContent != content || entry.fVersion != version) {
+            return -1;
+        }
+        return entry.getLength();
+    }
+
+    /**
+     * Index the content of a document replacing the terms indexed before.
+     * The content is read before the index is locked.
+     *
+     * @param id
+     *            id of document
+     * @param content
+     *            content the text is read from
+     * @param version
+     *            version of the content
+     * @param in
+     *            text of the content, closed when done, {@code null} to
+     *            remove the document from the index
+     * @throws IOException
+     *             if the text cannot be read
+     */
+    void put(String id, Object content, long version, InputStream in) throws IOException {
+        Entry entry = null;
+        if (null != in) {
+            entry = new Entry(content, version);
+            entry.tokenizePart(in);
+        }
+        synchronized (this) {
+            Entry oldEntry = null == entry ? fEntriesById.remove(id) : fEntriesById.put(id, entry);
+            if (null != oldEntry) {
+                for (String term : oldEntry.getTerms()) {
+                    if (null == entry || !entry.hasTerm(term)) {
+                        removeId(term, id);
+                    }
+                }
+            }
+            if (null != entry) {
+                for (String term : entry.getTerms()) {
+                    addId(term, id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Index content appended to a document. Only the new part of the content
+     * is read, it continues the term at the end of the content indexed
+     * before.
+     *
+     * @param id
+     *            id of document
+     * @param in
+     *            text appended to the content, closed when done
+     * @throws IOException
+     *             if the text cannot be read, the document is removed from
+     *             the index then
+     */
+    synchronized void append(String id, InputStream in) throws IOException {
+        Entry entry = fEntriesById.get(id);
+        if (null == entry) {
+            in.close();
+            return;
+        }
+        String oldOpenTerm = entry.getOpenTerm();
+        List<String> newTerms;
+        try {
+            newTerms = entry.tokenizePart(in);
+        } catch (IOException e) {
+            // the open term may be lost, read everything again next time
+            fEntriesById.remove(id);
+            for (String term : entry.getTerms()) {
+                removeId(term, id);
+            }
+            throw e;
+        }
+        if (null != oldOpenTerm && !entry.hasTerm(oldOpenTerm)) {
+            removeId(oldOpenTerm, id);
+        }
+        for (String term : newTerms) {
+            addId(term, id);
+        }
+        String openTerm = entry.getOpenTerm();
+        if (null != openTerm) {
+            addId(openTerm, id);
+        }
+    }
+
+    /**
+     * Remove a document from the index.
+     *
+     * @param id
+     *            id of document
+     */
+    void remove(String id) {
+        try {
+            put(id, null, 0, null);
+        } catch (IOException e) {
+            // nothing is read
+        }
+    }
+
+    private void addId(String term, String id) {
+        Set<String> ids = fIdsByTerm.get(term);
+        if (null == ids) {
+            ids = new HashSet<String>();
+            fIdsByTerm.put(term, ids);
+        }
+        ids.add(id);
+    }
+
+    private void removeId(String term, String id) {
+        Set<String> ids = fIdsByTerm.get(term);
+        if (null != ids) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                fIdsByTerm.remove(term);
+            }
+        }
+    }
+
+    /**
+     * Check if a document contains all terms.
+     *
+     * @param id
+     *            id of document
+     * @param terms
+     *            terms to look up
+     * @return true if all terms are indexed for the document
+     */
+    synchronized boolean contains(String id, List<String> terms) {
+        Entry entry = fEntriesById.get(id);
+        if (null == entry) {
+            return false;
+        }
+        for (String term : terms) {
+            if (!entry.hasTerm(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if a document contains a sequence of terms.
+     *
+     * @param id
+     *            id of document
+     * @param terms
+     *            terms as returned by {@link TextTokenizer#tokenize(String)},
+     *            not empty
+     * @return true if the terms are found next to each other in the given
+     *         order
+     */
+    synchronized boolean containsPhrase(String id, List<String> terms) {
+        Entry entry = fEntriesById.get(id);
+        return null != entry && entry.containsPhrase(terms);
+    }
+
+    /**
+     * Get the ids of the documents containing all terms.
+     *
+     * @param terms
+     *            terms to look up, not empty
+     * @return list of ids
+     */
+    synchronized List<String> get(List<String> terms) {
+        Set<String> smallest = null;
+        for (String term : terms) {
+            Set<String> ids = fIdsByTerm.get(term);
+            if (null == ids) {
+                return Collections.emptyList();
+            } else if (null == smallest || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+        List<String> result = new ArrayList<String>(smallest.size());
+        for (String id : smallest) {
+            boolean all = true;
+            for (int i = 0; i < terms.size() && all; i++) {
+                all = fIdsByTerm.get(terms.get(i)).contains(id);
+            }
+            if (all) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get an upper bound of the number of documents containing all terms.
+     *
+     * @param terms
+     *            terms to look up, not empty
+     * @return number of documents containing the least frequent term
+     */
+    synchronized int count(List<String> terms) {
+        int count = Integer.MAX_VALUE;
+        for (String term : terms) {
+            Set<String> ids = fIdsByTerm.get(term);
+            count = Math.min(count, null == ids ? 0 : ids.size());
+        }
+        return count;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    synchronized void clear() {
+        fIdsByTerm.clear();
+        fEntriesById.clear();
+    }
+
+    /**
+     * Terms of a document with their positions.
+     */
+    private static class Entry extends TextTokenizer {
+        private final Object fContent;
+        private final long fVersion;
+        private final Map<String, Positions> fPositions = new HashMap<String, Positions>();
+        private final List<String> fNewTerms = new ArrayList<String>();
+        private int fCount;
+
+        Entry(Object content, long version) {
+            fContent = content;
+            fVersion = version;
+        }
+
+        @Override
+        protected boolean addTerm(String term) {
+            Positions positions = fPositions.get(term);
+            if (null == positions) {
+                positions = new Positions();
+                fPositions.put(term, positions);
+                fNewTerms.add(term);
+            }
+            positions.add(fCount++);
+            return true;
+        }
+
+        /**
+         * Read the next part of the content.
+         *
+         * @return terms that were not found in the content before
+         */
+        List<String> tokenizePart(InputStream in) throws IOException {
+            fNewTerms.clear();
+            append(in);
+            List<String> newTerms = new ArrayList<String>(fNewTerms);
+            fNewTerms.clear();
+            return newTerms;
+        }
+
+        Set<String> getTerms() {
+            Set<String> terms = new HashSet<String>(fPositions.keySet());
+            String openTerm = getOpenTerm();
+            if (null != openTerm) {
+                terms.add(openTerm);
+            }
+            return terms;
+        }
+
+        boolean hasTerm(String term) {
+            return fPositions.containsKey(term) || term.equals(getOpenTerm());
+        }
+
+        boolean containsPhrase(List<String> terms) {
+            String first = terms.get(0);
+            if (terms.size() == 1) {
+                return hasTerm(first);
+            }
+            // the open term can only be the last term of a phrase
+            Positions positions = fPositions.get(first);
+            for (int i = 0; null != positions && i < positions.fSize; i++) {
+                int start = positions.fValues[i];
+                boolean all = true;
+                for (int j = 1; j < terms.size() && all; j++) {
+                    all = isAt(terms.get(j), start + j);
+                }
+                if (all) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isAt(String term, int position) {
+            if (position == fCount) {
+                return term.equals(getOpenTerm());
+            }
+            Positions positions = fPositions.get(term);
+            return null != positions && positions.contains(position);
+        }
+    }
+
+    /**
+     * Ascending positions of a term in a document.
+     */
+    private static class Positions {
+        private int[] fValues = new int[1];
+        private int fSize;
+
+        void add(int position) {
+            if (fSize == fValues.length) {
+                fValues = Arrays.copyOf(fValues, fSize * 2);
+            }
+            fValues[fSize++] = position;
+        }
+
+        boolean contains(int position) {
+            return Arrays.binarySearch(fValues, 0, fSize, position) >= 0;
+        }
+    }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
 
+import java.io.Serializable;
 import java.util.Collections;
 import java.util.List;
 
@@ -25,7 +26,9 @@ import org.apache.chemistry.opencmis.commons.data.Ace;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.AccessControlEntryImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.AccessControlPrincipalDataImpl;
 
-public class InMemoryAce {
+public class InMemoryAce implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static final String ANONYMOUS = "anonymous";
     private static final String ANYONE = "anyone";
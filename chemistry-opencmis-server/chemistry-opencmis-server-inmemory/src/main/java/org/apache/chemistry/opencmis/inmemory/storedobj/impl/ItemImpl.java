@@ -28,6 +28,8 @@ import org.apache.chemistry.opencmis.inmemory.storedobj.api.Item;
  */
 public class ItemImpl extends FilingImpl implements Item, Filing {
 
+    private static final long serialVersionUID = 1L;
+
     public ItemImpl() {
         super();
     }
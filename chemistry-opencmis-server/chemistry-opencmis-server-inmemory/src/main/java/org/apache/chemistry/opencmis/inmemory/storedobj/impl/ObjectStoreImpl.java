@@ -18,15 +18,21 @@
  */
 package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -38,6 +44,7 @@ import org.apache.chemistry.opencmis.commons.data.PropertyData;
 import org.apache.chemistry.opencmis.commons.data.RenditionData;
 import org.apache.chemistry.opencmis.commons.enums.AclPropagation;
 import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.enums.ChangeType;
 import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
 import org.apache.chemistry.opencmis.commons.enums.RelationshipDirection;
 import org.apache.chemistry.opencmis.commons.enums.VersioningState;
@@ -54,13 +61,16 @@ import org.apache.chemistry.opencmis.inmemory.storedobj.api.Content;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.Document;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.DocumentVersion;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.Fileable;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Item;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.Filing;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.Folder;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.MultiFiling;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.ObjectStore;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Policy;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.Relationship;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.VersionedDocument;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ChildrenIndex.OrderedChildren;
 import org.apache.chemistry.opencmis.inmemory.types.DefaultTypeSystemCreator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -100,6 +110,8 @@ public class ObjectStoreImpl implements ObjectStore {
 
     private static final Logger LOG = LoggerFactory.getLogger(ObjectStoreImpl.class.getName());
     private static final int FIRST_ID = 100;
+    private static final int DEFAULT_CHANGE_LOG_SIZE = 10000;
+    private static final int SNAPSHOT_RESET_INTERVAL = 1000;
     private static final Long MAX_CONTENT_SIZE_KB = ConfigurationSettings
             .getConfigurationValueAsLong(ConfigConstants.MAX_CONTENT_SIZE_KB);
 
@@ -126,6 +138,58 @@ public class ObjectStoreImpl implements ObjectStore {
 
     private final List<InMemoryAcl> fAcls = new ArrayList<InMemoryAcl>();
 
+    /**
+     * Index from folder ids to the ids of their children.
+     */
+    private final ChildrenIndex fChildrenIndex = new ChildrenIndex();
+
+    /**
+     * Index from object ids to the ids of their relationships.
+     */
+    private final RelationshipIndex fRelationshipIndex = new RelationshipIndex();
+
+    /**
+     * Index from type ids to the ids of the objects of this type.
+     */
+    private final ValueIndex fTypeIndex = new ValueIndex(false);
+
+    /**
+     * Indexes from the values of the configured properties to object ids.
+     */
+    private final Map<String, ValueIndex> fPropertyIndexes = new HashMap<String, ValueIndex>();
+
+    /**
+     * Index from the terms of text content to document ids.
+     */
+    private final FullTextIndex fTextIndex = new FullTextIndex();
+
+    /**
+     * CONTAINS() searches substrings case sensitive instead of words, the
+     * full text index is not used.
+     */
+    private final boolean fSubstringTextSearch;
+
+    /**
+     * Log of the recent changes of objects.
+     */
+    private final ChangeLog fChangeLog;
+
+    /**
+     * Memory used by the content of the documents.
+     */
+    private final ContentBudget fContentBudget;
+
+    /**
+     * Number of changes, used to detect if the repository must be saved.
+     */
+    private final AtomicLong fModificationCount = new AtomicLong();
+
+    /**
+     * Log of the changes since the last snapshot, null if the repository is
+     * not persisted.
+     */
+    private volatile WriteAheadLog fLog;
+
     private final Lock fLock = new ReentrantLock();
 
     private final String fRepositoryId;
@@ -133,13 +197,49 @@ public class ObjectStoreImpl implements ObjectStore {
 
     public ObjectStoreImpl(String repositoryId) {
         fRepositoryId = repositoryId;
+        Long changeLogSize = ConfigurationSettings.getConfigurationValueAsLong(ConfigConstants.CHANGE_LOG_SIZE);
+        fChangeLog = new ChangeLog(null == changeLogSize ? DEFAULT_CHANGE_LOG_SIZE : (int) Math.max(0,
+                changeLogSize.longValue()));
+        Long contentBudget = ConfigurationSettings
+                .getConfigurationValueAsLong(ConfigConstants.CONTENT_MEMORY_BUDGET_KB);
+        fContentBudget = new ContentBudget(null == contentBudget ? 0 : contentBudget.longValue());
+        fSubstringTextSearch = Boolean.parseBoolean(ConfigurationSettings
+                .getConfigurationValueAsString(ConfigConstants.FULLTEXT_SEARCH_SUBSTRING));
+        createPropertyIndexes(ConfigConstants.QUERY_INDEX_SORTED, true);
+        createPropertyIndexes(ConfigConstants.QUERY_INDEX_HASH, false);
         createRootFolder();
     }
 
+    private void createPropertyIndexes(String key, boolean sorted) {
+        String propertyIds = ConfigurationSettings.getConfigurationValueAsString(key);
+        if (null == propertyIds) {
+            return;
+        }
+        for (String propertyId : propertyIds.split(",")) {
+            propertyId = propertyId.trim();
+            if (propertyId.length() == 0) {
+                continue;
+            } else if (propertyId.startsWith("cmis:")) {
+                // system properties are not stored in the property map
+                LOG.warn("Ignoring query index for system property " + propertyId);
+            } else {
+                fPropertyIndexes.put(propertyId, new ValueIndex(sorted));
+            }
+        }
+    }
+
     private static synchronized Integer getNextId() {
         return nextUnusedId++;
     }
 
+    private static synchronized void reserveId(String id) {
+        try {
+            nextUnusedId = Math.max(nextUnusedId, Integer.parseInt(id) + 1);
+        } catch (NumberFormatException e) {
+            // not generated by this store
+        }
+    }
+
     private synchronized Integer getNextAclId() {
         return nextUnusedAclId++;
     }
@@ -159,29 +259,31 @@ public class ObjectStoreImpl implements ObjectStore {
 
     @Override
     public StoredObject getObjectByPath(String path, String user) {
-        StoredObject so = findObjectWithPathInDescendents(path, user, Filing.PATH_SEPARATOR, fRootFolder);
-        return so;
-    }
+        if (null == path || !path.startsWith(Filing.PATH_SEPARATOR)) {
+            return null;
+        }
 
-    private Fileable findObjectWithPathInDescendents(String path, String user, String prefix, Fileable fo) {
-        if (path.equals(prefix)) {
-            return fo;
-        } else if (fo instanceof Folder) {
-            List<Fileable> children = getChildren((Folder) fo);
-            for (Fileable child : children) {
-                String foundPath = prefix.length() == 1 ? prefix + child.getName() : prefix + Filing.PATH_SEPARATOR
-                        + child.getName();
-                if (path.startsWith(foundPath)) {
-                    Fileable found = findObjectWithPathInDescendents(path, user, foundPath, child);
-                    if (null != found) {
-                        return found; // note that there can be multiple folders
-                                      // with the same prefix like folder1,
-                                      // folder10
-                    }
-                }
+        // resolve one path segment after the other using the name index of
+        // each folder
+        Fileable so = fRootFolder;
+        int start = Filing.PATH_SEPARATOR.length();
+        while (start < path.length()) {
+            if (!(so instanceof Folder)) {
+                return null;
             }
+            int end = path.indexOf(Filing.PATH_SEPARATOR, start);
+            if (end < 0) {
+                end = path.length();
+            } else if (end == path.length() - 1) {
+                return null; // trailing separator
+            }
+            so = findChild((Folder) so, path.substring(start, end));
+            if (null == so) {
+                return null;
+            }
+            start = end + Filing.PATH_SEPARATOR.length();
         }
-        return null;
+        return so;
     }
 
     @Override
@@ -210,28 +312,43 @@ public class ObjectStoreImpl implements ObjectStore {
                 otherVersionsExists = false;
                 List<DocumentVersion> allVers = parentDoc.getAllVersions();
                 for (DocumentVersion ver : allVers) {
-                    fStoredObjectMap.remove(ver.getId());
+                    removeStoredObject(ver.getId());
                 }
             } else {
-                fStoredObjectMap.remove(objectId);
+                removeStoredObject(objectId);
                 otherVersionsExists = parentDoc.deleteVersion(vers);
             }
 
-            if (!otherVersionsExists) {
-                fStoredObjectMap.remove(parentDoc.getId());
+            if (otherVersionsExists) {
+                updateChildrenIndex(parentDoc);
+            } else {
+                removeStoredObject(parentDoc.getId());
+                removeFromChildrenIndex(parentDoc);
             }
         } else {
-            fStoredObjectMap.remove(objectId);
+            removeStoredObject(objectId);
+            removeFromChildrenIndex(obj);
+            if (obj instanceof Relationship) {
+                fRelationshipIndex.remove(obj);
+            }
         }
     }
 
     public String storeObject(StoredObject so) {
         String id = so.getId();
         // check if update or create
+        ChangeType changeType = ChangeType.UPDATED;
         if (null == id) {
             id = getNextId().toString();
+            // set before the change is logged
+            so.setId(id);
+            changeType = ChangeType.CREATED;
         }
         fStoredObjectMap.put(id, so);
+        fTypeIndex.put(id, so.getTypeId());
+        updatePropertyIndexes(id, so);
+        updateTextIndex(id, so);
+        recordChange(id, so, changeType);
         return id;
     }
 
@@ -240,7 +357,66 @@ public class ObjectStoreImpl implements ObjectStore {
     }
 
     void removeObject(String id) {
-        fStoredObjectMap.remove(id);
+        removeStoredObject(id);
+    }
+
+    private StoredObject removeStoredObject(String id) {
+        StoredObject so = unindexObject(id);
+        if (null != so) {
+            recordChange(id, so, ChangeType.DELETED);
+        }
+        return so;
+    }
+
+    private StoredObject unindexObject(String id) {
+        StoredObject so = fStoredObjectMap.remove(id);
+        if (null != so) {
+            fTypeIndex.remove(id);
+            for (ValueIndex index : fPropertyIndexes.values()) {
+                index.remove(id);
+            }
+            fTextIndex.remove(id);
+            if (so instanceof Content) {
+                releaseContent(((Content) so).getContent());
+            }
+        }
+        return so;
+    }
+
+    private void updatePropertyIndexes(String id, StoredObject so) {
+        if (fPropertyIndexes.isEmpty()) {
+            return;
+        }
+        Map<String, PropertyData<?>> properties = so.getProperties();
+        for (Map.Entry<String, ValueIndex> entry : fPropertyIndexes.entrySet()) {
+            PropertyData<?> pd = null == properties ? null : properties.get(entry.getKey());
+            entry.getValue().put(id, null == pd ? null : pd.getFirstValue());
+        }
+    }
+
+    private void updateTextIndex(String id, StoredObject so) {
+        if (fSubstringTextSearch || null == id || !(so instanceof Content)) {
+            return;
+        }
+        ContentStream content = ((Content) so).getContent();
+        if (content instanceof ContentStreamDataImpl) {
+            ContentStreamDataImpl data = (ContentStreamDataImpl) content;
+            long version = data.getTextVersion();
+            long indexedLength = fTextIndex.getIndexedLength(id, data, version);
+            try {
+                if (indexedLength < 0) {
+                    fTextIndex.put(id, data, version, data.getTextStream(0));
+                } else if (indexedLength < data.getLength()) {
+                    // appended content, the bytes indexed before are not read again
+                    fTextIndex.append(id, data.getTextStream(indexedLength));
+                }
+                // property updates do not change the content
+            } catch (IOException e) {
+                throw new CmisRuntimeException("Failed to read content: " + e.getMessage(), e);
+            }
+        } else {
+            fTextIndex.remove(id);
+        }
     }
 
     public Set<String> getIds() {
@@ -248,14 +424,584 @@ public class ObjectStoreImpl implements ObjectStore {
         return entries;
     }
 
+    /**
+     * Get the ids of all objects of a type. Objects of sub types are not
+     * included.
+     *
+     * @param typeId
+     *            id of type
+     * @return list of object ids
+     */
+    public List<String> getIdsOfType(String typeId) {
+        return fTypeIndex.get(typeId);
+    }
+
+    /**
+     * Get the number of objects of a type. Objects of sub types are not
+     * counted.
+     *
+     * @param typeId
+     *            id of type
+     * @return number of objects
+     */
+    public int getObjectCountOfType(String typeId) {
+        return fTypeIndex.count(typeId);
+    }
+
+    /**
+     * Check if a property is indexed for queries.
+     *
+     * @param propertyId
+     *            id of property
+     * @param sorted
+     *            if true only sorted indexes supporting range lookups are
+     *            considered
+     * @return true if an index exists
+     */
+    public boolean hasPropertyIndex(String propertyId, boolean sorted) {
+        ValueIndex index = fPropertyIndexes.get(propertyId);
+        return null != index && (!sorted || index.isSorted());
+    }
+
+    /**
+     * Get the ids of the objects that might have a value for an indexed
+     * property. Numbers of different types are compared by their double
+     * value, so the caller has to check the property value of each object.
+     *
+     * @param propertyId
+     *            id of indexed property
+     * @param value
+     *            value to look up
+     * @return list of object ids
+     */
+    public List<String> getIdsWithPropertyValue(String propertyId, Object value) {
+        return getPropertyIndex(propertyId).get(value);
+    }
+
+    /**
+     * Get the number of objects that might have a value for an indexed
+     * property.
+     *
+     * @param propertyId
+     *            id of indexed property
+     * @param value
+     *            value to look up
+     * @return number of objects
+     */
+    public int getObjectCountWithPropertyValue(String propertyId, Object value) {
+        return getPropertyIndex(propertyId).count(value);
+    }
+
+    /**
+     * Get the ids of the objects that might have a value in a range for a
+     * property with a sorted index. Both bounds are inclusive.
+     *
+     * @param propertyId
+     *            id of indexed property
+     * @param lower
+     *            lower bound or {@code null} for no lower bound
+     * @param upper
+     *            upper bound or {@code null} for no upper bound
+     * @return list of object ids
+     */
+    public List<String> getIdsWithPropertyInRange(String propertyId, Object lower, Object upper) {
+        return getPropertyIndex(propertyId).getRange(lower, upper);
+    }
+
+    /**
+     * Get the number of objects having a value for an indexed property.
+     *
+     * @param propertyId
+     *            id of indexed property
+     * @return number of objects
+     */
+    public int getObjectCountWithProperty(String propertyId) {
+        return getPropertyIndex(propertyId).size();
+    }
+
+    private ValueIndex getPropertyIndex(String propertyId) {
+        ValueIndex index = fPropertyIndexes.get(propertyId);
+        if (null == index) {
+            throw new IllegalArgumentException("Property " + propertyId + " is not indexed.");
+        }
+        return index;
+    }
+
+    /**
+     * Get the ids of the documents that might contain a word or phrase in
+     * their text content. The documents contain all terms of the text, but
+     * not necessarily next to each other.
+     *
+     * @param text
+     *            word or phrase
+     * @return list of document ids or {@code null} if the text has no terms
+     *         that can be looked up
+     */
+    public List<String> getIdsContainingText(String text) {
+        List<String> terms = TextTokenizer.tokenize(text);
+        return fSubstringTextSearch || terms.isEmpty() ? null : fTextIndex.get(terms);
+    }
+
+    /**
+     * Get an upper bound of the number of documents containing a word or
+     * phrase in their text content.
+     *
+     * @param text
+     *            word or phrase
+     * @return number of documents or -1 if the text has no terms that can be
+     *         looked up
+     */
+    public int getObjectCountContainingText(String text) {
+        List<String> terms = TextTokenizer.tokenize(text);
+        return fSubstringTextSearch || terms.isEmpty() ? -1 : fTextIndex.count(terms);
+    }
+
+    /**
+     * Check if the text content of a document contains a word or phrase.
+     * Words are compared case insensitive, characters other than letters and
+     * digits only separate words. A text without letters and digits, or any
+     * text if {@link ConfigConstants#FULLTEXT_SEARCH_SUBSTRING} is set, is
+     * searched as a case sensitive substring.
+     *
+     * @param so
+     *            object to check
+     * @param text
+     *            word or phrase
+     * @return true if found, always false if the object has no text content
+     */
+    public boolean containsText(StoredObject so, String text) {
+        if (!(so instanceof Content)) {
+            return false;
+        }
+        ContentStream content = ((Content) so).getContent();
+        if (!(content instanceof ContentStreamDataImpl)) {
+            return false;
+        }
+        ContentStreamDataImpl data = (ContentStreamDataImpl) content;
+        List<String> terms = TextTokenizer.tokenize(text);
+        if (fSubstringTextSearch || terms.isEmpty()) {
+            return data.containsSubstring(text);
+        }
+        return fTextIndex.containsPhrase(so.getId(), terms);
+    }
+
+    /**
+     * Get the ids of the objects filed in a folder. For versioned documents
+     * the id of the version series is returned.
+     *
+     * @param folderId
+     *            id of folder
+     * @return list of ids in no particular order
+     */
+    public List<String> getChildIds(String folderId) {
+        return fChildrenIndex.getChildIds(folderId);
+    }
+
+    private void releaseContent(ContentStream content) {
+        if (content instanceof ContentStreamDataImpl) {
+            ((ContentStreamDataImpl) content).releaseBudget();
+        }
+    }
+
+    /**
+     * Get the memory used by the content of the documents.
+     *
+     * @return number of bytes
+     */
+    public long getContentMemoryUsed() {
+        return fContentBudget.getUsed();
+    }
+
+    private void recordChange(String id, StoredObject so, ChangeType changeType) {
+        fModificationCount.incrementAndGet();
+        BaseTypeId baseTypeId = getBaseTypeId(so);
+        if (null != id && null != baseTypeId) {
+            fChangeLog.add(id, so.getTypeId(), baseTypeId, changeType);
+        }
+        if (null == id) {
+            // not stored yet, storing it logs the complete object
+            return;
+        } else if (ChangeType.DELETED == changeType) {
+            appendLog(WriteAheadLog.DELETE, id);
+        } else if (so instanceof DocumentVersion) {
+            // versions are logged with their version series like in snapshots
+            appendLog(WriteAheadLog.PUT, ((DocumentVersion) so).getParentDocument());
+        } else {
+            appendLog(WriteAheadLog.PUT, so);
+        }
+    }
+
+    private void appendLog(byte type, Object data) {
+        WriteAheadLog log = fLog;
+        if (null != log) {
+            try {
+                log.append(type, data);
+            } catch (IOException e) {
+                throw new CmisStorageException("Failed to log change: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static BaseTypeId getBaseTypeId(StoredObject so) {
+        if (so instanceof Document || so instanceof DocumentVersion) {
+            return BaseTypeId.CMIS_DOCUMENT;
+        } else if (so instanceof Folder) {
+            return BaseTypeId.CMIS_FOLDER;
+        } else if (so instanceof Relationship) {
+            return BaseTypeId.CMIS_RELATIONSHIP;
+        } else if (so instanceof Policy) {
+            return BaseTypeId.CMIS_POLICY;
+        } else if (so instanceof Item) {
+            return BaseTypeId.CMIS_ITEM;
+        } else {
+            // version series are not visible as objects
+            return null;
+        }
+    }
+
+    /**
+     * Check if changes of objects are recorded.
+     *
+     * @return true if the change log is enabled
+     */
+    public boolean isChangeLogEnabled() {
+        return fChangeLog.isEnabled();
+    }
+
+    /**
+     * Check if events were removed from the change log because it was full
+     * or the repository was cleared.
+     *
+     * @return true if the change log does not contain all changes
+     */
+    public boolean isChangeLogIncomplete() {
+        return fChangeLog.getFirstToken() > 0;
+    }
+
+    /**
+     * Get the token of the latest change.
+     *
+     * @return token of the latest change or -1 if nothing was changed yet
+     */
+    public long getLatestChangeLogToken() {
+        return fChangeLog.getLatestToken();
+    }
+
+    /**
+     * Get the changes starting with a change. Only the requested events are
+     * read from the change log.
+     *
+     * @param token
+     *            token of the first change to return or {@code null} to
+     *            start with the oldest retained change
+     * @param maxItems
+     *            maximum number of changes to return
+     * @return list of changes in the order they were made
+     */
+    public List<ChangeEvent> getContentChanges(Long token, int maxItems) {
+        return fChangeLog.getEvents(token, maxItems);
+    }
+
+    /**
+     * Get the number of changes made in this repository. The number only
+     * grows, if it did not change the repository was not modified.
+     *
+     * @return modification count
+     */
+    public long getModificationCount() {
+        return fModificationCount.get();
+    }
+
+    /**
+     * Write all objects and ACLs of the repository to a stream. The indexes
+     * are not written, they are rebuilt when the snapshot is read.
+     * <p>
+     * The store is only locked while the objects to write are collected, the
+     * objects are serialized without holding the lock. An object that is
+     * modified while it is written may be written with part of the change or
+     * fail the snapshot, the next snapshot catches up. Document versions are
+     * written with their version series, the stream is reset between
+     * objects so that it does not keep a reference to every written object.
+     * <p>
+     * The size of the change log is taken before the objects are collected.
+     * The changes logged before are contained in the snapshot, once it has
+     * been saved they are removed with {@link #discardLog(long)}.
+     *
+     * @param out
+     *            stream to write to
+     * @return size of the change log when the snapshot started, -1 if changes
+     *         are not logged
+     * @throws IOException
+     *             if writing fails
+     */
+    long writeSnapshot(ObjectOutputStream out) throws IOException {
+        long logMark;
+        int aclId;
+        List<InMemoryAcl> acls;
+        String rootFolderId;
+        List<StoredObject> objects;
+        lock();
+        try {
+            WriteAheadLog log = fLog;
+            logMark = null == log ? -1 : log.size();
+            synchronized (this) {
+                aclId = nextUnusedAclId;
+                acls = new ArrayList<InMemoryAcl>(fAcls);
+            }
+            rootFolderId = fRootFolder.getId();
+            objects = new ArrayList<StoredObject>(fStoredObjectMap.size());
+            for (StoredObject so : fStoredObjectMap.values()) {
+                if (!(so instanceof DocumentVersion)) {
+                    objects.add(so);
+                }
+            }
+        } finally {
+            unlock();
+        }
+
+        out.writeInt(aclId);
+        out.writeObject(acls);
+        out.writeObject(rootFolderId);
+        out.writeInt(objects.size());
+        int count = 0;
+        for (StoredObject so : objects) {
+            out.writeObject(so);
+            if (++count % SNAPSHOT_RESET_INTERVAL == 0) {
+                out.reset();
+            }
+        }
+        return logMark;
+    }
+
+    /**
+     * Start logging the changes to a file. Changes already in the file are
+     * kept until the next snapshot.
+     *
+     * @param file
+     *            log file
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    void openLog(File file) throws IOException {
+        lock();
+        try {
+            closeLog();
+            fLog = new WriteAheadLog(file);
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Stop logging the changes.
+     *
+     * @throws IOException
+     *             if the log cannot be closed
+     */
+    void closeLog() throws IOException {
+        WriteAheadLog log = fLog;
+        fLog = null;
+        if (null != log) {
+            log.close();
+        }
+    }
+
+    /**
+     * Remove the logged changes that are contained in a saved snapshot.
+     *
+     * @param mark
+     *            size of the log returned by
+     *            {@link #writeSnapshot(ObjectOutputStream)}
+     * @throws IOException
+     *             if the log cannot be shortened
+     */
+    void discardLog(long mark) throws IOException {
+        WriteAheadLog log = fLog;
+        if (null != log && mark >= 0) {
+            log.discard(mark);
+        }
+    }
+
+    /**
+     * Apply the changes logged after the snapshot that has been read.
+     *
+     * @param file
+     *            log file
+     * @return number of applied changes
+     * @throws IOException
+     *             if the log cannot be read
+     */
+    int replayLog(File file) throws IOException {
+        lock();
+        try {
+            return WriteAheadLog.replay(file, this);
+        } finally {
+            unlock();
+        }
+    }
+
+    /*
+     * Applies a logged change. Objects are replaced as a whole, a change that
+     * is already part of the snapshot writes the same state again.
+     */
+    void applyLogRecord(byte type, Object data) {
+        fModificationCount.incrementAndGet();
+        switch (type) {
+        case WriteAheadLog.PUT:
+            StoredObject so = (StoredObject) data;
+            StoredObject old = fStoredObjectMap.get(so.getId());
+            if (old instanceof VersionedDocument) {
+                for (DocumentVersion version : ((VersionedDocument) old).getAllVersions()) {
+                    unindexObject(version.getId());
+                }
+            }
+            removeLoggedObject(so.getId());
+            restoreObject(so);
+            if (so instanceof VersionedDocument) {
+                for (DocumentVersion version : ((VersionedDocument) so).getAllVersions()) {
+                    removeLoggedObject(version.getId());
+                    restoreObject(version);
+                }
+            }
+            if (so.getId().equals(fRootFolder.getId())) {
+                fRootFolder = (FolderImpl) so;
+            }
+            break;
+        case WriteAheadLog.DELETE:
+            String id = (String) data;
+            StoredObject deleted = removeLoggedObject(id);
+            if (deleted instanceof DocumentVersion) {
+                // the version series is logged before the version is removed
+                // from it
+                VersionedDocument doc = ((DocumentVersion) deleted).getParentDocument();
+                if (doc.getAllVersions().contains(deleted)) {
+                    doc.deleteVersion((DocumentVersion) deleted);
+                }
+                if (fStoredObjectMap.containsKey(doc.getId()) && !doc.getAllVersions().isEmpty()) {
+                    updateChildrenIndex(doc);
+                }
+            } else if (deleted instanceof Folder) {
+                fChildrenIndex.removeFolder(id);
+            }
+            break;
+        case WriteAheadLog.ACL:
+            InMemoryAcl acl = (InMemoryAcl) data;
+            synchronized (this) {
+                boolean known = false;
+                for (InMemoryAcl existing : fAcls) {
+                    known |= existing.getId() == acl.getId();
+                }
+                if (!known) {
+                    fAcls.add(acl);
+                }
+                nextUnusedAclId = Math.max(nextUnusedAclId, acl.getId() + 1);
+            }
+            break;
+        case WriteAheadLog.CLEAR:
+            // followed by the root folder
+            clearIndexes();
+            break;
+        default:
+            throw new CmisRuntimeException("Unknown log record type " + type);
+        }
+    }
+
+    private StoredObject removeLoggedObject(String id) {
+        StoredObject so = unindexObject(id);
+        if (so instanceof Fileable && !(so instanceof DocumentVersion)) {
+            removeFromChildrenIndex(so);
+        }
+        if (so instanceof Relationship) {
+            fRelationshipIndex.remove(so);
+        }
+        return so;
+    }
+
+    /**
+     * Replace all objects and ACLs of the repository by the ones of a
+     * snapshot and rebuild the indexes. The change log starts empty.
+     *
+     * @param in
+     *            stream written by {@link #writeSnapshot(ObjectOutputStream)}
+     * @throws IOException
+     *             if reading fails
+     * @throws ClassNotFoundException
+     *             if the snapshot contains unknown classes
+     */
+    @SuppressWarnings("unchecked")
+    void readSnapshot(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        boolean done = false;
+        lock();
+        try {
+            clearIndexes();
+            synchronized (this) {
+                nextUnusedAclId = in.readInt();
+                fAcls.clear();
+                fAcls.addAll((List<InMemoryAcl>) in.readObject());
+            }
+            String rootFolderId = (String) in.readObject();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                StoredObject so = (StoredObject) in.readObject();
+                restoreObject(so);
+                if (so instanceof VersionedDocument) {
+                    for (DocumentVersion version : ((VersionedDocument) so).getAllVersions()) {
+                        restoreObject(version);
+                    }
+                }
+            }
+            fRootFolder = (FolderImpl) fStoredObjectMap.get(rootFolderId);
+            fChangeLog.clear();
+            fModificationCount.incrementAndGet();
+            done = true;
+        } finally {
+            if (!done) {
+                clear(); // do not keep a partially read repository
+            }
+            unlock();
+        }
+    }
+
+    private void restoreObject(StoredObject so) {
+        String id = so.getId();
+        reserveId(id);
+        fStoredObjectMap.put(id, so);
+        fTypeIndex.put(id, so.getTypeId());
+        updatePropertyIndexes(id, so);
+        updateTextIndex(id, so);
+        if (so instanceof Content && ((Content) so).getContent() instanceof ContentStreamDataImpl) {
+            ((ContentStreamDataImpl) ((Content) so).getContent()).attachBudget(fContentBudget);
+        }
+        if (!(so instanceof DocumentVersion)) {
+            addToChildrenIndex(so);
+        }
+        if (so instanceof Relationship) {
+            fRelationshipIndex.add(so);
+        }
+    }
+
+    private void clearIndexes() {
+        fStoredObjectMap.clear();
+        fChildrenIndex.clear();
+        fRelationshipIndex.clear();
+        fTypeIndex.clear();
+        for (ValueIndex index : fPropertyIndexes.values()) {
+            index.clear();
+        }
+        fTextIndex.clear();
+        fContentBudget.clear();
+    }
+
     /**
      * Clear repository and remove all data.
      */
     @Override
     public void clear() {
         lock();
-        fStoredObjectMap.clear();
+        clearIndexes();
+        appendLog(WriteAheadLog.CLEAR, null);
         storeObject(fRootFolder);
+        fChangeLog.clear();
         unlock();
     }
 
@@ -307,6 +1053,7 @@ public class ObjectStoreImpl implements ObjectStore {
         }
         String id = storeObject(doc);
         doc.setId(id);
+        addToChildrenIndex(doc);
         applyAcl(doc, addACEs, removeACEs);
         return doc;
     }
@@ -333,6 +1080,7 @@ public class ObjectStoreImpl implements ObjectStore {
         item.setAclId(aclId);
         String id = storeObject(item);
         item.setId(id);
+        addToChildrenIndex(item);
         applyAcl(item, addACEs, removeACEs);
         return item;
     }
@@ -366,6 +1114,7 @@ public class ObjectStoreImpl implements ObjectStore {
         }
         id = storeObject(version);
         version.setId(id);
+        addToChildrenIndex(doc);
         applyAcl(doc, addACEs, removeACEs);
         return version;
     }
@@ -395,6 +1144,7 @@ public class ObjectStoreImpl implements ObjectStore {
 
         String id = storeObject(folder);
         folder.setId(id);
+        addToChildrenIndex(folder);
         applyAcl(folder, addACEs, removeACEs);
         return folder;
     }
@@ -437,6 +1187,7 @@ public class ObjectStoreImpl implements ObjectStore {
         }
         String id = storeObject(rel);
         rel.setId(id);
+        fRelationshipIndex.add(rel);
         applyAcl(rel, addACEs, removeACEs);
         return rel;
     }
@@ -445,16 +1196,18 @@ public class ObjectStoreImpl implements ObjectStore {
     public void storeVersion(DocumentVersion version) {
         String id = storeObject(version);
         version.setId(id);
+        updateChildrenIndex(version);
     }
 
     @Override
     public void deleteVersion(DocumentVersion version) {
-        StoredObject found = fStoredObjectMap.remove(version.getId());
+        StoredObject found = removeStoredObject(version.getId());
 
         if (null == found) {
             throw new CmisInvalidArgumentException("Cannot delete object with id  " + version.getId()
                     + ". Object does not exist.");
         }
+        updateChildrenIndex(version);
     }
 
     @Override
@@ -476,6 +1229,8 @@ public class ObjectStoreImpl implements ObjectStore {
         // update system properties and secondary object type ids
         so.updateSystemBasePropertiesWhenModified(properties, user);
         properties.remove(PropertyIds.SECONDARY_OBJECT_TYPE_IDS);
+        updatePropertyIndexes(so.getId(), so);
+        recordChange(so.getId(), so, ChangeType.UPDATED);
     }
 
     @Override
@@ -497,54 +1252,48 @@ public class ObjectStoreImpl implements ObjectStore {
 
     @Override
     public List<StoredObject> getRelationships(String objectId, List<String> typeIds, RelationshipDirection direction) {
+        Set<String> typeIdSet = null;
+        if (typeIds != null && typeIds.size() > 0) {
+            typeIdSet = new HashSet<String>(typeIds);
+        }
 
         List<StoredObject> res = new ArrayList<StoredObject>();
-
-        if (typeIds != null && typeIds.size() > 0) {
-            for (String typeId : typeIds) {
-                for (StoredObject so : fStoredObjectMap.values()) {
-                    if (so instanceof Relationship && so.getTypeId().equals(typeId)) {
-                        Relationship ro = (Relationship) so;
-                        if (ro.getSourceObjectId().equals(objectId)
-                                && (RelationshipDirection.EITHER == direction || RelationshipDirection.SOURCE == direction)) {
-                            res.add(so);
-                        } else if (ro.getTargetObjectId().equals(objectId)
-                                && (RelationshipDirection.EITHER == direction || RelationshipDirection.TARGET == direction)) {
-                            res.add(so);
-                        }
-                    }
-                }
+        for (String relId : fRelationshipIndex.getRelationshipIds(objectId, direction)) {
+            StoredObject so = fStoredObjectMap.get(relId);
+            if (so instanceof Relationship && (null == typeIdSet || typeIdSet.contains(so.getTypeId()))) {
+                res.add(so);
             }
-        } else {
-            res = getAllRelationships(objectId, direction);
         }
         return res;
     }
 
     @Override
     public String getFolderPath(String folderId) {
-        StringBuilder sb = new StringBuilder();
-        insertPathSegment(sb, folderId);
-        return sb.toString();
-    }
-
-    private void insertPathSegment(StringBuilder sb, String folderId) {
+        List<String> segments = new ArrayList<String>();
         Folder folder = (Folder) getObjectById(folderId);
-        if (null == folder.getParentId()) {
-            if (sb.length() == 0) {
-                sb.insert(0, Filing.PATH_SEPARATOR);
-            }
-        } else {
-            sb.insert(0, folder.getName());
-            sb.insert(0, Filing.PATH_SEPARATOR);
-            insertPathSegment(sb, folder.getParentId());
+        while (null != folder.getParentId()) {
+            segments.add(folder.getName());
+            folder = (Folder) getObjectById(folder.getParentId());
+        }
+
+        if (segments.isEmpty()) {
+            return Filing.PATH_SEPARATOR;
         }
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            sb.append(Filing.PATH_SEPARATOR);
+            sb.append(segments.get(i));
+        }
+        return sb.toString();
     }
 
     @Override
     public Acl applyAcl(StoredObject so, Acl addAces, Acl removeAces, AclPropagation aclPropagation, String principalId) {
         if (aclPropagation == AclPropagation.OBJECTONLY || !(so instanceof Folder)) {
-            return applyAcl(so, addAces, removeAces);
+            Acl result = applyAcl(so, addAces, removeAces);
+            recordChange(so.getId(), so, ChangeType.SECURITY);
+            return result;
         } else {
             return applyAclRecursive(((Folder) so), addAces, removeAces, principalId);
         }
@@ -553,7 +1302,9 @@ public class ObjectStoreImpl implements ObjectStore {
     @Override
     public Acl applyAcl(StoredObject so, Acl acl, AclPropagation aclPropagation, String principalId) {
         if (aclPropagation == AclPropagation.OBJECTONLY || !(so instanceof Folder)) {
-            return applyAcl(so, acl);
+            Acl result = applyAcl(so, acl);
+            recordChange(so.getId(), so, ChangeType.SECURITY);
+            return result;
         } else {
             return applyAclRecursive(((Folder) so), acl, principalId);
         }
@@ -656,78 +1407,221 @@ public class ObjectStoreImpl implements ObjectStore {
             throw new CmisConstraintException("Cannot delete folder with id:  " + folderId + ". Folder is not empty.");
         }
 
-        fStoredObjectMap.remove(folderId);
+        removeStoredObject(folderId);
+        removeFromChildrenIndex(folder);
+        fChildrenIndex.removeFolder(folderId);
     }
 
     @Override
     public ChildrenResult getChildren(Folder folder, int maxItemsParam, int skipCountParam, String user, boolean usePwc) {
-        List<Fileable> children = getChildren(folder, user, usePwc);
-        sortFolderList(children);
+        return getChildrenPage(folder, maxItemsParam, skipCountParam, user, usePwc, false);
+    }
+
+    @Override
+    public ChildrenResult getFolderChildren(Folder folder, int maxItems, int skipCount, String user) {
+        return getChildrenPage(folder, maxItems, skipCount, user, false, true);
+    }
 
-        int maxItems = maxItemsParam < 0 ? children.size() : maxItemsParam;
+    private ChildrenResult getChildrenPage(Folder folder, int maxItemsParam, int skipCountParam, String user,
+            boolean usePwc, boolean foldersOnly) {
+        int maxItems = maxItemsParam < 0 ? Integer.MAX_VALUE : maxItemsParam;
         int skipCount = skipCountParam < 0 ? 0 : skipCountParam;
+        Set<Integer> readAclIds = getReadAclIds(user);
 
-        int from = Math.min(skipCount, children.size());
-        int to = Math.min(maxItems + from, children.size());
-        int noItems = children.size();
+        OrderedChildren ordered = getOrderedChildren(folder.getId(), usePwc);
+        long nameChanges = StoredObjectImpl.getNameChangeCount();
+        if (ordered.getVerifiedNameChanges() != nameChanges) {
+            if (isOrderCurrent(ordered, usePwc)) {
+                ordered.setVerifiedNameChanges(nameChanges);
+            } else {
+                // a child was renamed without the store noticing it, e.g. by
+                // checking in a renamed private working copy, sort again
+                fChildrenIndex.invalidateOrder(folder.getId());
+                ordered = getOrderedChildren(folder.getId(), usePwc);
+            }
+        }
+        return getChildrenPage(ordered, maxItems, skipCount, readAclIds, usePwc, foldersOnly);
+    }
+
+    /*
+     * Checks the names of all children, a rename can move a child to another
+     * page.
+     */
+    private static boolean isOrderCurrent(OrderedChildren ordered, boolean usePwc) {
+        for (int i = 0; i < ordered.size(); i++) {
+            Fileable child = getChildVersion((Fileable) ordered.getFiled(i), usePwc);
+            if (null != child && !ordered.getName(i).equals(child.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ChildrenResult getChildrenPage(OrderedChildren ordered, int maxItems, int skipCount,
+            Set<Integer> readAclIds, boolean usePwc, boolean foldersOnly) {
+        List<Fileable> children = new ArrayList<Fileable>();
+        int noItems;
+
+        if (null == readAclIds && !foldersOnly) {
+            // all children are visible, jump directly to the requested page
+            noItems = ordered.size();
+            int from = Math.min(skipCount, noItems);
+            int to = (int) Math.min((long) from + maxItems, noItems);
+            for (int i = from; i < to; i++) {
+                addChild(children, ordered, i, usePwc);
+            }
+        } else {
+            noItems = 0;
+            for (int i = 0; i < ordered.size(); i++) {
+                StoredObject filed = ordered.getFiled(i);
+                if ((foldersOnly && !(filed instanceof Folder)) || !isVisible(readAclIds, filed)) {
+                    continue;
+                }
+                if (noItems >= skipCount && noItems - skipCount < maxItems) {
+                    addChild(children, ordered, i, usePwc);
+                }
+                noItems++;
+            }
+        }
 
-        children = children.subList(from, to);
         return new ChildrenResult(children, noItems);
     }
 
-    private List<Fileable> getChildren(Folder folder) {
-        return getChildren(folder, null, false);
+    private static void addChild(List<Fileable> children, OrderedChildren ordered, int index, boolean usePwc) {
+        Fileable child = getChildVersion((Fileable) ordered.getFiled(index), usePwc);
+        if (null != child) {
+            children.add(child);
+        }
     }
 
-    private List<Fileable> getChildren(Folder folder, String user, boolean usePwc) {
-        List<Fileable> children = new ArrayList<Fileable>();
-        for (String id : getIds()) {
-            StoredObject obj = getObject(id);
-            if (obj instanceof Fileable) {
-                Fileable pathObj = (Fileable) obj;
-                if ((null == user || hasReadAccess(user, obj)) && pathObj.getParentIds().contains(folder.getId())) {
-                    if (pathObj instanceof VersionedDocument) {
-                        DocumentVersion ver;
-                        if (usePwc) {
-                            ver = ((VersionedDocument) pathObj).getPwc();
-                            if (null == ver) {
-                                ver = ((VersionedDocument) pathObj).getLatestVersion(false);
-                            }
-                        } else {
-                            ver = ((VersionedDocument) pathObj).getLatestVersion(false);
-                        }
-                        children.add(ver);
-                    } else if (!(pathObj instanceof DocumentVersion)) { // ignore
-                                                                        // DocumentVersion
-                        children.add(pathObj);
+    private OrderedChildren getOrderedChildren(String folderId, boolean usePwc) {
+        OrderedChildren ordered = fChildrenIndex.getOrdered(folderId, usePwc);
+        if (null == ordered) {
+            int modCount = fChildrenIndex.getModCount(folderId);
+            long nameChanges = StoredObjectImpl.getNameChangeCount();
+            List<Fileable> children = new ArrayList<Fileable>();
+            for (String id : fChildrenIndex.getChildIds(folderId)) {
+                StoredObject obj = getObject(id);
+                if (obj instanceof Fileable) {
+                    Fileable child = getChildVersion((Fileable) obj, usePwc);
+                    if (null != child) {
+                        children.add(child);
                     }
-
                 }
             }
+            sortFolderList(children);
+
+            StoredObject[] filed = new StoredObject[children.size()];
+            String[] names = new String[children.size()];
+            for (int i = 0; i < filed.length; i++) {
+                Fileable child = children.get(i);
+                filed[i] = child instanceof DocumentVersion ? ((DocumentVersion) child).getParentDocument() : child;
+                names[i] = child.getName();
+            }
+            ordered = new OrderedChildren(filed, names, nameChanges);
+            fChildrenIndex.setOrdered(folderId, usePwc, ordered, modCount);
         }
-        return children;
+        return ordered;
     }
 
-    @Override
-    public ChildrenResult getFolderChildren(Folder folder, int maxItems, int skipCount, String user) {
-        List<Fileable> folderChildren = new ArrayList<Fileable>();
-        for (String id : getIds()) {
-            StoredObject obj = getObject(id);
-            if (hasReadAccess(user, obj) && obj instanceof Folder) {
-                Folder childFolder = (Folder) obj;
-                if (childFolder.getParentIds().contains(folder.getId())) {
-                    folderChildren.add(childFolder);
+    /*
+     * Returns the object that represents a filed object in a folder: for
+     * versioned documents the private working copy or the latest version,
+     * null for objects that are not returned as children.
+     */
+    private static Fileable getChildVersion(Fileable filed, boolean usePwc) {
+        if (filed instanceof VersionedDocument) {
+            DocumentVersion ver;
+            if (usePwc) {
+                ver = ((VersionedDocument) filed).getPwc();
+                if (null == ver) {
+                    ver = ((VersionedDocument) filed).getLatestVersion(false);
                 }
+            } else {
+                ver = ((VersionedDocument) filed).getLatestVersion(false);
             }
+            return ver;
+        } else if (filed instanceof DocumentVersion) {
+            return null;
+        } else {
+            return filed;
         }
-        sortFolderList(folderChildren);
-        int from = Math.min(skipCount, folderChildren.size());
-        int to = Math.min(maxItems + from, folderChildren.size());
-        int noItems = folderChildren.size();
+    }
 
-        folderChildren = folderChildren.subList(from, to);
+    private void addToChildrenIndex(StoredObject so) {
+        if (so instanceof Fileable) {
+            String[] names = getChildNames(so);
+            for (String parentId : ((Fileable) so).getParentIds()) {
+                fChildrenIndex.addChild(parentId, so.getId(), names);
+            }
+        }
+    }
 
-        return new ChildrenResult(folderChildren, noItems);
+    private void removeFromChildrenIndex(StoredObject so) {
+        if (so instanceof Fileable) {
+            for (String parentId : ((Fileable) so).getParentIds()) {
+                fChildrenIndex.removeChild(parentId, so.getId());
+            }
+        }
+    }
+
+    private void updateChildrenIndex(StoredObject so) {
+        if (so instanceof Fileable) {
+            StoredObject filed = getFiled(so);
+            String[] names = getChildNames(filed);
+            for (String parentId : ((Fileable) so).getParentIds()) {
+                fChildrenIndex.renameChild(parentId, filed.getId(), names);
+            }
+        }
+    }
+
+    private static StoredObject getFiled(StoredObject so) {
+        if (so instanceof DocumentVersion) {
+            return ((DocumentVersion) so).getParentDocument();
+        } else {
+            return so;
+        }
+    }
+
+    /*
+     * Returns the names a filed object can be found with in the children
+     * index. For a versioned document these are the names of the latest
+     * version and the private working copy because checking in a private
+     * working copy changes the latest version without notifying the store.
+     */
+    private static String[] getChildNames(StoredObject filed) {
+        if (filed instanceof VersionedDocument) {
+            DocumentVersion latest = ((VersionedDocument) filed).getLatestVersion(false);
+            DocumentVersion pwc = ((VersionedDocument) filed).getPwc();
+            if (null == latest && null == pwc) {
+                return new String[] { filed.getName() };
+            } else if (null == latest || latest.getName().equals(pwc == null ? null : pwc.getName())) {
+                return new String[] { (null == latest ? pwc : latest).getName() };
+            } else if (null == pwc) {
+                return new String[] { latest.getName() };
+            } else {
+                return new String[] { latest.getName(), pwc.getName() };
+            }
+        } else {
+            return new String[] { filed.getName() };
+        }
+    }
+
+    /*
+     * Returns the child with the given name, for versioned documents the
+     * latest version.
+     */
+    private Fileable findChild(Folder folder, String name) {
+        for (String id : fChildrenIndex.getChildIds(folder.getId(), name)) {
+            StoredObject obj = getObject(id);
+            if (obj instanceof Fileable) {
+                Fileable child = getChildVersion((Fileable) obj, false);
+                if (null != child && name.equals(child.getName())) {
+                    return child;
+                }
+            }
+        }
+        return null;
     }
 
     @Override
@@ -743,8 +1637,14 @@ public class ObjectStoreImpl implements ObjectStore {
                 addParentIntern(fi, newParent);
                 removeParentIntern(fi, oldParent);
             } else if (so instanceof FolderImpl) {
-                ((FolderImpl) so).setParentId(newParent.getId());
+                FolderImpl folder = (FolderImpl) so;
+                if (null != folder.getParentId()) {
+                    fChildrenIndex.removeChild(folder.getParentId(), folder.getId());
+                }
+                folder.setParentId(newParent.getId());
+                fChildrenIndex.addChild(newParent.getId(), folder.getId(), getChildNames(folder));
             }
+            recordChange(so.getId(), so, ChangeType.UPDATED);
         } finally {
             unlock();
         }
@@ -770,19 +1670,15 @@ public class ObjectStoreImpl implements ObjectStore {
                 }
             }
             so.setName(newName);
+            updateChildrenIndex(so);
+            recordChange(so.getId(), so, ChangeType.UPDATED);
         } finally {
             unlock();
         }
     }
 
     private boolean hasChild(Folder folder, String name) {
-        List<Fileable> children = getChildren(folder);
-        for (Fileable child : children) {
-            if (child.getName().equals(name)) {
-                return true;
-            }
-        }
-        return false;
+        return null != findChild(folder, name);
     }
 
     @Override
@@ -833,6 +1729,21 @@ public class ObjectStoreImpl implements ObjectStore {
         }
     }
 
+    /*
+     * Returns the ids of all ACLs granting read access to the user or null if
+     * the user can read all objects.
+     */
+    private Set<Integer> getReadAclIds(String principalId) {
+        if (null == principalId || principalId.equals(ADMIN_PRINCIPAL_ID)) {
+            return null;
+        }
+        return new HashSet<Integer>(getAllAclsForUser(principalId, Permission.READ));
+    }
+
+    private static boolean isVisible(Set<Integer> readAclIds, StoredObject so) {
+        return null == readAclIds || readAclIds.contains(((StoredObjectImpl) so).getAclId());
+    }
+
     private boolean hasAccess(String principalId, StoredObject so, Permission permission) {
         if (null != principalId && principalId.equals(ADMIN_PRINCIPAL_ID)) {
             return true;
@@ -892,6 +1803,7 @@ public class ObjectStoreImpl implements ObjectStore {
                 aclId = getNextAclId();
                 acl.setId(aclId);
                 fAcls.add(acl);
+                appendLog(WriteAheadLog.ACL, acl);
             }
         } finally {
             unlock();
@@ -913,6 +1825,7 @@ public class ObjectStoreImpl implements ObjectStore {
     private Acl applyAclRecursive(Folder folder, Acl addAces, Acl removeAces, String principalId) {
         List<Fileable> children = getChildren(folder, -1, -1, ADMIN_PRINCIPAL_ID, false).getChildren();
         Acl result = applyAcl(folder, addAces, removeAces);
+        recordChange(folder.getId(), folder, ChangeType.SECURITY);
 
         if (null == children) {
             return result;
@@ -924,6 +1837,7 @@ public class ObjectStoreImpl implements ObjectStore {
                     applyAclRecursive((Folder) child, addAces, removeAces, principalId);
                 } else {
                     applyAcl(child, addAces, removeAces);
+                    recordChange(child.getId(), child, ChangeType.SECURITY);
                 }
             }
         }
@@ -934,6 +1848,7 @@ public class ObjectStoreImpl implements ObjectStore {
     private Acl applyAclRecursive(Folder folder, Acl acl, String principalId) {
         List<Fileable> children = getChildren(folder, -1, -1, ADMIN_PRINCIPAL_ID, false).getChildren();
         Acl result = applyAcl(folder, acl);
+        recordChange(folder.getId(), folder, ChangeType.SECURITY);
 
         if (null == children) {
             return result;
@@ -945,6 +1860,7 @@ public class ObjectStoreImpl implements ObjectStore {
                     applyAclRecursive((Folder) child, acl, principalId);
                 } else {
                     applyAcl(child, acl);
+                    recordChange(child.getId(), child, ChangeType.SECURITY);
                 }
             }
         }
@@ -952,35 +1868,9 @@ public class ObjectStoreImpl implements ObjectStore {
         return result;
     }
 
-    private List<StoredObject> getAllRelationships(String objectId, RelationshipDirection direction) {
-
-        List<StoredObject> res = new ArrayList<StoredObject>();
-
-        for (StoredObject so : fStoredObjectMap.values()) {
-            if (so instanceof Relationship) {
-                Relationship ro = (Relationship) so;
-                if (ro.getSourceObjectId().equals(objectId)
-                        && (RelationshipDirection.EITHER == direction || RelationshipDirection.SOURCE == direction)) {
-                    res.add(so);
-                } else if (ro.getTargetObjectId().equals(objectId)
-                        && (RelationshipDirection.EITHER == direction || RelationshipDirection.TARGET == direction)) {
-                    res.add(so);
-                }
-            }
-        }
-        return res;
-    }
-
     @Override
     public boolean isTypeInUse(String typeId) {
-        // iterate over all the objects and check for each if the type matches
-        for (String objectId : getIds()) {
-            StoredObject so = getObjectById(objectId);
-            if (so.getTypeId().equals(typeId)) {
-                return true;
-            }
-        }
-        return false;
+        return fTypeIndex.count(typeId) > 0;
     }
 
     @Override
@@ -999,6 +1889,7 @@ public class ObjectStoreImpl implements ObjectStore {
             }
 
             addParentIntern(mfi, parent);
+            recordChange(so.getId(), so, ChangeType.UPDATED);
         } finally {
             unlock();
         }
@@ -1016,6 +1907,7 @@ public class ObjectStoreImpl implements ObjectStore {
             }
 
             removeParentIntern(mfi, parent);
+            recordChange(so.getId(), so, ChangeType.UPDATED);
         } finally {
             unlock();
         }
@@ -1023,10 +1915,13 @@ public class ObjectStoreImpl implements ObjectStore {
 
     private void addParentIntern(MultiFiling so, Folder parent) {
         so.addParentId(parent.getId());
+        StoredObject filed = getFiled((StoredObject) so);
+        fChildrenIndex.addChild(parent.getId(), filed.getId(), getChildNames(filed));
     }
 
     private void removeParentIntern(MultiFiling so, Folder parent) {
         so.removeParentId(parent.getId());
+        fChildrenIndex.removeChild(parent.getId(), getFiled((StoredObject) so).getId());
     }
 
     private static void sortFolderList(List<? extends StoredObject> list) {
@@ -1073,7 +1968,7 @@ public class ObjectStoreImpl implements ObjectStore {
             } else {
                 boolean useFakeContentStore = so.getTypeId().equals(DefaultTypeSystemCreator.BIG_CONTENT_FAKE_TYPE);
                 newContent = new ContentStreamDataImpl(MAX_CONTENT_SIZE_KB == null ? 0 : MAX_CONTENT_SIZE_KB,
-                        useFakeContentStore);
+                        useFakeContentStore, fContentBudget);
                 String fileName = contentStream.getFileName();
                 if (null == fileName || fileName.length() <= 0) {
                     fileName = so.getName(); // use name of document as fallback
@@ -1091,7 +1986,13 @@ public class ObjectStoreImpl implements ObjectStore {
                     throw new CmisRuntimeException("Failed to get content from InputStream", e);
                 }
             }
+            ContentStream oldContent = content.getContent();
             content.setContent(newContent);
+            if (oldContent != newContent) {
+                releaseContent(oldContent);
+            }
+            updateTextIndex(so.getId(), so);
+            recordChange(so.getId(), so, ChangeType.UPDATED);
             return newContent;
 
         } else {
@@ -1114,6 +2015,8 @@ public class ObjectStoreImpl implements ObjectStore {
                     throw new CmisStorageException("Failed to append content: IO Exception", e);
                 }
             }
+            updateTextIndex(so.getId(), so);
+            recordChange(so.getId(), so, ChangeType.UPDATED);
         } else {
             throw new CmisInvalidArgumentException("Cannot set content, object does not implement interface Content.");
         }
@@ -29,6 +29,8 @@ import org.apache.chemistry.opencmis.inmemory.storedobj.api.Relationship;
 
 public class RelationshipImpl extends StoredObjectImpl implements Relationship {
 
+    private static final long serialVersionUID = 1L;
+
     private String sourceObjId;
     private String targetObjId;
 
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.chemistry.opencmis.commons.enums.RelationshipDirection;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Relationship;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
+
+/**
+ * Index from an object id to the ids of the relationships having this object
+ * as source or as target. The index is maintained by the
+ * {@link ObjectStoreImpl} when relationships are created and deleted so that
+ * the relationships of an object can be found without iterating over all
+ * objects of the repository.
+ */
+class RelationshipIndex {
+
+    private final ConcurrentMap<String, Set<String>> fBySource = new ConcurrentHashMap<String, Set<String>>();
+    private final ConcurrentMap<String, Set<String>> fByTarget = new ConcurrentHashMap<String, Set<String>>();
+
+    /**
+     * Add a relationship to the index.
+     *
+     * @param rel
+     *            relationship with id, source and target set
+     */
+    void add(StoredObject rel) {
+        add(fBySource, ((Relationship) rel).getSourceObjectId(), rel.getId());
+        add(fByTarget, ((Relationship) rel).getTargetObjectId(), rel.getId());
+    }
+
+    /**
+     * Remove a relationship from the index.
+     *
+     * @param rel
+     *            relationship to remove
+     */
+    void remove(StoredObject rel) {
+        remove(fBySource, ((Relationship) rel).getSourceObjectId(), rel.getId());
+        remove(fByTarget, ((Relationship) rel).getTargetObjectId(), rel.getId());
+    }
+
+    /**
+     * Get the ids of all relationships of an object.
+     *
+     * @param objectId
+     *            id of source or target object
+     * @param direction
+     *            role of the object in the relationship
+     * @return list of relationship ids, each id is contained only once
+     */
+    List<String> getRelationshipIds(String objectId, RelationshipDirection direction) {
+        boolean source = RelationshipDirection.EITHER == direction || RelationshipDirection.SOURCE == direction;
+        boolean target = RelationshipDirection.EITHER == direction || RelationshipDirection.TARGET == direction;
+        Set<String> sourceIds = source ? fBySource.get(objectId) : null;
+        Set<String> targetIds = target ? fByTarget.get(objectId) : null;
+
+        if (null == sourceIds && null == targetIds) {
+            return Collections.emptyList();
+        } else if (null == targetIds) {
+            return copy(sourceIds);
+        } else if (null == sourceIds) {
+            return copy(targetIds);
+        } else {
+            Set<String> ids = new LinkedHashSet<String>();
+            synchronized (sourceIds) {
+                ids.addAll(sourceIds);
+            }
+            synchronized (targetIds) {
+                ids.addAll(targetIds);
+            }
+            return new ArrayList<String>(ids);
+        }
+    }
+
+    /**
+     * Remove all entries.
+     */
+    void clear() {
+        fBySource.clear();
+        fByTarget.clear();
+    }
+
+    private static void add(ConcurrentMap<String, Set<String>> index, String objectId, String relId) {
+        if (null == objectId) {
+            return;
+        }
+        Set<String> ids = index.get(objectId);
+        if (null == ids) {
+            Set<String> newIds = new LinkedHashSet<String>();
+            ids = index.putIfAbsent(objectId, newIds);
+            if (null == ids) {
+                ids = newIds;
+            }
+        }
+        synchronized (ids) {
+            ids.add(relId);
+        }
+    }
+
+    private static void remove(ConcurrentMap<String, Set<String>> index, String objectId, String relId) {
+        if (null == objectId) {
+            return;
+        }
+        Set<String> ids = index.get(objectId);
+        if (null != ids) {
+            synchronized (ids) {
+                ids.remove(relId);
+            }
+        }
+    }
+
+    private static List<String> copy(Set<String> ids) {
+        synchronized (ids) {
+            return new ArrayList<String>(ids);
+        }
+    }
+}
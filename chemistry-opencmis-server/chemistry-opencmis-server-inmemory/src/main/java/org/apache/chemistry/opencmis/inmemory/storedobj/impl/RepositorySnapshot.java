@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionContainer;
+import org.apache.chemistry.opencmis.inmemory.TypeManagerImpl;
+
+/**
+ * Binary snapshot of a repository containing the type definitions, the ACLs
+ * and all objects with their content. A snapshot is written to a temporary
+ * file first, forced to disk and then replaces the previous snapshot, so that
+ * a crash while writing never leaves a broken snapshot behind.
+ * <p>
+ * After the header the snapshot is a deflated object stream. The objects
+ * reference each other and carry properties of any type, so they are still
+ * serialized, deflating removes the repeated class descriptors and property
+ * names that make up most of an uncompressed snapshot.
+ */
+final class RepositorySnapshot {
+
+    private static final int MAGIC = 0x434D4953;
+    private static final int FORMAT_VERSION = 3;
+    private static final int BUFFER_SIZE = 0x10000;
+
+    private RepositorySnapshot() {
+    }
+
+    /**
+     * Write a snapshot of a repository. The changes logged before the
+     * snapshot started are removed from the change log of the object store
+     * once the snapshot has been saved.
+     *
+     * @param file
+     *            snapshot file
+     * @param repositoryId
+     *            id of repository
+     * @param typeManager
+     *            type system of the repository
+     * @param objStore
+     *            object store of the repository
+     * @throws IOException
+     *             if writing fails
+     */
+    static void write(File file, String repositoryId, TypeManagerImpl typeManager, ObjectStoreImpl objStore)
+            throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        long logMark;
+        boolean done = false;
+        FileOutputStream fileOut = new FileOutputStream(tmpFile);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            DataOutputStream header = new DataOutputStream(fileOut);
+            header.writeInt(MAGIC);
+            header.writeInt(FORMAT_VERSION);
+            header.writeUTF(repositoryId);
+            header.flush();
+
+            DeflaterOutputStream deflaterOut = new DeflaterOutputStream(fileOut, deflater, BUFFER_SIZE);
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(deflaterOut, BUFFER_SIZE));
+            List<TypeDefinition> typeDefs = new ArrayList<TypeDefinition>();
+            for (TypeDefinitionContainer tdc : typeManager.getTypeDefinitionList()) {
+                typeDefs.add(tdc.getTypeDefinition());
+            }
+            out.writeObject(typeDefs);
+            logMark = objStore.writeSnapshot(out);
+            out.flush();
+            deflaterOut.finish();
+            fileOut.getChannel().force(true);
+            fileOut.close();
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            done = true;
+        } finally {
+            deflater.end();
+            if (!done) {
+                fileOut.close();
+                Files.deleteIfExists(tmpFile.toPath());
+            }
+        }
+        objStore.discardLog(logMark);
+    }
+
+    /**
+     * Replace the types and objects of a repository by the ones of a
+     * snapshot.
+     *
+     * @param file
+     *            snapshot file
+     * @param repositoryId
+     *            id of repository
+     * @param typeManager
+     *            type system of the repository
+     * @param objStore
+     *            object store of the repository
+     * @throws IOException
+     *             if the snapshot cannot be read, belongs to another
+     *             repository or contains types without their parent type
+     */
+    @SuppressWarnings("unchecked")
+    static void read(File file, String repositoryId, TypeManagerImpl typeManager, ObjectStoreImpl objStore)
+            throws IOException {
+        DataInputStream header = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+        Inflater inflater = new Inflater();
+        try {
+            if (header.readInt() != MAGIC || header.readInt() != FORMAT_VERSION) {
+                throw new IOException("File " + file + " is not a repository snapshot of a supported version.");
+            }
+            String id = header.readUTF();
+            if (!id.equals(repositoryId)) {
+                throw new IOException("File " + file + " contains a snapshot of repository " + id + ".");
+            }
+            ObjectInputStream in = new ObjectInputStream(new InflaterInputStream(header, inflater, BUFFER_SIZE));
+            restoreTypes(typeManager, (List<TypeDefinition>) in.readObject());
+            objStore.readSnapshot(in);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Snapshot " + file + " contains unknown classes: " + e.getMessage(), e);
+        } finally {
+            header.close();
+            inflater.end();
+        }
+    }
+
+    /*
+     * Adds the types in an order that puts each parent type before its
+     * children. The definitions already contain the inherited properties.
+     * The type system is left unchanged if a parent type is missing.
+     */
+    private static void restoreTypes(TypeManagerImpl typeManager, List<TypeDefinition> typeDefs) throws IOException {
+        Set<String> ids = new HashSet<String>();
+        for (TypeDefinition typeDef : typeDefs) {
+            ids.add(typeDef.getId());
+        }
+        List<String> orphans = new ArrayList<String>();
+        for (TypeDefinition typeDef : typeDefs) {
+            if (null != typeDef.getParentTypeId() && !ids.contains(typeDef.getParentTypeId())) {
+                orphans.add(typeDef.getId());
+            }
+        }
+        if (!orphans.isEmpty()) {
+            throw new IOException("Snapshot contains types without their parent type: " + orphans);
+        }
+
+        typeManager.clearTypeSystem();
+        Set<String> added = new HashSet<String>();
+        for (TypeDefinitionContainer tdc : typeManager.getTypeDefinitionList()) {
+            added.add(tdc.getTypeDefinition().getId());
+        }
+        List<TypeDefinition> pending = new ArrayList<TypeDefinition>(typeDefs);
+        boolean progress = true;
+        while (!pending.isEmpty() && progress) {
+            progress = false;
+            List<TypeDefinition> next = new ArrayList<TypeDefinition>();
+            for (TypeDefinition typeDef : pending) {
+                if (added.contains(typeDef.getId())) {
+                    progress = true;
+                } else if (null == typeDef.getParentTypeId() || added.contains(typeDef.getParentTypeId())) {
+                    typeManager.addTypeDefinition(typeDef, false);
+                    added.add(typeDef.getId());
+                    progress = true;
+                } else {
+                    next.add(typeDef);
+                }
+            }
+            pending = next;
+        }
+        if (!pending.isEmpty()) {
+            List<String> notAdded = new ArrayList<String>();
+            for (TypeDefinition typeDef : pending) {
+                notAdded.add(typeDef.getId());
+            }
+            throw new IOException("Snapshot contains types with cyclic parent types: " + notAdded);
+        }
+    }
+}
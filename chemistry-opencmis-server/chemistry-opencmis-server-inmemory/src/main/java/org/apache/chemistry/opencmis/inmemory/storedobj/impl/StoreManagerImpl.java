@@ -18,6 +18,8 @@
  */
 package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
 
+import java.io.File;
+import java.io.IOException;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -63,6 +65,8 @@ import org.apache.chemistry.opencmis.commons.impl.dataobjects.RepositoryInfoImpl
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.TypeDefinitionContainerImpl;
 import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.spi.BindingsObjectFactory;
+import org.apache.chemistry.opencmis.inmemory.ConfigConstants;
+import org.apache.chemistry.opencmis.inmemory.ConfigurationSettings;
 import org.apache.chemistry.opencmis.inmemory.TypeCreator;
 import org.apache.chemistry.opencmis.inmemory.TypeManagerImpl;
 import org.apache.chemistry.opencmis.inmemory.query.InMemoryQueryProcessor;
@@ -71,6 +75,7 @@ import org.apache.chemistry.opencmis.inmemory.storedobj.api.ObjectStore;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoreManager;
 import org.apache.chemistry.opencmis.server.support.TypeDefinitionFactory;
 import org.apache.chemistry.opencmis.server.support.TypeManager;
+import org.apache.chemistry.opencmis.server.support.query.ParsedQueryCache;
 
 /**
  * Factory to create objects that are stored in the InMemory store.
@@ -110,6 +115,11 @@ public class StoreManagerImpl implements StoreManager {
      */
     private final Map<String, ObjectStore> fMapRepositoryToObjectStore = new HashMap<String, ObjectStore>();
 
+    /**
+     * Map from repository id to a cache of parsed query statements.
+     */
+    private final Map<String, ParsedQueryCache> fMapRepositoryToQueryCache = new HashMap<String, ParsedQueryCache>();
+
     private boolean relaxedParserMode = false;
 
     public ObjectStoreImpl getStore(String repositoryId) {
@@ -132,6 +142,7 @@ public class StoreManagerImpl implements StoreManager {
     public void initRepository(String repositoryId) {
         fMapRepositoryToObjectStore.put(repositoryId, new ObjectStoreImpl(repositoryId));
         fMapRepositoryToTypeManager.put(repositoryId, new TypeManagerImpl());
+        createQueryCache(repositoryId);
     }
 
     @Override
@@ -144,11 +155,145 @@ public class StoreManagerImpl implements StoreManager {
 
         fMapRepositoryToObjectStore.put(repositoryId, new ObjectStoreImpl(repositoryId));
         fMapRepositoryToTypeManager.put(repositoryId, new TypeManagerImpl());
+        createQueryCache(repositoryId);
 
         // initialize the type system:
         initTypeSystem(repositoryId, typeCreatorClassName);
     }
 
+    private void createQueryCache(String repositoryId) {
+        Long size = ConfigurationSettings.getConfigurationValueAsLong(ConfigConstants.QUERY_CACHE_SIZE);
+        if (null == size) {
+            fMapRepositoryToQueryCache.put(repositoryId, new ParsedQueryCache());
+        } else if (size > 0) {
+            fMapRepositoryToQueryCache.put(repositoryId, new ParsedQueryCache(size.intValue()));
+        }
+    }
+
+    /**
+     * Get the cache of parsed query statements of a repository.
+     * 
+     * @param repositoryId
+     *            id of repository
+     * @return query cache or null if caching is disabled
+     */
+    public ParsedQueryCache getQueryCache(String repositoryId) {
+        return fMapRepositoryToQueryCache.get(repositoryId);
+    }
+
+    /**
+     * Write the types and objects of a repository to a snapshot file.
+     * 
+     * @param repositoryId
+     *            id of repository
+     * @param file
+     *            snapshot file, replaced if it exists
+     * @throws IOException
+     *             if the snapshot cannot be written
+     */
+    public void saveSnapshot(String repositoryId, File file) throws IOException {
+        TypeManagerImpl typeManager = fMapRepositoryToTypeManager.get(repositoryId);
+        if (null == typeManager) {
+            throw new CmisObjectNotFoundException(UNKNOWN_REPOSITORY + repositoryId);
+        }
+        RepositorySnapshot.write(file, repositoryId, typeManager, getStore(repositoryId));
+    }
+
+    /**
+     * Replace the types and objects of a repository by the ones stored in a
+     * snapshot file.
+     * 
+     * @param repositoryId
+     *            id of repository
+     * @param file
+     *            snapshot file
+     * @throws IOException
+     *             if the snapshot cannot be read
+     */
+    public void loadSnapshot(String repositoryId, File file) throws IOException {
+        TypeManagerImpl typeManager = fMapRepositoryToTypeManager.get(repositoryId);
+        if (null == typeManager) {
+            throw new CmisObjectNotFoundException(UNKNOWN_REPOSITORY + repositoryId);
+        }
+        RepositorySnapshot.read(file, repositoryId, typeManager, getStore(repositoryId));
+        ParsedQueryCache queryCache = getQueryCache(repositoryId);
+        if (null != queryCache) {
+            queryCache.clear();
+        }
+    }
+
+    /**
+     * Apply the changes logged after the last snapshot of a repository, the
+     * snapshot must have been loaded before.
+     * 
+     * @param repositoryId
+     *            id of repository
+     * @param file
+     *            log file
+     * @return number of applied changes
+     * @throws IOException
+     *             if the log cannot be read
+     */
+    public int replayLog(String repositoryId, File file) throws IOException {
+        int count = getObjectStoreImpl(repositoryId).replayLog(file);
+        ParsedQueryCache queryCache = getQueryCache(repositoryId);
+        if (null != queryCache) {
+            queryCache.clear();
+        }
+        return count;
+    }
+
+    /**
+     * Log all further changes of the objects of a repository to a file until
+     * they are contained in a snapshot.
+     * 
+     * @param repositoryId
+     *            id of repository
+     * @param file
+     *            log file
+     * @throws IOException
+     *             if the log cannot be opened
+     */
+    public void openLog(String repositoryId, File file) throws IOException {
+        getObjectStoreImpl(repositoryId).openLog(file);
+    }
+
+    /**
+     * Stop logging the changes of a repository.
+     * 
+     * @param repositoryId
+     *            id of repository
+     * @throws IOException
+     *             if the log cannot be closed
+     */
+    public void closeLog(String repositoryId) throws IOException {
+        getObjectStoreImpl(repositoryId).closeLog();
+    }
+
+    private ObjectStoreImpl getObjectStoreImpl(String repositoryId) {
+        ObjectStoreImpl objStore = getStore(repositoryId);
+        if (null == objStore) {
+            throw new CmisObjectNotFoundException(UNKNOWN_REPOSITORY + repositoryId);
+        }
+        return objStore;
+    }
+
+    /**
+     * Get a number that changes whenever an object or a type of a repository
+     * is modified. Used to skip snapshots of unmodified repositories.
+     * 
+     * @param repositoryId
+     *            id of repository
+     * @return modification count
+     */
+    public long getModificationCount(String repositoryId) {
+        TypeManagerImpl typeManager = fMapRepositoryToTypeManager.get(repositoryId);
+        if (null == typeManager) {
+            throw new CmisObjectNotFoundException(UNKNOWN_REPOSITORY + repositoryId);
+        }
+        return getStore(repositoryId).getModificationCount() + typeManager.getTypeSystemVersion();
+    }
+
     @Override
     public void addFlag(String flag) {
         if (flag.trim().equalsIgnoreCase("ParserModeRelaxed")) {
@@ -353,7 +498,7 @@ public class StoreManagerImpl implements StoreManager {
 
     @SuppressWarnings("serial")
     private RepositoryInfo createRepositoryInfo(String repositoryId, boolean cmis11) {
-        ObjectStore objStore = getObjectStore(repositoryId);
+        ObjectStoreImpl objStore = getStore(repositoryId);
         String rootFolderId = objStore.getRootFolder().getId();
         // repository info
         RepositoryInfoImpl repoInfo;
@@ -365,8 +510,9 @@ public class StoreManagerImpl implements StoreManager {
         repoInfo.setPrincipalAnonymous(InMemoryAce.getAnonymousUser());
         repoInfo.setPrincipalAnyone(InMemoryAce.getAnyoneUser());
         repoInfo.setThinClientUri("");
-        repoInfo.setChangesIncomplete(Boolean.TRUE);
-        repoInfo.setLatestChangeLogToken("token-24");
+        long latestToken = objStore.getLatestChangeLogToken();
+        repoInfo.setChangesIncomplete(objStore.isChangeLogIncomplete());
+        repoInfo.setLatestChangeLogToken(latestToken < 0 ? null : Long.toString(latestToken));
         repoInfo.setVendorName("Apache Chemistry");
         repoInfo.setProductName(OPENCMIS_SERVER);
         repoInfo.setProductVersion(OPENCMIS_VERSION);
@@ -375,7 +521,8 @@ public class StoreManagerImpl implements StoreManager {
         RepositoryCapabilitiesImpl caps = new RepositoryCapabilitiesImpl();
         caps.setAllVersionsSearchable(false);
         caps.setCapabilityAcl(CapabilityAcl.MANAGE);
-        caps.setCapabilityChanges(CapabilityChanges.OBJECTIDSONLY);
+        caps.setCapabilityChanges(objStore.isChangeLogEnabled() ? CapabilityChanges.OBJECTIDSONLY
+                : CapabilityChanges.NONE);
         caps.setCapabilityContentStreamUpdates(CapabilityContentStreamUpdates.ANYTIME);
         caps.setCapabilityJoin(CapabilityJoin.NONE);
         caps.setCapabilityQuery(CapabilityQuery.BOTHCOMBINED);
@@ -584,7 +731,7 @@ public class StoreManagerImpl implements StoreManager {
         ObjectStore objectStore = getObjectStore(repositoryId);
 
         InMemoryQueryProcessor queryProcessor = new InMemoryQueryProcessor(getStore(repositoryId), callContext,
-                relaxedParserMode);
+                relaxedParserMode, getQueryCache(repositoryId));
         ObjectList objList = queryProcessor.query(tm, objectStore, user, repositoryId, statement, searchAllVersions,
                 includeAllowableActions, includeRelationships, renditionFilter, maxItems, skipCount);
 
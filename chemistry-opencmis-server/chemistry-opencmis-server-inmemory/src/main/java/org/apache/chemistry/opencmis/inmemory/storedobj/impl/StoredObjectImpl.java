@@ -22,6 +22,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -31,6 +32,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.chemistry.opencmis.commons.PropertyIds;
 import org.apache.chemistry.opencmis.commons.data.AllowableActions;
@@ -48,11 +50,16 @@ import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
  * Documents, Folders, Relationships and Policies.
  * 
  */
-public class StoredObjectImpl implements StoredObject {
+public class StoredObjectImpl implements StoredObject, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static final int BUFFER_SIZE = 65536;
     private static final String UNKNOWN_USER = "unknown";
 
+    // counts renames of all objects, see getNameChangeCount()
+    private static final AtomicLong NAME_CHANGES = new AtomicLong();
+
     protected String fId;
     protected String fName;
     protected String fTypeId;
@@ -93,7 +100,24 @@ public class StoredObjectImpl implements StoredObject {
 
     @Override
     public void setName(String name) {
+        boolean renamed = null != fName && !fName.equals(name);
         fName = name;
+        if (renamed) {
+            // counted after the assignment, so a check seeing the new count
+            // also sees the new name
+            NAME_CHANGES.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the number of times an object has been renamed. Objects can be
+     * renamed without the object store being told, for example by setting
+     * their properties, so orders by name compare it to detect renames.
+     *
+     * @return number of renames since the class was loaded
+     */
+    static long getNameChangeCount() {
+        return NAME_CHANGES.get();
     }
 
     @Override
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits text content into terms. The content is decoded as UTF-8 and split
+ * at every character that is not a letter or a digit, terms are converted to
+ * lower case so that they are compared case insensitive.
+ * <p>
+ * The content may be read in several parts, a part may end in the middle of
+ * a term or of a UTF-8 sequence. Nothing but the open term at the end and an
+ * incomplete UTF-8 sequence is kept between the parts, subclasses decide what
+ * to do with the terms.
+ */
+abstract class TextTokenizer {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 0xFFFF;
+    private static final int CHAR_BUFFER_SIZE = 4096;
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private final StringBuilder fOpenTerm = new StringBuilder();
+    private byte[] fPending = NO_BYTES;
+    private long fLength;
+
+    /**
+     * Called for each term of the content in the order of the content.
+     *
+     * @param term
+     *            term in lower case
+     * @return {@code false} to stop reading the content
+     */
+    protected abstract boolean addTerm(String term);
+
+    /**
+     * Read and split the content of a stream. The stream is closed.
+     *
+     * @param in
+     *            stream of UTF-8 text
+     * @return {@code false} if {@link #addTerm(String)} stopped the reading
+     */
+    boolean tokenize(InputStream in) throws IOException {
+        try {
+            if (!read(in)) {
+                return false;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(fPending);
+            fPending = NO_BYTES;
+            if (!decode(newDecoder(), buffer, CharBuffer.allocate(CHAR_BUFFER_SIZE), true)) {
+                return false;
+            }
+            if (fOpenTerm.length() == 0) {
+                return true;
+            }
+            String term = fOpenTerm.toString();
+            fOpenTerm.setLength(0);
+            return addTerm(term);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Read and split the next part of the content. The term at the end of the
+     * part is not passed to {@link #addTerm(String)} because the next part may
+     * continue it, see {@link #getOpenTerm()}. The stream is closed.
+     *
+     * @param in
+     *            stream of UTF-8 text following the parts read before
+     * @return {@code false} if {@link #addTerm(String)} stopped the reading
+     */
+    boolean append(InputStream in) throws IOException {
+        try {
+            return read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Get the term at the end of the content read so far.
+     *
+     * @return term in lower case or {@code null} if the content read so far
+     *         ends with a character that is not a letter or a digit
+     */
+    String getOpenTerm() {
+        return fOpenTerm.length() == 0 ? null : fOpenTerm.toString();
+    }
+
+    /**
+     * Get the number of bytes read so far.
+     *
+     * @return number of bytes
+     */
+    long getLength() {
+        return fLength;
+    }
+
+    private boolean read(InputStream in) throws IOException {
+        CharsetDecoder decoder = newDecoder();
+        CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+        byte[] bytes = new byte[BUFFER_SIZE];
+        System.arraycopy(fPending, 0, bytes, 0, fPending.length);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(fPending.length);
+        fPending = NO_BYTES;
+        int len = in.read(bytes, buffer.position(), bytes.length - buffer.position());
+        while (len != -1) {
+            fLength += len;
+            buffer.position(buffer.position() + len);
+            buffer.flip();
+            if (!decode(decoder, buffer, chars, false)) {
+                return false;
+            }
+            // keep an incomplete UTF-8 sequence for the next chunk
+            buffer.compact();
+            len = in.read(bytes, buffer.position(), bytes.length - buffer.position());
+        }
+        buffer.flip();
+        fPending = new byte[buffer.remaining()];
+        buffer.get(fPending);
+        return true;
+    }
+
+    private static CharsetDecoder newDecoder() {
+        return UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    private boolean decode(CharsetDecoder decoder, ByteBuffer in, CharBuffer chars, boolean endOfInput) {
+        CoderResult result;
+        do {
+            result = decoder.decode(in, chars, endOfInput);
+            if (!addChars(chars)) {
+                return false;
+            }
+        } while (result.isOverflow());
+        if (endOfInput) {
+            decoder.flush(chars);
+            return addChars(chars);
+        }
+        return true;
+    }
+
+    private boolean addChars(CharBuffer chars) {
+        chars.flip();
+        try {
+            while (chars.hasRemaining()) {
+                char c = chars.get();
+                if (Character.isLetterOrDigit(c)) {
+                    fOpenTerm.append(Character.toLowerCase(c));
+                } else if (fOpenTerm.length() > 0) {
+                    String term = fOpenTerm.toString();
+                    fOpenTerm.setLength(0);
+                    if (!addTerm(term)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } finally {
+            chars.clear();
+        }
+    }
+
+    /**
+     * Split a text into terms like the content.
+     *
+     * @param text
+     *            text to split
+     * @return list of terms in the order of the text, empty if the text has
+     *         no letters or digits
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<String>();
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                term.append(Character.toLowerCase(c));
+            } else if (term.length() > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (term.length() > 0) {
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index from a value to the ids of the objects having this value. Used by the
+ * {@link ObjectStoreImpl} to index type ids and configured properties for the
+ * query processor.
+ * <p>
+ * Values are normalized before they are stored so that values and query
+ * literals of different Java types can be compared: all numbers are stored as
+ * {@code Double}, calendars as milliseconds. Normalizing numbers to doubles
+ * may put two different values on the same key, so the result of a lookup is
+ * a superset of the matching objects and the caller has to check each object
+ * again. A sorted index supports range lookups, a hash index only lookups by
+ * value.
+ */
+class ValueIndex {
+
+    /*
+     * Orders keys of different classes by class name so that a badly typed
+     * value cannot break the sorted map.
+     */
+    private static final Comparator<Object> KEY_ORDER = new Comparator<Object>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public int compare(Object o1, Object o2) {
+            if (o1.getClass() != o2.getClass()) {
+                return o1.getClass().getName().compareTo(o2.getClass().getName());
+            }
+            return ((Comparable<Object>) o1).compareTo(o2);
+        }
+    };
+
+    private final Map<Object, Set<String>> fIdsByKey;
+    private final Map<String, Object> fKeysById = new HashMap<String, Object>();
+    private final boolean fSorted;
+
+    /**
+     * Create an empty index.
+     *
+     * @param sorted
+     *            true if the index must support range lookups
+     */
+    ValueIndex(boolean sorted) {
+        fSorted = sorted;
+        if (sorted) {
+            fIdsByKey = new TreeMap<Object, Set<String>>(KEY_ORDER);
+        } else {
+            fIdsByKey = new HashMap<Object, Set<String>>();
+        }
+    }
+
+    /**
+     * Check if the index supports range lookups.
+     *
+     * @return true if the index is sorted
+     */
+    boolean isSorted() {
+        return fSorted;
+    }
+
+    /**
+     * Set the value of an object replacing the value indexed before.
+     *
+     * @param id
+     *            id of object
+     * @param value
+     *            new value, {@code null} or a value that cannot be indexed
+     *            removes the object from the index
+     */
+    synchronized void put(String id, Object value) {
+        Object key = normalize(value);
+        Object oldKey = null == key ? fKeysById.remove(id) : fKeysById.put(id, key);
+        if (null != oldKey) {
+            if (oldKey.equals(key)) {
+                return;
+            }
+            Set<String> ids = fIdsByKey.get(oldKey);
+            if (null != ids) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    fIdsByKey.remove(oldKey);
+                }
+            }
+        }
+        if (null != key) {
+            Set<String> ids = fIdsByKey.get(key);
+            if (null == ids) {
+                ids = new HashSet<String>();
+                fIdsByKey.put(key, ids);
+            }
+            ids.add(id);
+        }
+    }
+
+    /**
+     * Remove an object from the index.
+     *
+     * @param id
+     *            id of object
+     */
+    void remove(String id) {
+        put(id, null);
+    }
+
+    /**
+     * Get the ids of the objects that might have a value.
+     *
+     * @param value
+     *            value to look up
+     * @return list of ids, empty if no object has the value
+     */
+    synchronized List<String> get(Object value) {
+        Object key = normalize(value);
+        Set<String> ids = null == key ? null : fIdsByKey.get(key);
+        if (null == ids) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<String>(ids);
+    }
+
+    /**
+     * Get the number of objects that might have a value.
+     *
+     * @param value
+     *            value to look up
+     * @return number of objects
+     */
+    synchronized int count(Object value) {
+        Object key = normalize(value);
+        Set<String> ids = null == key ? null : fIdsByKey.get(key);
+        return null == ids ? 0 : ids.size();
+    }
+
+    /**
+     * Get the ids of the objects that might have a value in a range. Both
+     * bounds are inclusive, the caller has to filter objects on an exclusive
+     * bound.
+     *
+     * @param lower
+     *            lower bound or {@code null} if there is no lower bound
+     * @param upper
+     *            upper bound or {@code null} if there is no upper bound
+     * @return list of ids
+     */
+    synchronized List<String> getRange(Object lower, Object upper) {
+        if (!fSorted) {
+            throw new IllegalStateException("Range lookups require a sorted index.");
+        }
+        NavigableMap<Object, Set<String>> sorted = (NavigableMap<Object, Set<String>>) fIdsByKey;
+        Object lowerKey = normalize(lower);
+        Object upperKey = normalize(upper);
+        if (null != lowerKey && null != upperKey) {
+            if (KEY_ORDER.compare(lowerKey, upperKey) > 0) {
+                return Collections.emptyList();
+            }
+            sorted = sorted.subMap(lowerKey, true, upperKey, true);
+        } else if (null != lowerKey) {
+            sorted = sorted.tailMap(lowerKey, true);
+        } else if (null != upperKey) {
+            sorted = sorted.headMap(upperKey, true);
+        }
+        List<String> result = new ArrayList<String>();
+        for (Collection<String> ids : sorted.values()) {
+            result.addAll(ids);
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of indexed objects.
+     *
+     * @return number of objects
+     */
+    synchronized int size() {
+        return fKeysById.size();
+    }
+
+    /**
+     * Remove all entries.
+     */
+    synchronized void clear() {
+        fIdsByKey.clear();
+        fKeysById.clear();
+    }
+
+    private static Object normalize(Object value) {
+        if (value instanceof String || value instanceof Boolean) {
+            return value;
+        } else if (value instanceof BigInteger || value instanceof BigDecimal || value instanceof Long
+                || value instanceof Integer || value instanceof Double) {
+            double d = ((Number) value).doubleValue();
+            return Double.valueOf(d == 0.0 ? 0.0 : d); // no negative zero
+        } else if (value instanceof GregorianCalendar) {
+            return Long.valueOf(((GregorianCalendar) value).getTimeInMillis());
+        } else {
+            return null;
+        }
+    }
+}
@@ -36,6 +36,8 @@ import org.apache.chemistry.opencmis.inmemory.storedobj.api.VersionedDocument;
 
 public class VersionedDocumentImpl extends FilingImpl implements VersionedDocument {
 
+    private static final long serialVersionUID = 1L;
+
     private boolean fIsCheckedOut;
     private String fCheckedOutUser;
     private final List<DocumentVersion> fVersions;
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Log of the changes of an {@link ObjectStoreImpl} since its last snapshot.
+ * Each record holds the state of an object after a change, the id of a
+ * deleted object, a new ACL or the clearing of the repository. Every record
+ * is forced to disk before the change returns. Replaying the records on top
+ * of the snapshot restores the repository after a crash, records of changes
+ * that are already part of the snapshot are harmless because they only
+ * write the same state again.
+ * <p>
+ * A record is its length, the CRC32 of its data and the data. Reading stops
+ * at the first incomplete or damaged record, which is the one that was being
+ * written when the server stopped.
+ */
+final class WriteAheadLog {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final byte ACL = 3;
+    static final byte CLEAR = 4;
+
+    private static final Logger LOG = LoggerFactory.getLogger(WriteAheadLog.class.getName());
+    private static final int HEADER_SIZE = 8;
+    private static final int BUFFER_SIZE = 0x10000;
+
+    private final File fFile;
+    private FileChannel fChannel;
+
+    /**
+     * Open a log for appending, the file is created if it does not exist.
+     *
+     * @param file
+     *            log file
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    WriteAheadLog(File file) throws IOException {
+        fFile = file;
+        fChannel = open(file);
+    }
+
+    private static FileChannel open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    /**
+     * Append a record and force it to disk.
+     *
+     * @param type
+     *            one of {@link #PUT}, {@link #DELETE}, {@link #ACL} and
+     *            {@link #CLEAR}
+     * @param data
+     *            serializable data of the record
+     * @throws IOException
+     *             if the record cannot be written
+     */
+    void append(byte type, Object data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeByte(type);
+        out.writeObject(data);
+        out.close();
+
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + record.length);
+        buffer.putInt(record.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(record);
+        buffer.flip();
+
+        synchronized (this) {
+            while (buffer.hasRemaining()) {
+                fChannel.write(buffer);
+            }
+            fChannel.force(false);
+        }
+    }
+
+    /**
+     * Get the size of the log. Used as mark when a snapshot starts, see
+     * {@link #discard(long)}.
+     *
+     * @return size in bytes
+     * @throws IOException
+     *             if the size cannot be read
+     */
+    synchronized long size() throws IOException {
+        return fChannel.size();
+    }
+
+    /**
+     * Remove the records written before a mark after a snapshot containing
+     * their changes has been written. Records written while the snapshot was
+     * written are kept.
+     *
+     * @param mark
+     *            size of the log when the snapshot started
+     * @throws IOException
+     *             if the log cannot be shortened
+     */
+    synchronized void discard(long mark) throws IOException {
+        long size = fChannel.size();
+        if (mark <= 0) {
+            return;
+        } else if (mark >= size) {
+            fChannel.truncate(0);
+            fChannel.force(true);
+            return;
+        }
+
+        File tmpFile = new File(fFile.getPath() + ".tmp");
+        boolean done = false;
+        FileChannel tmp = FileChannel.open(tmpFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            long pos = mark;
+            while (pos < size) {
+                long n = fChannel.transferTo(pos, size - pos, tmp);
+                if (n <= 0) {
+                    throw new IOException("Log " + fFile + " ended after " + pos + " of " + size + " bytes!");
+                }
+                pos += n;
+            }
+            tmp.force(true);
+            done = true;
+        } finally {
+            tmp.close();
+            if (!done) {
+                Files.deleteIfExists(tmpFile.toPath());
+            }
+        }
+        fChannel.close();
+        Files.move(tmpFile.toPath(), fFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        fChannel = open(fFile);
+    }
+
+    /**
+     * Close the log.
+     *
+     * @throws IOException
+     *             if closing fails
+     */
+    synchronized void close() throws IOException {
+        fChannel.close();
+    }
+
+    /**
+     * Apply the records of a log to an object store.
+     *
+     * @param file
+     *            log file
+     * @param objStore
+     *            object store to apply the records to
+     * @return number of applied records
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    static int replay(File file, ObjectStoreImpl objStore) throws IOException {
+        int count = 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+        try {
+            while (true) {
+                byte[] record = null;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length >= 0 && length <= file.length()) {
+                        record = new byte[length];
+                        in.readFully(record);
+                        CRC32 crc = new CRC32();
+                        crc.update(record);
+                        if ((int) crc.getValue() != checksum) {
+                            record = null;
+                        }
+                    }
+                } catch (EOFException e) {
+                    // the last record is incomplete
+                }
+                if (null == record) {
+                    if (in.available() > 0) {
+                        LOG.warn("Log " + file + " has a damaged record after " + count
+                                + " records, ignoring the rest.");
+                    }
+                    break;
+                }
+
+                ObjectInputStream recordIn = new ObjectInputStream(new ByteArrayInputStream(record));
+                try {
+                    objStore.applyLogRecord(recordIn.readByte(), recordIn.readObject());
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Log " + file + " contains unknown classes: " + e.getMessage(), e);
+                } finally {
+                    recordIn.close();
+                }
+                count++;
+            }
+        } finally {
+            in.close();
+        }
+        return count;
+    }
+}
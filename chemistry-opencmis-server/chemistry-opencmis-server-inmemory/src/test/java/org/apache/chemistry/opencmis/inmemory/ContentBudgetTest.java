@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory;
+
+import static org.junit.Assert.fail;
+
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisStorageException;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the memory budget limiting the content of all documents of a
+ * repository.
+ */
+public class ContentBudgetTest extends AbstractServiceTest {
+
+    private static final String DOCUMENT_TYPE_ID = BaseTypeId.CMIS_DOCUMENT.value();
+    private static final int BUDGET_KB = 100;
+
+    @Override
+    @Before
+    public void setUp() {
+        super.setUp();
+    }
+
+    @Override
+    @After
+    public void tearDown() {
+        super.tearDown();
+    }
+
+    @Override
+    protected void addParameters(Map<String, String> parameters) {
+        parameters.put(ConfigConstants.CONTENT_MEMORY_BUDGET_KB, Integer.toString(BUDGET_KB));
+    }
+
+    @Test
+    public void testBudgetExceeded() {
+        String id1 = createDocument("doc1", fRootFolderId, DOCUMENT_TYPE_ID, true);
+        String id2 = createDocument("doc2", fRootFolderId, DOCUMENT_TYPE_ID, true);
+        String id3 = createDocument("doc3", fRootFolderId, DOCUMENT_TYPE_ID, true);
+        try {
+            createDocumentNoCatch("doc4", fRootFolderId, DOCUMENT_TYPE_ID, null, true);
+            fail("Creating content beyond the memory budget should fail.");
+        } catch (CmisStorageException e) {
+            // expected
+        }
+        try {
+            fObjSvc.appendContentStream(fRepositoryId, new Holder<String>(id3), null, createContent(), true, null);
+            fail("Appending content beyond the memory budget should fail.");
+        } catch (CmisStorageException e) {
+            // expected
+        }
+        verifyContentResult(fObjSvc.getContentStream(fRepositoryId, id3, null, null, null, null));
+
+        // deleting and replacing content returns memory to the budget
+        fObjSvc.deleteObject(fRepositoryId, id1, true, null);
+        fObjSvc.setContentStream(fRepositoryId, new Holder<String>(id2), true, null, createContent(), null);
+        fObjSvc.appendContentStream(fRepositoryId, new Holder<String>(id3), null, createContent(), true, null);
+        verifyContentResult(fObjSvc.getContentStream(fRepositoryId, id3, null, null, null, null), 64);
+        fObjSvc.deleteObject(fRepositoryId, id2, true, null);
+        String id4 = createDocument("doc4", fRootFolderId, DOCUMENT_TYPE_ID, true);
+        verifyContentResult(fObjSvc.getContentStream(fRepositoryId, id4, null, null, null, null));
+    }
+}
@@ -19,13 +19,24 @@
 package org.apache.chemistry.opencmis.inmemory;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
 import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.chemistry.opencmis.commons.enums.CapabilityChanges;
+import org.apache.chemistry.opencmis.commons.enums.ChangeType;
 import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConstraintException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
 import org.apache.chemistry.opencmis.inmemory.ObjectServiceTest.ObjectTestTypeSystemCreator;
 import org.apache.chemistry.opencmis.inmemory.content.ObjectGenerator;
 import org.junit.After;
@@ -41,6 +52,7 @@ public class DiscoveryServiceTest extends AbstractServiceTest {
     private static final String TEST_DOCUMENT_TYPE_ID = ObjectServiceTest.TEST_DOCUMENT_TYPE_ID;
     private static final String TEST_FOLDER_STRING_PROP_ID = ObjectServiceTest.TEST_FOLDER_STRING_PROP_ID;
     private static final String TEST_DOCUMENT_STRING_PROP_ID = ObjectServiceTest.TEST_DOCUMENT_STRING_PROP_ID;
+    private static final int CHANGE_LOG_SIZE = 50;
 
     @Override
     @Before
@@ -55,6 +67,11 @@ public class DiscoveryServiceTest extends AbstractServiceTest {
         super.tearDown();
     }
 
+    @Override
+    protected void addParameters(Map<String, String> parameters) {
+        parameters.put(ConfigConstants.CHANGE_LOG_SIZE, Integer.toString(CHANGE_LOG_SIZE));
+    }
+
     @Test
     public void testQuery() {
         log.info("starting testQuery() ...");
@@ -176,4 +193,95 @@ public class DiscoveryServiceTest extends AbstractServiceTest {
         assertEquals(3, count);
     }
 
+    @Test
+    public void testContentChanges() {
+        assertEquals(CapabilityChanges.OBJECTIDSONLY, fRepSvc.getRepositoryInfo(fRepositoryId, null)
+                .getCapabilities().getChangesCapability());
+        String startToken = getNextChangeLogToken();
+
+        String folderId = createFolder("ChangeFolder", fRootFolderId, TEST_FOLDER_TYPE_ID);
+        String docId = createDocument("ChangeDoc", folderId, TEST_DOCUMENT_TYPE_ID, false);
+        List<PropertyData<?>> properties = new ArrayList<PropertyData<?>>();
+        properties.add(fFactory.createPropertyStringData(TEST_DOCUMENT_STRING_PROP_ID, "changed"));
+        fObjSvc.updateProperties(fRepositoryId, new Holder<String>(docId), null,
+                fFactory.createPropertiesData(properties), null);
+        fObjSvc.deleteObject(fRepositoryId, docId, true, null);
+
+        Holder<String> token = new Holder<String>(startToken);
+        ObjectList res = fDiscSvc.getContentChanges(fRepositoryId, token, false, null, false, false, null, null);
+        assertEquals(4, res.getObjects().size());
+        assertEquals(BigInteger.valueOf(4), res.getNumItems());
+        assertFalse(res.hasMoreItems());
+        assertChange(res.getObjects().get(0), folderId, TEST_FOLDER_TYPE_ID, ChangeType.CREATED);
+        assertChange(res.getObjects().get(1), docId, TEST_DOCUMENT_TYPE_ID, ChangeType.CREATED);
+        assertChange(res.getObjects().get(2), docId, TEST_DOCUMENT_TYPE_ID, ChangeType.UPDATED);
+        assertChange(res.getObjects().get(3), docId, TEST_DOCUMENT_TYPE_ID, ChangeType.DELETED);
+        assertEquals(Long.toString(Long.parseLong(startToken) + 3), token.getValue());
+    }
+
+    @Test
+    public void testContentChangesPaging() {
+        String startToken = getNextChangeLogToken();
+        for (int i = 0; i < 5; i++) {
+            createFolder("PagingFolder" + i, fRootFolderId, TEST_FOLDER_TYPE_ID);
+        }
+
+        // the event of the returned token is the first event of the next page
+        Holder<String> token = new Holder<String>(startToken);
+        List<ObjectData> changes = new ArrayList<ObjectData>();
+        ObjectList res = fDiscSvc.getContentChanges(fRepositoryId, token, false, null, false, false,
+                BigInteger.valueOf(2), null);
+        changes.addAll(res.getObjects());
+        while (res.hasMoreItems()) {
+            res = fDiscSvc.getContentChanges(fRepositoryId, token, false, null, false, false, BigInteger.valueOf(2),
+                    null);
+            assertEquals(changes.get(changes.size() - 1).getId(), res.getObjects().get(0).getId());
+            changes.addAll(res.getObjects().subList(1, res.getObjects().size()));
+        }
+        assertEquals(5, changes.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(ChangeType.CREATED, changes.get(i).getChangeEventInfo().getChangeType());
+        }
+    }
+
+    @Test
+    public void testContentChangesBounded() {
+        String startToken = getNextChangeLogToken();
+        for (int i = 0; i < CHANGE_LOG_SIZE + 1; i++) {
+            createFolder("BoundedFolder" + i, fRootFolderId, TEST_FOLDER_TYPE_ID);
+        }
+        try {
+            fDiscSvc.getContentChanges(fRepositoryId, new Holder<String>(startToken), false, null, false, false, null,
+                    null);
+            fail("Reading an expired change log token should fail.");
+        } catch (CmisConstraintException e) {
+            // expected
+        }
+
+        ObjectList res = fDiscSvc.getContentChanges(fRepositoryId, new Holder<String>(), false, null, false, false,
+                null, null);
+        assertEquals(CHANGE_LOG_SIZE, res.getObjects().size());
+
+        try {
+            fDiscSvc.getContentChanges(fRepositoryId, new Holder<String>("no-token"), false, null, false, false,
+                    null, null);
+            fail("Reading an unknown change log token should fail.");
+        } catch (CmisInvalidArgumentException e) {
+            // expected
+        }
+    }
+
+    private String getNextChangeLogToken() {
+        // the binding caches the repository info, an empty page returns the
+        // latest token of the repository
+        Holder<String> latest = new Holder<String>();
+        fDiscSvc.getContentChanges(fRepositoryId, latest, false, null, false, false, BigInteger.ZERO, null);
+        return null == latest.getValue() ? "0" : Long.toString(Long.parseLong(latest.getValue()) + 1);
+    }
+
+    private static void assertChange(ObjectData change, String objectId, String typeId, ChangeType changeType) {
+        assertEquals(objectId, change.getProperties().getProperties().get(PropertyIds.OBJECT_ID).getFirstValue());
+        assertEquals(typeId, change.getProperties().getProperties().get(PropertyIds.OBJECT_TYPE_ID).getFirstValue());
+        assertEquals(changeType, change.getChangeEventInfo().getChangeType());
+    }
 }
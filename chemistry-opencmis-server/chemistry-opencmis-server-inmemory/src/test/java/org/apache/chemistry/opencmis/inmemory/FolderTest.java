@@ -164,6 +164,70 @@ public class FolderTest extends TestCase {
         }
     }
 
+    @Test
+    public void testChildrenOrderAndPaging() {
+        List<Fileable> children = fStore.getChildren(fRoot, 2, 1, USER, false).getChildren();
+        assertEquals(2, children.size());
+        assertEquals(f2, children.get(0));
+        assertEquals(f3, children.get(1));
+        assertEquals(4, fStore.getChildren(fRoot, 2, 1, USER, false).getNoItems());
+
+        // order must follow a rename
+        fStore.rename(f1, "Folder 5", USER);
+        children = fStore.getChildren(fRoot, -1, -1, USER, false).getChildren();
+        assertEquals(4, children.size());
+        assertEquals(f2, children.get(0));
+        assertEquals(f1, children.get(3));
+
+        // and moves and deletes
+        fStore.move(f4, fRoot, f2, USER);
+        fStore.deleteObject(f3.getId(), true, USER);
+        children = fStore.getFolderChildren(fRoot, -1, 0, USER).getChildren();
+        assertEquals(2, children.size());
+        assertEquals(f2, children.get(0));
+        assertEquals(f1, children.get(1));
+        children = fStore.getFolderChildren(f2, 10, 0, USER).getChildren();
+        assertEquals(1, children.size());
+        assertEquals(f4, children.get(0));
+        assertEquals(0, fStore.getChildren(fRoot, 10, 5, USER, false).getChildren().size());
+        assertEquals(2, fStore.getChildren(fRoot, 10, 5, USER, false).getNoItems());
+    }
+
+    @Test
+    public void testGetObjectByPath() {
+        Folder f10 = createFolder("Folder 10", fRoot);
+        Folder f101 = createFolder("Folder 1.1", f10);
+        assertEquals(f11, fStore.getObjectByPath("/Folder 1/Folder 1.1", USER));
+        assertEquals(f101, fStore.getObjectByPath("/Folder 10/Folder 1.1", USER));
+        assertNull(fStore.getObjectByPath("/Folder 1/", USER));
+        assertNull(fStore.getObjectByPath("/Folder 1//Folder 1.1", USER));
+        assertNull(fStore.getObjectByPath("Folder 1", USER));
+        assertNull(fStore.getObjectByPath("/Folder 1/Folder 1.1/Unknown", USER));
+        assertEquals("/Folder 10/Folder 1.1", getPath(f101));
+
+        fStore.move(f101, f10, f2, USER);
+        assertNull(fStore.getObjectByPath("/Folder 10/Folder 1.1", USER));
+        assertEquals(f101, fStore.getObjectByPath("/Folder 2/Folder 1.1", USER));
+    }
+
+    @Test
+    public void testChildrenPagingAfterUnnoticedRename() {
+        List<Fileable> children = fStore.getChildren(fRoot, 2, 0, USER, false).getChildren();
+        assertEquals(f1, children.get(0));
+        assertEquals(f2, children.get(1));
+
+        // a name set directly on the object moves it to the second page
+        f1.setName("Folder 9");
+        children = fStore.getChildren(fRoot, 2, 2, USER, false).getChildren();
+        assertEquals(2, children.size());
+        assertEquals(f4, children.get(0));
+        assertEquals(f1, children.get(1));
+        children = fStore.getChildren(fRoot, 2, 0, USER, false).getChildren();
+        assertEquals(2, children.size());
+        assertEquals(f2, children.get(0));
+        assertEquals(f3, children.get(1));
+    }
+
     private void createFolders() {
         fRoot = (FolderImpl) fStore.getRootFolder();
         f1 = (FolderImpl) createFolder("Folder 1", fRoot);
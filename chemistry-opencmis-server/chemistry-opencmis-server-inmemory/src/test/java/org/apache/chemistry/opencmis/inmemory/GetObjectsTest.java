@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.client.api.Property;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.client.bindings.CmisBindingFactory;
+import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
+import org.apache.chemistry.opencmis.client.bindings.spi.local.CmisLocalSpi;
+import org.apache.chemistry.opencmis.client.runtime.SessionFactoryImpl;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.enums.BindingType;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.spi.DiscoveryService;
+import org.apache.chemistry.opencmis.commons.spi.ObjectService;
+import org.apache.chemistry.opencmis.inmemory.server.InMemoryServiceFactoryImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@code Session.getObjects()} against the InMemory server.
+ */
+public class GetObjectsTest {
+
+    private static final String REPOSITORY_ID = "GetObjectsTestRepository";
+    private static final String UNKNOWN_ID = "unknown-object-id";
+
+    private Session session;
+    private String folderId;
+    private String doc1Id;
+    private String doc2Id;
+
+    @Before
+    public void setUp() {
+        setUp(null);
+    }
+
+    private void setUp(String getObjectsThreads) {
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put(SessionParameter.BINDING_TYPE, BindingType.CUSTOM.value());
+        parameters.put(SessionParameter.BINDING_SPI_CLASS, CountingLocalSpi.class.getName());
+        parameters.put(SessionParameter.LOCAL_FACTORY, InMemoryServiceFactoryImpl.class.getName());
+        parameters.put(SessionParameter.TYPE_DEFINITION_CACHE_CLASS,
+                CmisBindingFactory.DEFAULT_TYPE_DEFINITION_CACHE_CLASS);
+        parameters.put(SessionParameter.REPOSITORY_ID, REPOSITORY_ID);
+        parameters.put(ConfigConstants.REPOSITORY_ID, REPOSITORY_ID);
+        parameters.put(ConfigConstants.TYPE_CREATOR_CLASS, UnitTestTypeSystemCreator.class.getName());
+        parameters.put(ConfigConstants.OVERRIDE_CALL_CONTEXT, "true");
+        if (getObjectsThreads != null) {
+            parameters.put(SessionParameter.GET_OBJECTS_THREADS, getObjectsThreads);
+        }
+        InMemoryServiceFactoryImpl.setOverrideCallContext(new DummyCallContext());
+
+        session = SessionFactoryImpl.newInstance().createSession(parameters);
+
+        Folder root = session.getRootFolder();
+
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put(PropertyIds.OBJECT_TYPE_ID, BaseTypeId.CMIS_FOLDER.value());
+        properties.put(PropertyIds.NAME, "folder");
+        folderId = root.createFolder(properties).getId();
+
+        doc1Id = createDocument("doc1", BaseTypeId.CMIS_DOCUMENT.value(), null);
+        doc2Id = createDocument("doc2", BaseTypeId.CMIS_DOCUMENT.value(), null);
+
+        session.clear();
+        CountingLocalSpi.reset();
+    }
+
+    @After
+    public void tearDown() {
+        CountingLocalSpi.reset();
+        session.getBinding().close();
+    }
+
+    private String createDocument(String name, String typeId, Map<String, Object> additionalProperties) {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put(PropertyIds.OBJECT_TYPE_ID, typeId);
+        properties.put(PropertyIds.NAME, name);
+        if (additionalProperties != null) {
+            properties.putAll(additionalProperties);
+        }
+
+        return session.createDocument(properties, session.getObject(folderId), null, null).getId();
+    }
+
+    @Test
+    public void testOrderAndUnknownIds() {
+        Map<String, CmisObject> objects = session.getObjects(Arrays.asList(doc2Id, UNKNOWN_ID, folderId, doc1Id));
+
+        assertEquals(Arrays.asList(doc2Id, folderId, doc1Id), new ArrayList<String>(objects.keySet()));
+        assertEquals("doc2", objects.get(doc2Id).getName());
+        assertEquals("folder", objects.get(folderId).getName());
+        assertEquals("doc1", objects.get(doc1Id).getName());
+
+        // one IN query per queryable base type, only the unknown ID is left
+        // to getObject
+        assertEquals(1, CountingLocalSpi.getQueryCount(BaseTypeId.CMIS_DOCUMENT.value()));
+        assertEquals(1, CountingLocalSpi.getQueryCount(BaseTypeId.CMIS_FOLDER.value()));
+        for (String query : CountingLocalSpi.queries) {
+            assertTrue(query.contains(PropertyIds.OBJECT_ID + " IN ("));
+        }
+        assertEquals(Collections.singletonList(UNKNOWN_ID), CountingLocalSpi.getObjectIds);
+    }
+
+    @Test
+    public void testCacheLookup() {
+        Map<String, CmisObject> objects = session.getObjects(Arrays.asList(doc1Id, doc2Id));
+        assertEquals(2, objects.size());
+        assertFalse(CountingLocalSpi.queries.isEmpty());
+
+        CountingLocalSpi.reset();
+
+        Map<String, CmisObject> cached = session.getObjects(Arrays.asList(doc2Id, doc1Id));
+        assertEquals(Arrays.asList(doc2Id, doc1Id), new ArrayList<String>(cached.keySet()));
+        assertTrue(objects.get(doc1Id) == cached.get(doc1Id));
+        assertTrue(objects.get(doc2Id) == cached.get(doc2Id));
+
+        assertTrue(CountingLocalSpi.queries.isEmpty());
+        assertTrue(CountingLocalSpi.getObjectIds.isEmpty());
+
+        // the query results are cached like getObject results
+        assertTrue(objects.get(doc1Id) == session.getObject(doc1Id));
+        assertTrue(CountingLocalSpi.getObjectIds.isEmpty());
+    }
+
+    @Test
+    public void testSubtypeQuery() {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("StringPropTopLevel", "top level value");
+        String subtypeDocId = createDocument("subtype", UnitTestTypeSystemCreator.TOPLEVEL_TYPE, properties);
+
+        session.clear();
+        CountingLocalSpi.reset();
+
+        Map<String, CmisObject> objects = session.getObjects(Arrays.asList(subtypeDocId, doc1Id));
+
+        CmisObject subtypeDoc = objects.get(subtypeDocId);
+        assertNotNull(subtypeDoc);
+        assertEquals(UnitTestTypeSystemCreator.TOPLEVEL_TYPE, subtypeDoc.getType().getId());
+        assertEquals("top level value", subtypeDoc.getPropertyValue("StringPropTopLevel"));
+        assertNotNull(objects.get(doc1Id));
+
+        // the base type query found the object, the subtype query loaded it
+        assertEquals(1, CountingLocalSpi.getQueryCount(BaseTypeId.CMIS_DOCUMENT.value()));
+        assertEquals(1, CountingLocalSpi.getQueryCount(UnitTestTypeSystemCreator.TOPLEVEL_TYPE));
+        assertTrue(CountingLocalSpi.getObjectIds.isEmpty());
+    }
+
+    @Test
+    public void testSecondaryTypesUseGetObject() {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put(PropertyIds.SECONDARY_OBJECT_TYPE_IDS,
+                Collections.singletonList(UnitTestTypeSystemCreator.SECONDARY_TYPE));
+        properties.put(UnitTestTypeSystemCreator.SECONDARY_STRING_PROP, "secondary value");
+        String secondaryDocId = createDocument("secondary", BaseTypeId.CMIS_DOCUMENT.value(), properties);
+
+        session.clear();
+        CountingLocalSpi.reset();
+
+        Map<String, CmisObject> objects = session.getObjects(Arrays.asList(doc1Id, secondaryDocId));
+
+        assertEquals(Arrays.asList(doc1Id, secondaryDocId), new ArrayList<String>(objects.keySet()));
+        assertEquals("secondary value",
+                objects.get(secondaryDocId).getPropertyValue(UnitTestTypeSystemCreator.SECONDARY_STRING_PROP));
+        assertEquals(Collections.singletonList(secondaryDocId), CountingLocalSpi.getObjectIds);
+    }
+
+    @Test
+    public void testQueryFailureFallsBackToGetObject() {
+        CountingLocalSpi.failQueries = true;
+
+        Map<String, CmisObject> objects = session.getObjects(Arrays.asList(doc1Id, UNKNOWN_ID, doc2Id, folderId));
+
+        assertEquals(Arrays.asList(doc1Id, doc2Id, folderId), new ArrayList<String>(objects.keySet()));
+        assertEquals("doc1", objects.get(doc1Id).getName());
+        assertEquals("doc2", objects.get(doc2Id).getName());
+        assertEquals("folder", objects.get(folderId).getName());
+
+        assertEquals(1, CountingLocalSpi.queries.size());
+        assertEquals(new HashSet<String>(Arrays.asList(doc1Id, UNKNOWN_ID, doc2Id, folderId)),
+                new HashSet<String>(CountingLocalSpi.getObjectIds));
+    }
+
+    @Test
+    public void testGetObjectsThreads() {
+        CountingLocalSpi.failQueries = true;
+
+        Map<String, CmisObject> objects = session.getObjects(Arrays.asList(doc1Id, doc2Id, folderId));
+        assertEquals(3, objects.size());
+        assertEquals(3, CountingLocalSpi.getObjectThreads.size());
+        for (String threadName : CountingLocalSpi.getObjectThreads) {
+            assertTrue(threadName.startsWith("OpenCMIS getObjects "));
+        }
+
+        // a single thread loads the objects on the calling thread
+        tearDown();
+        setUp("1");
+        CountingLocalSpi.failQueries = true;
+
+        objects = session.getObjects(Arrays.asList(doc1Id, doc2Id, folderId));
+        assertEquals(3, objects.size());
+        assertEquals(3, CountingLocalSpi.getObjectThreads.size());
+        for (String threadName : CountingLocalSpi.getObjectThreads) {
+            assertEquals(Thread.currentThread().getName(), threadName);
+        }
+    }
+
+    @Test
+    public void testPropertyFilter() {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("StringPropTopLevel", "top level value");
+        String subtypeDocId = createDocument("subtype", UnitTestTypeSystemCreator.TOPLEVEL_TYPE, properties);
+
+        session.clear();
+        CountingLocalSpi.reset();
+
+        OperationContext context = session.createOperationContext();
+        context.setFilterString(PropertyIds.NAME + ",StringPropTopLevel");
+        context.setCacheEnabled(true);
+
+        Map<String, CmisObject> objects = session.getObjects(Arrays.asList(doc1Id, subtypeDocId), context);
+        assertTrue(CountingLocalSpi.getObjectIds.isEmpty());
+        for (String query : CountingLocalSpi.queries) {
+            assertFalse(query.startsWith("SELECT *"));
+        }
+
+        // the properties must match the properties of getObject
+        OperationContext uncachedContext = session.createOperationContext();
+        uncachedContext.setFilterString(PropertyIds.NAME + ",StringPropTopLevel");
+        uncachedContext.setCacheEnabled(false);
+
+        for (String objectId : Arrays.asList(doc1Id, subtypeDocId)) {
+            CmisObject queried = objects.get(objectId);
+            CmisObject fetched = session.getObject(objectId, uncachedContext);
+
+            assertEquals(getPropertyIds(fetched), getPropertyIds(queried));
+            assertEquals(fetched.getName(), queried.getName());
+            assertNull(queried.getProperty(PropertyIds.CREATED_BY));
+        }
+        assertEquals("top level value", objects.get(subtypeDocId).getPropertyValue("StringPropTopLevel"));
+
+        // the filtered objects are cached under the context's cache key
+        CountingLocalSpi.reset();
+        assertTrue(objects.get(doc1Id) == session.getObject(doc1Id, context));
+        assertTrue(CountingLocalSpi.getObjectIds.isEmpty());
+    }
+
+    private static Set<String> getPropertyIds(CmisObject object) {
+        Set<String> result = new HashSet<String>();
+        for (Property<?> property : object.getProperties()) {
+            result.add(property.getId());
+        }
+
+        return result;
+    }
+
+    /**
+     * Local SPI that records the queries and getObject calls and can reject
+     * queries.
+     */
+    public static class CountingLocalSpi extends CmisLocalSpi {
+
+        static final List<String> queries = Collections.synchronizedList(new ArrayList<String>());
+        static final List<String> getObjectIds = Collections.synchronizedList(new ArrayList<String>());
+        static final List<String> getObjectThreads = Collections.synchronizedList(new ArrayList<String>());
+        static volatile boolean failQueries;
+
+        private final DiscoveryService discoveryService;
+        private final ObjectService objectService;
+
+        public CountingLocalSpi(BindingSession session) {
+            super(session);
+
+            discoveryService = (DiscoveryService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { DiscoveryService.class }, new CountingHandler(super.getDiscoveryService()));
+            objectService = (ObjectService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { ObjectService.class }, new CountingHandler(super.getObjectService()));
+        }
+
+        static void reset() {
+            queries.clear();
+            getObjectIds.clear();
+            getObjectThreads.clear();
+            failQueries = false;
+        }
+
+        static int getQueryCount(String typeQueryName) {
+            int count = 0;
+            synchronized (queries) {
+                for (String query : queries) {
+                    if (query.contains(" FROM " + typeQueryName + " ")) {
+                        count++;
+                    }
+                }
+            }
+
+            return count;
+        }
+
+        @Override
+        public DiscoveryService getDiscoveryService() {
+            return discoveryService;
+        }
+
+        @Override
+        public ObjectService getObjectService() {
+            return objectService;
+        }
+
+        private static class CountingHandler implements InvocationHandler {
+            private final Object target;
+
+            CountingHandler(Object target) {
+                this.target = target;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("query")) {
+                    queries.add((String) args[1]);
+                    if (failQueries) {
+                        throw new CmisInvalidArgumentException("Queries are disabled!");
+                    }
+                } else if (method.getName().equals("getObject")) {
+                    getObjectIds.add((String) args[1]);
+                    getObjectThreads.add(Thread.currentThread().getName());
+                }
+
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+}
@@ -1143,6 +1143,50 @@ public class ObjectServiceTest extends AbstractServiceTest {
         log.info("... testAppendContent() finished.");
     }
 
+    @Test
+    public void testAppendContentInChunks() throws IOException {
+        log.info("starting testAppendContentInChunks() ...");
+        String id = createDocument(fRootFolderId, true);
+        Holder<String> idHolder = new Holder<String>(id);
+
+        // a stream opened before an append does not see the appended bytes
+        InputStream before = fObjSvc.getContentStream(fRepositoryId, id, null, null, null, null).getStream();
+        fObjSvc.appendContentStream(fRepositoryId, idHolder, null, createContent(), false, null);
+        fObjSvc.appendContentStream(fRepositoryId, idHolder, null, createContent(), true, null);
+        assertEquals(32 * 1024, readAll(before).length);
+
+        ContentStream sd = fObjSvc.getContentStream(fRepositoryId, id, null, null, null, null);
+        verifyContentResult(sd, 96);
+        byte[] all = readAll(sd.getStream());
+
+        // read a range crossing the boundaries of the appended content
+        int offset = 32 * 1024 - 100;
+        int length = 32 * 1024 + 200;
+        sd = fObjSvc.getContentStream(fRepositoryId, id, null, BigInteger.valueOf(offset), BigInteger.valueOf(length),
+                null);
+        assertEquals(length, sd.getBigLength().longValue());
+        byte[] range = readAll(sd.getStream());
+        assertEquals(length, range.length);
+        for (int i = 0; i < length; i++) {
+            assertEquals(all[offset + i], range[i]);
+        }
+
+        fObjSvc.deleteObject(fRepositoryId, id, true, null);
+        log.info("... testAppendContentInChunks() finished.");
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream ba = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1000];
+        int len = is.read(buffer);
+        while (len != -1) {
+            ba.write(buffer, 0, len);
+            len = is.read(buffer);
+        }
+        is.close();
+        return ba.toByteArray();
+    }
+
     @Test
     public void testGetPartialContent() throws IOException, UnsupportedEncodingException {
         log.info("starting testGetPartialContent() ...");
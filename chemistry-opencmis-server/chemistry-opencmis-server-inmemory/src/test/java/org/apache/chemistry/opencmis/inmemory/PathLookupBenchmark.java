@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Folder;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ObjectStoreImpl;
+
+/**
+ * Simple benchmark for concurrent path lookups in a large in-memory object
+ * store. This is not a unit test, run it manually with:
+ *
+ * <pre>
+ * java -cp ... org.apache.chemistry.opencmis.inmemory.PathLookupBenchmark [objects] [threads] [seconds]
+ * </pre>
+ *
+ * The defaults build a folder tree of one million folders (six levels with ten
+ * children each) and look up random paths of the deepest level.
+ */
+public class PathLookupBenchmark {
+
+    private static final String USER = "user";
+    private static final int FAN_OUT = 10;
+
+    public static void main(String[] args) throws Exception {
+        int objects = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        ConfigurationSettings.init(new HashMap<String, String>());
+        final ObjectStoreImpl store = new ObjectStoreImpl("benchmark");
+
+        long start = System.currentTimeMillis();
+        List<String> level = new ArrayList<String>();
+        level.add("");
+        List<Folder> parents = new ArrayList<Folder>();
+        parents.add(store.getRootFolder());
+        int created = 0;
+        while (created < objects) {
+            List<String> nextLevel = new ArrayList<String>();
+            List<Folder> nextParents = new ArrayList<Folder>();
+            for (int i = 0; i < parents.size() && created < objects; i++) {
+                for (int j = 0; j < FAN_OUT && created < objects; j++) {
+                    String name = "folder-" + j;
+                    nextParents.add(store.createFolder(name, null, USER, parents.get(i), null, null, null));
+                    nextLevel.add(level.get(i) + "/" + name);
+                    created++;
+                }
+            }
+            level = nextLevel;
+            parents = nextParents;
+        }
+        final String[] paths = level.toArray(new String[level.size()]);
+        System.out.println("Created " + created + " folders in " + (System.currentTimeMillis() - start)
+                + " ms, looking up " + paths.length + " paths like " + paths[0]);
+
+        final AtomicLong lookups = new AtomicLong();
+        final long end = System.currentTimeMillis() + seconds * 1000L;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final Random random = new Random(t);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    long count = 0;
+                    while (System.currentTimeMillis() < end) {
+                        for (int i = 0; i < 1000; i++) {
+                            if (null == store.getObjectByPath(paths[random.nextInt(paths.length)], USER)) {
+                                throw new IllegalStateException("Path not found!");
+                            }
+                        }
+                        count += 1000;
+                    }
+                    lookups.addAndGet(count);
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        System.out.println(threads + " threads: " + lookups.get() + " lookups in " + seconds + " s ("
+                + (lookups.get() / seconds) + " lookups/s)");
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderList;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.enums.VersioningState;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that a repository is written to a snapshot on shutdown and restored
+ * from it on the next startup.
+ */
+public class PersistenceTest extends AbstractServiceTest {
+
+    private static final String DOCUMENT_TYPE_ID = BaseTypeId.CMIS_DOCUMENT.value();
+    private static final String FOLDER_TYPE_ID = BaseTypeId.CMIS_FOLDER.value();
+
+    private File fPersistenceDir;
+
+    @Override
+    @Before
+    public void setUp() {
+        try {
+            fPersistenceDir = Files.createTempDirectory("inmemory-snapshot").toFile();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        super.setUp();
+    }
+
+    @Override
+    @After
+    public void tearDown() {
+        super.tearDown();
+        File[] files = fPersistenceDir.listFiles();
+        if (null != files) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        fPersistenceDir.delete();
+    }
+
+    @Override
+    protected void addParameters(Map<String, String> parameters) {
+        parameters.put(ConfigConstants.PERSISTENCE_DIR, fPersistenceDir.getAbsolutePath());
+    }
+
+    @Test
+    public void testRestoreOnRestart() {
+        String folderId = createFolder("folder1", fRootFolderId, FOLDER_TYPE_ID);
+        String docId = createDocument("doc1", folderId, DOCUMENT_TYPE_ID, true);
+        createDocument("doc2", folderId, DOCUMENT_TYPE_ID, false);
+
+        restart();
+
+        assertTrue(new File(fPersistenceDir, fRepositoryId + ".snapshot").isFile());
+        getByPath(folderId, "/folder1");
+        getByPath(docId, "/folder1/doc1");
+        verifyContentResult(fObjSvc.getContentStream(fRepositoryId, docId, null, null, null, null));
+
+        ObjectInFolderList children = fNavSvc.getChildren(fRepositoryId, folderId, "*", null, false,
+                IncludeRelationships.NONE, null, false, null, null, null);
+        assertEquals(2, children.getObjects().size());
+
+        ObjectList res = fDiscSvc.query(fRepositoryId, "SELECT * FROM cmis:document WHERE cmis:name = 'doc1'",
+                false, false, IncludeRelationships.NONE, null, BigInteger.valueOf(-1), BigInteger.valueOf(-1),
+                null);
+        assertEquals(1, res.getObjects().size());
+
+        // objects created after the restore must not reuse restored ids
+        String doc3Id = createDocument("doc3", folderId, DOCUMENT_TYPE_ID, true);
+        assertNotNull(doc3Id);
+        assertTrue(!docId.equals(doc3Id));
+        getByPath(docId, "/folder1/doc1");
+    }
+
+    @Test
+    public void testDeleteSurvivesRestart() {
+        String docId = createDocument("doc1", fRootFolderId, DOCUMENT_TYPE_ID, true);
+        restart();
+        fObjSvc.deleteObject(fRepositoryId, docId, true, null);
+        restart();
+
+        ObjectInFolderList children = fNavSvc.getChildren(fRepositoryId, fRootFolderId, "*", null, false,
+                IncludeRelationships.NONE, null, false, null, null, null);
+        assertEquals(0, children.getObjects().size());
+    }
+
+    @Test
+    public void testVersionsSurviveRestart() {
+        String verId = createDocument("verdoc", fRootFolderId, UnitTestTypeSystemCreator.VERSIONED_TYPE,
+                VersioningState.MAJOR, true);
+        Holder<String> idHolder = new Holder<String>(verId);
+        fVerSvc.checkOut(fRepositoryId, idHolder, null, null);
+        fVerSvc.checkIn(fRepositoryId, idHolder, true, null, null, "second", null, null, null, null);
+        String verId2 = idHolder.getValue();
+
+        restart();
+
+        List<ObjectData> versions = fVerSvc.getAllVersions(fRepositoryId, verId, null, "*", false, null);
+        assertEquals(2, versions.size());
+        assertEquals(verId2, versions.get(0).getId());
+        assertEquals(verId, versions.get(1).getId());
+        getByPath(verId2, "/verdoc");
+        ObjectData latest = fObjSvc.getObject(fRepositoryId, verId2, PropertyIds.IS_LATEST_VERSION, false,
+                IncludeRelationships.NONE, null, false, false, null);
+        assertEquals(Boolean.TRUE, latest.getProperties().getProperties().get(PropertyIds.IS_LATEST_VERSION)
+                .getFirstValue());
+    }
+
+    @Test
+    public void testChangesSurviveCrash() throws IOException {
+        String folderId = createFolder("folder1", fRootFolderId, FOLDER_TYPE_ID);
+        String doc1Id = createDocument("doc1", folderId, DOCUMENT_TYPE_ID, true);
+        String doc2Id = createDocument("doc2", folderId, DOCUMENT_TYPE_ID, true);
+        String verId = createDocument("verdoc", fRootFolderId, UnitTestTypeSystemCreator.VERSIONED_TYPE,
+                VersioningState.MAJOR, true);
+        restart();
+
+        // the snapshot written on shutdown contains all changes
+        File snapshot = new File(fPersistenceDir, fRepositoryId + ".snapshot");
+        File log = new File(fPersistenceDir, fRepositoryId + ".log");
+        assertEquals(0, log.length());
+
+        fObjSvc.deleteObject(fRepositoryId, doc2Id, true, null);
+        String doc3Id = createDocument("doc3", folderId, DOCUMENT_TYPE_ID, true);
+        Holder<String> idHolder = new Holder<String>(verId);
+        fVerSvc.checkOut(fRepositoryId, idHolder, null, null);
+        fVerSvc.checkIn(fRepositoryId, idHolder, true, null, null, "second", null, null, null, null);
+        String verId2 = idHolder.getValue();
+        assertTrue(log.length() > 0);
+
+        // stop without a snapshot, the last record was not written completely
+        byte[] snapshotBytes = Files.readAllBytes(snapshot.toPath());
+        byte[] logBytes = Files.readAllBytes(log.toPath());
+        super.tearDown();
+        Files.write(snapshot.toPath(), snapshotBytes);
+        Files.write(log.toPath(), Arrays.copyOf(logBytes, logBytes.length + 5));
+        super.setUp();
+
+        getByPath(doc1Id, "/folder1/doc1");
+        getByPath(doc3Id, "/folder1/doc3");
+        verifyContentResult(fObjSvc.getContentStream(fRepositoryId, doc3Id, null, null, null, null));
+        try {
+            fObjSvc.getObject(fRepositoryId, doc2Id, null, false, IncludeRelationships.NONE, null, false, false,
+                    null);
+            fail("Deleted document was restored.");
+        } catch (CmisObjectNotFoundException e) {
+            // expected
+        }
+        ObjectInFolderList children = fNavSvc.getChildren(fRepositoryId, folderId, "*", null, false,
+                IncludeRelationships.NONE, null, false, null, null, null);
+        assertEquals(2, children.getObjects().size());
+
+        List<ObjectData> versions = fVerSvc.getAllVersions(fRepositoryId, verId, null, "*", false, null);
+        assertEquals(2, versions.size());
+        assertEquals(verId2, versions.get(0).getId());
+        getByPath(verId2, "/verdoc");
+        ObjectData latest = fObjSvc.getObject(fRepositoryId, verId2, PropertyIds.IS_VERSION_SERIES_CHECKED_OUT,
+                false, IncludeRelationships.NONE, null, false, false, null);
+        assertEquals(Boolean.FALSE,
+                latest.getProperties().getProperties().get(PropertyIds.IS_VERSION_SERIES_CHECKED_OUT)
+                        .getFirstValue());
+
+        // the replayed changes are part of the snapshot written on startup
+        assertEquals(0, log.length());
+        assertFalse(new File(fPersistenceDir, fRepositoryId + ".snapshot.tmp").exists());
+    }
+
+    private void restart() {
+        super.tearDown();
+        super.setUp();
+    }
+}
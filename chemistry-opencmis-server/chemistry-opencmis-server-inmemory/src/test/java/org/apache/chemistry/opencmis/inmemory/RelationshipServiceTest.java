@@ -152,6 +152,29 @@ public class RelationshipServiceTest extends AbstractServiceTest {
 
     }
 
+    @Test
+    public void testDeleteRelationship() {
+        List<PropertyData<?>> relProps = createRelationshipProperties(REL_CUSTOM_PROP_VALUE);
+        String id1 = createRelationship("CrossReference1", ObjectServiceTest.TEST_RELATION_TYPE_ID, docId1, targetId,
+                relProps);
+        relProps = createRelationshipProperties(REL_CUSTOM_PROP_VALUE);
+        String id2 = createRelationship("CrossReference2", ObjectServiceTest.TEST_RELATION_TYPE_ID, targetId, docId1,
+                relProps);
+
+        ObjectList objectList = fRelSvc.getObjectRelationships(REPOSITORY_ID, docId1, false,
+                RelationshipDirection.EITHER, null, null, null, null, null, null);
+        assertEquals(2, objectList.getNumItems().longValue());
+
+        fObjSvc.deleteObject(REPOSITORY_ID, id1, true, null);
+        objectList = fRelSvc.getObjectRelationships(REPOSITORY_ID, docId1, false, RelationshipDirection.EITHER,
+                null, null, null, null, null, null);
+        assertEquals(1, objectList.getNumItems().longValue());
+        assertEquals(id2, objectList.getObjects().get(0).getId());
+        objectList = fRelSvc.getObjectRelationships(REPOSITORY_ID, docId1, false, RelationshipDirection.SOURCE,
+                null, null, null, null, null, null);
+        assertEquals(0, objectList.getNumItems().longValue());
+    }
+
     @Test
     public void testRelationToFolder() {
         // test create with a folder as source
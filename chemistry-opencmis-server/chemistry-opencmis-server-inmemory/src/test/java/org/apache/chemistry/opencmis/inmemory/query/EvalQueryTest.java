@@ -31,6 +31,8 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
@@ -42,8 +44,10 @@ import org.apache.chemistry.opencmis.commons.data.PropertyData;
 import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
 import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
 import org.apache.chemistry.opencmis.inmemory.AbstractServiceTest;
 import org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ContentStreamDataImpl;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -53,7 +57,8 @@ import org.slf4j.LoggerFactory;
 public class EvalQueryTest extends AbstractServiceTest {
 
     private static final Logger log = LoggerFactory.getLogger(EvalQueryTest.class);
-    private QueryTestDataCreator dataCreator;
+    protected static final String CHUNKED_TEXT = " And a parrot says Gr\u00FC\u00DFe.";
+    protected QueryTestDataCreator dataCreator;
     static int COUNT = 0;
 
     @Override
@@ -1003,6 +1008,87 @@ public class EvalQueryTest extends AbstractServiceTest {
         log.debug("...Stop testContainsAnd.");
     }
 
+    @Test
+    public void testContainsIgnoresCase() {
+        String statement = "SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('CAT')";
+        ObjectList res = doQuery(statement);
+        assertEquals(3, res.getObjects().size());
+        statement = "SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('\"kitty KATTY\"')";
+        res = doQuery(statement);
+        assertEquals(1, res.getObjects().size());
+        assertTrue(resultContains("beta", res));
+    }
+
+    @Test
+    public void testContainsWholeWords() {
+        String statement = "SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('ca')";
+        ObjectList res = doQuery(statement);
+        assertEquals(0, res.getObjects().size());
+        statement = "SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('\"cat named\" OR \"a dog\"')";
+        res = doQuery(statement);
+        assertEquals(3, res.getObjects().size());
+        assertTrue(resultContains("beta", res));
+        assertTrue(resultContains("gamma", res));
+        assertTrue(resultContains("delta", res));
+    }
+
+    @Test
+    public void testContainsAfterAppend() throws IOException {
+        ObjectList res = doQuery("SELECT cmis:objectId FROM " + COMPLEX_TYPE + " WHERE cmis:name = 'alpha'");
+        String id = (String) res.getObjects().get(0).getProperties().getProperties().get(PropertyIds.OBJECT_ID)
+                .getFirstValue();
+        ContentStreamDataImpl content = new ContentStreamDataImpl(-1);
+        content.setMimeType("text/plain");
+        content.setContent(new ByteArrayInputStream("And a parrot.".getBytes("UTF-8")));
+        fObjSvc.appendContentStream(fRepositoryId, new Holder<String>(id), null, content, true, null);
+
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('parrot')");
+        assertEquals(1, res.getObjects().size());
+        assertTrue(resultContains("alpha", res));
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('\"cat and a parrot\"')");
+        assertEquals(1, res.getObjects().size());
+        assertTrue(resultContains("alpha", res));
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('cat -parrot')");
+        assertEquals(2, res.getObjects().size());
+        assertFalse(resultContains("alpha", res));
+    }
+
+    @Test
+    public void testContainsAfterChunkedAppend() throws IOException {
+        ObjectList res = doQuery("SELECT cmis:objectId FROM " + COMPLEX_TYPE + " WHERE cmis:name = 'alpha'");
+        String id = (String) res.getObjects().get(0).getProperties().getProperties().get(PropertyIds.OBJECT_ID)
+                .getFirstValue();
+        byte[] bytes = CHUNKED_TEXT.getBytes("UTF-8");
+        // the chunks end in the middle of "parrot" and of the UTF-8 sequence of the sharp s
+        appendChunk(id, bytes, 0, 10);
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('par')");
+        assertTrue(resultContains("alpha", res));
+        appendChunk(id, bytes, 10, 24);
+        appendChunk(id, bytes, 24, bytes.length);
+
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('par')");
+        assertFalse(resultContains("alpha", res));
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('\"a parrot says\"')");
+        assertEquals(1, res.getObjects().size());
+        assertTrue(resultContains("alpha", res));
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('\"says gr\u00FC\u00DFe\"')");
+        assertEquals(1, res.getObjects().size());
+        assertTrue(resultContains("alpha", res));
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('\"parrot gr\u00FC\u00DFe\"')");
+        assertEquals(0, res.getObjects().size());
+    }
+
+    protected void appendChunk(String id, byte[] bytes, int start, int end) {
+        ContentStreamDataImpl content = new ContentStreamDataImpl(-1);
+        content.setMimeType("text/plain");
+        try {
+            content.setContent(new ByteArrayInputStream(bytes, start, end - start));
+        } catch (IOException e) {
+            fail(e.getMessage());
+        }
+        fObjSvc.appendContentStream(fRepositoryId, new Holder<String>(id), null, content, end == bytes.length, null);
+    }
+
     @Test
     public void testContainsAndScore() {
         log.debug("Start testContainsAndScore...");
@@ -1147,7 +1233,7 @@ public class EvalQueryTest extends AbstractServiceTest {
         log.debug("...Stop testPredfinedQueryName.");
     }
 
-    private ObjectList doQuery(String queryString) {
+    protected ObjectList doQuery(String queryString) {
         log.debug("\nExecuting query: " + queryString);
         ObjectList res = fDiscSvc.query(fRepositoryId, queryString, false, false, IncludeRelationships.NONE, null,
                 null, null, null);
@@ -1163,7 +1249,7 @@ public class EvalQueryTest extends AbstractServiceTest {
         return res;
     }
 
-    private ObjectList doQueryAllVersions(String queryString) {
+    protected ObjectList doQueryAllVersions(String queryString) {
         log.debug("\nExecuting query: " + queryString);
         ObjectList res = fDiscSvc.query(fRepositoryId, queryString, true, false, IncludeRelationships.NONE, null, null,
                 null, null);
@@ -1175,7 +1261,7 @@ public class EvalQueryTest extends AbstractServiceTest {
         return res;
     }
 
-    private static boolean resultContains(Object value, String propId, ObjectList results) {
+    protected static boolean resultContains(Object value, String propId, ObjectList results) {
         for (ObjectData od : results.getObjects()) {
             PropertyData<?> propData = od.getProperties().getProperties().get(propId);
             if (null != propData) {
@@ -1198,7 +1284,7 @@ public class EvalQueryTest extends AbstractServiceTest {
         return false;
     }
 
-    private static boolean resultContains(String name, ObjectList results) {
+    protected static boolean resultContains(String name, ObjectList results) {
         return resultContains(name, PropertyIds.NAME, results);
     }
 
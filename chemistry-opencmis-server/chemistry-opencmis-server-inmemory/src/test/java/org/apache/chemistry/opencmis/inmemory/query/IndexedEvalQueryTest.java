@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.query;
+
+import static org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator.COMPLEX_TYPE;
+import static org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator.PROP_ID_BOOLEAN;
+import static org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator.PROP_ID_DATETIME;
+import static org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator.PROP_ID_DECIMAL;
+import static org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator.PROP_ID_ID;
+import static org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator.PROP_ID_INT;
+import static org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator.PROP_ID_STRING;
+import static org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator.VERSIONED_TYPE;
+import static org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator.VERSION_PROPERTY_ID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.inmemory.ConfigConstants;
+import org.junit.Test;
+
+/**
+ * Runs all query tests again with indexes on the properties used in the
+ * queries, so that the candidates are taken from the indexes instead of
+ * checking every object.
+ */
+public class IndexedEvalQueryTest extends EvalQueryTest {
+
+    @Override
+    protected void addParameters(Map<String, String> parameters) {
+        parameters.put(ConfigConstants.QUERY_INDEX_SORTED, PROP_ID_INT + ", " + PROP_ID_DECIMAL + ", "
+                + PROP_ID_DATETIME + ", " + PROP_ID_STRING);
+        parameters.put(ConfigConstants.QUERY_INDEX_HASH, PROP_ID_BOOLEAN + ", " + PROP_ID_ID + ", cmis:name");
+    }
+
+    @Test
+    public void testIndexAfterDelete() {
+        ObjectList res = doQuery("SELECT cmis:objectId FROM " + COMPLEX_TYPE + " WHERE cmis:name = 'alpha'");
+        assertEquals(1, res.getObjects().size());
+        String id = (String) res.getObjects().get(0).getProperties().getProperties().get(PropertyIds.OBJECT_ID)
+                .getFirstValue();
+
+        fObjSvc.deleteObject(fRepositoryId, id, true, null);
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE " + PROP_ID_INT + " < 0");
+        assertEquals(1, res.getObjects().size());
+        assertTrue(resultContains("beta", res));
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE " + PROP_ID_INT + " = -100");
+        assertEquals(0, res.getObjects().size());
+    }
+
+    @Test
+    public void testEscapedStringLiterals() {
+        dataCreator.createEscapeTestDocument();
+
+        // hash index
+        ObjectList res = doQuery("SELECT * FROM cmis:document WHERE cmis:name = 'John\\'s Document'");
+        assertEquals(1, res.getObjects().size());
+        assertTrue(resultContains("John's Document", res));
+        res = doQuery("SELECT * FROM cmis:document WHERE cmis:name IN ('John\\'s Document', 'alpha')");
+        assertEquals(2, res.getObjects().size());
+        assertTrue(resultContains("John's Document", res));
+
+        // sorted index
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE " + PROP_ID_STRING + " = 'O\\'Brien \\\\ Co'");
+        assertEquals(1, res.getObjects().size());
+        assertTrue(resultContains("escapedoc", res));
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE " + PROP_ID_STRING + " IN ('O\\'Brien \\\\ Co')");
+        assertEquals(1, res.getObjects().size());
+        assertTrue(resultContains("escapedoc", res));
+    }
+
+    @Test
+    public void testIndexAfterCheckIn() {
+        dataCreator.createVersionedDocument();
+        String statement = "SELECT * FROM " + VERSIONED_TYPE + " WHERE " + VERSION_PROPERTY_ID + " IN ('ver456')";
+        ObjectList res = doQuery(statement);
+        assertEquals(1, res.getObjects().size());
+        assertTrue(resultContains("2.0", PropertyIds.VERSION_LABEL, res));
+
+        statement = "SELECT * FROM " + VERSIONED_TYPE + " WHERE " + VERSION_PROPERTY_ID + " = 'ver123'";
+        res = doQuery(statement);
+        assertEquals(0, res.getObjects().size());
+        res = doQueryAllVersions(statement);
+        assertEquals(1, res.getObjects().size());
+        assertTrue(resultContains("1.0", PropertyIds.VERSION_LABEL, res));
+        assertFalse(resultContains("2.0", PropertyIds.VERSION_LABEL, res));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.apache.chemistry.opencmis.commons.definitions.MutableTypeDefinition;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
+import org.apache.chemistry.opencmis.commons.enums.CmisVersion;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.inmemory.TypeManagerImpl;
+import org.apache.chemistry.opencmis.inmemory.types.DocumentTypeCreationHelper;
+import org.apache.chemistry.opencmis.server.support.query.ParsedQueryCache;
+import org.apache.chemistry.opencmis.server.support.query.QueryObject;
+import org.apache.chemistry.opencmis.server.support.query.QueryUtilStrict;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParsedQueryCacheTest extends AbstractQueryTest {
+
+    private static final String STATEMENT = "SELECT * FROM " + BOOK_TYPE + " WHERE " + ISBN_PROP + " = '100'";
+
+    private TypeManagerImpl tm;
+    private ParsedQueryCache cache;
+
+    @Before
+    public void setUp() {
+        tm = new TypeManagerImpl();
+        tm.initTypeSystem(null, true);
+        List<TypeDefinition> typeDefs = super.createTypes();
+        for (TypeDefinition typeDef : typeDefs) {
+            tm.addTypeDefinition(typeDef, true);
+        }
+        super.setUp(tm, null);
+        cache = new ParsedQueryCache(2);
+    }
+
+    @Test
+    public void testHitAndMiss() {
+        QueryUtilStrict q1 = getQuery(STATEMENT, null);
+        QueryUtilStrict q2 = getQuery(STATEMENT, null);
+        assertSame(q1, q2);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        QueryUtilStrict q3 = getQuery(STATEMENT, QueryObject.ParserMode.MODE_ALLOW_RELAXED_SELECT);
+        assertNotSame(q1, q3);
+        QueryUtilStrict q4 = cache.getQuery(STATEMENT, tm, CmisVersion.CMIS_1_0, null, tm.getTypeSystemVersion());
+        assertNotSame(q1, q4);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testInvalidatedByTypeChange() {
+        QueryUtilStrict q1 = getQuery(STATEMENT, null);
+        MutableTypeDefinition newType = DocumentTypeCreationHelper.getTypeDefinitionFactory()
+                .createChildTypeDefinition(DocumentTypeCreationHelper.getCmisDocumentType(), "NewDocType");
+        tm.addTypeDefinition(newType, true);
+
+        QueryUtilStrict q2 = getQuery(STATEMENT, null);
+        assertNotSame(q1, q2);
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testInvalidStatementNotCached() {
+        for (int i = 0; i < 2; i++) {
+            try {
+                getQuery("SELECT * FROM UnknownType", null);
+                fail("Query with unknown type should fail.");
+            } catch (CmisInvalidArgumentException e) {
+                // expected
+            }
+        }
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.size());
+    }
+
+    private QueryUtilStrict getQuery(String statement, QueryObject.ParserMode mode) {
+        return cache.getQuery(statement, tm, CmisVersion.CMIS_1_1, mode, tm.getTypeSystemVersion());
+    }
+}
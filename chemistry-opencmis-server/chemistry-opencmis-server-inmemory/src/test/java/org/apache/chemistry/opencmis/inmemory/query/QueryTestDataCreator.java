@@ -282,6 +282,17 @@ public class QueryTestDataCreator {
         createDocument("nulldoc", rootFolderId, COMPLEX_TYPE, propertyMap1);
     }
 
+    @SuppressWarnings("serial")
+    public void createEscapeTestDocument() {
+
+        final Map<String, Object> propertyMap1 = new HashMap<String, Object>() {
+            {
+                put(PROP_ID_STRING, "O'Brien \\ Co");
+            }
+        };
+        createDocument("escapedoc", rootFolderId, COMPLEX_TYPE, propertyMap1);
+    }
+
     @SuppressWarnings("serial")
     public void createLikeTestDocuments(String folderId) {
 
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.query;
+
+import static org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator.COMPLEX_TYPE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
+import org.apache.chemistry.opencmis.inmemory.ConfigConstants;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ContentStreamDataImpl;
+import org.junit.Test;
+
+/**
+ * Runs all query tests again with the full text search matching substrings of
+ * the content like versions before 1.2.0 did.
+ */
+public class SubstringEvalQueryTest extends EvalQueryTest {
+
+    @Override
+    protected void addParameters(Map<String, String> parameters) {
+        parameters.put(ConfigConstants.FULLTEXT_SEARCH_SUBSTRING, "true");
+    }
+
+    @Override
+    @Test
+    public void testContainsIgnoresCase() {
+        String statement = "SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('CAT')";
+        ObjectList res = doQuery(statement);
+        assertEquals(0, res.getObjects().size());
+        statement = "SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('\"Kitty Katty\"')";
+        res = doQuery(statement);
+        assertEquals(1, res.getObjects().size());
+        assertTrue(resultContains("beta", res));
+    }
+
+    @Override
+    @Test
+    public void testContainsWholeWords() {
+        String statement = "SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('ca')";
+        ObjectList res = doQuery(statement);
+        assertEquals(3, res.getObjects().size());
+        assertTrue(resultContains("alpha", res));
+        assertTrue(resultContains("beta", res));
+        assertTrue(resultContains("delta", res));
+    }
+
+    @Override
+    @Test
+    public void testContainsAfterAppend() throws IOException {
+        ObjectList res = doQuery("SELECT cmis:objectId FROM " + COMPLEX_TYPE + " WHERE cmis:name = 'alpha'");
+        String id = (String) res.getObjects().get(0).getProperties().getProperties().get(PropertyIds.OBJECT_ID)
+                .getFirstValue();
+        ContentStreamDataImpl content = new ContentStreamDataImpl(-1);
+        content.setMimeType("text/plain");
+        content.setContent(new ByteArrayInputStream("And a parrot.".getBytes("UTF-8")));
+        fObjSvc.appendContentStream(fRepositoryId, new Holder<String>(id), null, content, true, null);
+
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('parrot')");
+        assertEquals(1, res.getObjects().size());
+        assertTrue(resultContains("alpha", res));
+        // substrings are matched as they are, punctuation and case included
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('\"cat and a parrot\"')");
+        assertEquals(0, res.getObjects().size());
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('\"cat.And a parrot\"')");
+        assertEquals(1, res.getObjects().size());
+        assertTrue(resultContains("alpha", res));
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('cat -parrot')");
+        assertEquals(2, res.getObjects().size());
+        assertFalse(resultContains("alpha", res));
+    }
+
+    @Override
+    @Test
+    public void testContainsAfterChunkedAppend() throws IOException {
+        ObjectList res = doQuery("SELECT cmis:objectId FROM " + COMPLEX_TYPE + " WHERE cmis:name = 'alpha'");
+        String id = (String) res.getObjects().get(0).getProperties().getProperties().get(PropertyIds.OBJECT_ID)
+                .getFirstValue();
+        byte[] bytes = CHUNKED_TEXT.getBytes("UTF-8");
+        appendChunk(id, bytes, 0, 10);
+        appendChunk(id, bytes, 10, 24);
+        appendChunk(id, bytes, 24, bytes.length);
+
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('par')");
+        assertTrue(resultContains("alpha", res));
+        res = doQuery("SELECT * FROM " + COMPLEX_TYPE + " WHERE CONTAINS('\"parrot says Gr\u00FC\u00DFe\"')");
+        assertEquals(1, res.getObjects().size());
+        assertTrue(resultContains("alpha", res));
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.support.query;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.chemistry.opencmis.commons.enums.CmisVersion;
+import org.apache.chemistry.opencmis.server.support.TypeManager;
+
+/**
+ * A bounded cache of parsed and validated query statements. Clients often
+ * send the same statement many times, for example to fetch the next page of
+ * a result. The cache avoids running the lexer, parser and tree walker again
+ * for these statements.
+ * <p>
+ * Entries are keyed by statement, CMIS version, parser mode and the version
+ * of the type system. The type system version is provided by the caller and
+ * must change whenever a type is added, modified or deleted, because the
+ * parsed query holds resolved type and property definitions. All entries are
+ * dropped when a new type system version is seen. Only statements that were
+ * processed successfully are cached; the cached {@link QueryUtilStrict}
+ * objects must not be modified by the caller.
+ * <p>
+ * This class is thread safe.
+ */
+public class ParsedQueryCache {
+
+    public static final int DEFAULT_SIZE = 1000;
+
+    private final Map<Key, QueryUtilStrict> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long typeSystemVersion;
+
+    /**
+     * Create a cache with {@link #DEFAULT_SIZE} entries.
+     */
+    public ParsedQueryCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Create a cache.
+     *
+     * @param maxSize
+     *            maximum number of cached statements, the least recently used
+     *            statement is dropped first
+     */
+    public ParsedQueryCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        cache = new LinkedHashMap<Key, QueryUtilStrict>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, QueryUtilStrict> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get a processed query from the cache or parse and walk the statement if
+     * it is not cached.
+     *
+     * @param statement
+     *            query statement
+     * @param tm
+     *            type manager used to resolve the types of the statement
+     * @param cmisVersion
+     *            CMIS version of the request, may be {@code null}
+     * @param mode
+     *            parser mode, {@code null} for the default mode
+     * @param typeSystemVersion
+     *            version of the type system of the type manager
+     * @return processed query, must not be modified
+     * @throws org.apache.chemistry.opencmis.commons.exceptions.CmisBaseException
+     *             if the statement is invalid
+     */
+    public QueryUtilStrict getQuery(String statement, TypeManager tm, CmisVersion cmisVersion,
+            QueryObject.ParserMode mode, long typeSystemVersion) {
+        Key key = new Key(statement, cmisVersion, mode, typeSystemVersion);
+        synchronized (cache) {
+            if (this.typeSystemVersion != typeSystemVersion) {
+                // types have changed, the resolved definitions are stale
+                cache.clear();
+                this.typeSystemVersion = typeSystemVersion;
+            }
+            QueryUtilStrict queryUtil = cache.get(key);
+            if (null != queryUtil) {
+                hits.incrementAndGet();
+                return queryUtil;
+            }
+        }
+
+        misses.incrementAndGet();
+        QueryUtilStrict queryUtil = new QueryUtilStrict(statement, tm, null, true, mode);
+        queryUtil.processStatementUsingCmisExceptions();
+
+        synchronized (cache) {
+            if (this.typeSystemVersion == typeSystemVersion) {
+                cache.put(key, queryUtil);
+            }
+        }
+        return queryUtil;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Get the number of cached statements.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Get the number of requests served from the cache.
+     *
+     * @return number of hits
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of requests that had to parse the statement.
+     *
+     * @return number of misses
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ParsedQueryCache [size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + "]";
+    }
+
+    private static class Key {
+        private final String statement;
+        private final CmisVersion cmisVersion;
+        private final QueryObject.ParserMode mode;
+        private final long typeSystemVersion;
+        private final int hashCode;
+
+        public Key(String statement, CmisVersion cmisVersion, QueryObject.ParserMode mode, long typeSystemVersion) {
+            this.statement = statement;
+            this.cmisVersion = cmisVersion;
+            this.mode = mode;
+            this.typeSystemVersion = typeSystemVersion;
+
+            int h = statement.hashCode();
+            h = 31 * h + (cmisVersion == null ? 0 : cmisVersion.hashCode());
+            h = 31 * h + (mode == null ? 0 : mode.hashCode());
+            h = 31 * h + (int) (typeSystemVersion ^ (typeSystemVersion >>> 32));
+            hashCode = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return typeSystemVersion == other.typeSystemVersion && cmisVersion == other.cmisVersion
+                    && mode == other.mode && statement.equals(other.statement);
+        }
+    }
+}
@@ -0,0 +1,589 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.support.query;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.antlr.runtime.tree.Tree;
+import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
+import org.apache.chemistry.opencmis.commons.enums.Cardinality;
+import org.apache.chemistry.opencmis.commons.enums.PropertyType;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+
+/**
+ * Compiles the WHERE clause of a query into a tree of
+ * {@link CompiledPredicate}s that can be evaluated for many objects without
+ * walking the parse tree again.
+ * <p>
+ * All the work that does not depend on the object is done once during
+ * compilation: column references are resolved to {@link PropertyAccessor}s,
+ * literals are converted to the type of the property they are compared with,
+ * LIKE patterns are compiled to regular expressions and type errors are
+ * reported. A repository provides the access to its objects by implementing
+ * the abstract methods.
+ * <p>
+ * Literals are converted as follows: integer and decimal literals to
+ * {@code BigInteger} or {@code BigDecimal}, string literals are unescaped,
+ * timestamps stay calendars. Property values are expected in the same types
+ * as in the CMIS data objects.
+ *
+ * @param <T>
+ *            type of the objects of the repository
+ */
+public abstract class PredicateCompiler<T> {
+
+    private static final int EQ = 0;
+    private static final int NEQ = 1;
+    private static final int GT = 2;
+    private static final int GTEQ = 3;
+    private static final int LT = 4;
+    private static final int LTEQ = 5;
+
+    private final QueryObject queryObj;
+
+    // only used to read literals
+    private final AbstractPredicateWalker literalWalker = new AbstractPredicateWalker() {
+    };
+
+    protected PredicateCompiler(QueryObject queryObj) {
+        this.queryObj = queryObj;
+    }
+
+    /**
+     * Create an accessor for the property of a column.
+     *
+     * @param colRef
+     *            resolved column reference of the WHERE clause
+     * @return accessor reading the property value of an object
+     */
+    protected abstract PropertyAccessor<T> getPropertyAccessor(ColumnReference colRef);
+
+    /**
+     * Compile IN_FOLDER.
+     *
+     * @param folderId
+     *            id of the folder
+     * @return predicate matching the objects filed in the folder
+     */
+    protected abstract CompiledPredicate<T> compileInFolder(String folderId);
+
+    /**
+     * Compile IN_TREE.
+     *
+     * @param folderId
+     *            id of the folder
+     * @return predicate matching the objects filed in the folder or one of
+     *         its descendants
+     */
+    protected abstract CompiledPredicate<T> compileInTree(String folderId);
+
+    /**
+     * Compile a word or phrase of a CONTAINS expression.
+     *
+     * @param term
+     *            word or phrase without the surrounding quotes, still escaped
+     * @return predicate matching the objects containing the term
+     */
+    protected abstract CompiledPredicate<T> compileTextTerm(String term);
+
+    /**
+     * Compile a WHERE clause.
+     *
+     * @param whereTree
+     *            WHERE clause or {@code null}
+     * @return compiled predicate, matching all objects if there is no WHERE
+     *         clause
+     */
+    public CompiledPredicate<T> compile(Tree whereTree) {
+        if (null == whereTree) {
+            return new CompiledPredicate<T>() {
+                @Override
+                public boolean matches(T object) {
+                    return true;
+                }
+            };
+        }
+        return compilePredicate(whereTree);
+    }
+
+    protected CompiledPredicate<T> compilePredicate(Tree node) {
+        switch (node.getType()) {
+        case CmisQlStrictLexer.NOT:
+            return not(compilePredicate(node.getChild(0)));
+        case CmisQlStrictLexer.AND:
+            return and(compilePredicate(node.getChild(0)), compilePredicate(node.getChild(1)));
+        case CmisQlStrictLexer.OR:
+            return or(compilePredicate(node.getChild(0)), compilePredicate(node.getChild(1)));
+        case CmisQlStrictLexer.EQ:
+            return compileComparison(EQ, node.getChild(0), node.getChild(1));
+        case CmisQlStrictLexer.NEQ:
+            return compileComparison(NEQ, node.getChild(0), node.getChild(1));
+        case CmisQlStrictLexer.GT:
+            return compileComparison(GT, node.getChild(0), node.getChild(1));
+        case CmisQlStrictLexer.GTEQ:
+            return compileComparison(GTEQ, node.getChild(0), node.getChild(1));
+        case CmisQlStrictLexer.LT:
+            return compileComparison(LT, node.getChild(0), node.getChild(1));
+        case CmisQlStrictLexer.LTEQ:
+            return compileComparison(LTEQ, node.getChild(0), node.getChild(1));
+        case CmisQlStrictLexer.IN:
+            return compileIn(node.getChild(0), node.getChild(1), false);
+        case CmisQlStrictLexer.NOT_IN:
+            return compileIn(node.getChild(0), node.getChild(1), true);
+        case CmisQlStrictLexer.IN_ANY:
+            return compileInAny(node.getChild(0), node.getChild(1), false);
+        case CmisQlStrictLexer.NOT_IN_ANY:
+            return compileInAny(node.getChild(0), node.getChild(1), true);
+        case CmisQlStrictLexer.EQ_ANY:
+            return compileEqAny(node.getChild(0), node.getChild(1));
+        case CmisQlStrictLexer.IS_NULL:
+            return compileIsNull(node.getChild(0), true);
+        case CmisQlStrictLexer.IS_NOT_NULL:
+            return compileIsNull(node.getChild(0), false);
+        case CmisQlStrictLexer.LIKE:
+            return compileLike(node.getChild(0), node.getChild(1));
+        case CmisQlStrictLexer.NOT_LIKE:
+            return not(compileLike(node.getChild(0), node.getChild(1)));
+        case CmisQlStrictLexer.CONTAINS:
+            return compileTextSearch(node.getChild(node.getChildCount() - 1));
+        case CmisQlStrictLexer.IN_FOLDER:
+            return compileInFolder(getFolderId(node, "IN_FOLDER"));
+        case CmisQlStrictLexer.IN_TREE:
+            return compileInTree(getFolderId(node, "IN_TREE"));
+        default:
+            return compileOtherPredicate(node);
+        }
+    }
+
+    /** For extensibility. */
+    protected CompiledPredicate<T> compileOtherPredicate(Tree node) {
+        throw new CmisRuntimeException("Unknown node type: " + node.getType() + " (" + node.getText() + ")");
+    }
+
+    protected CompiledPredicate<T> compileTextSearch(Tree node) {
+        switch (node.getType()) {
+        case TextSearchLexer.TEXT_AND:
+            return allOf(compileTextChildren(node));
+        case TextSearchLexer.TEXT_OR:
+            return anyOf(compileTextChildren(node));
+        case TextSearchLexer.TEXT_MINUS:
+            return not(compileTextSearch(node.getChild(0)));
+        case TextSearchLexer.TEXT_SEARCH_WORD_LIT:
+            return compileTextTerm(node.getText());
+        case TextSearchLexer.TEXT_SEARCH_PHRASE_STRING_LIT:
+            String phrase = node.getText();
+            return compileTextTerm(phrase.substring(1, phrase.length() - 1));
+        default:
+            return compileOtherPredicate(node);
+        }
+    }
+
+    private List<CompiledPredicate<T>> compileTextChildren(Tree node) {
+        List<CompiledPredicate<T>> terms = new ArrayList<CompiledPredicate<T>>(node.getChildCount());
+        for (int i = 0; i < node.getChildCount(); i++) {
+            terms.add(compileTextSearch(node.getChild(i)));
+        }
+        return terms;
+    }
+
+    private CompiledPredicate<T> compileComparison(final int op, Tree colNode, Tree literalNode) {
+        ColumnReference colRef = getColumnReference(colNode);
+        PropertyDefinition<?> pd = colRef.getPropertyDefinition();
+        if (pd.getCardinality() != Cardinality.SINGLE) {
+            throw new IllegalStateException(
+                    "You can't query operators <, <=, ==, !=, >=, > on multi-value properties ");
+        }
+        final PropertyType type = pd.getPropertyType();
+        final Object literal = convertLiteral(pd, literalWalker.walkExpr(literalNode));
+        final PropertyAccessor<T> accessor = getPropertyAccessor(colRef);
+        return new CompiledPredicate<T>() {
+            @Override
+            public boolean matches(T object) {
+                Object value = accessor.getValue(object);
+                if (null == value) {
+                    return false;
+                }
+                int cmp = compare(type, value, literal);
+                switch (op) {
+                case EQ:
+                    return cmp == 0;
+                case NEQ:
+                    return cmp != 0;
+                case GT:
+                    return cmp > 0;
+                case GTEQ:
+                    return cmp >= 0;
+                case LT:
+                    return cmp < 0;
+                default:
+                    return cmp <= 0;
+                }
+            }
+        };
+    }
+
+    private CompiledPredicate<T> compileIn(Tree colNode, Tree listNode, final boolean negate) {
+        ColumnReference colRef = getColumnReference(colNode);
+        PropertyDefinition<?> pd = colRef.getPropertyDefinition();
+        if (pd.getCardinality() != Cardinality.SINGLE) {
+            throw new IllegalStateException("Operator IN only is allowed on single-value properties ");
+        }
+        final PropertyType type = pd.getPropertyType();
+        final Object[] literals = convertLiterals(pd, listNode);
+        final PropertyAccessor<T> accessor = getPropertyAccessor(colRef);
+        return new CompiledPredicate<T>() {
+            @Override
+            public boolean matches(T object) {
+                Object value = accessor.getValue(object);
+                if (null == value) {
+                    return false;
+                }
+                return contains(type, literals, value) != negate;
+            }
+        };
+    }
+
+    private CompiledPredicate<T> compileInAny(Tree colNode, Tree listNode, final boolean negate) {
+        ColumnReference colRef = getColumnReference(colNode);
+        PropertyDefinition<?> pd = colRef.getPropertyDefinition();
+        if (pd.getCardinality() != Cardinality.MULTI) {
+            throw new IllegalStateException("Operator ANY...IN only is allowed on multi-value properties ");
+        }
+        final PropertyType type = pd.getPropertyType();
+        final Object[] literals = convertLiterals(pd, listNode);
+        final PropertyAccessor<T> accessor = getPropertyAccessor(colRef);
+        return new CompiledPredicate<T>() {
+            @Override
+            public boolean matches(T object) {
+                Object values = accessor.getValue(object);
+                if (null == values) {
+                    return false;
+                }
+                for (Object value : (List<?>) values) {
+                    if (null != value && contains(type, literals, value)) {
+                        return !negate;
+                    }
+                }
+                return negate;
+            }
+        };
+    }
+
+    private CompiledPredicate<T> compileEqAny(Tree literalNode, Tree colNode) {
+        ColumnReference colRef = getColumnReference(colNode);
+        PropertyDefinition<?> pd = colRef.getPropertyDefinition();
+        if (pd.getCardinality() != Cardinality.MULTI) {
+            throw new IllegalStateException("Operator = ANY only is allowed on multi-value properties ");
+        }
+        final PropertyType type = pd.getPropertyType();
+        final Object[] literals = new Object[] { convertLiteral(pd, literalWalker.walkExpr(literalNode)) };
+        final PropertyAccessor<T> accessor = getPropertyAccessor(colRef);
+        return new CompiledPredicate<T>() {
+            @Override
+            public boolean matches(T object) {
+                Object values = accessor.getValue(object);
+                if (null == values) {
+                    return false;
+                }
+                for (Object value : (List<?>) values) {
+                    if (null != value && contains(type, literals, value)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    private CompiledPredicate<T> compileIsNull(Tree colNode, final boolean isNull) {
+        final PropertyAccessor<T> accessor = getPropertyAccessor(getColumnReference(colNode));
+        return new CompiledPredicate<T>() {
+            @Override
+            public boolean matches(T object) {
+                return (null == accessor.getValue(object)) == isNull;
+            }
+        };
+    }
+
+    private CompiledPredicate<T> compileLike(Tree colNode, Tree stringNode) {
+        Object literal = literalWalker.walkExpr(stringNode);
+        if (!(literal instanceof String)) {
+            throw new IllegalStateException("LIKE operator requires String literal on right hand side.");
+        }
+        ColumnReference colRef = getColumnReference(colNode);
+        PropertyDefinition<?> pd = colRef.getPropertyDefinition();
+        PropertyType propType = pd.getPropertyType();
+        if (propType != PropertyType.STRING && propType != PropertyType.HTML && propType != PropertyType.ID
+                && propType != PropertyType.URI) {
+            throw new IllegalStateException("Property type " + propType.value() + " is not allowed FOR LIKE");
+        }
+        if (pd.getCardinality() != Cardinality.SINGLE) {
+            throw new IllegalStateException("LIKE is not allowed for multi-value properties ");
+        }
+        final Pattern pattern = Pattern.compile(translatePattern((String) literal));
+        final PropertyAccessor<T> accessor = getPropertyAccessor(colRef);
+        return new CompiledPredicate<T>() {
+            @Override
+            public boolean matches(T object) {
+                Object value = accessor.getValue(object);
+                return null != value && pattern.matcher((String) value).matches();
+            }
+        };
+    }
+
+    private String getFolderId(Tree node, String function) {
+        if (node.getChildCount() > 1) {
+            Tree qualNode = node.getChild(0);
+            if (null == queryObj.getTypeQueryName(qualNode.getText())) {
+                throw new IllegalStateException("Inavlid type in IN_FOLDER() or IN_TREE(), must be in FROM list: "
+                        + qualNode.getText());
+            }
+        }
+        Object folderId = literalWalker.walkExpr(node.getChild(node.getChildCount() - 1));
+        if (!(folderId instanceof String)) {
+            throw new IllegalStateException("Folder id in " + function + " must be of type String");
+        }
+        return (String) folderId;
+    }
+
+    protected ColumnReference getColumnReference(Tree columnNode) {
+        CmisSelector sel = queryObj.getColumnReference(columnNode.getTokenStartIndex());
+        if (null == sel) {
+            throw new IllegalStateException("Unknown property query name " + columnNode.getChild(0));
+        } else if (sel instanceof ColumnReference) {
+            return (ColumnReference) sel;
+        } else {
+            throw new IllegalStateException("Unexpected numerical value function in where clause");
+        }
+    }
+
+    private Object[] convertLiterals(PropertyDefinition<?> pd, Tree listNode) {
+        List<?> list = (List<?>) literalWalker.walkExpr(listNode);
+        Object[] literals = new Object[list.size()];
+        for (int i = 0; i < literals.length; i++) {
+            literals[i] = convertLiteral(pd, list.get(i));
+        }
+        return literals;
+    }
+
+    /**
+     * Convert a literal of the query to the type of the values of a
+     * property.
+     *
+     * @param pd
+     *            definition of the property the literal is compared with
+     * @param literal
+     *            literal as returned by {@link AbstractPredicateWalker}
+     * @return converted literal
+     * @throws CmisInvalidArgumentException
+     *             if the literal cannot be compared with the property
+     */
+    protected Object convertLiteral(PropertyDefinition<?> pd, Object literal) {
+        switch (pd.getPropertyType()) {
+        case BOOLEAN:
+            if (literal instanceof Boolean) {
+                return literal;
+            }
+            break;
+        case INTEGER:
+            if (literal instanceof Long) {
+                return BigInteger.valueOf((Long) literal);
+            } else if (literal instanceof Double) {
+                return BigDecimal.valueOf((Double) literal);
+            }
+            break;
+        case DECIMAL:
+            if (literal instanceof Long) {
+                return BigDecimal.valueOf((Long) literal);
+            } else if (literal instanceof Double) {
+                return BigDecimal.valueOf((Double) literal);
+            }
+            break;
+        case DATETIME:
+            if (literal instanceof Calendar) {
+                return literal;
+            }
+            break;
+        case STRING:
+            if (literal instanceof String) {
+                String unescaped = StringUtil.unescape((String) literal, null);
+                if (null == unescaped) {
+                    throw new CmisInvalidArgumentException("Illegal escape sequence in string literal " + literal);
+                }
+                return unescaped;
+            }
+            break;
+        default:
+            if (literal instanceof String) {
+                return literal;
+            }
+            break;
+        }
+        throw new CmisInvalidArgumentException("Incompatible Types to compare: " + pd.getId() + " and " + literal);
+    }
+
+    /**
+     * Compare a property value with a converted literal.
+     *
+     * @param type
+     *            type of the property
+     * @param value
+     *            property value, not {@code null}
+     * @param literal
+     *            literal returned by
+     *            {@link #convertLiteral(PropertyDefinition, Object)}
+     * @return a negative number, zero or a positive number if the value is
+     *         less than, equal to or greater than the literal
+     */
+    @SuppressWarnings("unchecked")
+    protected int compare(PropertyType type, Object value, Object literal) {
+        switch (type) {
+        case INTEGER:
+        case DECIMAL:
+            if (value instanceof BigInteger && literal instanceof BigInteger) {
+                return ((BigInteger) value).compareTo((BigInteger) literal);
+            }
+            return toBigDecimal(value).compareTo(toBigDecimal(literal));
+        case DATETIME:
+            long millis = ((Calendar) value).getTimeInMillis();
+            long literalMillis = ((Calendar) literal).getTimeInMillis();
+            return millis < literalMillis ? -1 : (millis == literalMillis ? 0 : 1);
+        default:
+            return ((Comparable<Object>) value).compareTo(literal);
+        }
+    }
+
+    private boolean contains(PropertyType type, Object[] literals, Object value) {
+        for (Object literal : literals) {
+            if (compare(type, value, literal) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BigDecimal toBigDecimal(Object number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        } else if (number instanceof BigInteger) {
+            return new BigDecimal((BigInteger) number);
+        } else if (number instanceof Double || number instanceof Float) {
+            return BigDecimal.valueOf(((Number) number).doubleValue());
+        } else {
+            return BigDecimal.valueOf(((Number) number).longValue());
+        }
+    }
+
+    /**
+     * Translate the wildcards of a LIKE pattern, % and _, to the Java regular
+     * expression syntax. Wildcards escaped with a backslash are kept.
+     *
+     * @param wildcardString
+     *            LIKE pattern
+     * @return regular expression
+     */
+    public static String translatePattern(String wildcardString) {
+        String regex = translateWildcard(wildcardString, '%', ".*");
+        return translateWildcard(regex, '_', ".");
+    }
+
+    private static String translateWildcard(String wildcard, char c, String replacement) {
+        StringBuilder res = new StringBuilder();
+        int start = 0;
+        int index = 0;
+        while (index >= 0) {
+            index = wildcard.indexOf(c, start);
+            if (index < 0) {
+                res.append(wildcard.substring(start));
+            } else if (index == 0 || wildcard.charAt(index - 1) != '\\') {
+                res.append(wildcard.substring(start, index));
+                res.append(replacement);
+            } else {
+                res.append(wildcard.substring(start, index + 1));
+            }
+            start = index + 1;
+        }
+        return res.toString();
+    }
+
+    private static <T> CompiledPredicate<T> not(final CompiledPredicate<T> predicate) {
+        return new CompiledPredicate<T>() {
+            @Override
+            public boolean matches(T object) {
+                return !predicate.matches(object);
+            }
+        };
+    }
+
+    private static <T> CompiledPredicate<T> and(final CompiledPredicate<T> left, final CompiledPredicate<T> right) {
+        return new CompiledPredicate<T>() {
+            @Override
+            public boolean matches(T object) {
+                return left.matches(object) && right.matches(object);
+            }
+        };
+    }
+
+    private static <T> CompiledPredicate<T> or(final CompiledPredicate<T> left, final CompiledPredicate<T> right) {
+        return new CompiledPredicate<T>() {
+            @Override
+            public boolean matches(T object) {
+                return left.matches(object) || right.matches(object);
+            }
+        };
+    }
+
+    private static <T> CompiledPredicate<T> allOf(List<CompiledPredicate<T>> terms) {
+        @SuppressWarnings("unchecked")
+        final CompiledPredicate<T>[] termArray = terms.toArray(new CompiledPredicate[terms.size()]);
+        return new CompiledPredicate<T>() {
+            @Override
+            public boolean matches(T object) {
+                for (CompiledPredicate<T> term : termArray) {
+                    if (!term.matches(object)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    private static <T> CompiledPredicate<T> anyOf(List<CompiledPredicate<T>> terms) {
+        @SuppressWarnings("unchecked")
+        final CompiledPredicate<T>[] termArray = terms.toArray(new CompiledPredicate[terms.size()]);
+        return new CompiledPredicate<T>() {
+            @Override
+            public boolean matches(T object) {
+                for (CompiledPredicate<T> term : termArray) {
+                    if (term.matches(object)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+}
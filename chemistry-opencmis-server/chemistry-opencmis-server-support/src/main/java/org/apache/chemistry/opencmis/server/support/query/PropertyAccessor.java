@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.support.query;
+
+/**
+ * Reads the value of one property from the objects of a repository. Created
+ * once per column of a WHERE clause by
+ * {@link PredicateCompiler#getPropertyAccessor(ColumnReference)}.
+ *
+ * @param <T>
+ *            type of the objects of the repository
+ */
+public interface PropertyAccessor<T> {
+
+    /**
+     * Get the value of the property.
+     *
+     * @param object
+     *            object to read the property from
+     * @return the value for single value properties, a {@code List} of values
+     *         for multi value properties or {@code null} if the property is
+     *         not set
+     */
+    Object getValue(T object);
+}
@@ -43,6 +43,7 @@ import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
 import org.apache.chemistry.opencmis.commons.enums.RelationshipDirection;
 import org.apache.chemistry.opencmis.commons.enums.UnfileObject;
 import org.apache.chemistry.opencmis.commons.enums.VersioningState;
+import org.apache.chemistry.opencmis.commons.server.BatchObjectInfoCmisService;
 import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
 import org.apache.chemistry.opencmis.commons.server.ObjectInfo;
@@ -56,7 +57,8 @@ import org.apache.chemistry.opencmis.commons.spi.Holder;
  * derived from this class and must provide a constructor that takes a
  * {@link CmisService} object as the sole parameter.
  */
-public abstract class AbstractCmisServiceWrapper implements CallContextAwareCmisService, ProgressControlCmisService {
+public abstract class AbstractCmisServiceWrapper implements CallContextAwareCmisService, ProgressControlCmisService,
+        BatchObjectInfoCmisService {
 
     private CmisService service;
     private CallContext context;
@@ -471,6 +473,20 @@ public abstract class AbstractCmisServiceWrapper implements CallContextAwareCmis
         return service.getObjectInfo(repositoryId, objectId);
     }
 
+    @Override
+    public void compileObjectInfos(String repositoryId, ObjectInFolderList children) {
+        if (service instanceof BatchObjectInfoCmisService) {
+            ((BatchObjectInfoCmisService) service).compileObjectInfos(repositoryId, children);
+        }
+    }
+
+    @Override
+    public void compileObjectInfos(String repositoryId, ObjectList objects) {
+        if (service instanceof BatchObjectInfoCmisService) {
+            ((BatchObjectInfoCmisService) service).compileObjectInfos(repositoryId, objects);
+        }
+    }
+
     @Override
     public void close() {
         service.close();
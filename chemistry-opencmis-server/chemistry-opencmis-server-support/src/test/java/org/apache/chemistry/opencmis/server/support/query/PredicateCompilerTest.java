@@ -0,0 +1,443 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.support.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import org.apache.chemistry.opencmis.commons.definitions.MutableDocumentTypeDefinition;
+import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionContainer;
+import org.apache.chemistry.opencmis.commons.enums.Cardinality;
+import org.apache.chemistry.opencmis.commons.enums.CmisVersion;
+import org.apache.chemistry.opencmis.commons.enums.PropertyType;
+import org.apache.chemistry.opencmis.commons.enums.Updatability;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.TypeDefinitionContainerImpl;
+import org.apache.chemistry.opencmis.server.support.TypeDefinitionFactory;
+import org.apache.chemistry.opencmis.server.support.TypeManager;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link PredicateCompiler} with objects that are simple maps from
+ * property ids to values.
+ */
+public class PredicateCompilerTest {
+
+    private static final String PARENT = "parent";
+    private static final String ANCESTORS = "ancestors";
+    private static final String TEXT = "text";
+
+    private TypeManager typeManager;
+
+    @Before
+    public void setUp() {
+        TypeDefinitionFactory tdf = TypeDefinitionFactory.newInstance();
+        MutableDocumentTypeDefinition docType = tdf.createBaseDocumentTypeDefinition(CmisVersion.CMIS_1_1);
+        addProperty(tdf, docType, "test:string", PropertyType.STRING, Cardinality.SINGLE);
+        addProperty(tdf, docType, "test:strings", PropertyType.STRING, Cardinality.MULTI);
+        addProperty(tdf, docType, "test:integer", PropertyType.INTEGER, Cardinality.SINGLE);
+        addProperty(tdf, docType, "test:decimal", PropertyType.DECIMAL, Cardinality.SINGLE);
+        addProperty(tdf, docType, "test:boolean", PropertyType.BOOLEAN, Cardinality.SINGLE);
+        addProperty(tdf, docType, "test:datetime", PropertyType.DATETIME, Cardinality.SINGLE);
+        addProperty(tdf, docType, "test:id", PropertyType.ID, Cardinality.SINGLE);
+        typeManager = new SingleTypeManager(docType);
+    }
+
+    @Test
+    public void testNoWhereClause() {
+        CompiledPredicate<Map<String, Object>> predicate = compile("SELECT * FROM cmis:document");
+
+        assertTrue(predicate.matches(object()));
+    }
+
+    @Test
+    public void testIntegerLiterals() {
+        CompiledPredicate<Map<String, Object>> predicate = where("test:integer = 42");
+
+        assertTrue(predicate.matches(object("test:integer", BigInteger.valueOf(42))));
+        assertFalse(predicate.matches(object("test:integer", BigInteger.valueOf(43))));
+        assertFalse(predicate.matches(object()));
+
+        // decimal literal compared with an integer property
+        predicate = where("test:integer < 42.5");
+
+        assertTrue(predicate.matches(object("test:integer", BigInteger.valueOf(42))));
+        assertFalse(predicate.matches(object("test:integer", BigInteger.valueOf(43))));
+    }
+
+    @Test
+    public void testDecimalLiterals() {
+        CompiledPredicate<Map<String, Object>> predicate = where("test:decimal >= 1");
+
+        assertTrue(predicate.matches(object("test:decimal", new BigDecimal("1.00"))));
+        assertTrue(predicate.matches(object("test:decimal", new BigDecimal("1.5"))));
+        assertFalse(predicate.matches(object("test:decimal", new BigDecimal("0.99"))));
+
+        predicate = where("test:decimal <> 2.5");
+
+        assertTrue(predicate.matches(object("test:decimal", new BigDecimal("2.4"))));
+        assertFalse(predicate.matches(object("test:decimal", new BigDecimal("2.50"))));
+    }
+
+    @Test
+    public void testStringLiterals() {
+        CompiledPredicate<Map<String, Object>> predicate = where("test:string = 'it\\'s'");
+
+        assertTrue(predicate.matches(object("test:string", "it's")));
+        assertFalse(predicate.matches(object("test:string", "it\\'s")));
+
+        predicate = where("test:string > 'b'");
+
+        assertTrue(predicate.matches(object("test:string", "c")));
+        assertFalse(predicate.matches(object("test:string", "a")));
+    }
+
+    @Test
+    public void testBooleanAndIdLiterals() {
+        CompiledPredicate<Map<String, Object>> predicate = where("test:boolean = TRUE");
+
+        assertTrue(predicate.matches(object("test:boolean", Boolean.TRUE)));
+        assertFalse(predicate.matches(object("test:boolean", Boolean.FALSE)));
+
+        predicate = where("test:id = 'abc'");
+
+        assertTrue(predicate.matches(object("test:id", "abc")));
+        assertFalse(predicate.matches(object("test:id", "abd")));
+    }
+
+    @Test
+    public void testDateTimeLiterals() {
+        CompiledPredicate<Map<String, Object>> predicate = where(
+                "test:datetime < TIMESTAMP '2010-01-01T00:00:00.000Z'");
+
+        assertTrue(predicate.matches(object("test:datetime", calendar(2009))));
+        assertFalse(predicate.matches(object("test:datetime", calendar(2011))));
+    }
+
+    @Test
+    public void testIncompatibleLiterals() {
+        assertWhereFails("test:integer = 'abc'");
+        assertWhereFails("test:boolean = 1");
+        assertWhereFails("test:string = 1");
+    }
+
+    @Test
+    public void testLike() {
+        CompiledPredicate<Map<String, Object>> predicate = where("test:string LIKE 'a%c_'");
+
+        assertTrue(predicate.matches(object("test:string", "acd")));
+        assertTrue(predicate.matches(object("test:string", "abbbcd")));
+        assertFalse(predicate.matches(object("test:string", "abc")));
+        assertFalse(predicate.matches(object()));
+
+        predicate = where("test:string NOT LIKE 'a%'");
+
+        assertTrue(predicate.matches(object("test:string", "ba")));
+        assertFalse(predicate.matches(object("test:string", "ab")));
+    }
+
+    @Test
+    public void testTranslatePattern() {
+        assertEquals(".*", PredicateCompiler.translatePattern("%"));
+        assertEquals("a.c", PredicateCompiler.translatePattern("a_c"));
+        assertEquals("a.*b.", PredicateCompiler.translatePattern("a%b_"));
+        assertEquals("a\\%b\\_", PredicateCompiler.translatePattern("a\\%b\\_"));
+    }
+
+    @Test
+    public void testIn() {
+        CompiledPredicate<Map<String, Object>> predicate = where("test:string IN ('a', 'b')");
+
+        assertTrue(predicate.matches(object("test:string", "a")));
+        assertTrue(predicate.matches(object("test:string", "b")));
+        assertFalse(predicate.matches(object("test:string", "c")));
+        assertFalse(predicate.matches(object()));
+
+        predicate = where("test:integer NOT IN (1, 2)");
+
+        assertTrue(predicate.matches(object("test:integer", BigInteger.valueOf(3))));
+        assertFalse(predicate.matches(object("test:integer", BigInteger.ONE)));
+        assertFalse(predicate.matches(object()));
+    }
+
+    @Test
+    public void testAny() {
+        CompiledPredicate<Map<String, Object>> predicate = where("ANY test:strings IN ('a', 'b')");
+
+        assertTrue(predicate.matches(object("test:strings", Arrays.asList("x", "b"))));
+        assertFalse(predicate.matches(object("test:strings", Arrays.asList("x", "y"))));
+        assertFalse(predicate.matches(object()));
+
+        predicate = where("ANY test:strings NOT IN ('a', 'b')");
+
+        assertTrue(predicate.matches(object("test:strings", Arrays.asList("x", "y"))));
+        assertFalse(predicate.matches(object("test:strings", Arrays.asList("x", "a"))));
+
+        predicate = where("'b' = ANY test:strings");
+
+        assertTrue(predicate.matches(object("test:strings", Arrays.asList("a", "b"))));
+        assertFalse(predicate.matches(object("test:strings", Collections.singletonList("a"))));
+    }
+
+    @Test
+    public void testCardinalityChecks() {
+        assertWhereFails("test:strings = 'a'");
+        assertWhereFails("test:strings IN ('a')");
+        assertWhereFails("ANY test:string IN ('a')");
+        assertWhereFails("'a' = ANY test:string");
+        assertWhereFails("test:integer LIKE 'a%'");
+    }
+
+    @Test
+    public void testIsNull() {
+        CompiledPredicate<Map<String, Object>> predicate = where("test:string IS NULL");
+
+        assertTrue(predicate.matches(object()));
+        assertFalse(predicate.matches(object("test:string", "a")));
+
+        predicate = where("test:string IS NOT NULL");
+
+        assertFalse(predicate.matches(object()));
+        assertTrue(predicate.matches(object("test:string", "a")));
+    }
+
+    @Test
+    public void testBooleanOperators() {
+        CompiledPredicate<Map<String, Object>> predicate = where(
+                "test:string = 'a' AND NOT (test:integer = 1 OR test:integer = 2)");
+
+        assertTrue(predicate.matches(object("test:string", "a", "test:integer", BigInteger.valueOf(3))));
+        assertFalse(predicate.matches(object("test:string", "a", "test:integer", BigInteger.valueOf(2))));
+        assertFalse(predicate.matches(object("test:string", "b", "test:integer", BigInteger.valueOf(3))));
+    }
+
+    @Test
+    public void testFolderPredicates() {
+        CompiledPredicate<Map<String, Object>> predicate = where("IN_FOLDER('f1')");
+
+        assertTrue(predicate.matches(object(PARENT, "f1")));
+        assertFalse(predicate.matches(object(PARENT, "f2")));
+
+        predicate = where("IN_TREE('f1')");
+
+        assertTrue(predicate.matches(object(ANCESTORS, Arrays.asList("f2", "f1"))));
+        assertFalse(predicate.matches(object(ANCESTORS, Arrays.asList("f2", "f3"))));
+    }
+
+    @Test
+    public void testTextSearchWords() {
+        CompiledPredicate<Map<String, Object>> predicate = where("CONTAINS('cat dog')");
+
+        assertTrue(predicate.matches(object(TEXT, "cat and dog")));
+        assertFalse(predicate.matches(object(TEXT, "cat")));
+        assertFalse(predicate.matches(object(TEXT, "dog")));
+    }
+
+    @Test
+    public void testTextSearchOr() {
+        CompiledPredicate<Map<String, Object>> predicate = where("CONTAINS('cat OR dog')");
+
+        assertTrue(predicate.matches(object(TEXT, "cat")));
+        assertTrue(predicate.matches(object(TEXT, "dog")));
+        assertFalse(predicate.matches(object(TEXT, "bird")));
+    }
+
+    @Test
+    public void testTextSearchMinusAndPhrase() {
+        CompiledPredicate<Map<String, Object>> predicate = where("CONTAINS('cat -dog')");
+
+        assertTrue(predicate.matches(object(TEXT, "cat")));
+        assertFalse(predicate.matches(object(TEXT, "cat and dog")));
+
+        predicate = where("CONTAINS('\"black cat\"')");
+
+        assertTrue(predicate.matches(object(TEXT, "a black cat")));
+        assertFalse(predicate.matches(object(TEXT, "a black and white cat")));
+    }
+
+    // ---- helpers ----
+
+    private CompiledPredicate<Map<String, Object>> compile(String statement) {
+        QueryUtilStrict queryUtil = new QueryUtilStrict(statement, typeManager, null, true);
+        queryUtil.processStatementUsingCmisExceptions();
+
+        return new MapPredicateCompiler(queryUtil.getQueryObject()).compile(queryUtil.getWalker()
+                .getWherePredicateTree());
+    }
+
+    private CompiledPredicate<Map<String, Object>> where(String whereClause) {
+        return compile("SELECT * FROM cmis:document WHERE " + whereClause);
+    }
+
+    private void assertWhereFails(String whereClause) {
+        try {
+            where(whereClause);
+            fail("Compiling should fail: " + whereClause);
+        } catch (CmisInvalidArgumentException e) {
+            // expected
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static Map<String, Object> object(Object... keysAndValues) {
+        Map<String, Object> result = new HashMap<String, Object>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            result.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return result;
+    }
+
+    private static GregorianCalendar calendar(int year) {
+        GregorianCalendar result = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        result.clear();
+        result.set(year, 5, 1);
+        return result;
+    }
+
+    private static void addProperty(TypeDefinitionFactory tdf, MutableDocumentTypeDefinition type, String id,
+            PropertyType propertyType, Cardinality cardinality) {
+        type.addPropertyDefinition(tdf.createPropertyDefinition(id, id, null, propertyType, cardinality,
+                Updatability.READWRITE, false, false, true, true));
+    }
+
+    private static class MapPredicateCompiler extends PredicateCompiler<Map<String, Object>> {
+
+        public MapPredicateCompiler(QueryObject queryObj) {
+            super(queryObj);
+        }
+
+        @Override
+        protected PropertyAccessor<Map<String, Object>> getPropertyAccessor(ColumnReference colRef) {
+            final String propertyId = colRef.getPropertyId();
+            return new PropertyAccessor<Map<String, Object>>() {
+                @Override
+                public Object getValue(Map<String, Object> object) {
+                    return object.get(propertyId);
+                }
+            };
+        }
+
+        @Override
+        protected CompiledPredicate<Map<String, Object>> compileInFolder(final String folderId) {
+            return new CompiledPredicate<Map<String, Object>>() {
+                @Override
+                public boolean matches(Map<String, Object> object) {
+                    return folderId.equals(object.get(PARENT));
+                }
+            };
+        }
+
+        @Override
+        protected CompiledPredicate<Map<String, Object>> compileInTree(final String folderId) {
+            return new CompiledPredicate<Map<String, Object>>() {
+                @Override
+                public boolean matches(Map<String, Object> object) {
+                    List<?> ancestors = (List<?>) object.get(ANCESTORS);
+                    return null != ancestors && ancestors.contains(folderId);
+                }
+            };
+        }
+
+        @Override
+        protected CompiledPredicate<Map<String, Object>> compileTextTerm(String term) {
+            final String text = StringUtil.unescape(term, "\\'-");
+            return new CompiledPredicate<Map<String, Object>>() {
+                @Override
+                public boolean matches(Map<String, Object> object) {
+                    String content = (String) object.get(TEXT);
+                    return null != content && content.contains(text);
+                }
+            };
+        }
+    }
+
+    private static class SingleTypeManager implements TypeManager {
+
+        private final TypeDefinition type;
+
+        public SingleTypeManager(TypeDefinition type) {
+            this.type = type;
+        }
+
+        @Override
+        public TypeDefinitionContainer getTypeById(String typeId) {
+            return type.getId().equals(typeId) ? new TypeDefinitionContainerImpl(type) : null;
+        }
+
+        @Override
+        public TypeDefinition getTypeByQueryName(String typeQueryName) {
+            return type.getQueryName().equals(typeQueryName) ? type : null;
+        }
+
+        @Override
+        public Collection<TypeDefinitionContainer> getTypeDefinitionList() {
+            return getRootTypes();
+        }
+
+        @Override
+        public List<TypeDefinitionContainer> getRootTypes() {
+            List<TypeDefinitionContainer> result = new ArrayList<TypeDefinitionContainer>();
+            result.add(new TypeDefinitionContainerImpl(type));
+            return result;
+        }
+
+        @Override
+        public String getPropertyIdForQueryName(TypeDefinition typeDefinition, String propQueryName) {
+            for (PropertyDefinition<?> pd : typeDefinition.getPropertyDefinitions().values()) {
+                if (pd.getQueryName().equals(propQueryName)) {
+                    return pd.getId();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void addTypeDefinition(TypeDefinition typeDefinition, boolean addInheritedProperties) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void updateTypeDefinition(TypeDefinition typeDefinition) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void deleteTypeDefinition(String typeId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}